@@ -1,6 +1,7 @@
 package com.obee.redis.demo.annotation;
 
 import java.lang.annotation.*;
+import java.util.concurrent.TimeUnit;
 
 /**
  * @description:
@@ -22,4 +23,30 @@ public @interface CacheControl {
      * 是否只读不写？（扩展属性，可选）
      */
     boolean readOnly() default false;
+
+    /**
+     * 是否缓存整个 HTTP 响应（仅 GET）
+     * 命中时直接把 Redis 中的响应字节写到输出流，不经过 DTO 反序列化与消息转换
+     * 同时输出内容哈希 ETag，If-None-Match 匹配时返回 304
+     */
+    boolean responseCache() default false;
+
+    /**
+     * 响应缓存的过期时间
+     */
+    long ttl() default 60;
+
+    TimeUnit timeUnit() default TimeUnit.SECONDS;
+
+    /**
+     * 响应缓存对应的实体类型（与 @KaimingCache.entity 相同的名称）
+     * 该实体的失效事件会同时删除这个接口的响应缓存（路径中的实体 ID 由 entityId 指定，见 ResponseCacheInvalidation）
+     * 为空时响应缓存只靠 ttl 过期
+     */
+    String entity() default "";
+
+    /**
+     * 路径中实体 ID 的变量名，必须绑定到方法的第一个参数（@PathVariable）
+     */
+    String entityId() default "id";
 }
@@ -0,0 +1,22 @@
+package com.obee.redis.demo.annotation;
+
+import java.time.Duration;
+
+/**
+ * @description:
+ * @author: Guanwf
+ * @date: 2026/10/19 09:12
+ *
+ *  * 单值过期时间契约接口
+ *  * 让方法返回值自己决定缓存多久（例如：状态为“已完结”的数据可以缓存更久）
+ *  * 注意：方法名刻意不用 getXxx，避免被 Jackson 当成属性写进 Redis
+ *
+ */
+public interface CacheTtlAware {
+    /**
+     * 当前值的缓存时长
+     * @return 大于 0 的时长：覆盖 @KaimingCache 上配置的过期时间（仍会叠加抖动）
+     *         null 或 非正数：沿用注解配置
+     */
+    Duration cacheTtl();
+}
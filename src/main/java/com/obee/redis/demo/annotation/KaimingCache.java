@@ -19,9 +19,43 @@ public @interface KaimingCache {
      *
      * 支持 自定义函数: "'search:' + #hash(#req)"
      * 支持 环境变量: "${app.cache.prefix} + #id"
+     * 支持 集群 hash tag: "'user:' + #tag(#id) + ':info'" -> "user:{1001}:info"（同一实体的 Key 落在同一 slot）
      */
     String key();
 
+    /**
+     * 缓存条件（SpEL，可引用方法参数），为 false 时完全不走缓存：不生成 Key、不读、不写，直接执行方法
+     * 例如："#id > 0L"、"#query.page < 10"
+     */
+    String condition() default "";
+
+    /**
+     * 否决写入（SpEL，可引用方法参数与 #result），为 true 时本次结果不写入缓存（读取不受影响）
+     * 例如："#result == null"、"#result.items.size() > 1000"
+     * 与 condition 一样启动时解析，按方法编译为字节码（SpelCompilerMode.MIXED）
+     * 比较两侧类型不一致时（例如 Long 参数与 int 常量 0）无法编译、只能解释执行，应写成 "#id > 0L"
+     */
+    String unless() default "";
+
+    /**
+     * 单个值序列化后的最大字节数，超过时不写入，0 表示不限制
+     * 仅对 BLOB 存储生效；按缓存名统一告警见 app.cache.specs.{name}.max-value-size
+     */
+    long maxValueBytes() default 0;
+
+    /**
+     * 缓存名（用于指标分组与统一配置），默认 "类名.方法名"
+     * 配置了 app.cache.specs.{cacheName}.ttl 时，优先级：timeoutString > 缓存名配置 > timeout
+     */
+    String cacheName() default "";
+
+    /**
+     * 缓存依赖的实体类型（例如 "user"），用于事件驱动失效
+     * 收到该实体的变更事件时，用实体 ID 作为方法第一个参数重新计算 key 并删除
+     * 见 InvalidationPublisher#publish
+     */
+    String entity() default "";
+
     /**
      * 过期时间，默认 60 秒
      */
@@ -45,4 +79,120 @@ public @interface KaimingCache {
      */
     boolean random() default true;
 
+    /**
+     * 抖动策略名称，对应 JitterStrategy#name()
+     * 内置: "percent"（均匀分布）、"exponential"（指数分布，大部分落在前段，少量拉长）
+     * 仅在 random() = true 时生效
+     */
+    String jitter() default "percent";
+
+    /**
+     * 抖动幅度（相对 timeout 的比例），默认 0.2 即最多增加 20%
+     */
+    double jitterRatio() default 0.2;
+
+    /**
+     * 是否自适应过期（见 AdaptiveTtlTracker）
+     * 按缓存名统计每个 Key 的更新频率（删除 / 失效 / 版本覆盖）与访问频率，每次写入在 [minTtl, maxTtl] 内选择 TTL：
+     * 经常变化的 Key 取平均更新间隔的一半，稳定的热点 Key 取 maxTtl，其余取基础 TTL；抖动在选择结果上叠加
+     * 返回值实现 CacheTtlAware 时仍以其 TTL 为准
+     */
+    boolean adaptiveTtl() default false;
+
+    /**
+     * 自适应过期的下限（单位 timeUnit），0 表示基础 TTL 的 1/10
+     */
+    long minTtl() default 0;
+
+    /**
+     * 自适应过期的上限（单位 timeUnit），0 表示基础 TTL 的 4 倍
+     */
+    long maxTtl() default 0;
+
+    /**
+     * 是否滑动过期
+     * 如果为 true，每次命中都会把 key 的过期时间重新续到 timeout（EXPIRE 批量异步提交）
+     */
+    boolean sliding() default false;
+
+    /**
+     * 存储结构，默认整体 JSON
+     * HASH：按字段拆分为 Redis Hash，便于 HMGET 投影读取与部分字段 HSET 更新（见 RedisService#hGetFields / #hUpdateFields）
+     * 适合字段多、经常只读/只改少数字段的宽对象；返回值必须是 Bean 或 Map
+     */
+    Storage storage() default Storage.BLOB;
+
+    /**
+     * Redis 读取超时（毫秒），0 表示使用全局 spring.data.redis.timeout
+     * 超时按未命中处理，直接回源，避免 Redis 抖动时一次 1ms 的缓存读取拖住请求数秒
+     * 仅对 BLOB 存储生效
+     */
+    long readTimeout() default 0;
+
+    /**
+     * 是否开启对冲读取
+     * Redis GET 在 hedgeDelay 内没有返回时，在虚拟线程上回源，与 GET 竞争，先得到结果的一方返回（回源结果照常回写）
+     * 回源线程带上 CacheContext、请求上下文、Locale、MDC；其它自定义 ThreadLocal 不可见
+     * 调用方处于事务中时不对冲：等待 hedgeDelay 后在调用线程上回源，耗时约为 hedgeDelay + 回源耗时
+     * 仅对 BLOB 存储生效
+     */
+    boolean hedge() default false;
+
+    /**
+     * 对冲触发延迟（毫秒），0 表示按该缓存最近 GET 耗时的 hedgePercentile 分位数自动计算
+     */
+    long hedgeDelay() default 0;
+
+    /**
+     * 自动计算对冲延迟使用的分位数，默认 P95
+     */
+    double hedgePercentile() default 0.95;
+
+    /**
+     * 版本表达式（SpEL），从返回值中提取版本号，例如 "#result.updatedAt"
+     * 支持 Number、Instant、Date、LocalDateTime（转为毫秒）
+     * 返回值实现 Versioned 时无需配置；配置后回写改为原子的“版本更新才写入”
+     * 仅对 BLOB 存储生效
+     */
+    String version() default "";
+
+    /**
+     * 写入准入策略名称，对应 AdmissionPolicy#name()
+     * 内置: "always"（每次未命中都写入）、"tinylfu"（同一 Key 在统计窗口内出现 admitAfter 次后才写入）
+     * 适合 #hash(#req) 这类长尾、大多只出现一次的 Key，避免一次性数据占用 Redis 内存与写入带宽
+     */
+    String admission() default "always";
+
+    /**
+     * 准入阈值：Key 被查询（未命中）达到该次数才写入，仅对 "tinylfu" 生效
+     * "tinylfu" 的有效范围为 2..16（频率估计上限 16，<= 1 等同于 "always"），超出范围启动失败
+     */
+    int admitAfter() default 2;
+
+    /**
+     * 归一化缓存的实体 Key 表达式（SpEL，#id 为实体 ID），配置后开启归一化模式，用于搜索 / 列表类方法
+     * 例如："'user:info:' + #id"（与 getUserById 的 Key 相同，共用同一份实体缓存）
+     * 1. 查询 Key 下只存按顺序的实体 ID 列表（Redis List），实体按 itemKey 存在各自的 Key 中，不在多个结果里重复
+     * 2. 读取：LRANGE 取 ID 列表，再一次批量 MGET 取实体；任一实体缺失（过期 / 被失效）时整体回源
+     * 3. 某个实体被更新失效后，所有包含它的结果都会重新加载，不会读到旧实体
+     * 返回值必须是 List / Set / Collection；实体按 itemKey 前缀对应的 @KaimingCache 方法的缓存名与过期时间写入
+     */
+    String itemKey() default "";
+
+    /**
+     * 从结果元素中取实体 ID 的表达式（SpEL，#item 为元素），仅归一化模式使用
+     */
+    String itemId() default "#item.id";
+
+    enum Storage {
+        /**
+         * 整体 JSON（String 结构）
+         */
+        BLOB,
+        /**
+         * 按字段拆分（Hash 结构）
+         */
+        HASH
+    }
+
 }
@@ -0,0 +1,55 @@
+package com.obee.redis.demo.annotation;
+
+import java.lang.annotation.*;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * @description:
+ * @author: Guanwf
+ * @date: 2026/10/19 14:10
+ *
+ *  * 接口/方法限流，超限时抛出 RateLimitExceededException（HTTP 429）
+ *
+ */
+@Target(ElementType.METHOD)
+@Retention(RetentionPolicy.RUNTIME)
+@Documented
+public @interface RateLimited {
+
+    /**
+     * 限流维度 Key，支持 SpEL 与 ${...}，规则同 @KaimingCache#key()
+     * 例如："'search:' + #request.city"
+     */
+    String key();
+
+    /**
+     * 窗口内允许的请求数（令牌桶模式下为桶容量）
+     */
+    long limit();
+
+    /**
+     * 窗口长度，默认 1 秒
+     */
+    long window() default 1;
+
+    TimeUnit timeUnit() default TimeUnit.SECONDS;
+
+    Algorithm algorithm() default Algorithm.SLIDING_WINDOW;
+
+    /**
+     * 是否允许本地预放行
+     * 上一次 Redis 返回的剩余额度还很充足时，直接在本地放行并累计，随下一次 Redis 检查一起上报
+     */
+    boolean localPreFilter() default true;
+
+    enum Algorithm {
+        /**
+         * 滑动窗口（精确，每个请求占一个 ZSET 成员）
+         */
+        SLIDING_WINDOW,
+        /**
+         * 令牌桶（允许突发，容量 = limit，补充速率 = limit / window）
+         */
+        TOKEN_BUCKET
+    }
+}
@@ -0,0 +1,19 @@
+package com.obee.redis.demo.annotation;
+
+/**
+ * @description:
+ * @author: Guanwf
+ * @date: 2026/10/20 10:30
+ *
+ *  * 缓存版本契约接口
+ *  * 返回值实现该接口后，回写缓存时只有版本号更大才会覆盖已有值（set-if-newer）
+ *  * 版本号可以是数据库的版本列，也可以是更新时间戳（毫秒），只要单调递增
+ *  * 注意：方法名刻意不用 getXxx，避免被 Jackson 当成属性写进 Redis
+ *
+ */
+public interface Versioned {
+    /**
+     * @return 非负的单调递增版本号
+     */
+    long cacheVersion();
+}
@@ -1,18 +1,14 @@
 package com.obee.redis.demo.config;
 
+import com.obee.redis.demo.service.CacheEngine;
+import com.obee.redis.demo.service.manager.KaimingCacheManager;
+import org.springframework.boot.context.properties.EnableConfigurationProperties;
+import org.springframework.cache.CacheManager;
 import org.springframework.cache.annotation.EnableCaching;
 import org.springframework.context.annotation.Bean;
 import org.springframework.context.annotation.Configuration;
-import org.springframework.data.redis.cache.RedisCacheConfiguration;
-import org.springframework.data.redis.cache.RedisCacheManager;
-import org.springframework.data.redis.connection.RedisConnectionFactory;
-import org.springframework.data.redis.serializer.GenericJackson2JsonRedisSerializer;
-import org.springframework.data.redis.serializer.RedisSerializationContext;
-import org.springframework.data.redis.serializer.StringRedisSerializer;
-
-import java.time.Duration;
-import java.util.HashMap;
-import java.util.Map;
+import org.springframework.context.annotation.ImportRuntimeHints;
+import org.springframework.scheduling.annotation.EnableScheduling;
 
 /**
  * @description:
@@ -21,29 +17,20 @@ import java.util.Map;
  */
 @Configuration
 @EnableCaching
+@EnableScheduling // SlidingExpiryRefresher 等后台任务依赖定时调度
+@EnableConfigurationProperties(KaimingCacheProperties.class)
+@ImportRuntimeHints(NativeHints.class)
 public class CacheConfig {
 
+    /**
+     * Spring @Cacheable/@CacheEvict 与 @KaimingCache 共用 CacheEngine（同一序列化器、读路径、指标）
+     * 过期时间统一在 application.yaml 的 app.cache.default-ttl / app.cache.specs.{name}.ttl 配置：
+     *   users   -> 30 分钟
+     *   configs -> 1 天
+     */
     @Bean
-    public RedisCacheManager cacheManager(RedisConnectionFactory factory) {
-
-//        ObjectMapper om = new ObjectMapper();
-
-        // 1. 全局默认配置：JSON序列化，默认过期 1 小时
-        RedisCacheConfiguration config = RedisCacheConfiguration.defaultCacheConfig()
-                .entryTtl(Duration.ofHours(1))
-                .serializeKeysWith(RedisSerializationContext.SerializationPair.fromSerializer(new StringRedisSerializer()))
-                .serializeValuesWith(RedisSerializationContext.SerializationPair.fromSerializer(new GenericJackson2JsonRedisSerializer()))
-                .disableCachingNullValues(); // 暂不缓存null，防止穿透需另外处理
-
-        // 2. 针对不同 CacheName 设置不同的过期时间
-        Map<String, RedisCacheConfiguration> configMap = new HashMap<>();
-        configMap.put("users", config.entryTtl(Duration.ofMinutes(30))); // 用户信息 30分钟
-        configMap.put("configs", config.entryTtl(Duration.ofDays(1)));   // 配置信息 1天
-
-        return RedisCacheManager.builder(factory)
-                .cacheDefaults(config)
-                .withInitialCacheConfigurations(configMap)
-                .build();
+    public CacheManager cacheManager(CacheEngine cacheEngine, KaimingCacheProperties properties) {
+        return new KaimingCacheManager(cacheEngine, properties);
     }
 
 }
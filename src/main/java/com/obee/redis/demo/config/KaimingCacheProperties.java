@@ -0,0 +1,73 @@
+package com.obee.redis.demo.config;
+
+import lombok.Data;
+import org.springframework.boot.context.properties.ConfigurationProperties;
+import org.springframework.util.unit.DataSize;
+
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * @description:
+ * @author: Guanwf
+ * @date: 2026/10/19 18:00
+ *
+ *  * 缓存统一配置（app.cache.*）
+ *  * @Cacheable(value = "users") 与 @KaimingCache(cacheName = "users") 共用同一份按缓存名的配置
+ *
+ */
+@Data
+@ConfigurationProperties(prefix = "app.cache")
+public class KaimingCacheProperties {
+
+    /**
+     * 没有单独配置的缓存名使用的过期时间
+     */
+    private Duration defaultTtl = Duration.ofHours(1);
+
+    /**
+     * 按缓存名配置，例如 app.cache.specs.users.ttl=30m
+     */
+    private Map<String, Spec> specs = new LinkedHashMap<>();
+
+    @Data
+    public static class Spec {
+        /**
+         * 过期时间
+         */
+        private Duration ttl;
+
+        /**
+         * 内存配额（由 CacheMemoryAnalyzer 估算），超出后暂停写入，例如 2GB
+         */
+        private DataSize quota;
+
+        /**
+         * 单个值的大小上限，超出时记录日志（大 Value 告警）
+         */
+        private DataSize maxValueSize;
+
+        /**
+         * 额外的 Key 前缀，用于无法从 @KaimingCache 的 key 表达式推断前缀的情况
+         */
+        private List<String> keyPrefixes = new ArrayList<>();
+    }
+
+    /**
+     * 缓存名对应的过期时间，未配置时返回 null
+     */
+    public Duration ttlOf(String cacheName) {
+        Spec spec = specs.get(cacheName);
+        return spec == null ? null : spec.getTtl();
+    }
+
+    /**
+     * 缓存名对应的配置，未配置时返回 null
+     */
+    public Spec specOf(String cacheName) {
+        return specs.get(cacheName);
+    }
+}
@@ -0,0 +1,43 @@
+package com.obee.redis.demo.config;
+
+import com.obee.redis.demo.model.UserDTO;
+import com.obee.redis.demo.model.UserSearchRequest;
+import com.obee.redis.demo.service.CacheAspect;
+import com.obee.redis.demo.service.SpelKeyGenerator;
+import com.obee.redis.demo.service.ratelimit.RateLimitAspect;
+import org.springframework.aot.hint.ExecutableMode;
+import org.springframework.aot.hint.MemberCategory;
+import org.springframework.aot.hint.RuntimeHints;
+import org.springframework.aot.hint.RuntimeHintsRegistrar;
+
+import java.lang.reflect.Method;
+
+/**
+ * @description:
+ * @author: Guanwf
+ * @date: 2026/10/20 20:10
+ *
+ *  * GraalVM native-image 运行时提示（mvn -Pnative native:compile）
+ *  * 1. DTO：GenericJackson2Json 按 @class 反射创建、读写字段
+ *  * 2. 切面：@Around 通知方法由 AspectJ 反射调用
+ *  * 3. SpEL 自定义函数 #hash / #tag：反射调用静态方法
+ *  * 4. Lua 脚本：classpath 资源
+ *
+ */
+public class NativeHints implements RuntimeHintsRegistrar {
+
+    @Override
+    public void registerHints(RuntimeHints hints, ClassLoader classLoader) {
+        for (Class<?> dto : new Class<?>[]{UserDTO.class, UserSearchRequest.class}) {
+            hints.reflection().registerType(dto, MemberCategory.INVOKE_DECLARED_CONSTRUCTORS,
+                    MemberCategory.INVOKE_PUBLIC_METHODS, MemberCategory.DECLARED_FIELDS);
+        }
+        for (Class<?> aspect : new Class<?>[]{CacheAspect.class, RateLimitAspect.class}) {
+            hints.reflection().registerType(aspect, MemberCategory.INVOKE_DECLARED_METHODS);
+        }
+        for (Method function : SpelKeyGenerator.FUNCTIONS.values()) {
+            hints.reflection().registerMethod(function, ExecutableMode.INVOKE);
+        }
+        hints.resources().registerPattern("lua/*.lua");
+    }
+}
@@ -1,10 +1,18 @@
 package com.obee.redis.demo.config;
 
+import com.obee.redis.demo.service.codec.JsonValueCodec;
+import com.obee.redis.demo.service.pool.AdaptiveIdlePolicy;
+import io.lettuce.core.ReadFrom;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.boot.autoconfigure.data.redis.LettuceClientConfigurationBuilderCustomizer;
+import org.springframework.boot.autoconfigure.data.redis.RedisProperties;
 import org.springframework.context.annotation.Bean;
 import org.springframework.context.annotation.Configuration;
 import org.springframework.data.redis.connection.RedisConnectionFactory;
+import org.springframework.data.redis.connection.lettuce.LettucePoolingClientConfiguration;
 import org.springframework.data.redis.core.RedisTemplate;
-import org.springframework.data.redis.serializer.GenericJackson2JsonRedisSerializer;
+import org.springframework.data.redis.serializer.RedisSerializer;
 import org.springframework.data.redis.serializer.StringRedisSerializer;
 
 /**
@@ -48,14 +56,14 @@ public class RedisConfig {
     }*/
 
     @Bean
-    public RedisTemplate<String, Object> redisTemplate(RedisConnectionFactory factory) {
+    public RedisTemplate<String, Object> redisTemplate(RedisConnectionFactory factory, JsonValueCodec valueCodec) {
         RedisTemplate<String, Object> template = new RedisTemplate<>();
         template.setConnectionFactory(factory);
 
 //        ObjectMapper om = new ObjectMapper();
 
-        // 使用新的 GenericJacksonJsonRedisSerializer（注意没有 "2"）
-        GenericJackson2JsonRedisSerializer jsonSerializer = new GenericJackson2JsonRedisSerializer();
+        // GenericJackson2JsonRedisSerializer，由 JsonValueCodec 持有：直接读取字节的路径与 RedisTemplate 用同一套类型规则
+        RedisSerializer<Object> jsonSerializer = valueCodec.serializer();
         StringRedisSerializer stringSerializer = new StringRedisSerializer();
 
         template.setKeySerializer(stringSerializer);
@@ -68,6 +76,33 @@ public class RedisConfig {
     }
 
 
+    /**
+     * 读写分离（可选）：配置 app.redis.read-from 后，缓存 GET 等只读命令按策略路由到从节点
+     * 集群模式常用 REPLICA_PREFERRED（优先从节点，从节点不可用时回主节点）
+     * 写命令、Lua 脚本始终走主节点；从节点存在复制延迟，读到旧值的窗口约等于复制延迟
+     */
+    @Bean
+    @ConditionalOnProperty("app.redis.read-from")
+    public LettuceClientConfigurationBuilderCustomizer readFromCustomizer(@Value("${app.redis.read-from}") String readFrom) {
+        return builder -> builder.readFrom(ReadFrom.valueOf(readFrom));
+    }
+
+    /**
+     * 自适应连接池：替换 Spring Boot 按 spring.data.redis.lettuce.pool 生成的池配置，
+     * 放宽 maxIdle 上限并挂上 AdaptiveIdlePolicy，空闲容量由 AdaptivePoolManager 按负载调整
+     * 未启用连接池（builder 不是 pooling 类型）时不做任何事
+     */
+    @Bean
+    @ConditionalOnProperty(value = "app.redis.pool.adaptive.enabled", matchIfMissing = true)
+    public LettuceClientConfigurationBuilderCustomizer adaptivePoolCustomizer(RedisProperties redisProperties,
+                                                                             AdaptiveIdlePolicy idlePolicy) {
+        return builder -> {
+            if (builder instanceof LettucePoolingClientConfiguration.LettucePoolingClientConfigurationBuilder pooling) {
+                pooling.poolConfig(idlePolicy.poolConfig(redisProperties.getLettuce().getPool()));
+            }
+        };
+    }
+
    /* @Bean
     public RedisTemplate<String, Object> redisTemplate(RedisConnectionFactory factory) {
         RedisTemplate<String, Object> template = new RedisTemplate<>();
@@ -1,14 +1,17 @@
 package com.obee.redis.demo.controller;
 
 import com.obee.redis.demo.annotation.CacheControl;
+import com.obee.redis.demo.annotation.RateLimited;
 import com.obee.redis.demo.model.UserDTO;
 import com.obee.redis.demo.model.UserSearchRequest;
 import com.obee.redis.demo.service.DemoService;
+import com.obee.redis.demo.service.fanout.CacheFanOut;
 import lombok.extern.slf4j.Slf4j;
 import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.web.bind.annotation.*;
 
 import java.util.List;
+import java.util.Map;
 
 /**
  * @description:
@@ -24,6 +27,9 @@ public class DemoController {
     @Autowired
     DemoService demoService;
 
+    @Autowired
+    CacheFanOut cacheFanOut;
+
 
     @CacheControl(enabled = false)
     @GetMapping("/getUserId")
@@ -32,11 +38,35 @@ public class DemoController {
         demoService.getUserById(2L);
     }
 
+    @RateLimited(key = "'search:' + #request.city", limit = 20)
     @PostMapping("/search")
     public List<UserDTO> search(@RequestBody UserSearchRequest request) {
         // Controller 只需要透传参数
-        demoService.getUserById(3L);
-        return null;
+        return demoService.searchUsers(request);
+    }
+
+    /**
+     * 响应缓存：命中时直接输出 Redis 中的 JSON 字节，带 ETag，If-None-Match 匹配返回 304
+     * user 实体变更时随 user:info:{id} 一起失效
+     */
+    @CacheControl(responseCache = true, ttl = 30, entity = "user")
+    @GetMapping("/users/{id}")
+    public UserDTO user(@PathVariable Long id) {
+        return demoService.getUserById(id);
+    }
+
+    /**
+     * 组合接口：多个缓存方法并行执行，缓存读取合并为一次 MGET，任一失败或超时整体失败
+     */
+    @PostMapping("/users/{id}/overview")
+    public Map<String, Object> overview(@PathVariable Long id, @RequestBody UserSearchRequest request) {
+        try (CacheFanOut.Scope scope = cacheFanOut.open()) {
+            CacheFanOut.Branch<UserDTO> user = scope.fork(() -> demoService.getUserById(id));
+            CacheFanOut.Branch<UserDTO> profile = scope.fork(() -> demoService.getUser(id));
+            CacheFanOut.Branch<List<UserDTO>> related = scope.fork(() -> demoService.searchUsers(request));
+            scope.join();
+            return Map.of("user", user.get(), "profile", profile.get(), "related", related.get());
+        }
     }
 
     @CacheControl(enabled = true)
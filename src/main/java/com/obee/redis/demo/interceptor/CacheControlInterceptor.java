@@ -2,11 +2,20 @@ package com.obee.redis.demo.interceptor;
 
 import com.obee.redis.demo.annotation.CacheControl;
 import com.obee.redis.demo.service.CacheContext;
+import com.obee.redis.demo.service.response.ResponseCacheService;
+import com.obee.redis.demo.service.response.ResponseCacheService.CachedResponse;
 import jakarta.servlet.http.HttpServletRequest;
 import jakarta.servlet.http.HttpServletResponse;
+import lombok.RequiredArgsConstructor;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.HttpMethod;
 import org.springframework.stereotype.Component;
 import org.springframework.web.method.HandlerMethod;
 import org.springframework.web.servlet.HandlerInterceptor;
+import org.springframework.web.util.ContentCachingResponseWrapper;
+
+import java.io.IOException;
+import java.time.Duration;
 
 /**
  * @description:
@@ -14,10 +23,13 @@ import org.springframework.web.servlet.HandlerInterceptor;
  * @date: 2026/2/14 22:11
  */
 @Component
+@RequiredArgsConstructor
 public class CacheControlInterceptor implements HandlerInterceptor {
-    
+
+    private final ResponseCacheService responseCacheService;
+
     @Override
-    public boolean preHandle(HttpServletRequest request, HttpServletResponse response, Object handler) {
+    public boolean preHandle(HttpServletRequest request, HttpServletResponse response, Object handler) throws IOException {
         // 如果不是映射到Controller方法（比如是静态资源），直接跳过
         if (!(handler instanceof HandlerMethod)) {
             return true;
@@ -26,20 +38,73 @@ public class CacheControlInterceptor implements HandlerInterceptor {
         HandlerMethod handlerMethod = (HandlerMethod) handler;
 
         // 1. 优先检查方法上的注解
-        CacheControl methodAnnotation = handlerMethod.getMethodAnnotation(CacheControl.class);
-        if (methodAnnotation != null) {
-            CacheContext.setEnabled(methodAnnotation.enabled());
-            return true;
-        }
+        CacheControl cacheControl = handlerMethod.getMethodAnnotation(CacheControl.class);
 
         // 2. 其次检查类（Controller）上的注解
-        CacheControl classAnnotation = handlerMethod.getBeanType().getAnnotation(CacheControl.class);
-        if (classAnnotation != null) {
-            CacheContext.setEnabled(classAnnotation.enabled());
-            return true;
+        if (cacheControl == null) {
+            cacheControl = handlerMethod.getBeanType().getAnnotation(CacheControl.class);
         }
 
         // 3. 都没有，默认为 true (CacheContext 初始值就是 true，这里可以不操作)
+        if (cacheControl == null) {
+            return true;
+        }
+        CacheContext.setEnabled(cacheControl.enabled());
+
+        if (cacheControl.responseCache() && HttpMethod.GET.matches(request.getMethod())) {
+            return serveFromCache(request, response, cacheControl);
+        }
+        return true;
+    }
+
+    /**
+     * 响应缓存：命中时直接写出原始字节并结束请求（返回 false）
+     * 未命中时登记 Key，由 ResponseCacheFilter 在响应完成后写入
+     */
+    private boolean serveFromCache(HttpServletRequest request, HttpServletResponse response,
+                                   CacheControl cacheControl) throws IOException {
+        String key = ResponseCacheService.key(request);
+        String variant = ResponseCacheService.variant(request);
+        // HIT / MISS / 304 都带上 Vary，下游缓存按同样的请求头区分变体
+        response.setHeader(HttpHeaders.VARY, ResponseCacheService.VARY);
+
+        // enabled = false 时跳过读取（强制刷新），但仍回写
+        if (cacheControl.enabled()) {
+            String ifNoneMatch = request.getHeader(HttpHeaders.IF_NONE_MATCH);
+            if (ifNoneMatch != null) {
+                // 只取 etag 字段，匹配时不传输响应体
+                String etag = responseCacheService.etagOf(key, variant);
+                if (etag != null && ResponseCacheFilter.etagMatches(ifNoneMatch, etag)) {
+                    response.setHeader(HttpHeaders.ETAG, etag);
+                    response.setStatus(HttpServletResponse.SC_NOT_MODIFIED);
+                    return false;
+                }
+            }
+            CachedResponse cached = responseCacheService.get(key, variant);
+            if (cached != null) {
+                // 绕过 ResponseCacheFilter 的缓冲，直接写到容器的输出流
+                if (response instanceof ContentCachingResponseWrapper wrapper) {
+                    response = (HttpServletResponse) wrapper.getResponse();
+                }
+                response.setStatus(HttpServletResponse.SC_OK);
+                if (cached.contentType() != null) {
+                    response.setContentType(cached.contentType());
+                }
+                response.setHeader(HttpHeaders.ETAG, cached.etag());
+                response.setHeader(ResponseCacheFilter.CACHE_STATUS_HEADER, "HIT");
+                response.setContentLength(cached.body().length);
+                response.getOutputStream().write(cached.body());
+                return false;
+            }
+        }
+
+        // readOnly：只读不写
+        if (!cacheControl.readOnly()) {
+            request.setAttribute(ResponseCacheFilter.CACHE_KEY_ATTRIBUTE, key);
+            request.setAttribute(ResponseCacheFilter.CACHE_VARIANT_ATTRIBUTE, variant);
+            request.setAttribute(ResponseCacheFilter.CACHE_TTL_ATTRIBUTE,
+                    Duration.ofMillis(cacheControl.timeUnit().toMillis(cacheControl.ttl())));
+        }
         return true;
     }
 
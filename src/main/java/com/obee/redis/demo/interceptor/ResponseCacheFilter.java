@@ -0,0 +1,139 @@
+package com.obee.redis.demo.interceptor;
+
+import com.obee.redis.demo.annotation.CacheControl;
+import com.obee.redis.demo.service.response.ResponseCacheService;
+import com.obee.redis.demo.service.response.ResponseCacheService.CachedResponse;
+import jakarta.servlet.FilterChain;
+import jakarta.servlet.ServletException;
+import jakarta.servlet.http.HttpServletRequest;
+import jakarta.servlet.http.HttpServletResponse;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.ObjectProvider;
+import org.springframework.beans.factory.annotation.Qualifier;
+import org.springframework.core.annotation.AnnotatedElementUtils;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.HttpMethod;
+import org.springframework.http.server.PathContainer;
+import org.springframework.stereotype.Component;
+import org.springframework.web.filter.OncePerRequestFilter;
+import org.springframework.web.servlet.mvc.method.annotation.RequestMappingHandlerMapping;
+import org.springframework.web.util.ContentCachingResponseWrapper;
+import org.springframework.web.util.pattern.PathPattern;
+import org.springframework.web.util.pattern.PathPatternParser;
+
+import java.io.IOException;
+import java.time.Duration;
+import java.util.List;
+
+/**
+ * @description:
+ * @author: Guanwf
+ * @date: 2026/10/21 10:40
+ *
+ *  * 响应缓存的写入端：缓冲响应体，请求结束后把原始字节写入 Redis 并附上 ETag
+ *  * 只包装映射到 @CacheControl(responseCache = true) 接口的 GET 请求，其它请求不做缓冲
+ *  * 是否写入由 CacheControlInterceptor 决定（未命中时在 request 上登记 Key），只缓存 200 响应
+ *
+ */
+@Slf4j
+@Component
+public class ResponseCacheFilter extends OncePerRequestFilter {
+
+    static final String CACHE_KEY_ATTRIBUTE = ResponseCacheFilter.class.getName() + ".key";
+
+    static final String CACHE_VARIANT_ATTRIBUTE = ResponseCacheFilter.class.getName() + ".variant";
+
+    static final String CACHE_TTL_ATTRIBUTE = ResponseCacheFilter.class.getName() + ".ttl";
+
+    static final String CACHE_STATUS_HEADER = "X-Cache";
+
+    private final ResponseCacheService responseCacheService;
+
+    // 延迟获取：过滤器先于 MVC 初始化
+    private final ObjectProvider<RequestMappingHandlerMapping> handlerMapping;
+
+    private volatile List<PathPattern> cachedPaths;
+
+    public ResponseCacheFilter(ResponseCacheService responseCacheService,
+                               @Qualifier("requestMappingHandlerMapping")
+                               ObjectProvider<RequestMappingHandlerMapping> handlerMapping) {
+        this.responseCacheService = responseCacheService;
+        this.handlerMapping = handlerMapping;
+    }
+
+    @Override
+    protected boolean shouldNotFilter(HttpServletRequest request) {
+        if (!HttpMethod.GET.matches(request.getMethod())) {
+            return true;
+        }
+        PathContainer path = PathContainer.parsePath(request.getRequestURI().substring(request.getContextPath().length()));
+        return cachedPaths().stream().noneMatch(pattern -> pattern.matches(path));
+    }
+
+    @Override
+    protected void doFilterInternal(HttpServletRequest request, HttpServletResponse response, FilterChain chain)
+            throws ServletException, IOException {
+        ContentCachingResponseWrapper wrapper = new ContentCachingResponseWrapper(response);
+        chain.doFilter(request, wrapper);
+
+        String key = (String) request.getAttribute(CACHE_KEY_ATTRIBUTE);
+        if (key != null && wrapper.getStatus() == HttpServletResponse.SC_OK) {
+            byte[] body = wrapper.getContentAsByteArray();
+            String etag = ResponseCacheService.etag(body);
+            responseCacheService.put(key, (String) request.getAttribute(CACHE_VARIANT_ATTRIBUTE),
+                    new CachedResponse(etag, wrapper.getContentType(), body),
+                    (Duration) request.getAttribute(CACHE_TTL_ATTRIBUTE));
+            wrapper.setHeader(HttpHeaders.ETAG, etag);
+            wrapper.setHeader(CACHE_STATUS_HEADER, "MISS");
+
+            String ifNoneMatch = request.getHeader(HttpHeaders.IF_NONE_MATCH);
+            if (ifNoneMatch != null && etagMatches(ifNoneMatch, etag)) {
+                // 内容未变化：丢弃缓冲的响应体
+                wrapper.setStatus(HttpServletResponse.SC_NOT_MODIFIED);
+                wrapper.resetBuffer();
+            }
+        }
+        wrapper.copyBodyToResponse();
+    }
+
+    /**
+     * If-None-Match 可以是 "*" 或逗号分隔的多个 ETag，弱校验前缀 W/ 忽略
+     */
+    static boolean etagMatches(String ifNoneMatch, String etag) {
+        for (String candidate : ifNoneMatch.split(",")) {
+            String tag = candidate.trim();
+            if (tag.startsWith("W/")) {
+                tag = tag.substring(2);
+            }
+            if (tag.equals("*") || tag.equals(etag)) {
+                return true;
+            }
+        }
+        return false;
+    }
+
+    /**
+     * 所有 responseCache 接口的路径模式，首个请求时从 MVC 映射中收集一次
+     */
+    private List<PathPattern> cachedPaths() {
+        List<PathPattern> paths = cachedPaths;
+        if (paths == null) {
+            paths = handlerMapping.getObject().getHandlerMethods().entrySet().stream()
+                    .filter(entry -> {
+                        CacheControl cacheControl = AnnotatedElementUtils.findMergedAnnotation(
+                                entry.getValue().getMethod(), CacheControl.class);
+                        if (cacheControl == null) {
+                            cacheControl = AnnotatedElementUtils.findMergedAnnotation(
+                                    entry.getValue().getBeanType(), CacheControl.class);
+                        }
+                        return cacheControl != null && cacheControl.responseCache();
+                    })
+                    .flatMap(entry -> entry.getKey().getPatternValues().stream())
+                    .map(PathPatternParser.defaultInstance::parse)
+                    .toList();
+            cachedPaths = paths;
+            log.info("Response cache enabled for paths: {}", paths);
+        }
+        return paths;
+    }
+}
@@ -0,0 +1,327 @@
+package com.obee.redis.demo.run;
+
+import com.obee.redis.demo.service.admission.FrequencySketch;
+import com.obee.redis.demo.service.trace.CacheTraceFile;
+import org.springframework.boot.convert.DurationStyle;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.stream.Stream;
+
+/**
+ * @description:
+ * @author: Guanwf
+ * @date: 2026/10/22 14:00
+ *
+ *  * 访问轨迹回放（轨迹由 CacheTraceRecorder 录制），估计不同淘汰策略 / 容量 / TTL 下的命中率与回源压力
+ *  * 不是 Spring 组件，不需要 Redis，直接运行 main：
+ *  *   java -cp ... com.obee.redis.demo.run.CacheTraceSimulator <轨迹文件或目录...>
+ *  *        [--sizes=10000,100000,0] [--ttls=1m,10m,0] [--cache=users]
+ *  * sizes 为全量 Key 数（0 表示不限容量），回放时按录制的抽样率缩放；ttls 为 0 表示不过期
+ *  * 策略：LRU、W-TinyLFU（1% 窗口 LRU + SLRU 主区，TinyLFU 准入，复用 FrequencySketch）
+ *  * 回源耗时：轨迹中未命中事件的实际耗时；录制时命中、回放时未命中的 Key 用该 Key 最近一次回源耗时（没有则取平均值）
+ *
+ */
+public class CacheTraceSimulator {
+
+    public static void main(String[] args) throws IOException {
+        List<Path> files = new ArrayList<>();
+        String sizes = "10000,100000,0";
+        String ttls = "1m,10m,0";
+        String cacheFilter = null;
+        for (String arg : args) {
+            if (arg.startsWith("--sizes=")) {
+                sizes = arg.substring(8);
+            } else if (arg.startsWith("--ttls=")) {
+                ttls = arg.substring(7);
+            } else if (arg.startsWith("--cache=")) {
+                cacheFilter = arg.substring(8);
+            } else {
+                files.addAll(traceFiles(Path.of(arg)));
+            }
+        }
+        if (files.isEmpty()) {
+            System.out.println("Usage: CacheTraceSimulator <trace file or directory...> [--sizes=..] [--ttls=..] [--cache=..]");
+            return;
+        }
+
+        Trace trace = load(files, cacheFilter);
+        if (trace.accesses.isEmpty()) {
+            System.out.println("No accesses in trace");
+            return;
+        }
+        trace.print();
+
+        System.out.printf("%n%-10s %10s %8s %9s %14s %12s %12s%n",
+                "policy", "size", "ttl", "hitRatio", "dbLoads", "dbTime(s)", "memory(MB)");
+        for (String sizeText : sizes.split(",")) {
+            long size = Long.parseLong(sizeText.trim());
+            for (String ttlText : ttls.split(",")) {
+                long ttlMillis = DurationStyle.detectAndParse(ttlText.trim()).toMillis();
+                simulate(trace, "lru", size, ttlMillis, new Lru(trace.scaledCapacity(size)));
+                if (size > 0) {
+                    simulate(trace, "w-tinylfu", size, ttlMillis, new WindowTinyLfu(trace.scaledCapacity(size)));
+                }
+            }
+        }
+    }
+
+    private static void simulate(Trace trace, String name, long size, long ttlMillis, Policy policy) {
+        long hits = 0;
+        long loads = 0;
+        double loadMicros = 0;
+        for (Access access : trace.accesses) {
+            if (policy.access(access.keyHash, access.time, ttlMillis)) {
+                hits++;
+            } else {
+                loads++;
+                loadMicros += access.hit ? trace.loadMicros(access.keyHash) : access.loadMicros;
+            }
+        }
+        // 抽样轨迹只包含 sampleRate 比例的 Key，回源量按比例放大
+        double scale = 1 / trace.sampleRate;
+        double memoryMb = size == 0 ? trace.distinctKeys * scale * trace.averageValueSize / (1 << 20)
+                : size * trace.averageValueSize / (1 << 20);
+        System.out.printf("%-10s %10s %8s %8.2f%% %,14.0f %12.1f %12.1f%n", name, size == 0 ? "unbounded" : size,
+                ttlMillis == 0 ? "none" : ttlMillis / 1000 + "s", 100.0 * hits / trace.accesses.size(),
+                loads * scale, loadMicros * scale / 1_000_000, memoryMb);
+    }
+
+    private static List<Path> traceFiles(Path path) throws IOException {
+        if (!Files.isDirectory(path)) {
+            return List.of(path);
+        }
+        try (Stream<Path> stream = Files.list(path)) {
+            return stream.filter(p -> p.toString().endsWith(CacheTraceFile.SUFFIX)).sorted().toList();
+        }
+    }
+
+    /**
+     * 读取全部轨迹文件，多个节点的轨迹按时间合并
+     */
+    private static Trace load(List<Path> files, String cacheFilter) throws IOException {
+        Trace trace = new Trace();
+        for (Path file : files) {
+            List<Access> accesses = new ArrayList<>();
+            List<Integer> cacheIds = new ArrayList<>();
+            CacheTraceFile.Header header = CacheTraceFile.read(file, (time, keyHash, cacheId, hit, valueSize, loadMicros) -> {
+                accesses.add(new Access(time, keyHash, hit, valueSize, loadMicros));
+                cacheIds.add(cacheId);
+            });
+            if (trace.sampleRate != 0 && trace.sampleRate != header.sampleRate()) {
+                System.out.printf("WARN %s sample rate %.4f differs from %.4f%n", file, header.sampleRate(), trace.sampleRate);
+            }
+            trace.sampleRate = header.sampleRate();
+            for (int i = 0; i < accesses.size(); i++) {
+                String cacheName = header.cacheNames().get(cacheIds.get(i));
+                if (cacheFilter == null || cacheFilter.equals(cacheName)) {
+                    trace.add(accesses.get(i), cacheName);
+                }
+            }
+        }
+        trace.accesses.sort(Comparator.comparingLong(Access::time));
+        trace.summarize();
+        return trace;
+    }
+
+    private record Access(long time, long keyHash, boolean hit, int valueSize, int loadMicros) {
+    }
+
+    private static final class Trace {
+
+        private final List<Access> accesses = new ArrayList<>();
+
+        private final Map<String, Long> perCache = new LinkedHashMap<>();
+
+        // Key -> 最近一次回源耗时
+        private final Map<Long, Integer> keyLoadMicros = new HashMap<>();
+
+        private double sampleRate;
+
+        private long distinctKeys;
+
+        private double averageLoadMicros;
+
+        private double averageValueSize;
+
+        private long tracedHits;
+
+        void add(Access access, String cacheName) {
+            accesses.add(access);
+            perCache.merge(cacheName, 1L, Long::sum);
+        }
+
+        void summarize() {
+            Set<Long> keys = new HashSet<>();
+            long misses = 0;
+            double loadSum = 0;
+            double sizeSum = 0;
+            for (Access access : accesses) {
+                keys.add(access.keyHash);
+                sizeSum += access.valueSize;
+                if (access.hit) {
+                    tracedHits++;
+                } else {
+                    misses++;
+                    loadSum += access.loadMicros;
+                    keyLoadMicros.put(access.keyHash, access.loadMicros);
+                }
+            }
+            distinctKeys = keys.size();
+            averageLoadMicros = misses == 0 ? 0 : loadSum / misses;
+            averageValueSize = sizeSum / accesses.size();
+        }
+
+        int loadMicros(long keyHash) {
+            Integer micros = keyLoadMicros.get(keyHash);
+            return micros != null ? micros : (int) averageLoadMicros;
+        }
+
+        int scaledCapacity(long size) {
+            return size == 0 ? 0 : (int) Math.max(1, Math.round(size * sampleRate));
+        }
+
+        void print() {
+            Access first = accesses.get(0);
+            Access last = accesses.get(accesses.size() - 1);
+            System.out.printf("accesses=%,d distinctKeys=%,d sampleRate=%.4f span=%ds%n", accesses.size(),
+                    distinctKeys, sampleRate, (last.time - first.time) / 1000);
+            System.out.printf("recorded hitRatio=%.2f%% avgLoad=%.0fus avgValue=%.0fB caches=%s%n",
+                    100.0 * tracedHits / accesses.size(), averageLoadMicros, averageValueSize, perCache);
+        }
+    }
+
+    private interface Policy {
+
+        /**
+         * 访问一次 Key，未命中时写入
+         *
+         * @return 是否命中
+         */
+        boolean access(long key, long now, long ttlMillis);
+    }
+
+    private static boolean valid(Long expireAt, long now) {
+        return expireAt != null && (expireAt == 0 || expireAt > now);
+    }
+
+    private static long expireAt(long now, long ttlMillis) {
+        return ttlMillis == 0 ? 0 : now + ttlMillis;
+    }
+
+    /**
+     * capacity 为 0 时不限容量（只按 TTL 过期，相当于 Redis 不设 maxmemory）
+     */
+    private static final class Lru implements Policy {
+
+        private final Map<Long, Long> entries;
+
+        Lru(int capacity) {
+            this.entries = new LinkedHashMap<>(16, 0.75f, true) {
+                @Override
+                protected boolean removeEldestEntry(Map.Entry<Long, Long> eldest) {
+                    return capacity > 0 && size() > capacity;
+                }
+            };
+        }
+
+        @Override
+        public boolean access(long key, long now, long ttlMillis) {
+            if (valid(entries.get(key), now)) {
+                return true;
+            }
+            entries.put(key, expireAt(now, ttlMillis));
+            return false;
+        }
+    }
+
+    /**
+     * W-TinyLFU：新 Key 先进窗口 LRU，被挤出窗口时与主区 probation 段最旧的 Key 比较频率，高者留下
+     * 主区为 SLRU：probation 命中后晋升 protected（80%），protected 溢出降级回 probation
+     */
+    private static final class WindowTinyLfu implements Policy {
+
+        private final int windowCapacity;
+
+        private final int mainCapacity;
+
+        private final int protectedCapacity;
+
+        private final FrequencySketch sketch;
+
+        private final LinkedHashMap<Long, Long> window = new LinkedHashMap<>(16, 0.75f, true);
+
+        private final LinkedHashMap<Long, Long> probation = new LinkedHashMap<>(16, 0.75f, true);
+
+        private final LinkedHashMap<Long, Long> protectedSegment = new LinkedHashMap<>(16, 0.75f, true);
+
+        WindowTinyLfu(int capacity) {
+            this.windowCapacity = Math.max(1, capacity / 100);
+            this.mainCapacity = Math.max(1, capacity - windowCapacity);
+            this.protectedCapacity = mainCapacity * 8 / 10;
+            this.sketch = new FrequencySketch(Math.max(capacity, 1) * 10);
+        }
+
+        @Override
+        public boolean access(long key, long now, long ttlMillis) {
+            sketch.increment(key);
+            if (hit(window, key, now) || hit(protectedSegment, key, now)) {
+                return true;
+            }
+            if (hit(probation, key, now)) {
+                protectedSegment.put(key, probation.remove(key));
+                if (protectedSegment.size() > protectedCapacity) {
+                    Map.Entry<Long, Long> demoted = protectedSegment.entrySet().iterator().next();
+                    protectedSegment.remove(demoted.getKey());
+                    probation.put(demoted.getKey(), demoted.getValue());
+                }
+                return true;
+            }
+
+            window.put(key, expireAt(now, ttlMillis));
+            if (window.size() > windowCapacity) {
+                Map.Entry<Long, Long> candidate = window.entrySet().iterator().next();
+                window.remove(candidate.getKey());
+                admit(candidate.getKey(), candidate.getValue());
+            }
+            return false;
+        }
+
+        private void admit(long key, long expireAt) {
+            if (probation.size() + protectedSegment.size() < mainCapacity) {
+                probation.put(key, expireAt);
+                return;
+            }
+            LinkedHashMap<Long, Long> victims = probation.isEmpty() ? protectedSegment : probation;
+            long victim = victims.keySet().iterator().next();
+            if (sketch.frequency(key) > sketch.frequency(victim)) {
+                victims.remove(victim);
+                probation.put(key, expireAt);
+            }
+        }
+
+        /**
+         * 命中且未过期；已过期的直接移除
+         */
+        private static boolean hit(LinkedHashMap<Long, Long> segment, long key, long now) {
+            Long expireAt = segment.get(key);
+            if (expireAt == null) {
+                return false;
+            }
+            if (valid(expireAt, now)) {
+                return true;
+            }
+            segment.remove(key);
+            return false;
+        }
+    }
+}
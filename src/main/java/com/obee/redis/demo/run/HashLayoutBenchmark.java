@@ -0,0 +1,133 @@
+package com.obee.redis.demo.run;
+
+import com.fasterxml.jackson.databind.JavaType;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.obee.redis.demo.service.codec.HashObjectCodec;
+import com.obee.redis.demo.service.codec.JsonValueCodec;
+import org.springframework.data.redis.connection.RedisConnection;
+import org.springframework.data.redis.connection.RedisStandaloneConfiguration;
+import org.springframework.data.redis.connection.lettuce.LettuceConnectionFactory;
+
+import java.nio.charset.StandardCharsets;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.function.IntConsumer;
+
+/**
+ * @description:
+ * @author: Guanwf
+ * @date: 2026/10/19 16:10
+ *
+ *  * 整体 JSON（BLOB） vs 按字段 Hash（HASH） 存储布局对比
+ *  * 不是 Spring 组件，需要本地 Redis，直接运行 main：
+ *  *   java -cp ... com.obee.redis.demo.run.HashLayoutBenchmark [host] [port] [password] [fields] [iterations]
+ *  * 输出每种操作的平均耗时（微秒）以及两种布局的 MEMORY USAGE
+ *
+ */
+public class HashLayoutBenchmark {
+
+    private static final String BLOB_KEY = "bench:layout:blob";
+    private static final String HASH_KEY = "bench:layout:hash";
+
+    public static void main(String[] args) {
+        String host = args.length > 0 ? args[0] : "127.0.0.1";
+        int port = args.length > 1 ? Integer.parseInt(args[1]) : 6379;
+        String password = args.length > 2 ? args[2] : "";
+        int fieldCount = args.length > 3 ? Integer.parseInt(args[3]) : 64;
+        int iterations = args.length > 4 ? Integer.parseInt(args[4]) : 20_000;
+
+        RedisStandaloneConfiguration config = new RedisStandaloneConfiguration(host, port);
+        if (!password.isEmpty()) {
+            config.setPassword(password);
+        }
+        LettuceConnectionFactory factory = new LettuceConnectionFactory(config);
+        factory.afterPropertiesSet();
+
+        ObjectMapper mapper = new ObjectMapper();
+        JsonValueCodec blobCodec = new JsonValueCodec();
+        HashObjectCodec hashCodec = new HashObjectCodec(mapper);
+        JavaType type = mapper.getTypeFactory().constructMapType(LinkedHashMap.class, String.class, Object.class);
+
+        Map<String, Object> wide = wideObject(fieldCount);
+        byte[] blobKey = BLOB_KEY.getBytes(StandardCharsets.UTF_8);
+        byte[] hashKey = HASH_KEY.getBytes(StandardCharsets.UTF_8);
+        byte[] field0 = "field0".getBytes(StandardCharsets.UTF_8);
+        byte[] field1 = "field1".getBytes(StandardCharsets.UTF_8);
+
+        try (RedisConnection connection = factory.getConnection()) {
+            System.out.printf("fields=%d iterations=%d%n", fieldCount, iterations);
+
+            run("BLOB write full", iterations, i -> connection.stringCommands().set(blobKey, blobCodec.encode(wide)));
+            run("HASH write full", iterations, i -> connection.hashCommands().hMSet(hashKey, rawFields(hashCodec, wide)));
+
+            run("BLOB read full", iterations, i -> blobCodec.decode(connection.stringCommands().get(blobKey), type));
+            run("HASH read full", iterations, i -> {
+                Map<String, byte[]> fields = new LinkedHashMap<>();
+                connection.hashCommands().hGetAll(hashKey)
+                        .forEach((k, v) -> fields.put(new String(k, StandardCharsets.UTF_8), v));
+                hashCodec.decode(fields, type);
+            });
+
+            // 只需要两个字段：BLOB 只能整体解码，HASH 用 HMGET 投影
+            run("BLOB read 2 fields", iterations, i -> {
+                Map<String, Object> value = blobCodec.decode(connection.stringCommands().get(blobKey), type);
+                value.get("field0");
+                value.get("field1");
+            });
+            run("HASH read 2 fields", iterations, i -> hashCodec.decode(List.of("field0", "field1"),
+                    connection.hashCommands().hMGet(hashKey, field0, field1), type));
+
+            // 修改一个字段：BLOB 需要读-改-写，HASH 只写一个字段
+            run("BLOB update 1 field", iterations, i -> {
+                Map<String, Object> value = blobCodec.decode(connection.stringCommands().get(blobKey), type);
+                value.put("field0", "updated-" + i);
+                connection.stringCommands().set(blobKey, blobCodec.encode(value));
+            });
+            run("HASH update 1 field", iterations, i ->
+                    connection.hashCommands().hSet(hashKey, field0, hashCodec.encodeField("updated-" + i)));
+
+            System.out.printf("MEMORY USAGE blob=%s bytes, hash=%s bytes%n",
+                    connection.execute("MEMORY", "USAGE".getBytes(StandardCharsets.UTF_8), blobKey),
+                    connection.execute("MEMORY", "USAGE".getBytes(StandardCharsets.UTF_8), hashKey));
+
+            connection.keyCommands().del(blobKey, hashKey);
+        } finally {
+            factory.destroy();
+        }
+    }
+
+    private static void run(String name, int iterations, IntConsumer op) {
+        // 预热
+        for (int i = 0; i < Math.min(iterations, 2_000); i++) {
+            op.accept(i);
+        }
+        long start = System.nanoTime();
+        for (int i = 0; i < iterations; i++) {
+            op.accept(i);
+        }
+        long elapsed = System.nanoTime() - start;
+        System.out.printf("%-22s avg %8.2f us%n", name, elapsed / 1_000.0 / iterations);
+    }
+
+    private static Map<byte[], byte[]> rawFields(HashObjectCodec codec, Map<String, Object> value) {
+        Map<byte[], byte[]> fields = new LinkedHashMap<>();
+        codec.encode(value).forEach((k, v) -> fields.put(k.getBytes(StandardCharsets.UTF_8), v));
+        return fields;
+    }
+
+    /**
+     * 宽对象：字符串、数字、嵌套对象混合
+     */
+    private static Map<String, Object> wideObject(int fieldCount) {
+        Map<String, Object> value = new LinkedHashMap<>();
+        for (int i = 0; i < fieldCount; i++) {
+            switch (i % 3) {
+                case 0 -> value.put("field" + i, "value-" + i + "-" + "x".repeat(24));
+                case 1 -> value.put("field" + i, (long) i * 1_000_003L);
+                default -> value.put("field" + i, Map.of("city", "gz", "code", i));
+            }
+        }
+        return value;
+    }
+}
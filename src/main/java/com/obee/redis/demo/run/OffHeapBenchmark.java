@@ -0,0 +1,107 @@
+package com.obee.redis.demo.run;
+
+import com.fasterxml.jackson.databind.JavaType;
+import com.obee.redis.demo.model.UserDTO;
+import com.obee.redis.demo.service.codec.JsonValueCodec;
+import com.obee.redis.demo.service.local.OffHeapStore;
+
+import java.lang.management.BufferPoolMXBean;
+import java.lang.management.GarbageCollectorMXBean;
+import java.lang.management.ManagementFactory;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.function.IntConsumer;
+
+/**
+ * @description:
+ * @author: Guanwf
+ * @date: 2026/10/20 16:20
+ *
+ *  * 堆上 ConcurrentHashMap<String, UserDTO> vs 堆外 OffHeapStore（命中时解码）对比
+ *  * 不是 Spring 组件，不需要 Redis，直接运行 main：
+ *  *   java -Xmx2g -cp ... com.obee.redis.demo.run.OffHeapBenchmark [entries] [lookups]
+ *  * 输出填充后的堆占用、堆外占用、随机读取的平均耗时（纳秒）以及期间的 GC 次数/耗时
+ *
+ */
+public class OffHeapBenchmark {
+
+    public static void main(String[] args) {
+        int entries = args.length > 0 ? Integer.parseInt(args[0]) : 1_000_000;
+        int lookups = args.length > 1 ? Integer.parseInt(args[1]) : 2_000_000;
+
+        JsonValueCodec codec = new JsonValueCodec();
+        JavaType type = codec.type(UserDTO.class);
+        System.out.printf("entries=%d lookups=%d%n", entries, lookups);
+
+        long baseline = usedHeap();
+        Map<String, UserDTO> heap = new ConcurrentHashMap<>();
+        for (int i = 0; i < entries; i++) {
+            heap.put("user:" + i, user(i));
+        }
+        System.out.printf("%-10s heap=%,d B%n", "ON-HEAP", usedHeap() - baseline);
+        run("ON-HEAP", lookups, i -> heap.get("user:" + ThreadLocalRandom.current().nextInt(entries)));
+        heap.clear();
+
+        baseline = usedHeap();
+        OffHeapStore store = new OffHeapStore(entries * 192L, 16, 256 * 1024);
+        for (int i = 0; i < entries; i++) {
+            store.put("user:" + i, codec.encode(user(i)), 3_600_000);
+        }
+        System.out.printf("%-10s heap=%,d B direct=%,d B entries=%,d%n", "OFF-HEAP",
+                usedHeap() - baseline, directBytes(), store.size());
+        run("OFF-HEAP", lookups, i -> {
+            byte[] bytes = store.get("user:" + ThreadLocalRandom.current().nextInt(entries));
+            if (bytes != null) {
+                codec.decode(bytes, type);
+            }
+        });
+    }
+
+    private static UserDTO user(int i) {
+        UserDTO user = new UserDTO();
+        user.setId(i);
+        user.setName("user-" + i);
+        return user;
+    }
+
+    private static void run(String name, int iterations, IntConsumer op) {
+        // 预热
+        for (int i = 0; i < Math.min(iterations, 200_000); i++) {
+            op.accept(i);
+        }
+        long gcCount = gcCount();
+        long gcMillis = gcMillis();
+        long start = System.nanoTime();
+        for (int i = 0; i < iterations; i++) {
+            op.accept(i);
+        }
+        long avg = (System.nanoTime() - start) / iterations;
+        System.out.printf("%-10s get avg=%d ns gc=%d (%d ms)%n", name, avg, gcCount() - gcCount, gcMillis() - gcMillis);
+    }
+
+    private static long usedHeap() {
+        for (int i = 0; i < 3; i++) {
+            System.gc();
+        }
+        Runtime runtime = Runtime.getRuntime();
+        return runtime.totalMemory() - runtime.freeMemory();
+    }
+
+    private static long directBytes() {
+        return ManagementFactory.getPlatformMXBeans(BufferPoolMXBean.class).stream()
+                .filter(pool -> "direct".equals(pool.getName()))
+                .mapToLong(BufferPoolMXBean::getMemoryUsed)
+                .sum();
+    }
+
+    private static long gcCount() {
+        return ManagementFactory.getGarbageCollectorMXBeans().stream()
+                .mapToLong(GarbageCollectorMXBean::getCollectionCount).sum();
+    }
+
+    private static long gcMillis() {
+        return ManagementFactory.getGarbageCollectorMXBeans().stream()
+                .mapToLong(GarbageCollectorMXBean::getCollectionTime).sum();
+    }
+}
@@ -1,35 +1,52 @@
 package com.obee.redis.demo.service;
 
 import com.fasterxml.jackson.core.JsonProcessingException;
+import com.fasterxml.jackson.databind.JavaType;
 import com.fasterxml.jackson.databind.MapperFeature;
 import com.fasterxml.jackson.databind.ObjectMapper;
 import com.fasterxml.jackson.databind.SerializationFeature;
 import com.obee.redis.demo.annotation.CacheRefreshable;
 import com.obee.redis.demo.annotation.KaimingCache;
-import jakarta.annotation.PostConstruct;
+import com.obee.redis.demo.annotation.Versioned;
+import com.obee.redis.demo.service.admission.CacheAdmission;
+import com.obee.redis.demo.service.analysis.CacheQuotaGuard;
+import com.obee.redis.demo.service.expiry.AdaptiveTtlTracker;
+import com.obee.redis.demo.service.expiry.ExpiryPolicy;
+import com.obee.redis.demo.service.expiry.SlidingExpiryRefresher;
+import com.obee.redis.demo.service.fanout.CacheFanOut;
+import com.obee.redis.demo.service.fanout.CallerContext;
+import com.obee.redis.demo.service.metadata.CacheMetadataRegistry;
+import com.obee.redis.demo.service.metadata.CacheOperationMetadata;
+import com.obee.redis.demo.service.normalize.NormalizedResultCache;
+import com.obee.redis.demo.service.trace.CacheTraceRecorder;
 import lombok.RequiredArgsConstructor;
 import lombok.extern.slf4j.Slf4j;
 import org.aspectj.lang.ProceedingJoinPoint;
 import org.aspectj.lang.annotation.Around;
 import org.aspectj.lang.annotation.Aspect;
 import org.aspectj.lang.reflect.MethodSignature;
-import org.springframework.context.EmbeddedValueResolverAware;
-import org.springframework.core.DefaultParameterNameDiscoverer;
-import org.springframework.expression.EvaluationContext;
-import org.springframework.expression.Expression;
-import org.springframework.expression.ExpressionParser;
-import org.springframework.expression.spel.standard.SpelExpressionParser;
-import org.springframework.expression.spel.support.StandardEvaluationContext;
+import org.springframework.beans.factory.annotation.Value;
 import org.springframework.stereotype.Component;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
 import org.springframework.util.DigestUtils;
-import org.springframework.util.StringUtils;
-import org.springframework.util.StringValueResolver;
 
 import java.lang.reflect.Method;
 import java.nio.charset.StandardCharsets;
 import java.time.Duration;
+import java.time.Instant;
+import java.time.LocalDateTime;
+import java.time.ZoneId;
+import java.util.Collection;
+import java.util.Date;
 import java.util.Optional;
-import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.CancellationException;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.Executor;
+import java.util.concurrent.Executors;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.TimeoutException;
 
 /**
  * @description:
@@ -40,34 +57,43 @@ import java.util.concurrent.ThreadLocalRandom;
 @Aspect
 @Component
 @RequiredArgsConstructor
-public class CacheAspect implements EmbeddedValueResolverAware {
+public class CacheAspect {
 
-    private final RedisService redisService;
+    // 与 Spring @Cacheable 共用的读写路径
+    private final CacheEngine cacheEngine;
 
-    // SpEL 解析器，线程安全
-    private final ExpressionParser parser = new SpelExpressionParser();
+    // 启动时构建的方法元数据
+    private final CacheMetadataRegistry metadataRegistry;
 
-    private final DefaultParameterNameDiscoverer nameDiscoverer = new DefaultParameterNameDiscoverer();
+    private final ExpiryPolicy expiryPolicy;
 
-    // Spring 的配置解析器（用于解析 ${...}）
-    private StringValueResolver valueResolver;
+    private final SlidingExpiryRefresher slidingExpiryRefresher;
 
-    // 专门用于生成 Hash 的 ObjectMapper
-    private ObjectMapper hashMapper;
+    private final SpelKeyGenerator keyGenerator;
 
-    @PostConstruct
-    public void init() {
-        hashMapper = new ObjectMapper();
-        // 【关键】配置 Map 按 Key 排序，保证 JSON 顺序一致
-        hashMapper.configure(SerializationFeature.ORDER_MAP_ENTRIES_BY_KEYS, true);
-        // 忽略未知的属性，防止报错
-        hashMapper.configure(MapperFeature.SORT_PROPERTIES_ALPHABETICALLY, true);
-    }
+    private final CacheAdmission cacheAdmission;
 
-    @Override
-    public void setEmbeddedValueResolver(StringValueResolver resolver) {
-        this.valueResolver = resolver;
-    }
+    private final CacheQuotaGuard quotaGuard;
+
+    private final CacheTraceRecorder traceRecorder;
+
+    private final NormalizedResultCache normalizedResults;
+
+    private final AdaptiveTtlTracker adaptiveTtl;
+
+    // 样本不足以计算分位数时的对冲延迟（毫秒）
+    @Value("${app.cache.hedge.default-delay:5}")
+    private long defaultHedgeDelayMillis;
+
+    // 专门用于生成 Hash 的 ObjectMapper（#hash() 是静态函数，只能用静态实例；配置完成后线程安全）
+    // 对冲回源的虚拟线程（调用方不在事务中时使用）
+    private static final Executor HEDGE_EXECUTOR =
+            Executors.newThreadPerTaskExecutor(Thread.ofVirtual().name("cache-hedge-", 0).factory());
+
+    private static final ObjectMapper HASH_MAPPER = new ObjectMapper()
+            // 【关键】配置 Map 按 Key 排序，保证 JSON 顺序一致
+            .configure(SerializationFeature.ORDER_MAP_ENTRIES_BY_KEYS, true)
+            .configure(MapperFeature.SORT_PROPERTIES_ALPHABETICALLY, true);
 
     @Around("@annotation(kaimingCache)")
     public Object around(ProceedingJoinPoint joinPoint, KaimingCache kaimingCache) throws Throwable {
@@ -81,27 +107,26 @@ public class CacheAspect implements EmbeddedValueResolverAware {
             return joinPoint.proceed();
         }
 
-        String appName = valueResolver.resolveStringValue("${spring.application.name}");
-        log.info("appName={}",appName);
+        // 1. 启动时预先计算的元数据（Key 表达式、返回类型、基础 TTL）
+        Method method = ((MethodSignature) joinPoint.getSignature()).getMethod();
+        CacheOperationMetadata metadata = metadataRegistry.get(method, kaimingCache);
+        String cacheName = metadata.cacheName();
 
-        // 1. 计算过期时间 (支持环境变量)
-        long ttl2 = kaimingCache.timeout();
-        if (StringUtils.hasText(kaimingCache.timeoutString())) {
-            // 解析 "${cache.timeout:100}"
-            String resolvedString = valueResolver.resolveStringValue(kaimingCache.timeoutString());
-            try {
-                if (resolvedString != null) {
-                    ttl2 = Long.parseLong(resolvedString);
-                }
-            } catch (NumberFormatException e) {
-                log.warn("Invalid timeout config: {}", resolvedString);
-            }
+        // condition 不满足：完全不走缓存，也省掉 Key 生成
+        if (metadata.condition() != null
+                && !keyGenerator.test(metadata.condition(), metadata.paramNames(), joinPoint.getArgs(), null)) {
+            log.debug("Cache condition not met: {}", cacheName);
+            return joinPoint.proceed();
         }
 
         // 2. 生成 Key (支持 环境变量 + SpEL + MD5)
-        // 先解析环境变量： "${prefix}" -> "myapp:user:"
-        String rawKeyPattern = valueResolver.resolveStringValue(kaimingCache.key());
-        String redisKey = generateKey(rawKeyPattern, joinPoint);
+        String redisKey = keyGenerator.generate(metadata.keyExpression(), metadata.paramNames(), joinPoint.getArgs());
+        if (kaimingCache.adaptiveTtl()) {
+            adaptiveTtl.recordAccess(cacheName, redisKey);
+        }
+
+        // 回源开始时间（版本化回写用于判断是否早于删除）
+        long loadStartMillis = System.currentTimeMillis();
 
         // 2. 【新增】检查方法参数，看是否有 Body 要求强制刷新
         boolean forceRefresh = false;
@@ -116,114 +141,286 @@ public class CacheAspect implements EmbeddedValueResolverAware {
             }
         }
 
-//        String redisKey = "";
         if (!forceRefresh) {
 
-            // 1. 解析 SpEL 生成真实的 Key
-            redisKey = generateKeyBySpEL(kaimingCache.key(), joinPoint);
-
-            // 获取方法的返回类型
-            MethodSignature signature = (MethodSignature) joinPoint.getSignature();
-            Class<?> returnType = signature.getReturnType();
-
             // 2. 查询缓存
             // 注意：这里复用了之前封装的 get 方法
             // 3. 读取缓存逻辑
             // 只有在【不是强制刷新】的情况下，才读 Redis
 
-            Optional<?> cachedValue = redisService.get(redisKey, returnType);
-            if (cachedValue.isPresent()) {
+            JavaType returnType = metadata.returnType();
+            Lookup lookup;
+            if (metadata.normalized()) {
+                // 归一化：ID 列表 + 批量取实体
+                lookup = Lookup.of(normalizedResults.get(metadata, redisKey));
+            } else if (metadata.budgetedRead()) {
+                lookup = readWithBudget(joinPoint, kaimingCache, cacheName, redisKey, returnType);
+            } else if (kaimingCache.storage() == KaimingCache.Storage.BLOB && CacheFanOut.currentBatch() != null) {
+                // 扇出分支内：与其它分支的读取合并为一次 MGET
+                lookup = Lookup.of(CacheFanOut.currentBatch().get(new CacheEngine.Read(cacheName, redisKey, returnType)));
+            } else {
+                lookup = Lookup.of(cacheEngine.get(cacheName, redisKey, returnType, kaimingCache.storage()));
+            }
+
+            if (lookup.hit()) {
                 log.debug("Hit cache: {}", redisKey);
-                return cachedValue.get();
+                trace(cacheName, redisKey, true, 0);
+                if (kaimingCache.sliding()) {
+                    // 滑动过期：登记续期，由 SlidingExpiryRefresher 批量提交，不占用本次请求的往返
+                    // 沿用写入时选定的 TTL，而不是基础 TTL
+                    Object cached = lookup.value();
+                    slidingExpiryRefresher.touch(redisKey,
+                            () -> expiryPolicy.slidingTtl(metadata.method(), kaimingCache, redisKey, cached));
+                }
+                return lookup.value();
+            }
+            if (lookup.loaded()) {
+                // 对冲读取中回源先于 GET 给出结果，直接回写
+                trace(cacheName, redisKey, false, (System.currentTimeMillis() - loadStartMillis) * 1000);
+                writeBack(joinPoint, metadata, redisKey, lookup.value(), loadStartMillis, true);
+                return lookup.value();
             }
         }
 
 
         // 3. 缓存未命中，执行目标方法（查数据库）
         // 架构思考：这里可以加分布式锁（Double Check）防止击穿，但为了代码简洁，暂展示基础版
+        loadStartMillis = System.currentTimeMillis();
+        long loadStartNanos = System.nanoTime();
         Object result = joinPoint.proceed();
+        trace(cacheName, redisKey, false, (System.nanoTime() - loadStartNanos) / 1000);
 
         // 4. 回写缓存
-        if (result != null) {
-            long ttl = kaimingCache.timeout();
-            // 如果开启随机时间（防止雪崩）
-            if (kaimingCache.random()) {
-                // 增加 0 ~ 20% 的随机抖动
-                long jitter = ThreadLocalRandom.current().nextLong(ttl / 5);
-                ttl += jitter;
-            }
+        // 强制刷新时 Redis 中可能已有旧值，必须覆盖，不受准入与配额限制
+        writeBack(joinPoint, metadata, redisKey, result, loadStartMillis, !forceRefresh);
+        return result;
+    }
 
-            // 转换为 Duration
-            Duration duration = Duration.of(ttl, kaimingCache.timeUnit().toChronoUnit());
+    /**
+     * 记录访问轨迹（见 CacheTraceRecorder），值大小取该缓存的平均写入大小
+     */
+    private void trace(String cacheName, String redisKey, boolean hit, long loadMicros) {
+        if (traceRecorder.isEnabled()) {
+            traceRecorder.record(cacheName, redisKey, hit, (int) cacheEngine.averagePutBytes(cacheName), loadMicros);
+        }
+    }
 
-            redisService.set(redisKey, result, duration);
-            log.debug("Cache set: {} ttl: {}", redisKey, duration);
-        } else {
-            // 可选：缓存空对象防止穿透 (设置较短时间，例如 1 分钟)
-            redisService.set(redisKey, new Object(), Duration.ofMinutes(1));
+    private void writeBack(ProceedingJoinPoint joinPoint, CacheOperationMetadata metadata,
+                           String redisKey, Object result, long loadStartMillis, boolean enforceLimits) {
+        KaimingCache kaimingCache = metadata.annotation();
+        // unless 为 true：本次结果不写入
+        if (metadata.unless() != null
+                && keyGenerator.test(metadata.unless(), metadata.paramNames(), joinPoint.getArgs(), result)) {
+            log.debug("Cache write vetoed by unless: {}", redisKey);
+            return;
+        }
+        // 准入：长尾 Key 达到阈值前不写入
+        if (enforceLimits && !cacheAdmission.admit(kaimingCache, metadata.cacheName(), redisKey)) {
+            log.debug("Cache write not admitted: {}", redisKey);
+            return;
         }
+        // 配额：该缓存名估算内存超过 quota 时不再新增
+        if (enforceLimits && !quotaGuard.allowWrite(metadata.cacheName())) {
+            log.debug("Cache write over quota: {}", redisKey);
+            return;
+        }
+        if (metadata.normalized()) {
+            if (result instanceof Collection<?> items) {
+                Duration duration = expiryPolicy.ttlFor(metadata.method(), kaimingCache, redisKey, result);
+                boolean written = normalizedResults.put(metadata, redisKey, items, duration, loadStartMillis);
+                log.debug("Cache set (normalized): {} ttl: {} items: {} written: {}", redisKey, duration,
+                        items.size(), written);
+            }
+        } else if (result != null) {
+            // 1. 计算过期时间（基础 TTL 按方法缓存 + CacheTtlAware / 自适应 + 抖动）
+            Duration duration = expiryPolicy.ttlFor(metadata.method(), kaimingCache, redisKey, result);
+            long version = resolveVersion(joinPoint, metadata, result);
+
+            boolean written = cacheEngine.put(metadata.cacheName(), redisKey, result, duration, kaimingCache.storage(),
+                    version, loadStartMillis, kaimingCache.maxValueBytes());
+            log.debug("Cache set: {} ttl: {} version: {} written: {}", redisKey, duration, version, written);
+            if (written && kaimingCache.sliding()) {
+                slidingExpiryRefresher.remember(redisKey, duration);
+            }
+        }
+        // null 结果不缓存：读取路径把 null 当作未命中，写入空值标记起不到防穿透的作用
+    }
 
-        return result;
+    /**
+     * 提取返回值的版本号：Versioned 接口优先，其次注解上的 version 表达式
+     */
+    private long resolveVersion(ProceedingJoinPoint joinPoint, CacheOperationMetadata metadata, Object result) {
+        if (result instanceof Versioned versioned) {
+            return versioned.cacheVersion();
+        }
+        if (metadata.versionExpression() == null) {
+            return CacheEngine.UNVERSIONED;
+        }
+        Object version = keyGenerator.evaluate(metadata.versionExpression(), metadata.paramNames(),
+                joinPoint.getArgs(), result);
+        return switch (version) {
+            case Number n -> n.longValue();
+            case Instant i -> i.toEpochMilli();
+            case Date d -> d.getTime();
+            case LocalDateTime t -> t.atZone(ZoneId.systemDefault()).toInstant().toEpochMilli();
+            case null -> CacheEngine.UNVERSIONED;
+            default -> throw new IllegalArgumentException("Unsupported cache version type: " + version.getClass());
+        };
     }
 
     /**
-     * 解析 SpEL 表达式
-     *
-     * @param spELString 注解上的 key 定义，如 "'user:' + #id"
-     * @param joinPoint  切入点
-     * @return 真实 Key
+     * 带延迟预算的读取
+     * 1. 只设置 readTimeout：异步 GET，超时按未命中处理
+     * 2. 开启 hedge：GET 在对冲延迟内未返回，则在虚拟线程上回源（带上 CallerContext：CacheContext、请求上下文、
+     *    Locale、MDC），与 GET 竞争，先得到结果的一方返回：
+     *    - GET 先命中：返回缓存值，回源继续在后台执行完毕（不中断，避免打断进行中的数据库调用），结果丢弃
+     *    - GET 先未命中或失败：等待回源，回源完成后照常回写
+     *    - 回源先完成：取消 GET，返回回源结果
+     *    回源失败时，如果 GET 已命中则返回缓存值，否则抛出回源的异常
+     * 3. 调用方处于事务中时不对冲：事务资源绑定在调用线程上，回源只能在调用线程上执行，
+     *    此时退化为"等待对冲延迟，再在调用线程上回源"，调用方总要等回源结束
      */
-    private String generateKeyBySpEL(String spELString, ProceedingJoinPoint joinPoint) {
-        // 如果不是 SpEL 表达式（不包含#），直接返回
-        if (!spELString.contains("#")) {
-            return spELString;
+    private Lookup readWithBudget(ProceedingJoinPoint joinPoint, KaimingCache kaimingCache,
+                                  String cacheName, String redisKey, JavaType type) throws Throwable {
+        // 先取对冲延迟（首次调用时按注解的分位数创建耗时样本）
+        long hedgeDelayMillis = kaimingCache.hedge() ? hedgeDelayMillis(kaimingCache, cacheName) : 0;
+        CompletableFuture<Optional<Object>> redisRead =
+                cacheEngine.getAsync(cacheName, redisKey, type, kaimingCache.readTimeout());
+
+        if (!kaimingCache.hedge()) {
+            try {
+                return Lookup.of(redisRead.get());
+            } catch (ExecutionException e) {
+                log.warn("Cache read over budget or failed, fallback to loader: {} ({})", redisKey, e.getCause().toString());
+                return Lookup.MISS;
+            }
         }
 
-        MethodSignature methodSignature = (MethodSignature) joinPoint.getSignature();
-        Method method = methodSignature.getMethod();
-        Object[] args = joinPoint.getArgs();
+        try {
+            // Redis 在对冲延迟内给出了答复（命中或未命中）
+            return Lookup.of(redisRead.get(hedgeDelayMillis, TimeUnit.MILLISECONDS));
+        } catch (ExecutionException e) {
+            log.warn("Cache read failed, fallback to loader: {} ({})", redisKey, e.getCause().toString());
+            return Lookup.MISS;
+        } catch (TimeoutException e) {
+            log.debug("Cache read slower than {}ms, hedging with loader: {}", hedgeDelayMillis, redisKey);
+        }
 
-        // 获取方法参数名
-        String[] paramNames = nameDiscoverer.getParameterNames(method);
+        if (TransactionSynchronizationManager.isActualTransactionActive()) {
+            return loadAfterDelay(joinPoint, redisKey, redisRead);
+        }
 
-        // 构建上下文
-        EvaluationContext context = new StandardEvaluationContext();
-        if (paramNames != null) {
-            for (int i = 0; i < paramNames.length; i++) {
-                context.setVariable(paramNames[i], args[i]);
+        CallerContext context = CallerContext.capture();
+        CompletableFuture<Object> load = CompletableFuture.supplyAsync(() -> {
+            context.apply();
+            try {
+                return joinPoint.proceed();
+            } catch (Throwable t) {
+                throw new CompletionException(t);
+            } finally {
+                CallerContext.reset();
             }
+        }, HEDGE_EXECUTOR);
+
+        // 等待任一方完成；GET 先完成但未命中（或失败）时继续等待回源
+        try {
+            CompletableFuture.anyOf(redisRead, load).join();
+        } catch (CompletionException | CancellationException ignored) {
+            // 失败的一方在下面分别处理
+        }
+        Optional<Object> early = redisRead.isDone() ? cachedOrEmpty(redisRead) : Optional.empty();
+        if (early.isPresent()) {
+            log.debug("Cache read won the hedge, loader result discarded: {}", redisKey);
+            load.whenComplete((v, t) -> {
+                if (t != null) {
+                    log.debug("Discarded hedge loader failed: {} ({})", redisKey, t.toString());
+                }
+            });
+            return Lookup.hit(early.get());
         }
 
-        // 解析
-        Expression expression = parser.parseExpression(spELString);
-        return expression.getValue(context, String.class);
+        Object loaded;
+        try {
+            loaded = load.join();
+        } catch (CompletionException e) {
+            Throwable t = e.getCause() != null ? e.getCause() : e;
+            return serveLateRead(redisKey, redisRead, t);
+        }
+        // 回源已完成，GET 的结果不再需要（命中时也以回源结果为准，它不会更旧）
+        redisRead.cancel(false);
+        return Lookup.loaded(loaded);
     }
 
     /**
-     * 生成 Key 的核心逻辑
+     * 事务中的非对冲模式：对冲延迟已过，在调用线程上回源（保留事务上下文），GET 继续在后台进行
      */
-    private String generateKey(String spELString, ProceedingJoinPoint joinPoint) {
-        MethodSignature methodSignature = (MethodSignature) joinPoint.getSignature();
-        Method method = methodSignature.getMethod();
-        Object[] args = joinPoint.getArgs();
-        String[] paramNames = nameDiscoverer.getParameterNames(method);
+    private Lookup loadAfterDelay(ProceedingJoinPoint joinPoint, String redisKey,
+                                  CompletableFuture<Optional<Object>> redisRead) throws Throwable {
+        Object loaded;
+        try {
+            loaded = joinPoint.proceed();
+        } catch (Throwable t) {
+            return serveLateRead(redisKey, redisRead, t);
+        }
+        redisRead.cancel(false);
+        return Lookup.loaded(loaded);
+    }
 
-        // 构建 SpEL 上下文
-        StandardEvaluationContext context = new StandardEvaluationContext();
-        if (paramNames != null) {
-            for (int i = 0; i < paramNames.length; i++) {
-                context.setVariable(paramNames[i], args[i]);
+    /**
+     * 回源失败时，仍给 Redis 一次机会（GET 受 readTimeout / 命令超时约束）；未命中则抛出回源的异常
+     */
+    private Lookup serveLateRead(String redisKey, CompletableFuture<Optional<Object>> redisRead,
+                                 Throwable loaderFailure) throws Throwable {
+        try {
+            Optional<Object> cached = redisRead.get();
+            if (cached.isPresent()) {
+                log.warn("Cache loader failed, served from late cache read: {} ({})", redisKey, loaderFailure.toString());
+                return Lookup.hit(cached.get());
             }
+        } catch (ExecutionException e) {
+            loaderFailure.addSuppressed(e.getCause());
         }
+        throw loaderFailure;
+    }
 
-        // 【关键】注册自定义函数 #hash()
+    private static Optional<Object> cachedOrEmpty(CompletableFuture<Optional<Object>> redisRead) {
         try {
-            context.registerFunction("hash", CacheAspect.class.getDeclaredMethod("calculateHash", Object.class));
-        } catch (NoSuchMethodException e) {
-            log.error("Failed to register hash function", e);
+            return redisRead.join();
+        } catch (CompletionException | CancellationException e) {
+            return Optional.empty();
+        }
+    }
+
+    private long hedgeDelayMillis(KaimingCache kaimingCache, String cacheName) {
+        if (kaimingCache.hedgeDelay() > 0) {
+            return kaimingCache.hedgeDelay();
+        }
+        long micros = cacheEngine.latencyPercentileMicros(cacheName, kaimingCache.hedgePercentile());
+        // 样本不足时使用默认延迟
+        return micros < 0 ? defaultHedgeDelayMillis : Math.max(1, (micros + 999) / 1000);
+    }
+
+    /**
+     * 缓存查询结果
+     *
+     * @param hit    Redis 命中
+     * @param loaded 对冲读取中由回源得到（尚未回写）
+     */
+    private record Lookup(boolean hit, boolean loaded, Object value) {
+
+        static final Lookup MISS = new Lookup(false, false, null);
+
+        static Lookup of(Optional<?> cached) {
+            return cached.isPresent() ? hit(cached.get()) : MISS;
+        }
+
+        static Lookup hit(Object value) {
+            return new Lookup(true, false, value);
         }
 
-        return parser.parseExpression(spELString).getValue(context, String.class);
+        static Lookup loaded(Object value) {
+            return new Lookup(false, true, value);
+        }
     }
 
     /**
@@ -238,15 +435,7 @@ public class CacheAspect implements EmbeddedValueResolverAware {
         }
 
         try {
-            // 获取静态实例（注意：实际生产中建议把 HashMapper 提取为单例工具类，这里为了演示方便）
-            // 由于 SpEL 调用的是静态方法，无法直接访问 Spring Bean 的实例字段
-            // 这里我们临时 new 一个 或者 使用 Holder 模式。
-            // 更好的方式是把 logic 放在一个单独的 Util 类里。
-            ObjectMapper mapper = new ObjectMapper();
-            mapper.configure(SerializationFeature.ORDER_MAP_ENTRIES_BY_KEYS, true);
-            mapper.configure(MapperFeature.SORT_PROPERTIES_ALPHABETICALLY, true);
-
-            String json = mapper.writeValueAsString(obj);
+            String json = HASH_MAPPER.writeValueAsString(obj);
             return DigestUtils.md5DigestAsHex(json.getBytes(StandardCharsets.UTF_8));
         } catch (JsonProcessingException e) {
             log.error("Hash calculation failed", e);
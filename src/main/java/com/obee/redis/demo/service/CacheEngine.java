@@ -0,0 +1,590 @@
+package com.obee.redis.demo.service;
+
+import com.fasterxml.jackson.databind.JavaType;
+import com.obee.redis.demo.annotation.KaimingCache;
+import com.obee.redis.demo.service.analysis.CacheQuotaGuard;
+import com.obee.redis.demo.service.cluster.ClusterBatchExecutor;
+import com.obee.redis.demo.service.codec.CacheEnvelope;
+import com.obee.redis.demo.service.codec.JsonValueCodec;
+import com.obee.redis.demo.service.expiry.AdaptiveTtlTracker;
+import com.obee.redis.demo.service.expiry.SlidingExpiryRefresher;
+import com.obee.redis.demo.service.local.LocalCacheTier;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.DistributionSummary;
+import io.micrometer.core.instrument.MeterRegistry;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.data.redis.connection.RedisConnection;
+import org.springframework.data.redis.connection.RedisConnectionFactory;
+import org.springframework.data.redis.connection.ReturnType;
+import org.springframework.data.redis.connection.lettuce.LettuceConnection;
+import org.springframework.data.redis.core.Cursor;
+import org.springframework.data.redis.core.RedisCallback;
+import org.springframework.data.redis.core.RedisTemplate;
+import org.springframework.data.redis.core.ScanOptions;
+import org.springframework.stereotype.Component;
+
+import java.lang.reflect.Method;
+import java.nio.charset.StandardCharsets;
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.Executor;
+import java.util.concurrent.Executors;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * @description:
+ * @author: Guanwf
+ * @date: 2026/10/19 18:10
+ *
+ *  * 缓存引擎：@KaimingCache（CacheAspect）与 Spring @Cacheable（KaimingCacheManager）共用的读写路径
+ *  * 1. 读写统一使用 JsonValueCodec（与 RedisTemplate 的 value 序列化器同一套类型规则，带 @class），老数据、RedisService 均可读
+ *  * 2. 已知目标类型时直接从原始字节解码，不经过 LinkedHashMap 中间树；
+ *  *    解码失败（类结构变化、类型不符）按未命中处理，并删除该值（本地层 + Redis），由本次回源重新写入
+ *  * 3. 统一指标：kaiming.cache.gets{cache, result=hit|miss}、kaiming.cache.puts、kaiming.cache.evictions
+ *  * 4. 回写为原子的 set-if-newer，删除留下短期墓碑（见 CacheEnvelope），慢回源不会把旧数据写回
+ *  * 5. 可选的堆外本地层（LocalCacheTier）：BLOB 读取先查本地，删除/失效同时清理本地
+ *
+ *  * Redis 异常只记录日志并按未命中处理，缓存故障不影响业务
+ *
+ */
+@Slf4j
+@Component
+public class CacheEngine {
+
+    /**
+     * 未版本化写入
+     */
+    public static final long UNVERSIONED = -1;
+
+    /**
+     * 显式写入（@CachePut 等，值不是删除前读到的）使用的回源开始时间：晚于任何删除墓碑，总是覆盖墓碑
+     */
+    public static final long EXPLICIT_WRITE = Long.MAX_VALUE;
+
+    // cache_set_if_newer 的 ARGV[5]：只在没有值时写入
+    private static final byte[] NX = "nx".getBytes(StandardCharsets.US_ASCII);
+
+    // 删除无法解码的值（很少发生），不占用调用线程
+    private static final Executor DISCARD_EXECUTOR = Executors.newVirtualThreadPerTaskExecutor();
+
+    private final RedisTemplate<String, Object> redisTemplate;
+
+    private final RedisService redisService;
+
+    private final JsonValueCodec valueCodec;
+
+    private final MeterRegistry meterRegistry;
+
+    private final RedisConnectionFactory connectionFactory;
+
+    private final LuaScripts luaScripts;
+
+    private final ClusterBatchExecutor batchExecutor;
+
+    private final LocalCacheTier localTier;
+
+    private final CacheQuotaGuard quotaGuard;
+
+    // 删除 / 版本覆盖作为更新信号
+    private final AdaptiveTtlTracker adaptiveTtl;
+
+    // 删除后清除滑动过期记录的写入 TTL
+    private final SlidingExpiryRefresher slidingRefresher;
+
+    // 删除墓碑的存活时间：覆盖最慢一次回源的耗时即可
+    private final Duration tombstoneTtl;
+
+    // 各实例之间时钟误差的容忍值，回源开始时间按此提前，宁可多拒绝一次回写
+    private final long clockSkewMillis;
+
+    // 缓存名 -> 异步 GET 耗时样本
+    private final Map<String, LatencyTracker> latencies = new ConcurrentHashMap<>();
+
+    // 缓存名 -> 指标，避免每次调用都去注册表查找
+    private final Map<String, CacheMeters> meters = new ConcurrentHashMap<>();
+
+    public CacheEngine(RedisTemplate<String, Object> redisTemplate, RedisService redisService,
+                       JsonValueCodec valueCodec, MeterRegistry meterRegistry,
+                       RedisConnectionFactory connectionFactory, LuaScripts luaScripts,
+                       ClusterBatchExecutor batchExecutor, LocalCacheTier localTier,
+                       CacheQuotaGuard quotaGuard, AdaptiveTtlTracker adaptiveTtl,
+                       SlidingExpiryRefresher slidingRefresher,
+                       @Value("${app.cache.tombstone.ttl:2s}") Duration tombstoneTtl,
+                       @Value("${app.cache.tombstone.clock-skew:50ms}") Duration clockSkew) {
+        this.connectionFactory = connectionFactory;
+        this.luaScripts = luaScripts;
+        this.batchExecutor = batchExecutor;
+        this.localTier = localTier;
+        this.quotaGuard = quotaGuard;
+        this.adaptiveTtl = adaptiveTtl;
+        this.slidingRefresher = slidingRefresher;
+        this.tombstoneTtl = tombstoneTtl;
+        this.clockSkewMillis = clockSkew.toMillis();
+        this.redisTemplate = redisTemplate;
+        this.redisService = redisService;
+        this.valueCodec = valueCodec;
+        this.meterRegistry = meterRegistry;
+    }
+
+    /**
+     * @KaimingCache 的缓存名：注解指定的 cacheName，未指定时为 "类名.方法名"
+     */
+    public static String cacheName(Method method, KaimingCache kaimingCache) {
+        if (!kaimingCache.cacheName().isEmpty()) {
+            return kaimingCache.cacheName();
+        }
+        return method.getDeclaringClass().getSimpleName() + "." + method.getName();
+    }
+
+    /**
+     * 按目标类型读取
+     */
+    @SuppressWarnings("unchecked")
+    public <T> Optional<T> get(String cacheName, String key, JavaType type, KaimingCache.Storage storage) {
+        Optional<T> value;
+        if (storage == KaimingCache.Storage.HASH) {
+            value = redisService.hGetObject(key, type.getRawClass()).map(v -> (T) v);
+        } else {
+            value = decode(cacheName, key, getRaw(key), type);
+        }
+        record(cacheName, value.isPresent());
+        return value;
+    }
+
+    /**
+     * 异步读取（Lettuce 异步命令），用于单次调用级别的超时与对冲读取
+     * 超时或异常时 future 以异常结束，调用方按未命中处理
+     *
+     * @param timeoutMillis 大于 0 时在该时间后以 TimeoutException 结束
+     */
+    public <T> CompletableFuture<Optional<T>> getAsync(String cacheName, String key, JavaType type, long timeoutMillis) {
+        byte[] local = localTier.get(key);
+        if (local != null) {
+            Optional<T> value = decode(cacheName, key, local, type);
+            record(cacheName, value.isPresent());
+            return CompletableFuture.completedFuture(value);
+        }
+        long start = System.nanoTime();
+        CompletableFuture<byte[]> future;
+        try {
+            future = getRawAsync(key);
+        } catch (Exception e) {
+            return CompletableFuture.failedFuture(e);
+        }
+        if (timeoutMillis > 0) {
+            future = future.orTimeout(timeoutMillis, TimeUnit.MILLISECONDS);
+        }
+        return future.thenApply(bytes -> {
+            latency(cacheName).record((System.nanoTime() - start) / 1_000);
+            fillLocal(key, bytes);
+            Optional<T> value = decode(cacheName, key, bytes, type);
+            record(cacheName, value.isPresent());
+            return value;
+        });
+    }
+
+    /**
+     * 回源开始时间减去时钟误差容忍值，与删除墓碑比较时使用（其它脚本遵守墓碑时与 put 保持一致）
+     */
+    public long loadFence(long loadStartMillis) {
+        return loadStartMillis - clockSkewMillis;
+    }
+
+    /**
+     * 该缓存最近异步 GET 耗时的分位数（微秒），样本不足时返回 -1
+     */
+    public long latencyPercentileMicros(String cacheName, double percentile) {
+        return latencies.computeIfAbsent(cacheName, n -> new LatencyTracker(1024, percentile)).percentileMicros();
+    }
+
+    /**
+     * 该缓存 BLOB 写入值的平均字节数（无样本时为 0）
+     */
+    public double averagePutBytes(String cacheName) {
+        return meters(cacheName).putBytes.mean();
+    }
+
+    /**
+     * 批量读取（BLOB 存储），按 keys 的顺序返回，不存在的 Key 对应 null
+     * 先查本地层，其余一次 MGET（集群按 slot / 节点分组，见 ClusterBatchExecutor#multiGet）
+     * Redis 异常时未在本地层命中的全部按未命中处理
+     */
+    public <T> List<T> getAll(String cacheName, List<String> keys, JavaType type) {
+        byte[][] raw = getRawAll(keys);
+        List<T> values = new ArrayList<>(keys.size());
+        for (int i = 0; i < raw.length; i++) {
+            Optional<T> value = decode(cacheName, keys.get(i), raw[i], type);
+            values.add(value.orElse(null));
+            record(cacheName, value.isPresent());
+        }
+        return values;
+    }
+
+    /**
+     * 批量读取不同缓存名 / 类型的 Key（BLOB 存储），一次 MGET，按 reads 的顺序返回（见 CacheFanOut）
+     */
+    public List<Optional<Object>> getAll(List<Read> reads) {
+        byte[][] raw = getRawAll(reads.stream().map(Read::key).toList());
+        List<Optional<Object>> values = new ArrayList<>(reads.size());
+        for (int i = 0; i < raw.length; i++) {
+            Read read = reads.get(i);
+            Optional<Object> value = decode(read.cacheName(), read.key(), raw[i], read.type());
+            record(read.cacheName(), value.isPresent());
+            values.add(value);
+        }
+        return values;
+    }
+
+    private byte[][] getRawAll(List<String> keys) {
+        byte[][] raw = new byte[keys.size()][];
+        List<String> remote = new ArrayList<>();
+        for (int i = 0; i < keys.size(); i++) {
+            raw[i] = localTier.get(keys.get(i));
+            if (raw[i] == null) {
+                remote.add(keys.get(i));
+            }
+        }
+        if (!remote.isEmpty()) {
+            try {
+                Map<String, byte[]> fetched = batchExecutor.multiGet(remote);
+                for (int i = 0; i < keys.size(); i++) {
+                    if (raw[i] == null) {
+                        raw[i] = fetched.get(keys.get(i));
+                        fillLocal(keys.get(i), raw[i]);
+                    }
+                }
+            } catch (Exception e) {
+                log.error("Cache multi get failed: {} keys", remote.size(), e);
+            }
+        }
+        return raw;
+    }
+
+    /**
+     * 不知道目标类型时读取（Spring Cache 接口），依赖写入时的 @class 类型信息还原
+     */
+    public Object get(String cacheName, String key) {
+        Object value = decode(cacheName, key, getRaw(key), valueCodec.type(Object.class)).orElse(null);
+        record(cacheName, value != null);
+        return value;
+    }
+
+    /**
+     * 去掉版本头后解码；墓碑、不存在返回 empty
+     * 解码失败时删除本地层与 Redis 中的该值（仍是读到的那一份时才删），本次按未命中处理，回源后重新写入
+     * 删除不在调用线程上执行：异步读取时调用线程是 Lettuce 的事件循环线程，不能阻塞
+     */
+    private <T> Optional<T> decode(String cacheName, String key, byte[] bytes, JavaType type) {
+        byte[] payload = CacheEnvelope.unwrap(bytes);
+        if (payload == null) {
+            return Optional.empty();
+        }
+        try {
+            return Optional.ofNullable(valueCodec.decode(payload, type));
+        } catch (RuntimeException e) {
+            log.warn("Undecodable cache value dropped: {} as {}", key, type, e);
+            meters(cacheName).decodeFailures.increment();
+            localTier.remove(key);
+            CompletableFuture.runAsync(() -> {
+                try {
+                    luaScripts.runRaw(LuaScripts.CACHE_DELETE_IF_EQUALS, List.of(key), bytes);
+                } catch (Exception ex) {
+                    log.error("Cache delete of undecodable value failed: {}", key, ex);
+                }
+            }, DISCARD_EXECUTOR);
+            return Optional.empty();
+        }
+    }
+
+    /**
+     * 显式写入：不受删除墓碑限制（见 EXPLICIT_WRITE）
+     */
+    public void put(String cacheName, String key, Object value, Duration ttl, KaimingCache.Storage storage) {
+        put(cacheName, key, value, ttl, storage, UNVERSIONED, EXPLICIT_WRITE);
+    }
+
+    /**
+     * 显式写入，只在 Key 当前没有值（不存在或只有墓碑）时写入，检查与写入在同一个脚本中原子完成（BLOB 存储）
+     *
+     * @return 是否写入
+     */
+    public boolean putIfAbsent(String cacheName, String key, Object value, Duration ttl) {
+        return put(cacheName, key, value, ttl, KaimingCache.Storage.BLOB, UNVERSIONED, EXPLICIT_WRITE, 0, true);
+    }
+
+    /**
+     * 回写缓存（BLOB 存储为原子的 set-if-newer）
+     * 1. 已有值的版本号 >= version 时不覆盖（version 为 UNVERSIONED 时不比较版本）
+     * 2. Key 上存在删除墓碑，且本次回源开始于删除之前时不写入，避免把删除前读到的旧数据写回
+     *
+     * @param loadStartMillis 本次回源（查库）开始的时间
+     * @return 是否写入
+     */
+    public boolean put(String cacheName, String key, Object value, Duration ttl, KaimingCache.Storage storage,
+                       long version, long loadStartMillis) {
+        return put(cacheName, key, value, ttl, storage, version, loadStartMillis, 0);
+    }
+
+    /**
+     * @param maxValueBytes 序列化后超过该大小时不写入（仅 BLOB），0 表示不限制
+     */
+    public boolean put(String cacheName, String key, Object value, Duration ttl, KaimingCache.Storage storage,
+                       long version, long loadStartMillis, long maxValueBytes) {
+        return put(cacheName, key, value, ttl, storage, version, loadStartMillis, maxValueBytes, false);
+    }
+
+    private boolean put(String cacheName, String key, Object value, Duration ttl, KaimingCache.Storage storage,
+                        long version, long loadStartMillis, long maxValueBytes, boolean onlyIfAbsent) {
+        if (storage == KaimingCache.Storage.HASH) {
+            redisService.hPutObject(key, value, ttl);
+            meters(cacheName).puts.increment();
+            return true;
+        }
+        try {
+            byte[] payload = valueCodec.encode(value);
+            if (!quotaGuard.checkValueSize(cacheName, key, payload.length, maxValueBytes)) {
+                return false;
+            }
+            if (version != UNVERSIONED) {
+                payload = CacheEnvelope.wrap(payload, version);
+            }
+            byte[][] args = onlyIfAbsent
+                    ? new byte[][]{payload, ascii(version), ascii(loadFence(loadStartMillis)), ascii(ttl.toMillis()), NX}
+                    : new byte[][]{payload, ascii(version), ascii(loadFence(loadStartMillis)), ascii(ttl.toMillis())};
+            Long written = luaScripts.runRaw(LuaScripts.CACHE_SET_IF_NEWER, List.of(key), args);
+            if (written != null && written >= 1) {
+                if (written == 2) {
+                    adaptiveTtl.recordUpdate(cacheName, key);
+                }
+                localTier.put(key, payload, ttl);
+                meters(cacheName).puts.increment();
+                meters(cacheName).putBytes.record(payload.length);
+                return true;
+            }
+            if (!onlyIfAbsent) {
+                log.debug("Stale cache write rejected: {} version={}", key, version);
+                meters(cacheName).staleRejected.increment();
+            }
+        } catch (Exception e) {
+            log.error("Cache put failed: {}", key, e);
+        }
+        return false;
+    }
+
+    /**
+     * 批量回写（BLOB 存储，未版本化），每个 Key 仍是原子的 set-if-newer（删除墓碑检查同 put），
+     * 所有 Key 按节点 Pipeline 一次发送
+     *
+     * @return 实际写入的 Key 数量
+     */
+    public int putAll(String cacheName, Map<String, ?> values, Duration ttl, long loadStartMillis) {
+        return putAll(cacheName, values, ttl, loadStartMillis, false);
+    }
+
+    /**
+     * @param onlyIfAbsent 只写入当前没有值（不存在或只有墓碑）的 Key，已有值一律保留，
+     *                     用于归一化结果填充别的方法负责的实体 Key（见 NormalizedResultCache）
+     */
+    public int putAll(String cacheName, Map<String, ?> values, Duration ttl, long loadStartMillis,
+                      boolean onlyIfAbsent) {
+        Map<String, byte[][]> args = new HashMap<>(values.size() * 4 / 3 + 1);
+        Map<String, byte[]> payloads = new HashMap<>(values.size() * 4 / 3 + 1);
+        byte[] version = ascii(UNVERSIONED);
+        byte[] loadStart = ascii(loadFence(loadStartMillis));
+        byte[] ttlMillis = ascii(ttl.toMillis());
+        values.forEach((key, value) -> {
+            byte[] payload = valueCodec.encode(value);
+            quotaGuard.checkValueSize(cacheName, key, payload.length, 0);
+            payloads.put(key, payload);
+            args.put(key, onlyIfAbsent ? new byte[][]{payload, version, loadStart, ttlMillis, NX}
+                    : new byte[][]{payload, version, loadStart, ttlMillis});
+        });
+        int written = 0;
+        try {
+            Map<String, Object> results = batchExecutor.evalEach(LuaScripts.CACHE_SET_IF_NEWER, ReturnType.INTEGER, args);
+            for (Map.Entry<String, Object> result : results.entrySet()) {
+                byte[] payload = payloads.get(result.getKey());
+                if (result.getValue() instanceof Number n && n.longValue() >= 1) {
+                    localTier.put(result.getKey(), payload, ttl);
+                    meters(cacheName).putBytes.record(payload.length);
+                    written++;
+                } else if (!onlyIfAbsent) {
+                    meters(cacheName).staleRejected.increment();
+                }
+            }
+            meters(cacheName).puts.increment(written);
+        } catch (Exception e) {
+            log.error("Cache put all failed: {} keys", values.size(), e);
+        }
+        return written;
+    }
+
+    public void evict(String cacheName, String key) {
+        evict(cacheName, key, KaimingCache.Storage.BLOB);
+    }
+
+    /**
+     * 删除缓存：BLOB 存储留下短期墓碑（见 put），HASH 存储直接删除
+     */
+    public void evict(String cacheName, String key, KaimingCache.Storage storage) {
+        localTier.remove(key);
+        if (storage == KaimingCache.Storage.HASH) {
+            redisService.delete(key);
+        } else {
+            putRaw(key, CacheEnvelope.tombstone(System.currentTimeMillis()), tombstoneTtl);
+        }
+        meters(cacheName).evictions.increment();
+        adaptiveTtl.recordUpdate(cacheName, key);
+        slidingRefresher.forget(key);
+    }
+
+    public long evictAll(String cacheName, Collection<String> keys) {
+        return evictAll(cacheName, keys, KaimingCache.Storage.BLOB);
+    }
+
+    /**
+     * 批量删除：本节点本地层（evictLocal）+ Redis（evictRemote）
+     *
+     * @return 写入墓碑 / 删除的 Key 数量
+     */
+    public long evictAll(String cacheName, Collection<String> keys, KaimingCache.Storage storage) {
+        evictLocal(cacheName, keys);
+        return evictRemote(cacheName, keys, storage);
+    }
+
+    /**
+     * 批量删除 Redis 中的值，用于事件驱动失效（每个事件只需一个节点执行，见 InvalidationWorker）：
+     * 与 evict 一样，BLOB 存储留下短期墓碑（按 slot/节点分组的 Pipeline PSETEX），
+     * 失效事件之前开始、之后才完成的慢回源不会把旧数据写回；HASH 存储直接 UNLINK（墓碑是字符串，会让 Hash 读取报 WRONGTYPE）
+     * Redis 异常直接抛出（不同于其它方法），调用方据此决定是否确认事件
+     *
+     * @return 写入墓碑 / 删除的 Key 数量
+     */
+    public long evictRemote(String cacheName, Collection<String> keys, KaimingCache.Storage storage) {
+        long removed = storage == KaimingCache.Storage.HASH ? batchExecutor.unlink(keys)
+                : batchExecutor.setEach(keys, CacheEnvelope.tombstone(System.currentTimeMillis()), tombstoneTtl.toMillis());
+        meters(cacheName).evictions.increment(keys.size());
+        return removed;
+    }
+
+    /**
+     * 只删除本节点的本地层条目及相关进程内状态（更新频率统计、滑动续期登记），不访问 Redis，每个节点各自执行
+     */
+    public void evictLocal(String cacheName, Collection<String> keys) {
+        localTier.removeAll(keys);
+        keys.forEach(key -> {
+            adaptiveTtl.recordUpdate(cacheName, key);
+            slidingRefresher.forget(key);
+        });
+    }
+
+    /**
+     * 按前缀清空（SCAN + 批量 UNLINK），用于 Spring Cache#clear
+     */
+    public long clear(String cacheName, String keyPrefix) {
+        List<String> keys = new ArrayList<>();
+        ScanOptions options = ScanOptions.scanOptions().match(keyPrefix + "*").count(500).build();
+        try (Cursor<String> cursor = redisTemplate.scan(options)) {
+            cursor.forEachRemaining(keys::add);
+        } catch (Exception e) {
+            log.error("Cache clear scan failed: {}", keyPrefix, e);
+        }
+        localTier.removeAll(keys);
+        long removed = redisService.delete(keys);
+        meters(cacheName).evictions.increment(removed);
+        return removed;
+    }
+
+    /**
+     * 先读本地层，未命中再读 Redis 并回填本地层
+     */
+    private byte[] getRaw(String key) {
+        byte[] local = localTier.get(key);
+        if (local != null) {
+            return local;
+        }
+        try {
+            byte[] bytes = redisTemplate.execute((RedisCallback<byte[]>) connection ->
+                    connection.stringCommands().get(key.getBytes(StandardCharsets.UTF_8)));
+            fillLocal(key, bytes);
+            return bytes;
+        } catch (Exception e) {
+            log.error("Cache get failed: {}", key, e);
+            return null;
+        }
+    }
+
+    /**
+     * 墓碑不进本地层：它只用于拒绝 Redis 上的旧回写
+     */
+    private void fillLocal(String key, byte[] bytes) {
+        if (bytes != null && !CacheEnvelope.isTombstone(bytes)) {
+            localTier.put(key, bytes);
+        }
+    }
+
+    /**
+     * 直接在共享的原生异步连接上发送 GET，不占用连接池，也不阻塞调用线程
+     * 关闭 LettuceConnection 不会关闭共享连接，已发出的命令照常完成
+     */
+    private CompletableFuture<byte[]> getRawAsync(String key) {
+        try (RedisConnection connection = connectionFactory.getConnection()) {
+            if (!(connection instanceof LettuceConnection lettuce)) {
+                throw new IllegalStateException("Async read requires Lettuce, got: " + connection.getClass());
+            }
+            return lettuce.getNativeConnection().get(key.getBytes(StandardCharsets.UTF_8)).toCompletableFuture();
+        }
+    }
+
+    private LatencyTracker latency(String cacheName) {
+        return latencies.computeIfAbsent(cacheName, n -> new LatencyTracker(1024, 0.95));
+    }
+
+    private void putRaw(String key, byte[] value, Duration ttl) {
+        try {
+            redisTemplate.execute((RedisCallback<Boolean>) connection ->
+                    connection.stringCommands().pSetEx(key.getBytes(StandardCharsets.UTF_8), ttl.toMillis(), value));
+        } catch (Exception e) {
+            log.error("Cache put failed: {}", key, e);
+        }
+    }
+
+    private void record(String cacheName, boolean hit) {
+        CacheMeters m = meters(cacheName);
+        (hit ? m.hits : m.misses).increment();
+    }
+
+    private CacheMeters meters(String cacheName) {
+        return meters.computeIfAbsent(cacheName, name -> new CacheMeters(
+                Counter.builder("kaiming.cache.gets").tag("cache", name).tag("result", "hit").register(meterRegistry),
+                Counter.builder("kaiming.cache.gets").tag("cache", name).tag("result", "miss").register(meterRegistry),
+                Counter.builder("kaiming.cache.puts").tag("cache", name).register(meterRegistry),
+                Counter.builder("kaiming.cache.evictions").tag("cache", name).register(meterRegistry),
+                Counter.builder("kaiming.cache.puts.rejected").tag("cache", name).tag("reason", "stale").register(meterRegistry),
+                Counter.builder("kaiming.cache.decode.failures").tag("cache", name).register(meterRegistry),
+                DistributionSummary.builder("kaiming.cache.put.bytes").tag("cache", name).baseUnit("bytes")
+                        .register(meterRegistry)));
+    }
+
+    private static byte[] ascii(long value) {
+        return Long.toString(value).getBytes(StandardCharsets.US_ASCII);
+    }
+
+    private record CacheMeters(Counter hits, Counter misses, Counter puts, Counter evictions, Counter staleRejected,
+                               Counter decodeFailures, DistributionSummary putBytes) {
+    }
+
+    /**
+     * 批量读取中的一项
+     */
+    public record Read(String cacheName, String key, JavaType type) {
+    }
+}
@@ -2,9 +2,13 @@ package com.obee.redis.demo.service;
 
 import com.obee.redis.demo.annotation.KaimingCache;
 import com.obee.redis.demo.model.UserDTO;
+import com.obee.redis.demo.model.UserSearchRequest;
+import com.obee.redis.demo.service.invalidation.InvalidationPublisher;
+import lombok.RequiredArgsConstructor;
 import lombok.extern.slf4j.Slf4j;
 import org.springframework.stereotype.Service;
 
+import java.util.ArrayList;
 import java.util.List;
 import java.util.concurrent.TimeUnit;
 
@@ -15,14 +19,19 @@ import java.util.concurrent.TimeUnit;
  */
 @Service
 @Slf4j
+@RequiredArgsConstructor
 public class DemoService {
 
+    private final InvalidationPublisher invalidationPublisher;
+
     /**
      * 场景1：普通查询
      * Key 示例: "user:info:1001"
      * 过期时间: 30分钟 + 随机抖动
      */
-    @KaimingCache(key = "'user:info:' + #id", timeout = 30, timeUnit = TimeUnit.MINUTES)
+    @KaimingCache(key = "'user:info:' + #id", cacheName = "users", entity = "user", timeout = 30, timeUnit = TimeUnit.MINUTES,
+            condition = "#id != null && #id > 0L", maxValueBytes = 64 * 1024,
+            adaptiveTtl = true, minTtl = 1, maxTtl = 120)
     public UserDTO getUserById(Long id) {
         log.info("Querying DB for user id: {}", id);
 //        return userMapper.selectById(id);
@@ -33,13 +42,24 @@ public class DemoService {
     }
 
     /**
-     * 场景2：对象作为参数
-     * Key 示例: "user:search:shanghai:male"
+     * 场景2：搜索结果（归一化缓存）
+     * 查询 Key "user:search:{md5}" 只存 ID 列表 [1001, 1002, ...]，用户本身共用场景1的 "user:info:{id}"
+     * 某个用户更新（updateUser 发布失效）后，所有包含该用户的搜索结果下次读取时都会重新加载
      */
-//    @KaimingCache(key = "'user:search:' + #query.city + ':' + #query.gender", timeout = 5)
-//    public List<UserDTO> searchUsers(UserSearchQuery query) {
-//        return userMapper.search(query);
-//    }
+    @KaimingCache(key = "'user:search:' + #hash(#request)", timeout = 5, timeUnit = TimeUnit.MINUTES,
+            itemKey = "'user:info:' + #id")
+    public List<UserDTO> searchUsers(UserSearchRequest request) {
+        log.info("Searching DB for users: {}", request);
+//        return userMapper.search(request);
+        List<UserDTO> users = new ArrayList<>();
+        for (long id = 1; id <= 3; id++) {
+            UserDTO userDTO = new UserDTO();
+            userDTO.setId(id);
+            userDTO.setName(request.getCity() + "-" + id);
+            users.add(userDTO);
+        }
+        return users;
+    }
 
 
     // 1. key 会先解析 ${app.cache.prefix} -> "prod:v1:"
@@ -47,6 +67,7 @@ public class DemoService {
     // 3. timeoutString 解析 -> 600秒
     @KaimingCache(
             key = "'${app.cache.prefix}user:' + #id",
+            entity = "user",
             timeoutString = "${app.cache.search.ttl:300}"
     )
     public UserDTO getUser(Long id) {
@@ -59,4 +80,14 @@ public class DemoService {
         return userDTO;
     }
 
+    /**
+     * 场景3：更新后发布失效事件
+     * 所有 entity = "user" 的缓存（user:info:1001、prod:v1:user:1001）由各节点异步删除
+     */
+    public void updateUser(UserDTO user) {
+        log.info("Updating DB for user id: {}", user.getId());
+//        userMapper.updateById(user);
+        invalidationPublisher.publish("user", user.getId());
+    }
+
 }
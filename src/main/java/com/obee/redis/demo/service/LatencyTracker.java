@@ -0,0 +1,58 @@
+package com.obee.redis.demo.service;
+
+import java.util.Arrays;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * @description:
+ * @author: Guanwf
+ * @date: 2026/10/20 09:30
+ *
+ *  * 最近 N 次耗时的滑动样本，用于估算分位数（对冲读取的触发延迟）
+ *  * 写入无锁（环形数组，并发覆盖可接受）；分位数每 recomputeEvery 次写入重新计算一次，读取只是一个 volatile 读
+ *
+ */
+public class LatencyTracker {
+
+    private static final int MIN_SAMPLES = 100;
+
+    private final long[] samples;
+
+    private final double percentile;
+
+    private final int recomputeEvery;
+
+    private final AtomicLong count = new AtomicLong();
+
+    // 最近一次计算出的分位数（微秒），样本不足时为 -1
+    private volatile long cachedPercentile = -1;
+
+    public LatencyTracker(int capacity, double percentile) {
+        this.samples = new long[capacity];
+        this.percentile = percentile;
+        this.recomputeEvery = Math.max(capacity / 8, 1);
+    }
+
+    public void record(long micros) {
+        long n = count.getAndIncrement();
+        samples[(int) (n % samples.length)] = micros;
+        if (n >= MIN_SAMPLES && n % recomputeEvery == 0) {
+            recompute(n + 1);
+        }
+    }
+
+    /**
+     * 当前分位数（微秒），样本不足时返回 -1
+     */
+    public long percentileMicros() {
+        return cachedPercentile;
+    }
+
+    private void recompute(long total) {
+        int size = (int) Math.min(total, samples.length);
+        long[] copy = Arrays.copyOf(samples, size);
+        Arrays.sort(copy);
+        int index = (int) Math.min(size - 1, Math.ceil(percentile * size) - 1);
+        cachedPercentile = copy[Math.max(index, 0)];
+    }
+}
@@ -0,0 +1,106 @@
+package com.obee.redis.demo.service;
+
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.core.io.ClassPathResource;
+import org.springframework.data.redis.connection.RedisConnection;
+import org.springframework.data.redis.core.RedisCallback;
+import org.springframework.data.redis.core.StringRedisTemplate;
+import org.springframework.data.redis.core.script.DefaultRedisScript;
+import org.springframework.data.redis.core.script.RedisScript;
+import org.springframework.data.redis.serializer.RedisSerializer;
+import org.springframework.scripting.support.ResourceScriptSource;
+import org.springframework.stereotype.Component;
+
+import java.nio.charset.StandardCharsets;
+import java.util.List;
+
+/**
+ * @description:
+ * @author: Guanwf
+ * @date: 2026/10/19 13:20
+ *
+ *  * Lua 脚本统一管理（脚本文件位于 classpath:lua/）
+ *  * 启动完成后预加载（SCRIPT LOAD），业务调用直接走 EVALSHA，一次往返
+ *  * Redis 重启导致脚本丢失时，Spring 的 ScriptExecutor 会自动回退到 EVAL
+ *
+ */
+@Slf4j
+@Component
+@RequiredArgsConstructor
+public class LuaScripts {
+
+    public static final RedisScript<Long> LOCK_ACQUIRE = load("lock_acquire", Long.class);
+    public static final RedisScript<Long> LOCK_RELEASE = load("lock_release", Long.class);
+    public static final RedisScript<Long> LOCK_RENEW = load("lock_renew", Long.class);
+
+    @SuppressWarnings("rawtypes")
+    public static final RedisScript<List> RATE_SLIDING_WINDOW = load("rate_sliding_window", List.class);
+    @SuppressWarnings("rawtypes")
+    public static final RedisScript<List> RATE_TOKEN_BUCKET = load("rate_token_bucket", List.class);
+
+    public static final RedisScript<Long> HASH_UPDATE_IF_EXISTS = load("hash_update_if_exists", Long.class);
+
+    public static final RedisScript<Long> HASH_REPLACE = load("hash_replace", Long.class);
+
+    public static final RedisScript<Long> CACHE_SET_IF_NEWER = load("cache_set_if_newer", Long.class);
+
+    public static final RedisScript<Long> ID_LIST_SET = load("id_list_set", Long.class);
+
+    public static final RedisScript<Long> CACHE_DELETE_IF_EQUALS = load("cache_delete_if_equals", Long.class);
+
+    private static final List<RedisScript<?>> ALL = List.of(
+            LOCK_ACQUIRE, LOCK_RELEASE, LOCK_RENEW, RATE_SLIDING_WINDOW, RATE_TOKEN_BUCKET,
+            HASH_UPDATE_IF_EXISTS, HASH_REPLACE, CACHE_SET_IF_NEWER, ID_LIST_SET, CACHE_DELETE_IF_EQUALS);
+
+    private final StringRedisTemplate stringRedisTemplate;
+
+    /**
+     * 执行脚本，参数统一按字符串传递（StringRedisTemplate 序列化）
+     */
+    public <T> T run(RedisScript<T> script, List<String> keys, Object... args) {
+        String[] argv = new String[args.length];
+        for (int i = 0; i < args.length; i++) {
+            argv[i] = String.valueOf(args[i]);
+        }
+        return stringRedisTemplate.execute(script, keys, (Object[]) argv);
+    }
+
+    /**
+     * 执行脚本，参数为原始字节（用于携带序列化后的缓存值，避免字节与字符串来回转换）
+     */
+    @SuppressWarnings("unchecked")
+    public <T> T runRaw(RedisScript<T> script, List<String> keys, byte[]... args) {
+        return stringRedisTemplate.execute(script, RedisSerializer.byteArray(),
+                (RedisSerializer<T>) stringRedisTemplate.getValueSerializer(), keys, (Object[]) args);
+    }
+
+    @EventListener(ApplicationReadyEvent.class)
+    public void preload() {
+        try {
+            stringRedisTemplate.execute((RedisCallback<Void>) connection -> {
+                for (RedisScript<?> script : ALL) {
+                    preload(connection, script);
+                }
+                return null;
+            });
+            log.info("Preloaded {} lua scripts", ALL.size());
+        } catch (Exception e) {
+            // 预加载失败不影响启动，首次调用时会自动 EVAL
+            log.warn("Lua script preload failed, will fallback to EVAL on first call", e);
+        }
+    }
+
+    private static void preload(RedisConnection connection, RedisScript<?> script) {
+        connection.scriptingCommands().scriptLoad(script.getScriptAsString().getBytes(StandardCharsets.UTF_8));
+    }
+
+    private static <T> RedisScript<T> load(String name, Class<T> resultType) {
+        DefaultRedisScript<T> script = new DefaultRedisScript<>();
+        script.setScriptSource(new ResourceScriptSource(new ClassPathResource("lua/" + name + ".lua")));
+        script.setResultType(resultType);
+        return script;
+    }
+}
@@ -1,15 +1,19 @@
 package com.obee.redis.demo.service;
 
+import com.fasterxml.jackson.databind.JavaType;
 import com.fasterxml.jackson.databind.ObjectMapper;
+import com.obee.redis.demo.service.cluster.ClusterBatchExecutor;
+import com.obee.redis.demo.service.codec.HashObjectCodec;
+import com.obee.redis.demo.service.codec.JsonValueCodec;
 import lombok.RequiredArgsConstructor;
 import lombok.extern.slf4j.Slf4j;
 import org.springframework.data.redis.core.*;
 import org.springframework.stereotype.Component;
 
+import java.nio.charset.StandardCharsets;
 import java.time.Duration;
 import java.util.*;
 import java.util.concurrent.TimeUnit;
-import java.util.stream.Collectors;
 
 /**
  * @description:
@@ -30,6 +34,17 @@ public class RedisService {
     // 用于对象转换（可选，用于复杂集合转换）
     private final ObjectMapper objectMapper;
 
+    // 集合类读取直接从原始字节解码，跳过 LinkedHashMap 中间树
+    private final JsonValueCodec valueCodec;
+
+    // Hash 对象存储模式的字段级编解码
+    private final HashObjectCodec hashCodec;
+
+    private final LuaScripts luaScripts;
+
+    // 多 Key 操作的 slot 感知路由
+    private final ClusterBatchExecutor batchExecutor;
+
     // =============================
     // 1. Key 基本操作 (Key Operations)
     // =============================
@@ -60,11 +75,11 @@ public class RedisService {
 
     /**
      * 批量删除 key
+     * 使用 UNLINK（后台释放内存）；集群模式下按 slot/节点分组并行提交，避免 CROSSSLOT
      */
     public long delete(Collection<String> keys) {
         try {
-            Long count = redisTemplate.delete(keys);
-            return count != null ? count : 0;
+            return batchExecutor.unlink(keys);
         } catch (Exception e) {
             log.error("Redis batch delete failed", e);
             return 0;
@@ -83,6 +98,34 @@ public class RedisService {
         }
     }
 
+    /**
+     * 批量设置过期时间（Pipeline 一次往返）
+     * @return 已不存在的 key（PEXPIRE 返回 false）；Redis 异常时返回空集合
+     */
+    public Set<String> expire(Map<String, Duration> timeouts) {
+        if (timeouts.isEmpty()) {
+            return Set.of();
+        }
+        List<String> keys = new ArrayList<>(timeouts.keySet());
+        try {
+            List<Object> results = redisTemplate.executePipelined((RedisCallback<Object>) connection -> {
+                keys.forEach(key -> connection.keyCommands()
+                        .pExpire(key.getBytes(StandardCharsets.UTF_8), timeouts.get(key).toMillis()));
+                return null;
+            });
+            Set<String> missing = new HashSet<>();
+            for (int i = 0; i < keys.size(); i++) {
+                if (Boolean.FALSE.equals(results.get(i))) {
+                    missing.add(keys.get(i));
+                }
+            }
+            return missing;
+        } catch (Exception e) {
+            log.error("Redis batch expire failed", e);
+            return Set.of();
+        }
+    }
+
     // =============================
     // 2. 常规值操作 (String/Object Value)
     // =============================
@@ -126,6 +169,26 @@ public class RedisService {
         return Optional.empty();
     }
 
+    /**
+     * 批量获取对象，只返回存在的 Key
+     * 单机一次 MGET；集群模式按 slot 分组、每个节点一个 Pipeline 并行执行
+     */
+    public <T> Map<String, T> multiGet(Collection<String> keys, Class<T> clazz) {
+        return multiGet(keys, valueCodec.type(clazz));
+    }
+
+    public <T> Map<String, T> multiGet(Collection<String> keys, JavaType type) {
+        try {
+            Map<String, byte[]> raw = batchExecutor.multiGet(keys);
+            Map<String, T> result = new HashMap<>(raw.size() * 4 / 3 + 1);
+            raw.forEach((k, v) -> result.put(k, valueCodec.decode(v, type)));
+            return result;
+        } catch (Exception e) {
+            log.error("Redis multiGet failed", e);
+            return Collections.emptyMap();
+        }
+    }
+
     // =============================
     // 3. 原子操作 (Atomic Operations)
     // 架构师建议：计数器必须使用 StringRedisTemplate，防止序列化干扰
@@ -211,12 +274,20 @@ public class RedisService {
      * 获取 Hash 中所有数据
      */
     public <T> Map<String, T> hGetAll(String key, Class<T> clazz) {
+        return hGetAll(key, valueCodec.type(clazz));
+    }
+
+    /**
+     * 获取 Hash 中所有数据（支持泛型，例如 List<UserDTO>）
+     * 直接读取原始字节并按目标类型解码，每个元素只反序列化一次
+     */
+    public <T> Map<String, T> hGetAll(String key, JavaType type) {
         try {
-            Map<Object, Object> entries = redisTemplate.opsForHash().entries(key);
-            Map<String, T> result = new HashMap<>();
-            entries.forEach((k, v) -> {
-                result.put((String) k, objectMapper.convertValue(v, clazz));
-            });
+            Map<byte[], byte[]> entries = redisTemplate.execute((RedisCallback<Map<byte[], byte[]>>) connection ->
+                    connection.hashCommands().hGetAll(rawKey(key)));
+            if (entries == null) return Collections.emptyMap();
+            Map<String, T> result = new HashMap<>(entries.size() * 4 / 3 + 1);
+            entries.forEach((k, v) -> result.put(new String(k, StandardCharsets.UTF_8), valueCodec.decode(v, type)));
             return result;
         } catch (Exception e) {
             log.error("Redis hGetAll failed: {}", key, e);
@@ -224,6 +295,21 @@ public class RedisService {
         }
     }
 
+    /**
+     * 增量遍历 Hash（HSCAN），适合大 Hash，不需要整个结构同时驻留内存
+     * 注意：返回的 Cursor 占用一个连接，用完必须 close（推荐 try-with-resources）
+     *
+     * @param count 每批扫描的数量提示
+     */
+    public <T> Cursor<Map.Entry<String, T>> hScan(String key, Class<T> clazz, long count) {
+        JavaType type = valueCodec.type(clazz);
+        ScanOptions options = ScanOptions.scanOptions().count(count).build();
+        return redisTemplate.executeWithStickyConnection(connection ->
+                new ConvertingCursor<>(connection.hashCommands().hScan(rawKey(key), options),
+                        entry -> Map.entry(new String(entry.getKey(), StandardCharsets.UTF_8),
+                                valueCodec.<T>decode(entry.getValue(), type))));
+    }
+
     // =============================
     // 5. Set 操作 (无序集合)
     // =============================
@@ -245,18 +331,39 @@ public class RedisService {
      * Set 获取所有元素
      */
     public <T> Set<T> sGet(String key, Class<T> clazz) {
+        return sGet(key, valueCodec.type(clazz));
+    }
+
+    /**
+     * Set 获取所有元素（支持泛型），直接从原始字节解码
+     */
+    public <T> Set<T> sGet(String key, JavaType type) {
         try {
-            Set<Object> members = redisTemplate.opsForSet().members(key);
+            Set<byte[]> members = redisTemplate.execute((RedisCallback<Set<byte[]>>) connection ->
+                    connection.setCommands().sMembers(rawKey(key)));
             if (members == null) return Collections.emptySet();
-            return members.stream()
-                    .map(v -> objectMapper.convertValue(v, clazz))
-                    .collect(Collectors.toSet());
+            Set<T> result = new HashSet<>(members.size() * 4 / 3 + 1);
+            for (byte[] member : members) {
+                result.add(valueCodec.decode(member, type));
+            }
+            return result;
         } catch (Exception e) {
             log.error("Redis sGet failed: {}", key, e);
             return Collections.emptySet();
         }
     }
 
+    /**
+     * 增量遍历 Set（SSCAN），用完必须 close
+     */
+    public <T> Cursor<T> sScan(String key, Class<T> clazz, long count) {
+        JavaType type = valueCodec.type(clazz);
+        ScanOptions options = ScanOptions.scanOptions().count(count).build();
+        return redisTemplate.executeWithStickyConnection(connection ->
+                new ConvertingCursor<>(connection.setCommands().sScan(rawKey(key), options),
+                        member -> valueCodec.<T>decode(member, type)));
+    }
+
     /**
      * Set 是否包含
      */
@@ -275,7 +382,10 @@ public class RedisService {
 
     /**
      * List 右推 (入队)
+     *
+     * @deprecated 没有确认与重试，队列场景请使用 StreamQueue（见 StreamQueueFactory）
      */
+    @Deprecated
     public void lPush(String key, Object value) {
         try {
             redisTemplate.opsForList().rightPush(key, value);
@@ -288,18 +398,183 @@ public class RedisService {
      * List 获取区间 (分页查询)
      * @param start 0
      * @param end -1 代表所有
+     * @deprecated 作为出队使用时会重复读取整个 List，队列场景请使用 StreamQueue；分页遍历请使用 lRange
      */
+    @Deprecated
     public <T> List<T> lGet(String key, long start, long end, Class<T> clazz) {
+        return lGet(key, start, end, valueCodec.type(clazz));
+    }
+
+    /**
+     * List 获取区间（支持泛型），直接从原始字节解码
+     *
+     * @deprecated 同 lGet(String, long, long, Class)
+     */
+    @Deprecated
+    public <T> List<T> lGet(String key, long start, long end, JavaType type) {
         try {
-            List<Object> list = redisTemplate.opsForList().range(key, start, end);
+            List<byte[]> list = redisTemplate.execute((RedisCallback<List<byte[]>>) connection ->
+                    connection.listCommands().lRange(rawKey(key), start, end));
             if (list == null) return Collections.emptyList();
-            return list.stream()
-                    .map(v -> objectMapper.convertValue(v, clazz))
-                    .collect(Collectors.toList());
+            List<T> result = new ArrayList<>(list.size());
+            for (byte[] item : list) {
+                result.add(valueCodec.decode(item, type));
+            }
+            return result;
         } catch (Exception e) {
             log.error("Redis lGet failed: {}", key, e);
             return Collections.emptyList();
         }
     }
 
+    /**
+     * 分批遍历整个 List（每批一次 LRANGE），适合大 List
+     * 遍历过程中 List 被修改时，结果可能重复或遗漏（与 SCAN 语义一致）
+     *
+     * @param pageSize 每批读取的元素个数
+     */
+    public <T> Iterator<T> lRange(String key, Class<T> clazz, int pageSize) {
+        return new ListPageIterator<>(key, valueCodec.type(clazz), pageSize);
+    }
+
+    // =============================
+    // 7. Hash 对象存储 (DTO 按字段拆分存储)
+    // =============================
+
+    /**
+     * 对象按字段写入 Hash，并设置过期时间（DEL + HSET + PEXPIRE 一个 Lua 脚本原子执行）
+     * 整体替换：不残留旧值的字段，Key 原先是其它类型（例如切换自 BLOB 存储）时也能写入
+     */
+    public void hPutObject(String key, Object value, Duration timeout) {
+        try {
+            Map<String, byte[]> fields = hashCodec.encode(value);
+            byte[][] argv = new byte[fields.size() * 2 + 1][];
+            argv[0] = Long.toString(timeout.toMillis()).getBytes(StandardCharsets.US_ASCII);
+            int i = 1;
+            for (Map.Entry<String, byte[]> field : fields.entrySet()) {
+                argv[i++] = field.getKey().getBytes(StandardCharsets.UTF_8);
+                argv[i++] = field.getValue();
+            }
+            luaScripts.runRaw(LuaScripts.HASH_REPLACE, List.of(key), argv);
+        } catch (Exception e) {
+            log.error("Redis hPutObject failed: {}", key, e);
+        }
+    }
+
+    /**
+     * 读取整个 Hash 并还原为对象
+     */
+    public <T> Optional<T> hGetObject(String key, Class<T> clazz) {
+        try {
+            Map<byte[], byte[]> entries = redisTemplate.execute((RedisCallback<Map<byte[], byte[]>>) connection ->
+                    connection.hashCommands().hGetAll(rawKey(key)));
+            if (entries == null || entries.isEmpty()) {
+                return Optional.empty();
+            }
+            Map<String, byte[]> fields = new HashMap<>(entries.size() * 4 / 3 + 1);
+            entries.forEach((k, v) -> fields.put(new String(k, StandardCharsets.UTF_8), v));
+            return Optional.of(hashCodec.decode(fields, hashCodec.type(clazz)));
+        } catch (Exception e) {
+            log.error("Redis hGetObject failed: {}", key, e);
+        }
+        return Optional.empty();
+    }
+
+    /**
+     * 投影读取（HMGET）：只解码指定字段，其余字段为类型默认值
+     * Key 不存在（所有字段均为空）时返回 empty
+     */
+    public <T> Optional<T> hGetFields(String key, Class<T> clazz, String... fields) {
+        try {
+            byte[][] rawFields = new byte[fields.length][];
+            for (int i = 0; i < fields.length; i++) {
+                rawFields[i] = fields[i].getBytes(StandardCharsets.UTF_8);
+            }
+            List<byte[]> values = redisTemplate.execute((RedisCallback<List<byte[]>>) connection ->
+                    connection.hashCommands().hMGet(rawKey(key), rawFields));
+            if (values == null || values.stream().allMatch(Objects::isNull)) {
+                return Optional.empty();
+            }
+            return Optional.of(hashCodec.decode(Arrays.asList(fields), values, hashCodec.type(clazz)));
+        } catch (Exception e) {
+            log.error("Redis hGetFields failed: {}", key, e);
+        }
+        return Optional.empty();
+    }
+
+    /**
+     * 部分字段更新：仅在 Hash 存在时 HSET 指定字段（原子脚本，不改变 TTL）
+     * @return true 已更新；false Key 不存在（缓存已失效，等待下次回源整体写入）
+     */
+    public boolean hUpdateFields(String key, Map<String, ?> fields) {
+        if (fields.isEmpty()) {
+            return false;
+        }
+        try {
+            Object[] argv = new Object[fields.size() * 2];
+            int i = 0;
+            for (Map.Entry<String, ?> field : fields.entrySet()) {
+                argv[i++] = field.getKey();
+                argv[i++] = new String(hashCodec.encodeField(field.getValue()), StandardCharsets.UTF_8);
+            }
+            Long updated = luaScripts.run(LuaScripts.HASH_UPDATE_IF_EXISTS, List.of(key), argv);
+            return updated != null && updated == 1;
+        } catch (Exception e) {
+            log.error("Redis hUpdateFields failed: {}", key, e);
+            return false;
+        }
+    }
+
+    private byte[] rawKey(String key) {
+        // Key 统一使用 StringRedisSerializer，等价于 UTF-8 编码
+        return key.getBytes(StandardCharsets.UTF_8);
+    }
+
+    /**
+     * 按页拉取 List 的迭代器，内存中最多只保留一页
+     */
+    private class ListPageIterator<T> implements Iterator<T> {
+
+        private final String key;
+        private final JavaType type;
+        private final int pageSize;
+
+        private List<T> page = Collections.emptyList();
+        private int index;
+        private long offset;
+        private boolean exhausted;
+
+        ListPageIterator(String key, JavaType type, int pageSize) {
+            if (pageSize <= 0) {
+                throw new IllegalArgumentException("pageSize must be greater than 0");
+            }
+            this.key = key;
+            this.type = type;
+            this.pageSize = pageSize;
+        }
+
+        @Override
+        public boolean hasNext() {
+            if (index < page.size()) {
+                return true;
+            }
+            if (exhausted) {
+                return false;
+            }
+            page = lGet(key, offset, offset + pageSize - 1, type);
+            index = 0;
+            offset += page.size();
+            exhausted = page.size() < pageSize;
+            return !page.isEmpty();
+        }
+
+        @Override
+        public T next() {
+            if (!hasNext()) {
+                throw new NoSuchElementException();
+            }
+            return page.get(index++);
+        }
+    }
+
 }
@@ -0,0 +1,135 @@
+package com.obee.redis.demo.service;
+
+import com.obee.redis.demo.service.cluster.CacheKeys;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.context.EmbeddedValueResolverAware;
+import org.springframework.core.DefaultParameterNameDiscoverer;
+import org.springframework.core.NativeDetector;
+import org.springframework.expression.Expression;
+import org.springframework.expression.ExpressionParser;
+import org.springframework.expression.spel.SpelCompilerMode;
+import org.springframework.expression.spel.SpelParserConfiguration;
+import org.springframework.expression.spel.standard.SpelExpressionParser;
+import org.springframework.expression.spel.support.StandardEvaluationContext;
+import org.springframework.stereotype.Component;
+import org.springframework.util.ClassUtils;
+import org.springframework.util.StringValueResolver;
+
+import java.lang.reflect.Method;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * @description:
+ * @author: Guanwf
+ * @date: 2026/10/19 14:40
+ *
+ *  * 注解 Key 表达式解析（@KaimingCache / @RateLimited 共用）
+ *  * 1. 先解析环境变量： "${prefix}" -> "myapp:user:"
+ *  * 2. 再按方法参数名解析 SpEL，支持自定义函数 #hash()、#tag()（集群 hash tag，见 CacheKeys）
+ *  * 3. condition / unless 条件表达式按方法各自解析并编译（compile），热路径上不再解释执行 AST
+ *
+ */
+@Slf4j
+@Component
+public class SpelKeyGenerator implements EmbeddedValueResolverAware {
+
+    // SpEL 解析器，线程安全
+    private final ExpressionParser parser = new SpelExpressionParser();
+
+    // 条件表达式解析器：MIXED 模式在若干次解释执行后编译为字节码，类型变化时自动退回解释执行
+    // native image 中不能运行时生成类，关闭编译
+    private final ExpressionParser compilingParser = new SpelExpressionParser(new SpelParserConfiguration(
+            NativeDetector.inNativeImage() ? SpelCompilerMode.OFF : SpelCompilerMode.MIXED,
+            SpelKeyGenerator.class.getClassLoader()));
+
+    private final DefaultParameterNameDiscoverer nameDiscoverer = new DefaultParameterNameDiscoverer();
+
+    /**
+     * Key 表达式中可用的自定义函数，只反射查找一次
+     */
+    public static final Map<String, Method> FUNCTIONS = Map.of(
+            "hash", ClassUtils.getMethod(CacheAspect.class, "calculateHash", Object.class),
+            "tag", ClassUtils.getMethod(CacheKeys.class, "tag", Object.class));
+
+    // 表达式 -> 解析结果（Expression 线程安全，可复用）
+    private final Map<String, Expression> expressions = new ConcurrentHashMap<>();
+
+    // Spring 的配置解析器（用于解析 ${...}）
+    private StringValueResolver valueResolver;
+
+    @Override
+    public void setEmbeddedValueResolver(StringValueResolver resolver) {
+        this.valueResolver = resolver;
+    }
+
+    public String generate(String keyTemplate, Method method, Object[] args) {
+        return generate(parseKey(keyTemplate), paramNames(method), args);
+    }
+
+    /**
+     * 用预先解析好的表达式生成 Key（见 CacheMetadataRegistry）
+     */
+    public String generate(Expression keyExpression, String[] paramNames, Object[] args) {
+        return keyExpression.getValue(createContext(paramNames, args), String.class);
+    }
+
+    /**
+     * 解析 Key 模板：先替换 ${...}，再解析 SpEL
+     * 占位符无法解析或语法错误时抛出异常
+     */
+    public Expression parseKey(String keyTemplate) {
+        return parse(valueResolver.resolveStringValue(keyTemplate));
+    }
+
+    public Expression parse(String expression) {
+        return expressions.computeIfAbsent(expression, parser::parseExpression);
+    }
+
+    /**
+     * 解析条件表达式（先替换 ${...}），每次调用都返回新实例：编译结果与方法的参数类型相关，不在方法之间共享
+     */
+    public Expression compile(String expression) {
+        return compilingParser.parseExpression(valueResolver.resolveStringValue(expression));
+    }
+
+    public String[] paramNames(Method method) {
+        return nameDiscoverer.getParameterNames(method);
+    }
+
+    /**
+     * 解析返回值相关的表达式（例如版本号 "#result.updatedAt"），#result 为方法返回值
+     */
+    public Object evaluate(String expression, Method method, Object[] args, Object result) {
+        return evaluate(parse(expression), paramNames(method), args, result);
+    }
+
+    public Object evaluate(Expression expression, String[] paramNames, Object[] args, Object result) {
+        StandardEvaluationContext context = createContext(paramNames, args);
+        context.setVariable("result", result);
+        return expression.getValue(context);
+    }
+
+    /**
+     * 计算条件表达式，结果不是 true（包括 null）时返回 false
+     */
+    public boolean test(Expression expression, String[] paramNames, Object[] args, Object result) {
+        StandardEvaluationContext context = createContext(paramNames, args);
+        context.setVariable("result", result);
+        return Boolean.TRUE.equals(expression.getValue(context, Boolean.class));
+    }
+
+    private StandardEvaluationContext createContext(String[] paramNames, Object[] args) {
+        // 构建 SpEL 上下文
+        StandardEvaluationContext context = new StandardEvaluationContext();
+        if (paramNames != null) {
+            for (int i = 0; i < paramNames.length; i++) {
+                context.setVariable(paramNames[i], args[i]);
+            }
+        }
+
+        // 【关键】注册自定义函数 #hash() / #tag()
+        FUNCTIONS.forEach(context::registerFunction);
+        return context;
+    }
+}
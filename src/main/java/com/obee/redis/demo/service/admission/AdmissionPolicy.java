@@ -0,0 +1,34 @@
+package com.obee.redis.demo.service.admission;
+
+import java.util.List;
+
+/**
+ * @description:
+ * @author: Guanwf
+ * @date: 2026/10/21 16:10
+ *
+ *  * 缓存写入准入策略
+ *  * 实现类注册为 Spring Bean 即可被 @KaimingCache(admission = "xxx") 引用
+ *
+ */
+public interface AdmissionPolicy {
+
+    /**
+     * 策略名称，对应 @KaimingCache#admission()
+     */
+    String name();
+
+    /**
+     * 记录一次未命中，并判断本次回源结果是否写入缓存
+     *
+     * @param threshold 注解上的 admitAfter
+     */
+    boolean admit(String cacheName, String key, int threshold);
+
+    /**
+     * 启动校验注解上的 admitAfter，返回问题描述（没有问题返回空列表）
+     */
+    default List<String> validate(int threshold) {
+        return List.of();
+    }
+}
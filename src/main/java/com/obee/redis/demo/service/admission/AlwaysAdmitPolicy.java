@@ -0,0 +1,27 @@
+package com.obee.redis.demo.service.admission;
+
+import org.springframework.stereotype.Component;
+
+/**
+ * @description:
+ * @author: Guanwf
+ * @date: 2026/10/21 16:12
+ *
+ *  * 默认策略：每次未命中都写入
+ *
+ */
+@Component
+public class AlwaysAdmitPolicy implements AdmissionPolicy {
+
+    public static final String NAME = "always";
+
+    @Override
+    public String name() {
+        return NAME;
+    }
+
+    @Override
+    public boolean admit(String cacheName, String key, int threshold) {
+        return true;
+    }
+}
@@ -0,0 +1,78 @@
+package com.obee.redis.demo.service.admission;
+
+import com.obee.redis.demo.annotation.KaimingCache;
+import com.obee.redis.demo.service.CacheEngine;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.MeterRegistry;
+import org.springframework.stereotype.Component;
+
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.function.Function;
+import java.util.stream.Collectors;
+
+/**
+ * @description:
+ * @author: Guanwf
+ * @date: 2026/10/21 17:00
+ *
+ *  * 写入准入：按注解选择 AdmissionPolicy，统计被拒绝的写入
+ *  * 指标：kaiming.cache.admission.rejected{cache}、kaiming.cache.admission.saved.bytes{cache}
+ *  * saved.bytes 按该缓存写入值的平均大小估算（见 CacheEngine#averagePutBytes），不为统计再序列化一次
+ *
+ */
+@Component
+public class CacheAdmission {
+
+    private final Map<String, AdmissionPolicy> policies;
+
+    private final CacheEngine cacheEngine;
+
+    private final MeterRegistry meterRegistry;
+
+    // 缓存名 -> 指标
+    private final Map<String, Meters> meters = new ConcurrentHashMap<>();
+
+    public CacheAdmission(List<AdmissionPolicy> policies, CacheEngine cacheEngine, MeterRegistry meterRegistry) {
+        this.policies = policies.stream().collect(Collectors.toMap(AdmissionPolicy::name, Function.identity()));
+        this.cacheEngine = cacheEngine;
+        this.meterRegistry = meterRegistry;
+    }
+
+    /**
+     * 本次回源结果是否写入缓存
+     */
+    public boolean admit(KaimingCache kaimingCache, String cacheName, String key) {
+        AdmissionPolicy policy = policies.get(kaimingCache.admission());
+        if (policy == null || policy instanceof AlwaysAdmitPolicy) {
+            return true;
+        }
+        if (policy.admit(cacheName, key, kaimingCache.admitAfter())) {
+            return true;
+        }
+        Meters m = meters.computeIfAbsent(cacheName, name -> new Meters(
+                Counter.builder("kaiming.cache.admission.rejected").tag("cache", name).register(meterRegistry),
+                Counter.builder("kaiming.cache.admission.saved.bytes").tag("cache", name).baseUnit("bytes")
+                        .register(meterRegistry)));
+        m.rejected.increment();
+        m.savedBytes.increment(cacheEngine.averagePutBytes(cacheName));
+        return false;
+    }
+
+    /**
+     * 启动校验：注解上的 admitAfter 是否在所选策略的有效范围内（策略不存在时由调用方报告）
+     */
+    public List<String> validate(KaimingCache kaimingCache) {
+        AdmissionPolicy policy = policies.get(kaimingCache.admission());
+        return policy == null ? List.of() : policy.validate(kaimingCache.admitAfter());
+    }
+
+    public Set<String> policyNames() {
+        return policies.keySet();
+    }
+
+    private record Meters(Counter rejected, Counter savedBytes) {
+    }
+}
@@ -0,0 +1,130 @@
+package com.obee.redis.demo.service.admission;
+
+import java.util.Arrays;
+
+/**
+ * @description:
+ * @author: Guanwf
+ * @date: 2026/10/21 16:20
+ *
+ *  * TinyLFU 频率估计：Count-Min Sketch（4 位计数器，4 个哈希）+ 门卫 Bloom Filter
+ *  * 1. 第一次出现的 Key 只进入门卫，不占用 Sketch 计数，一次性 Key 不会抬高其它 Key 的估计值
+ *  * 2. 记录次数达到 sampleSize 时老化：计数器减半、门卫清空，频率只反映最近一个窗口
+ *  * 计数器上限 15，加上门卫，频率估计的最大值为 16（MAX_FREQUENCY）
+ *
+ */
+public final class FrequencySketch {
+
+    /**
+     * frequency 能返回的最大值：计数器上限 15 + 门卫 1
+     */
+    public static final int MAX_FREQUENCY = 16;
+
+    private static final long[] SEEDS = {
+            0xc3a5c85c97cb3127L, 0xb492b66fbe98f273L, 0x9ae16a3b2f90404fL, 0xcbf29ce484222325L};
+
+    // 每个 long 存 16 个 4 位计数器
+    private final long[] table;
+
+    private final long counterMask;
+
+    private final long[] doorkeeper;
+
+    private final long doorkeeperMask;
+
+    private final int sampleSize;
+
+    private int size;
+
+    public FrequencySketch(int sampleSize) {
+        this.sampleSize = Math.max(sampleSize, 64);
+        // 计数器个数约为 4 倍窗口大小
+        int counters = ceilingPowerOfTwo(this.sampleSize * 4);
+        this.table = new long[counters / 16];
+        this.counterMask = counters - 1;
+        // 门卫约 8 bit / Key
+        int bits = ceilingPowerOfTwo(this.sampleSize * 8);
+        this.doorkeeper = new long[bits / 64];
+        this.doorkeeperMask = bits - 1;
+    }
+
+    /**
+     * 记录一次出现，返回记录后的频率估计
+     */
+    public synchronized int increment(long hash) {
+        if (doorkeeperPut(hash)) {
+            for (long seed : SEEDS) {
+                long index = index(hash, seed);
+                int offset = (int) (index & 15) << 2;
+                long slot = table[(int) (index >>> 4)];
+                if (((slot >>> offset) & 0xF) < 15) {
+                    table[(int) (index >>> 4)] = slot + (1L << offset);
+                }
+            }
+        }
+        if (++size >= sampleSize) {
+            reset();
+        }
+        return frequency(hash);
+    }
+
+    public synchronized int frequency(long hash) {
+        int min = 15;
+        for (long seed : SEEDS) {
+            long index = index(hash, seed);
+            min = Math.min(min, (int) ((table[(int) (index >>> 4)] >>> ((index & 15) << 2)) & 0xF));
+        }
+        return min + (doorkeeperContains(hash) ? 1 : 0);
+    }
+
+    /**
+     * 老化：所有计数器减半（每个 long 内 16 个计数器同时右移），门卫清空
+     */
+    private void reset() {
+        for (int i = 0; i < table.length; i++) {
+            table[i] = (table[i] >>> 1) & 0x7777777777777777L;
+        }
+        Arrays.fill(doorkeeper, 0);
+        size /= 2;
+    }
+
+    /**
+     * @return 是否已经在门卫中
+     */
+    private boolean doorkeeperPut(long hash) {
+        boolean present = true;
+        for (int i = 0; i < 3; i++) {
+            long bit = mix(hash, SEEDS[i] ^ 0x5bd1e995L) & doorkeeperMask;
+            long mask = 1L << bit;
+            int word = (int) (bit >>> 6);
+            if ((doorkeeper[word] & mask) == 0) {
+                present = false;
+                doorkeeper[word] |= mask;
+            }
+        }
+        return present;
+    }
+
+    private boolean doorkeeperContains(long hash) {
+        for (int i = 0; i < 3; i++) {
+            long bit = mix(hash, SEEDS[i] ^ 0x5bd1e995L) & doorkeeperMask;
+            if ((doorkeeper[(int) (bit >>> 6)] & (1L << bit)) == 0) {
+                return false;
+            }
+        }
+        return true;
+    }
+
+    private long index(long hash, long seed) {
+        return mix(hash, seed) & counterMask;
+    }
+
+    private static long mix(long hash, long seed) {
+        long h = (hash ^ seed) * 0x9e3779b97f4a7c15L;
+        return h ^ (h >>> 32);
+    }
+
+    private static int ceilingPowerOfTwo(int value) {
+        return 1 << -Integer.numberOfLeadingZeros(value - 1);
+    }
+}
@@ -0,0 +1,53 @@
+package com.obee.redis.demo.service.admission;
+
+import com.obee.redis.demo.service.local.OffHeapStore;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+
+import java.nio.charset.StandardCharsets;
+import java.util.List;
+
+/**
+ * @description:
+ * @author: Guanwf
+ * @date: 2026/10/21 16:40
+ *
+ *  * TinyLFU 准入：同一 Key 在最近一个统计窗口内未命中 admitAfter 次后才写入
+ *  * 所有缓存共用一个 Sketch（缓存名参与哈希），窗口大小 app.cache.admission.sample-size 应覆盖一段时间内的不同 Key 数
+ *  * 只在本节点统计，多节点部署时每个节点独立判断（热点 Key 在每个节点都会很快达到阈值）
+ *
+ */
+@Component
+public class TinyLfuAdmissionPolicy implements AdmissionPolicy {
+
+    public static final String NAME = "tinylfu";
+
+    private final FrequencySketch sketch;
+
+    public TinyLfuAdmissionPolicy(@Value("${app.cache.admission.sample-size:100000}") int sampleSize) {
+        this.sketch = new FrequencySketch(sampleSize);
+    }
+
+    @Override
+    public String name() {
+        return NAME;
+    }
+
+    @Override
+    public boolean admit(String cacheName, String key, int threshold) {
+        long hash = OffHeapStore.hash64((cacheName + "::" + key).getBytes(StandardCharsets.UTF_8));
+        return sketch.increment(hash) >= threshold;
+    }
+
+    /**
+     * 阈值 <= 1 时第一次未命中就写入，等同于 "always"；超过 16 时频率估计永远达不到，永远不写入
+     */
+    @Override
+    public List<String> validate(int threshold) {
+        if (threshold < 2 || threshold > FrequencySketch.MAX_FREQUENCY) {
+            return List.of("admitAfter must be between 2 and " + FrequencySketch.MAX_FREQUENCY
+                    + " for admission \"" + NAME + "\", got " + threshold);
+        }
+        return List.of();
+    }
+}
@@ -0,0 +1,345 @@
+package com.obee.redis.demo.service.analysis;
+
+import com.obee.redis.demo.config.KaimingCacheProperties;
+import com.obee.redis.demo.service.metadata.CacheMetadataRegistry;
+import com.obee.redis.demo.service.metadata.CacheOperationMetadata;
+import io.lettuce.core.KeyScanCursor;
+import io.lettuce.core.RedisFuture;
+import io.lettuce.core.ScanArgs;
+import io.lettuce.core.ScanCursor;
+import io.lettuce.core.cluster.api.async.RedisClusterAsyncCommands;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.ObjectProvider;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.data.redis.connection.RedisConnection;
+import org.springframework.data.redis.connection.RedisConnectionFactory;
+import org.springframework.data.redis.connection.lettuce.LettuceConnection;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+import org.springframework.util.unit.DataSize;
+
+import java.nio.charset.StandardCharsets;
+import java.time.Instant;
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.PriorityQueue;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * @description:
+ * @author: Guanwf
+ * @date: 2026/10/21 19:10
+ *
+ *  * 按缓存名（Key 家族）估算 Redis 内存：后台增量 SCAN + 抽样 MEMORY USAGE
+ *  * 1. 家族前缀来自 @KaimingCache 的 key 表达式开头的常量、Spring Cache 的 "name::"，以及 app.cache.specs.{name}.key-prefixes
+ *  * 2. 所有家族共用一个 SCAN 游标（不带 MATCH），每个 Key 按最长匹配的前缀归入家族，不属于任何家族的 Key 只计入进度；
+ *  *    一轮只遍历一次键空间，而不是每个家族各遍历一次（SCAN MATCH 在服务端同样要遍历全部 Key，只是过滤后返回）
+ *  * 3. 每次调度最多推进 pages-per-run 页（COUNT scan-count），一轮扫描可以跨越多次调度，不长时间占用 Redis
+ *  * 4. 每个家族每 sample-rate 个 Key 取一个 MEMORY USAGE，估算值 = 平均大小 × Key 数；抽样到的大 Key 记录前 N 个
+ *  * 5. 发布（见 stats()，供 CacheQuotaGuard 与 Actuator 端点 cachememory 使用）：
+ *  *    扫描中：进度（已扫描 Key 数 / 本轮开始时的 DBSIZE）达到 partial-min-progress 后，每次调度按进度外推发布部分估算（partial = true），
+ *  *    配额超限可以在一轮完成之前生效；一轮完成后发布最终结果
+ *
+ *  * 使用 Lettuce 原生异步命令：游标可以跨调度保存（集群下为跨节点游标），MEMORY USAGE 由 Lettuce 自动流水线发送
+ *
+ */
+@Slf4j
+@Component
+public class CacheMemoryAnalyzer {
+
+    private final RedisConnectionFactory connectionFactory;
+
+    // 延迟获取，避免与 CacheEngine -> CacheQuotaGuard 形成循环依赖
+    private final ObjectProvider<CacheMetadataRegistry> metadataRegistry;
+
+    private final KaimingCacheProperties properties;
+
+    private final MeterRegistry meterRegistry;
+
+    private final boolean enabled;
+
+    private final int scanCount;
+
+    private final int pagesPerRun;
+
+    private final int sampleRate;
+
+    private final long bigKeyBytes;
+
+    private final int topBigKeys;
+
+    private final double partialMinProgress;
+
+    // 进行中的一轮扫描，只由调度线程访问
+    private Sweep sweep;
+
+    // 缓存名 -> 最近发布的结果（完成的一轮，或进行中一轮的部分估算）
+    private final Map<String, FamilyStats> stats = new ConcurrentHashMap<>();
+
+    private volatile Map<String, Set<String>> families;
+
+    // 按长度降序的前缀 -> 缓存名，用于最长前缀匹配
+    private volatile List<Map.Entry<String, String>> prefixIndex;
+
+    public CacheMemoryAnalyzer(RedisConnectionFactory connectionFactory,
+                               ObjectProvider<CacheMetadataRegistry> metadataRegistry,
+                               KaimingCacheProperties properties, MeterRegistry meterRegistry,
+                               @Value("${app.cache.analyzer.enabled:true}") boolean enabled,
+                               @Value("${app.cache.analyzer.scan-count:500}") int scanCount,
+                               @Value("${app.cache.analyzer.pages-per-run:20}") int pagesPerRun,
+                               @Value("${app.cache.analyzer.sample-rate:10}") int sampleRate,
+                               @Value("${app.cache.analyzer.big-key:1MB}") DataSize bigKey,
+                               @Value("${app.cache.analyzer.top-big-keys:20}") int topBigKeys,
+                               @Value("${app.cache.analyzer.partial-min-progress:0.1}") double partialMinProgress) {
+        this.connectionFactory = connectionFactory;
+        this.metadataRegistry = metadataRegistry;
+        this.properties = properties;
+        this.meterRegistry = meterRegistry;
+        this.enabled = enabled;
+        this.scanCount = scanCount;
+        this.pagesPerRun = pagesPerRun;
+        this.sampleRate = Math.max(1, sampleRate);
+        this.bigKeyBytes = bigKey.toBytes();
+        this.topBigKeys = topBigKeys;
+        this.partialMinProgress = partialMinProgress;
+    }
+
+    /**
+     * 最近发布的统计（FamilyStats#partial 为 true 时是进行中一轮的外推估算），尚未发布过的家族不在其中
+     */
+    public Map<String, FamilyStats> stats() {
+        return Map.copyOf(stats);
+    }
+
+    public FamilyStats stats(String cacheName) {
+        return stats.get(cacheName);
+    }
+
+    /**
+     * 缓存名 -> Key 前缀
+     */
+    public Map<String, Set<String>> families() {
+        Map<String, Set<String>> result = families;
+        if (result == null) {
+            result = new LinkedHashMap<>();
+            for (CacheOperationMetadata operation : metadataRegistry.getObject().operations().values()) {
+                if (!operation.keyPrefix().isEmpty()) {
+                    result.computeIfAbsent(operation.cacheName(), n -> new LinkedHashSet<>()).add(operation.keyPrefix());
+                }
+            }
+            for (Map.Entry<String, KaimingCacheProperties.Spec> spec : properties.getSpecs().entrySet()) {
+                Set<String> prefixes = result.computeIfAbsent(spec.getKey(), n -> new LinkedHashSet<>());
+                // KaimingSpringCache 的 Key 格式为 name::key
+                prefixes.add(spec.getKey() + "::");
+                prefixes.addAll(spec.getValue().getKeyPrefixes());
+            }
+            List<Map.Entry<String, String>> index = new ArrayList<>();
+            result.forEach((cacheName, prefixes) -> prefixes.forEach(prefix -> index.add(Map.entry(prefix, cacheName))));
+            index.sort(Comparator.comparingInt((Map.Entry<String, String> e) -> e.getKey().length()).reversed());
+            prefixIndex = List.copyOf(index);
+            families = result;
+            log.info("Cache memory analyzer families: {}", result);
+        }
+        return result;
+    }
+
+    @Scheduled(fixedDelayString = "${app.cache.analyzer.interval:10000}")
+    public void analyze() {
+        if (!enabled) {
+            return;
+        }
+        try (RedisConnection connection = connectionFactory.getConnection()) {
+            if (!(connection instanceof LettuceConnection lettuce)) {
+                return;
+            }
+            RedisClusterAsyncCommands<byte[], byte[]> commands = lettuce.getNativeConnection();
+            if (families().isEmpty()) {
+                return;
+            }
+            if (sweep == null) {
+                Long dbSize = commands.dbsize().get(10, TimeUnit.SECONDS);
+                sweep = new Sweep(dbSize == null ? 0 : dbSize);
+            }
+            advance(commands, sweep);
+        } catch (Exception e) {
+            log.debug("Cache memory analysis failed: {}", e.getMessage());
+        }
+    }
+
+    private void advance(RedisClusterAsyncCommands<byte[], byte[]> commands, Sweep sweep) throws Exception {
+        ScanArgs args = ScanArgs.Builder.limit(scanCount);
+        for (int page = 0; page < pagesPerRun; page++) {
+            KeyScanCursor<byte[]> cursor = commands.scan(sweep.cursor, args).get(10, TimeUnit.SECONDS);
+
+            List<String> sampledKeys = new ArrayList<>();
+            List<FamilyScan> sampledFamilies = new ArrayList<>();
+            List<RedisFuture<Long>> usages = new ArrayList<>();
+            for (byte[] raw : cursor.getKeys()) {
+                sweep.scanned++;
+                String key = new String(raw, StandardCharsets.UTF_8);
+                String cacheName = familyOf(key);
+                if (cacheName == null) {
+                    continue;
+                }
+                FamilyScan scan = sweep.family(cacheName);
+                if (scan.keys++ % sampleRate == 0) {
+                    sampledKeys.add(key);
+                    sampledFamilies.add(scan);
+                    usages.add(commands.memoryUsage(raw));
+                }
+            }
+            for (int i = 0; i < usages.size(); i++) {
+                Long bytes = usages.get(i).get(10, TimeUnit.SECONDS);
+                if (bytes != null) {
+                    sampledFamilies.get(i).sample(sampledKeys.get(i), bytes);
+                }
+            }
+
+            if (cursor.isFinished()) {
+                publish(sweep, 1.0);
+                this.sweep = null;
+                return;
+            }
+            sweep.cursor = cursor;
+        }
+        // 一轮未完成：按进度外推发布部分估算，DBSIZE 在扫描期间变化时进度只是近似值
+        double progress = sweep.dbSize == 0 ? 0 : Math.min(0.99, (double) sweep.scanned / sweep.dbSize);
+        if (progress >= partialMinProgress) {
+            publish(sweep, progress);
+        }
+    }
+
+    /**
+     * 最长前缀匹配，不属于任何家族时返回 null
+     */
+    String familyOf(String key) {
+        for (Map.Entry<String, String> prefix : prefixIndex) {
+            if (key.startsWith(prefix.getKey())) {
+                return prefix.getValue();
+            }
+        }
+        return null;
+    }
+
+    /**
+     * @param progress 1 表示一轮完成，否则 Key 数按进度外推
+     */
+    private void publish(Sweep sweep, double progress) {
+        boolean partial = progress < 1.0;
+        for (Map.Entry<String, Set<String>> family : families().entrySet()) {
+            String cacheName = family.getKey();
+            FamilyScan scan = sweep.family(cacheName);
+            long keys = partial ? Math.round(scan.keys / progress) : scan.keys;
+            long average = scan.sampled == 0 ? 0 : scan.sampledBytes / scan.sampled;
+            List<BigKey> bigKeys = new ArrayList<>(scan.bigKeys);
+            bigKeys.sort(Comparator.comparingLong(BigKey::bytes).reversed());
+            KaimingCacheProperties.Spec spec = properties.specOf(cacheName);
+            FamilyStats result = new FamilyStats(cacheName, List.copyOf(family.getValue()), keys, scan.sampled,
+                    average * keys, average, spec == null || spec.getQuota() == null ? null : spec.getQuota().toBytes(),
+                    bigKeys, System.currentTimeMillis() - sweep.startedAt, Instant.now(), partial, progress);
+            if (stats.put(cacheName, result) == null) {
+                Gauge.builder("kaiming.cache.memory.estimated", stats, s -> bytesOf(s.get(cacheName)))
+                        .tag("cache", cacheName).baseUnit("bytes").register(meterRegistry);
+                Gauge.builder("kaiming.cache.memory.keys", stats, s -> keysOf(s.get(cacheName)))
+                        .tag("cache", cacheName).register(meterRegistry);
+            }
+            if (partial) {
+                continue;
+            }
+            if (!bigKeys.isEmpty()) {
+                log.warn("Big keys in cache {}: {}", cacheName, bigKeys);
+            }
+            log.info("Cache memory analyzed: {} keys={} estimated={}B in {}ms", cacheName, result.keys(),
+                    result.estimatedBytes(), result.durationMillis());
+        }
+        log.debug("Cache memory sweep {}: scanned {} of ~{} keys", partial ? "in progress" : "done", sweep.scanned,
+                sweep.dbSize);
+    }
+
+    private static double bytesOf(FamilyStats stats) {
+        return stats == null ? 0 : stats.estimatedBytes();
+    }
+
+    private static double keysOf(FamilyStats stats) {
+        return stats == null ? 0 : stats.keys();
+    }
+
+    /**
+     * 一轮扫描：共用的游标与各家族的累计值
+     */
+    private final class Sweep {
+
+        private final long dbSize;
+
+        private final long startedAt = System.currentTimeMillis();
+
+        private final Map<String, FamilyScan> families = new HashMap<>();
+
+        private ScanCursor cursor = ScanCursor.INITIAL;
+
+        // 已扫描的全部 Key（含不属于任何家族的）
+        private long scanned;
+
+        Sweep(long dbSize) {
+            this.dbSize = dbSize;
+        }
+
+        FamilyScan family(String cacheName) {
+            return families.computeIfAbsent(cacheName, n -> new FamilyScan());
+        }
+    }
+
+    /**
+     * 一个家族进行中的一轮扫描
+     */
+    private final class FamilyScan {
+
+        // 只保留最大的 topBigKeys 个（小顶堆）
+        private final PriorityQueue<BigKey> bigKeys = new PriorityQueue<>(Comparator.comparingLong(BigKey::bytes));
+
+        private long keys;
+
+        private long sampled;
+
+        private long sampledBytes;
+
+        void sample(String key, long bytes) {
+            sampled++;
+            sampledBytes += bytes;
+            if (bytes >= bigKeyBytes) {
+                bigKeys.add(new BigKey(key, bytes));
+                if (bigKeys.size() > topBigKeys) {
+                    bigKeys.poll();
+                }
+            }
+        }
+    }
+
+    /**
+     * @param estimatedBytes 平均大小 × Key 数
+     * @param quotaBytes     配置的配额，未配置为 null
+     * @param bigKeys        抽样到的大 Key，按大小降序
+     * @param partial        进行中一轮的部分估算（keys 按 progress 外推）
+     * @param progress       发布时本轮的扫描进度，完成时为 1
+     */
+    public record FamilyStats(String cacheName, List<String> prefixes, long keys, long sampledKeys,
+                              long estimatedBytes, long averageBytes, Long quotaBytes, List<BigKey> bigKeys,
+                              long durationMillis, Instant completedAt, boolean partial, double progress) {
+
+        public boolean overQuota() {
+            return quotaBytes != null && estimatedBytes > quotaBytes;
+        }
+    }
+
+    public record BigKey(String key, long bytes) {
+    }
+}
@@ -0,0 +1,38 @@
+package com.obee.redis.demo.service.analysis;
+
+import lombok.RequiredArgsConstructor;
+import org.springframework.boot.actuate.endpoint.annotation.Endpoint;
+import org.springframework.boot.actuate.endpoint.annotation.ReadOperation;
+import org.springframework.boot.actuate.endpoint.annotation.Selector;
+import org.springframework.stereotype.Component;
+
+import java.util.Map;
+import java.util.Set;
+
+/**
+ * @description:
+ * @author: Guanwf
+ * @date: 2026/10/21 19:50
+ *
+ *  * Actuator 端点：GET /actuator/cachememory、/actuator/cachememory/{cacheName}
+ *  * 返回各缓存名最近一轮的内存估算、配额与大 Key
+ *
+ */
+@Component
+@Endpoint(id = "cachememory")
+@RequiredArgsConstructor
+public class CacheMemoryEndpoint {
+
+    private final CacheMemoryAnalyzer analyzer;
+
+    @ReadOperation
+    public Map<String, Object> families() {
+        Map<String, Set<String>> families = analyzer.families();
+        return Map.of("families", families, "stats", analyzer.stats());
+    }
+
+    @ReadOperation
+    public CacheMemoryAnalyzer.FamilyStats family(@Selector String cacheName) {
+        return analyzer.stats(cacheName);
+    }
+}
@@ -0,0 +1,86 @@
+package com.obee.redis.demo.service.analysis;
+
+import com.obee.redis.demo.config.KaimingCacheProperties;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.MeterRegistry;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.stereotype.Component;
+
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * @description:
+ * @author: Guanwf
+ * @date: 2026/10/21 19:40
+ *
+ *  * 按缓存名的内存配额（app.cache.specs.{name}.quota / max-value-size）
+ *  * 1. 配额：CacheMemoryAnalyzer 估算的家族内存超过 quota 时，CacheAspect 跳过新写入（已有数据照常读取、自然过期）；
+ *  *    扫描进行中发布的部分估算同样生效，不必等一整轮扫描完成
+ *  * 2. 单值上限：序列化后超过 max-value-size 只告警并计数，不拦截；超过 @KaimingCache#maxValueBytes 跳过写入
+ *
+ */
+@Slf4j
+@Component
+@RequiredArgsConstructor
+public class CacheQuotaGuard {
+
+    private final KaimingCacheProperties properties;
+
+    private final CacheMemoryAnalyzer analyzer;
+
+    private final MeterRegistry meterRegistry;
+
+    // 当前超配额的缓存名，只在进入/离开超配额状态时打日志
+    private final Set<String> overQuota = ConcurrentHashMap.newKeySet();
+
+    /**
+     * 是否允许写入该缓存名，未配置配额或尚无统计时允许
+     */
+    public boolean allowWrite(String cacheName) {
+        KaimingCacheProperties.Spec spec = properties.specOf(cacheName);
+        if (spec == null || spec.getQuota() == null) {
+            return true;
+        }
+        CacheMemoryAnalyzer.FamilyStats stats = analyzer.stats(cacheName);
+        if (stats == null || stats.estimatedBytes() <= spec.getQuota().toBytes()) {
+            if (overQuota.remove(cacheName)) {
+                log.info("Cache {} back under quota {}", cacheName, spec.getQuota());
+            }
+            return true;
+        }
+        if (overQuota.add(cacheName)) {
+            log.warn("Cache {} over quota: estimated {}B > {}{}, skipping writes", cacheName,
+                    stats.estimatedBytes(), spec.getQuota(),
+                    stats.partial() ? " (partial scan, " + Math.round(stats.progress() * 100) + "%)" : "");
+        }
+        Counter.builder("kaiming.cache.quota.rejected").tag("cache", cacheName)
+                .register(meterRegistry).increment();
+        return false;
+    }
+
+    /**
+     * 检查序列化后的值大小
+     * 1. 超过 maxValueBytes（@KaimingCache#maxValueBytes，0 不限制）：返回 false，不写入
+     * 2. 超过 app.cache.specs.{name}.max-value-size：只告警
+     */
+    public boolean checkValueSize(String cacheName, String key, int bytes, long maxValueBytes) {
+        if (maxValueBytes > 0 && bytes > maxValueBytes) {
+            log.warn("Oversized cache value skipped: {} ({}B > {}B), cache={}", key, bytes, maxValueBytes, cacheName);
+            oversized(cacheName, "skipped");
+            return false;
+        }
+        KaimingCacheProperties.Spec spec = properties.specOf(cacheName);
+        if (spec != null && spec.getMaxValueSize() != null && bytes > spec.getMaxValueSize().toBytes()) {
+            log.warn("Oversized cache value: {} ({}B > {}), cache={}", key, bytes, spec.getMaxValueSize(), cacheName);
+            oversized(cacheName, "logged");
+        }
+        return true;
+    }
+
+    private void oversized(String cacheName, String action) {
+        Counter.builder("kaiming.cache.oversized").tag("cache", cacheName).tag("action", action)
+                .register(meterRegistry).increment();
+    }
+}
@@ -0,0 +1,30 @@
+package com.obee.redis.demo.service.cluster;
+
+/**
+ * @description:
+ * @author: Guanwf
+ * @date: 2026/10/19 17:00
+ *
+ *  * Key 命名约定（Redis Cluster hash tag）
+ *  * Cluster 只对 {} 中的内容计算 slot，同一个 tag 的 Key 一定落在同一个 slot，
+ *  * 这样多 Key 命令、Lua 脚本、MULTI 才不会报 CROSSSLOT
+ *
+ *  * 约定：需要协同访问的一组 Key，用“实体标识”做 tag，例如
+ *  *   user:{1001}:info / user:{1001}:roles / user:{1001}:stats
+ *  * 注解中可直接使用 SpEL 函数：@KaimingCache(key = "'user:' + #tag(#id) + ':info'")
+ *  * 注意：tag 过粗（例如所有 Key 都用 {user}）会让数据集中到一个节点，造成热点
+ *
+ */
+public final class CacheKeys {
+
+    private CacheKeys() {
+    }
+
+    /**
+     * 生成 hash tag：1001 -> {1001}
+     * 该方法必须是 static public，以便 SpEL 调用
+     */
+    public static String tag(Object value) {
+        return "{" + value + "}";
+    }
+}
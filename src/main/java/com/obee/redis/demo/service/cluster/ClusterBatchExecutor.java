@@ -0,0 +1,293 @@
+package com.obee.redis.demo.service.cluster;
+
+import io.lettuce.core.RedisNoScriptException;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.DisposableBean;
+import org.springframework.data.redis.connection.ClusterSlotHashUtil;
+import org.springframework.data.redis.connection.RedisClusterConnection;
+import org.springframework.data.redis.connection.RedisClusterNode;
+import org.springframework.data.redis.connection.RedisConnection;
+import org.springframework.data.redis.connection.RedisConnectionFactory;
+import org.springframework.data.redis.connection.RedisPipelineException;
+import org.springframework.data.redis.connection.ReturnType;
+import org.springframework.data.redis.connection.lettuce.LettuceConnectionFactory;
+import org.springframework.data.redis.core.RedisCallback;
+import org.springframework.data.redis.core.RedisTemplate;
+import org.springframework.data.redis.core.script.RedisScript;
+import org.springframework.stereotype.Component;
+
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+
+/**
+ * @description:
+ * @author: Guanwf
+ * @date: 2026/10/19 17:10
+ *
+ *  * 多 Key 批量操作的路由与合并
+ *  * 单机模式：所有 Key 一个命令、一次往返
+ *  * 集群模式：Key 按 slot 分组（同 slot 才能合并为一个 MGET/UNLINK），再按 slot 所在节点分组，
+ *  *          每个节点一个 Pipeline，各节点之间并行执行（虚拟线程）
+ *
+ */
+@Slf4j
+@Component
+public class ClusterBatchExecutor implements DisposableBean {
+
+    private final RedisTemplate<String, Object> redisTemplate;
+
+    private final RedisConnectionFactory connectionFactory;
+
+    private final ExecutorService executor = Executors.newVirtualThreadPerTaskExecutor();
+
+    public ClusterBatchExecutor(RedisTemplate<String, Object> redisTemplate, RedisConnectionFactory connectionFactory) {
+        this.redisTemplate = redisTemplate;
+        this.connectionFactory = connectionFactory;
+    }
+
+    public boolean isCluster() {
+        return connectionFactory instanceof LettuceConnectionFactory lettuce && lettuce.isClusterAware();
+    }
+
+    /**
+     * 批量读取原始字节，不存在的 Key 不会出现在结果中
+     */
+    public Map<String, byte[]> multiGet(Collection<String> keys) {
+        if (keys.isEmpty()) {
+            return Map.of();
+        }
+        Map<String, byte[]> result = new HashMap<>(keys.size() * 4 / 3 + 1);
+        for (List<Object> nodeResults : executeByNode(keys, (connection, slotKeys) ->
+                connection.stringCommands().mGet(raw(slotKeys)))) {
+            // 每个节点内按 slot 分组的顺序返回，每个元素对应一个 MGET 的结果
+            for (Object item : nodeResults) {
+                @SuppressWarnings("unchecked")
+                Map<String, byte[]> slotResult = (Map<String, byte[]>) item;
+                result.putAll(slotResult);
+            }
+        }
+        return result;
+    }
+
+    /**
+     * 批量 UNLINK（异步释放内存，不阻塞 Redis 主线程）
+     * @return 实际删除的 Key 数量
+     */
+    public long unlink(Collection<String> keys) {
+        if (keys.isEmpty()) {
+            return 0;
+        }
+        long count = 0;
+        for (List<Object> nodeResults : executeByNode(keys, (connection, slotKeys) ->
+                connection.keyCommands().unlink(raw(slotKeys)))) {
+            for (Object item : nodeResults) {
+                if (item instanceof Number n) {
+                    count += n.longValue();
+                }
+            }
+        }
+        return count;
+    }
+
+    /**
+     * 把所有 Key 设为同一个值并设置过期时间（逐个 PSETEX），每个节点一个 Pipeline，节点之间并行
+     * 用于批量写入删除墓碑
+     *
+     * @return 写入的 Key 数量
+     */
+    public long setEach(Collection<String> keys, byte[] value, long ttlMillis) {
+        if (keys.isEmpty()) {
+            return 0;
+        }
+        Collection<List<List<String>>> nodes = groupByNode(keys);
+        List<CompletableFuture<Integer>> futures = new ArrayList<>(nodes.size());
+        for (List<List<String>> slots : nodes) {
+            List<String> nodeKeys = slots.stream().flatMap(List::stream).toList();
+            futures.add(CompletableFuture.supplyAsync(() -> {
+                redisTemplate.executePipelined((RedisCallback<Object>) connection -> {
+                    for (String key : nodeKeys) {
+                        connection.stringCommands().pSetEx(key.getBytes(StandardCharsets.UTF_8), ttlMillis, value);
+                    }
+                    return null;
+                }, null);
+                return nodeKeys.size();
+            }, executor));
+        }
+        return futures.stream().mapToLong(CompletableFuture::join).sum();
+    }
+
+    /**
+     * 对每个 Key 各执行一次脚本（KEYS[1] 为该 Key，ARGV 为该 Key 的参数），每个节点一个 Pipeline，节点之间并行
+     * 走 EVALSHA，脚本不在 Redis 中（NOSCRIPT，例如 Redis 重启、主从切换、SCRIPT FLUSH 后）时 SCRIPT LOAD 再整体重试一次
+     * Pipeline 中的错误被包装为 RedisPipelineException（消息不含 NOSCRIPT），按 isNoScript 检查每条命令的异常链
+     *
+     * @return Key -> 脚本返回值
+     */
+    public Map<String, Object> evalEach(RedisScript<?> script, ReturnType returnType, Map<String, byte[][]> argsByKey) {
+        if (argsByKey.isEmpty()) {
+            return Map.of();
+        }
+        Collection<List<List<String>>> nodes = groupByNode(argsByKey.keySet());
+        List<CompletableFuture<Map<String, Object>>> futures = new ArrayList<>(nodes.size());
+        for (List<List<String>> slots : nodes) {
+            List<String> nodeKeys = slots.stream().flatMap(List::stream).toList();
+            futures.add(CompletableFuture.supplyAsync(() -> {
+                try {
+                    return evalPipelined(script, returnType, nodeKeys, argsByKey);
+                } catch (RuntimeException e) {
+                    if (!isNoScript(e)) {
+                        throw e;
+                    }
+                    log.info("Script {} missing on Redis, loading and retrying", script.getSha1());
+                    redisTemplate.execute((RedisCallback<String>) connection -> connection.scriptingCommands()
+                            .scriptLoad(script.getScriptAsString().getBytes(StandardCharsets.UTF_8)));
+                    return evalPipelined(script, returnType, nodeKeys, argsByKey);
+                }
+            }, executor));
+        }
+        Map<String, Object> result = new HashMap<>(argsByKey.size() * 4 / 3 + 1);
+        futures.forEach(f -> result.putAll(f.join()));
+        return result;
+    }
+
+    /**
+     * 异常链中（包括 RedisPipelineException 里每条命令的结果）是否有 NOSCRIPT 错误
+     */
+    static boolean isNoScript(Throwable error) {
+        for (Throwable t = error; t != null; t = t.getCause()) {
+            if (t instanceof RedisNoScriptException || String.valueOf(t.getMessage()).startsWith("NOSCRIPT")) {
+                return true;
+            }
+            if (t instanceof RedisPipelineException pipeline) {
+                for (Object result : pipeline.getPipelineResult()) {
+                    if (result instanceof Throwable failure && failure != t && isNoScript(failure)) {
+                        return true;
+                    }
+                }
+            }
+        }
+        return false;
+    }
+
+    private Map<String, Object> evalPipelined(RedisScript<?> script, ReturnType returnType, List<String> keys,
+                                              Map<String, byte[][]> argsByKey) {
+        byte[] sha = script.getSha1().getBytes(StandardCharsets.UTF_8);
+        List<Object> raw = redisTemplate.executePipelined((RedisCallback<Object>) connection -> {
+            for (String key : keys) {
+                byte[][] args = argsByKey.get(key);
+                byte[][] keysAndArgs = new byte[args.length + 1][];
+                keysAndArgs[0] = key.getBytes(StandardCharsets.UTF_8);
+                System.arraycopy(args, 0, keysAndArgs, 1, args.length);
+                connection.scriptingCommands().evalSha(sha, returnType, 1, keysAndArgs);
+            }
+            return null;
+        }, null);
+        Map<String, Object> result = new HashMap<>(keys.size() * 4 / 3 + 1);
+        for (int i = 0; i < keys.size(); i++) {
+            result.put(keys.get(i), raw.get(i));
+        }
+        return result;
+    }
+
+    /**
+     * 按节点并行执行，每个节点内一个 Pipeline，每个 slot 一条命令
+     */
+    private List<List<Object>> executeByNode(Collection<String> keys, SlotCommand command) {
+        Collection<List<List<String>>> nodes = groupByNode(keys);
+
+        if (nodes.size() == 1) {
+            return List.of(pipeline(nodes.iterator().next(), command));
+        }
+        List<CompletableFuture<List<Object>>> futures = new ArrayList<>(nodes.size());
+        for (List<List<String>> slots : nodes) {
+            futures.add(CompletableFuture.supplyAsync(() -> pipeline(slots, command), executor));
+        }
+        return futures.stream().map(CompletableFuture::join).toList();
+    }
+
+    private List<Object> pipeline(List<List<String>> slots, SlotCommand command) {
+        if (slots.size() == 1) {
+            // 只有一个 slot，无需 Pipeline
+            return List.of(convert(slots.get(0), redisTemplate.execute((RedisCallback<Object>) connection ->
+                    command.execute(connection, slots.get(0)))));
+        }
+        List<Object> raw = redisTemplate.executePipelined((RedisCallback<Object>) connection -> {
+            for (List<String> slotKeys : slots) {
+                command.execute(connection, slotKeys);
+            }
+            return null;
+        }, null);
+        List<Object> converted = new ArrayList<>(raw.size());
+        for (int i = 0; i < raw.size(); i++) {
+            converted.add(convert(slots.get(i), raw.get(i)));
+        }
+        return converted;
+    }
+
+    /**
+     * MGET 的结果是与 Key 一一对应的 List，转换为 Key -> 值（跳过 null）
+     */
+    private static Object convert(List<String> slotKeys, Object result) {
+        if (!(result instanceof List<?> values)) {
+            return result;
+        }
+        Map<String, byte[]> map = new LinkedHashMap<>();
+        for (int i = 0; i < values.size(); i++) {
+            if (values.get(i) instanceof byte[] bytes) {
+                map.put(slotKeys.get(i), bytes);
+            }
+        }
+        return map;
+    }
+
+    /**
+     * Key -> slot -> 节点 两级分组；单机模式下只有一个“节点”、一个分组
+     */
+    private Collection<List<List<String>>> groupByNode(Collection<String> keys) {
+        if (!isCluster()) {
+            return List.of(List.of(new ArrayList<>(keys)));
+        }
+
+        Map<Integer, List<String>> bySlot = new HashMap<>();
+        for (String key : keys) {
+            bySlot.computeIfAbsent(ClusterSlotHashUtil.calculateSlot(key), s -> new ArrayList<>()).add(key);
+        }
+
+        Map<String, List<List<String>>> byNode = new HashMap<>();
+        try (RedisClusterConnection connection = connectionFactory.getClusterConnection()) {
+            bySlot.forEach((slot, slotKeys) -> {
+                RedisClusterNode node = connection.clusterGetNodeForSlot(slot);
+                String nodeId = node == null ? "unknown" : node.asString();
+                byNode.computeIfAbsent(nodeId, n -> new ArrayList<>()).add(slotKeys);
+            });
+        }
+        log.debug("Batch of {} keys routed to {} slots on {} nodes", keys.size(), bySlot.size(), byNode.size());
+        return byNode.values();
+    }
+
+    private static byte[][] raw(List<String> keys) {
+        byte[][] raw = new byte[keys.size()][];
+        for (int i = 0; i < keys.size(); i++) {
+            raw[i] = keys.get(i).getBytes(StandardCharsets.UTF_8);
+        }
+        return raw;
+    }
+
+    @Override
+    public void destroy() {
+        executor.close();
+    }
+
+    @FunctionalInterface
+    private interface SlotCommand {
+        Object execute(RedisConnection connection, List<String> slotKeys);
+    }
+}
@@ -0,0 +1,56 @@
+package com.obee.redis.demo.service.codec;
+
+import java.nio.charset.StandardCharsets;
+import java.util.Arrays;
+
+/**
+ * @description:
+ * @author: Guanwf
+ * @date: 2026/10/20 10:45
+ *
+ *  * 缓存值的版本信封（与 lua/cache_set_if_newer.lua 约定一致）
+ *  *   v:<version>:<payload>  版本化的值
+ *  *   t:<millis>:            删除墓碑（短期存在，期间拒绝删除之前开始的回源写入）
+ *  *   其他                   未版本化的原始值（JSON 不会以 "v:" / "t:" 开头）
+ *
+ */
+public final class CacheEnvelope {
+
+    private CacheEnvelope() {
+    }
+
+    public static byte[] wrap(byte[] payload, long version) {
+        byte[] head = ("v:" + version + ":").getBytes(StandardCharsets.US_ASCII);
+        byte[] bytes = Arrays.copyOf(head, head.length + payload.length);
+        System.arraycopy(payload, 0, bytes, head.length, payload.length);
+        return bytes;
+    }
+
+    public static byte[] tombstone(long millis) {
+        return ("t:" + millis + ":").getBytes(StandardCharsets.US_ASCII);
+    }
+
+    public static boolean isTombstone(byte[] bytes) {
+        return bytes.length > 1 && bytes[0] == 't' && bytes[1] == ':';
+    }
+
+    /**
+     * 取出真正的值：墓碑返回 null，版本化值去掉头部，其余原样返回
+     */
+    public static byte[] unwrap(byte[] bytes) {
+        if (bytes == null || bytes.length < 2 || bytes[1] != ':') {
+            return bytes;
+        }
+        if (bytes[0] == 't') {
+            return null;
+        }
+        if (bytes[0] == 'v') {
+            for (int i = 2; i < bytes.length; i++) {
+                if (bytes[i] == ':') {
+                    return Arrays.copyOfRange(bytes, i + 1, bytes.length);
+                }
+            }
+        }
+        return bytes;
+    }
+}
@@ -0,0 +1,125 @@
+package com.obee.redis.demo.service.codec;
+
+import com.fasterxml.jackson.databind.DeserializationFeature;
+import com.fasterxml.jackson.databind.JavaType;
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.ObjectReader;
+import com.fasterxml.jackson.databind.ObjectWriter;
+import com.fasterxml.jackson.databind.node.ObjectNode;
+import org.springframework.stereotype.Component;
+
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * @description:
+ * @author: Guanwf
+ * @date: 2026/10/19 15:30
+ *
+ *  * DTO <-> Redis Hash 字段级编解码
+ *  * 每个顶层属性对应一个 Hash field，field 值为该属性的 JSON 字节（字符串带引号，嵌套对象为 JSON 对象）
+ *  * 这样可以：HMGET 只取部分字段；HSET 只改部分字段，不必整体重写
+ *
+ */
+@Component
+public class HashObjectCodec {
+
+    private static final byte[] NULL = "null".getBytes(StandardCharsets.UTF_8);
+
+    private final ObjectMapper objectMapper;
+
+    private final ObjectWriter writer;
+
+    private final ObjectReader treeReader;
+
+    public HashObjectCodec(ObjectMapper objectMapper) {
+        this.objectMapper = objectMapper.copy()
+                .configure(DeserializationFeature.FAIL_ON_UNKNOWN_PROPERTIES, false);
+        this.writer = this.objectMapper.writer();
+        this.treeReader = this.objectMapper.readerFor(JsonNode.class);
+    }
+
+    public JavaType type(Class<?> clazz) {
+        return objectMapper.getTypeFactory().constructType(clazz);
+    }
+
+    /**
+     * 对象 -> field 字节映射（null 属性编码为 "null"，覆盖旧值，避免残留）
+     */
+    public Map<String, byte[]> encode(Object value) {
+        JsonNode tree = objectMapper.valueToTree(value);
+        if (!(tree instanceof ObjectNode objectNode)) {
+            throw new IllegalArgumentException("Hash storage requires a bean/map value, got: " + value.getClass());
+        }
+        Map<String, byte[]> fields = new LinkedHashMap<>(objectNode.size() * 4 / 3 + 1);
+        Iterator<Map.Entry<String, JsonNode>> it = objectNode.fields();
+        while (it.hasNext()) {
+            Map.Entry<String, JsonNode> field = it.next();
+            fields.put(field.getKey(), encodeField(field.getValue()));
+        }
+        return fields;
+    }
+
+    /**
+     * 单个字段值编码（用于部分更新）
+     */
+    public byte[] encodeField(Object fieldValue) {
+        if (fieldValue == null) {
+            return NULL;
+        }
+        try {
+            return writer.writeValueAsBytes(fieldValue);
+        } catch (IOException e) {
+            throw new IllegalStateException("Failed to encode hash field: " + fieldValue.getClass(), e);
+        }
+    }
+
+    /**
+     * field 字节映射 -> 对象（HGETALL 结果）
+     */
+    public <T> T decode(Map<String, byte[]> fields, JavaType type) {
+        ObjectNode node = objectMapper.createObjectNode();
+        fields.forEach((name, bytes) -> {
+            if (bytes != null) {
+                node.set(name, readTree(bytes));
+            }
+        });
+        return convert(node, type);
+    }
+
+    /**
+     * 按字段名与值列表解码（HMGET 结果，顺序与 fieldNames 一致，缺失字段为 null）
+     * 未请求的字段保持类型默认值
+     */
+    public <T> T decode(List<String> fieldNames, List<byte[]> values, JavaType type) {
+        ObjectNode node = objectMapper.createObjectNode();
+        for (int i = 0; i < fieldNames.size(); i++) {
+            byte[] bytes = values.get(i);
+            if (bytes != null) {
+                node.set(fieldNames.get(i), readTree(bytes));
+            }
+        }
+        return convert(node, type);
+    }
+
+    private JsonNode readTree(byte[] bytes) {
+        try {
+            return treeReader.readValue(bytes);
+        } catch (IOException e) {
+            throw new IllegalStateException("Failed to decode hash field", e);
+        }
+    }
+
+    private <T> T convert(ObjectNode node, JavaType type) {
+        try {
+            return objectMapper.treeToValue(node, type);
+        } catch (IOException e) {
+            throw new IllegalStateException("Failed to decode hash value as " + type, e);
+        }
+    }
+}
@@ -0,0 +1,90 @@
+package com.obee.redis.demo.service.codec;
+
+import com.fasterxml.jackson.databind.DeserializationFeature;
+import com.fasterxml.jackson.databind.JavaType;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.ObjectReader;
+import org.springframework.data.redis.serializer.GenericJackson2JsonRedisSerializer;
+import org.springframework.data.redis.serializer.RedisSerializer;
+import org.springframework.stereotype.Component;
+
+import java.io.IOException;
+import java.lang.reflect.Type;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * @description:
+ * @author: Guanwf
+ * @date: 2026/10/19 11:05
+ *
+ *  * Redis 原始字节 <-> Java 对象 编解码
+ *  * RedisTemplate 的值序列化器由这里提供（见 RedisConfig），读写共用同一个 GenericJackson2JsonRedisSerializer 的 ObjectMapper：
+ *  * 写入带默认类型信息（对象带 "@class"，集合为 ["java.util.ArrayList",[...]] 包装数组），读取按同样的规则解析
+ *  * 读取直接按调用方给出的目标类型解码，不需要先反序列化成 LinkedHashMap 再 convertValue 一次
+ *
+ */
+@Component
+public class JsonValueCodec {
+
+    private final RedisJsonSerializer serializer = new RedisJsonSerializer();
+
+    // 带默认类型信息的 ObjectMapper（与 serializer 是同一个实例）
+    private final ObjectMapper objectMapper = serializer.objectMapper();
+
+    // 每个目标类型只构建一次 ObjectReader（Reader 不可变，线程安全）
+    private final Map<JavaType, ObjectReader> readers = new ConcurrentHashMap<>();
+
+    /**
+     * RedisTemplate 的 value / hashValue 序列化器
+     */
+    public RedisSerializer<Object> serializer() {
+        return serializer;
+    }
+
+    public JavaType type(Type type) {
+        return objectMapper.getTypeFactory().constructType(type);
+    }
+
+    public <T> T decode(byte[] bytes, Class<T> clazz) {
+        return decode(bytes, type(clazz));
+    }
+
+    /**
+     * 直接从字节解码为目标类型，bytes 为 null 时返回 null
+     *
+     * @throws IllegalStateException 字节不是该类型的合法编码
+     */
+    public <T> T decode(byte[] bytes, JavaType javaType) {
+        if (bytes == null) {
+            return null;
+        }
+        try {
+            return readers.computeIfAbsent(javaType, t -> objectMapper.readerFor(t)
+                    .without(DeserializationFeature.FAIL_ON_UNKNOWN_PROPERTIES)).readValue(bytes);
+        } catch (IOException e) {
+            throw new IllegalStateException("Failed to decode redis value as " + javaType, e);
+        }
+    }
+
+    /**
+     * 编码为 JSON 字节（与 RedisTemplate 写入的格式相同，带类型信息）
+     */
+    public byte[] encode(Object value) {
+        try {
+            return serializer.serialize(value);
+        } catch (RuntimeException e) {
+            throw new IllegalStateException("Failed to encode redis value: " + value.getClass(), e);
+        }
+    }
+
+    /**
+     * 只为取出 GenericJackson2JsonRedisSerializer 内部配置好默认类型的 ObjectMapper
+     */
+    private static final class RedisJsonSerializer extends GenericJackson2JsonRedisSerializer {
+
+        ObjectMapper objectMapper() {
+            return getObjectMapper();
+        }
+    }
+}
@@ -0,0 +1,194 @@
+package com.obee.redis.demo.service.expiry;
+
+import com.obee.redis.demo.service.admission.FrequencySketch;
+import com.obee.redis.demo.service.local.OffHeapStore;
+import io.micrometer.core.instrument.DistributionSummary;
+import io.micrometer.core.instrument.MeterRegistry;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+
+import java.nio.charset.StandardCharsets;
+import java.time.Duration;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * @description:
+ * @author: Guanwf
+ * @date: 2026/10/28 10:20
+ *
+ *  * 自适应过期：按缓存名统计每个 Key 的更新频率与访问频率，为每次写入选择 [minTtl, maxTtl] 内的 TTL
+ *  * 1. 更新信号：evict / evictAll（写库后的删除、失效事件）与版本化回写覆盖旧版本（cache_set_if_newer 返回 2）
+ *  * 2. 访问信号：@KaimingCache(adaptiveTtl = true) 的每次调用（命中与未命中）
+ *  * 3. 计数用 FrequencySketch（每个 Key 4 位计数器），按时间窗口轮换，保留当前与上一个窗口，内存与 Key 数无关
+ *  * 4. 选择：窗口内有更新时 TTL = 平均更新间隔 / 2；没有更新时热点 Key（访问 >= hot-accesses）取 maxTtl，其余取基础 TTL
+ *  * 选择结果记录到 kaiming.cache.ttl.chosen{cache, reason}（秒）
+ *
+ */
+@Slf4j
+@Component
+public class AdaptiveTtlTracker {
+
+    private final MeterRegistry meterRegistry;
+
+    private final long windowMillis;
+
+    private final int sampleSize;
+
+    private final int hotAccesses;
+
+    // 缓存名 -> 统计，只有开启了 adaptiveTtl 的缓存名才会创建（第一次访问时）
+    private final Map<String, Family> families = new ConcurrentHashMap<>();
+
+    // 缓存名 + 选择原因 -> TTL 分布
+    private final Map<String, DistributionSummary> chosen = new ConcurrentHashMap<>();
+
+    public AdaptiveTtlTracker(MeterRegistry meterRegistry,
+                              @Value("${app.cache.adaptive-ttl.window:10m}") Duration window,
+                              @Value("${app.cache.adaptive-ttl.sample-size:10000}") int sampleSize,
+                              @Value("${app.cache.adaptive-ttl.hot-accesses:4}") int hotAccesses) {
+        this.meterRegistry = meterRegistry;
+        this.windowMillis = Math.max(window.toMillis(), 1000);
+        this.sampleSize = sampleSize;
+        this.hotAccesses = hotAccesses;
+    }
+
+    /**
+     * 记录一次访问（由切面对开启 adaptiveTtl 的方法调用）
+     */
+    public void recordAccess(String cacheName, String key) {
+        families.computeIfAbsent(cacheName, name -> new Family(System.currentTimeMillis()))
+                .access(hash(key), System.currentTimeMillis());
+    }
+
+    /**
+     * 记录一次更新，未开启 adaptiveTtl 的缓存名直接忽略
+     */
+    public void recordUpdate(String cacheName, String key) {
+        Family family = families.get(cacheName);
+        if (family != null) {
+            family.update(hash(key), System.currentTimeMillis());
+        }
+    }
+
+    /**
+     * 为本次写入选择 TTL（不含抖动）
+     *
+     * @param baseMillis 基础 TTL，Key 稳定但不热时使用
+     * @param minMillis  下限
+     * @param maxMillis  上限
+     */
+    public long ttlFor(String cacheName, String key, long baseMillis, long minMillis, long maxMillis) {
+        return ttlFor(cacheName, key, baseMillis, minMillis, maxMillis, true);
+    }
+
+    /**
+     * @param recordChoice 是否计入 kaiming.cache.ttl.chosen（滑动续期不计入）
+     */
+    public long ttlFor(String cacheName, String key, long baseMillis, long minMillis, long maxMillis,
+                       boolean recordChoice) {
+        Family family = families.get(cacheName);
+        long ttl;
+        String reason;
+        if (family == null) {
+            ttl = baseMillis;
+            reason = "default";
+        } else {
+            long now = System.currentTimeMillis();
+            long hash = hash(key);
+            Estimate estimate = family.estimate(hash, now);
+            if (estimate.updates > 0) {
+                // 平均更新间隔的一半：遗漏失效时，读到旧值的时间不超过一次更新间隔
+                ttl = estimate.spanMillis / (2L * estimate.updates);
+                reason = "volatile";
+            } else if (estimate.accesses >= hotAccesses) {
+                ttl = maxMillis;
+                reason = "hot";
+            } else {
+                ttl = baseMillis;
+                reason = "default";
+            }
+        }
+        ttl = Math.max(minMillis, Math.min(maxMillis, ttl));
+        if (recordChoice) {
+            summary(cacheName, reason).record(ttl / 1000.0);
+        }
+        return ttl;
+    }
+
+    private DistributionSummary summary(String cacheName, String reason) {
+        return chosen.computeIfAbsent(cacheName + "|" + reason, k ->
+                DistributionSummary.builder("kaiming.cache.ttl.chosen").tag("cache", cacheName).tag("reason", reason)
+                        .baseUnit("seconds").publishPercentiles(0.5, 0.95).register(meterRegistry));
+    }
+
+    private static long hash(String key) {
+        return OffHeapStore.hash64(key.getBytes(StandardCharsets.UTF_8));
+    }
+
+    private record Estimate(int updates, int accesses, long spanMillis) {
+    }
+
+    private record Window(long startMillis, FrequencySketch updates, FrequencySketch accesses) {
+    }
+
+    /**
+     * 一个缓存名的统计：当前窗口 + 上一个窗口，窗口到期时整体轮换（旧窗口丢弃）
+     * FrequencySketch 在记录次数达到 sampleSize 时也会减半，高写入量下估计值偏低，TTL 偏长，仍受 maxTtl 约束
+     */
+    private final class Family {
+
+        private volatile Window current;
+
+        private volatile Window previous;
+
+        Family(long now) {
+            this.current = newWindow(now);
+        }
+
+        void access(long hash, long now) {
+            window(now).accesses.increment(hash);
+        }
+
+        void update(long hash, long now) {
+            window(now).updates.increment(hash);
+        }
+
+        Estimate estimate(long hash, long now) {
+            Window cur = window(now);
+            Window prev = previous;
+            int updates = cur.updates.frequency(hash);
+            int accesses = cur.accesses.frequency(hash);
+            long start = cur.startMillis;
+            if (prev != null) {
+                updates += prev.updates.frequency(hash);
+                accesses += prev.accesses.frequency(hash);
+                start = prev.startMillis;
+            }
+            // 统计时长不足一个窗口时按一个窗口计，避免刚启动时把少量更新估计成很高的频率
+            return new Estimate(updates, accesses, Math.max(now - start, windowMillis));
+        }
+
+        private Window window(long now) {
+            Window cur = current;
+            if (now - cur.startMillis < windowMillis) {
+                return cur;
+            }
+            synchronized (this) {
+                cur = current;
+                if (now - cur.startMillis >= windowMillis) {
+                    // 超过两个窗口没有任何记录时，上一个窗口也已过时
+                    previous = now - cur.startMillis < 2 * windowMillis ? cur : null;
+                    cur = newWindow(now);
+                    current = cur;
+                }
+                return cur;
+            }
+        }
+
+        private Window newWindow(long now) {
+            return new Window(now, new FrequencySketch(sampleSize), new FrequencySketch(sampleSize));
+        }
+    }
+}
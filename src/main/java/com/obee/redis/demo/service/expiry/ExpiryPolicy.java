@@ -0,0 +1,190 @@
+package com.obee.redis.demo.service.expiry;
+
+import com.obee.redis.demo.annotation.CacheTtlAware;
+import com.obee.redis.demo.annotation.KaimingCache;
+import com.obee.redis.demo.config.KaimingCacheProperties;
+import com.obee.redis.demo.service.CacheEngine;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.context.EmbeddedValueResolverAware;
+import org.springframework.stereotype.Component;
+import org.springframework.util.StringUtils;
+import org.springframework.util.StringValueResolver;
+
+import java.lang.reflect.Method;
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.function.Function;
+import java.util.stream.Collectors;
+
+/**
+ * @description:
+ * @author: Guanwf
+ * @date: 2026/10/19 09:35
+ *
+ *  * 过期策略
+ *  * 1. 每个方法的基础 TTL 只解析一次（timeoutString 的 ${...} 占位符、按缓存名的统一配置）
+ *  * 2. 返回值实现 CacheTtlAware 时，使用返回值自带的 TTL
+ *  * 3. adaptiveTtl = true 时由 AdaptiveTtlTracker 按 Key 的更新 / 访问频率在 [minTtl, maxTtl] 内选择
+ *  * 4. 按注解指定的 JitterStrategy 叠加抖动，打散同一批 key 的过期时间
+ *
+ */
+@Slf4j
+@Component
+public class ExpiryPolicy implements EmbeddedValueResolverAware {
+
+    private final Map<String, JitterStrategy> strategies;
+
+    private final KaimingCacheProperties properties;
+
+    // 方法 -> 解析后的基础 TTL（毫秒）
+    private final Map<Method, Long> baseTtlCache = new ConcurrentHashMap<>();
+
+    private final AdaptiveTtlTracker adaptiveTtl;
+
+    private StringValueResolver valueResolver;
+
+    public ExpiryPolicy(List<JitterStrategy> strategies, KaimingCacheProperties properties,
+                        AdaptiveTtlTracker adaptiveTtl) {
+        this.properties = properties;
+        this.adaptiveTtl = adaptiveTtl;
+        this.strategies = strategies.stream()
+                .collect(Collectors.toMap(JitterStrategy::name, Function.identity()));
+    }
+
+    @Override
+    public void setEmbeddedValueResolver(StringValueResolver resolver) {
+        this.valueResolver = resolver;
+    }
+
+    /**
+     * 方法的基础过期时间（不含抖动），结果按方法缓存
+     */
+    public Duration baseTtl(Method method, KaimingCache kaimingCache) {
+        return Duration.ofMillis(baseTtlCache.computeIfAbsent(method, m -> resolveBaseTtl(m, kaimingCache)));
+    }
+
+    /**
+     * 计算本次写入的过期时间
+     *
+     * @param result 方法返回值，实现了 CacheTtlAware 时优先使用其 TTL
+     */
+    public Duration ttlFor(Method method, KaimingCache kaimingCache, Object result) {
+        return ttlFor(method, kaimingCache, null, result);
+    }
+
+    /**
+     * @param key 缓存 Key，adaptiveTtl = true 时按该 Key 的统计选择 TTL；为 null 时不做自适应
+     */
+    public Duration ttlFor(Method method, KaimingCache kaimingCache, String key, Object result) {
+        return ttlFor(method, kaimingCache, key, result, true);
+    }
+
+    /**
+     * 滑动过期命中时的续期时间：按写入时相同的规则（CacheTtlAware / 自适应 / 抖动）从命中的值重新计算，
+     * 不退回基础 TTL；自适应选择不计入 kaiming.cache.ttl.chosen
+     */
+    public Duration slidingTtl(Method method, KaimingCache kaimingCache, String key, Object value) {
+        return ttlFor(method, kaimingCache, key, value, false);
+    }
+
+    private Duration ttlFor(Method method, KaimingCache kaimingCache, String key, Object result, boolean recordChoice) {
+        long ttl = baseTtl(method, kaimingCache).toMillis();
+
+        boolean custom = false;
+        if (result instanceof CacheTtlAware ttlAware) {
+            Duration ttlOfResult = ttlAware.cacheTtl();
+            if (ttlOfResult != null && !ttlOfResult.isNegative() && !ttlOfResult.isZero()) {
+                ttl = ttlOfResult.toMillis();
+                custom = true;
+            }
+        }
+        if (!custom && key != null && kaimingCache.adaptiveTtl()) {
+            ttl = adaptiveTtl.ttlFor(CacheEngine.cacheName(method, kaimingCache), key, ttl,
+                    minTtl(kaimingCache, ttl), maxTtl(kaimingCache, ttl), recordChoice);
+        }
+
+        // 如果开启随机时间（防止雪崩）
+        if (kaimingCache.random()) {
+            ttl += strategy(kaimingCache.jitter()).jitter(ttl, kaimingCache.jitterRatio());
+        }
+        return Duration.ofMillis(ttl);
+    }
+
+    /**
+     * 启动校验（见 CacheMetadataRegistry）：timeoutString 必须解析为正整数，抖动策略必须存在
+     *
+     * @return 问题描述，没有问题时为空
+     */
+    public List<String> validate(Method method, KaimingCache kaimingCache) {
+        List<String> problems = new ArrayList<>();
+        if (StringUtils.hasText(kaimingCache.timeoutString())) {
+            String resolved = valueResolver.resolveStringValue(kaimingCache.timeoutString());
+            try {
+                if (resolved == null || Long.parseLong(resolved.trim()) <= 0) {
+                    problems.add("timeoutString must be positive: " + kaimingCache.timeoutString() + " -> " + resolved);
+                }
+            } catch (NumberFormatException e) {
+                problems.add("timeoutString is not a number: " + kaimingCache.timeoutString() + " -> " + resolved);
+            }
+        } else if (baseTtl(method, kaimingCache).toMillis() <= 0) {
+            problems.add("timeout must be positive: " + kaimingCache.timeout());
+        }
+        if (kaimingCache.adaptiveTtl()) {
+            long base = baseTtl(method, kaimingCache).toMillis();
+            if (kaimingCache.minTtl() < 0 || kaimingCache.maxTtl() < 0) {
+                problems.add("minTtl / maxTtl must not be negative");
+            } else if (minTtl(kaimingCache, base) > maxTtl(kaimingCache, base)) {
+                problems.add("minTtl must not exceed maxTtl: " + minTtl(kaimingCache, base) + "ms > "
+                        + maxTtl(kaimingCache, base) + "ms");
+            }
+        }
+        if (kaimingCache.random() && !strategies.containsKey(kaimingCache.jitter())) {
+            problems.add("unknown jitter strategy: " + kaimingCache.jitter() + " (known: " + strategies.keySet() + ")");
+        }
+        return problems;
+    }
+
+    private static long minTtl(KaimingCache kaimingCache, long baseMillis) {
+        return kaimingCache.minTtl() > 0 ? kaimingCache.timeUnit().toMillis(kaimingCache.minTtl()) : baseMillis / 10;
+    }
+
+    private static long maxTtl(KaimingCache kaimingCache, long baseMillis) {
+        return kaimingCache.maxTtl() > 0 ? kaimingCache.timeUnit().toMillis(kaimingCache.maxTtl()) : baseMillis * 4;
+    }
+
+    private JitterStrategy strategy(String name) {
+        JitterStrategy strategy = strategies.get(name);
+        if (strategy == null) {
+            log.warn("Unknown jitter strategy: {}, fallback to {}", name, PercentJitterStrategy.NAME);
+            strategy = strategies.get(PercentJitterStrategy.NAME);
+        }
+        return strategy;
+    }
+
+    /**
+     * 优先级：timeoutString > app.cache.specs.{cacheName}.ttl > timeout
+     */
+    private long resolveBaseTtl(Method method, KaimingCache kaimingCache) {
+        long timeout = kaimingCache.timeout();
+        if (!StringUtils.hasText(kaimingCache.timeoutString())) {
+            Duration configured = properties.ttlOf(CacheEngine.cacheName(method, kaimingCache));
+            if (configured != null) {
+                return configured.toMillis();
+            }
+        } else {
+            // 解析 "${cache.timeout:100}"
+            String resolvedString = valueResolver.resolveStringValue(kaimingCache.timeoutString());
+            try {
+                if (resolvedString != null) {
+                    timeout = Long.parseLong(resolvedString.trim());
+                }
+            } catch (NumberFormatException e) {
+                log.warn("Invalid timeout config: {}", resolvedString);
+            }
+        }
+        return kaimingCache.timeUnit().toMillis(timeout);
+    }
+}
@@ -0,0 +1,38 @@
+package com.obee.redis.demo.service.expiry;
+
+import org.springframework.stereotype.Component;
+
+import java.util.concurrent.ThreadLocalRandom;
+
+/**
+ * @description:
+ * @author: Guanwf
+ * @date: 2026/10/19 09:27
+ *
+ *  * 指数分布抖动：大部分 key 只追加少量时间，少部分被拉得更长
+ *  * 同一批写入的 key 过期时间呈长尾分布，比均匀分布更不容易在某个时刻集中失效
+ *
+ */
+@Component
+public class ExponentialJitterStrategy implements JitterStrategy {
+
+    public static final String NAME = "exponential";
+
+    @Override
+    public String name() {
+        return NAME;
+    }
+
+    @Override
+    public long jitter(long ttlMillis, double ratio) {
+        long bound = (long) (ttlMillis * ratio);
+        if (bound <= 0) {
+            return 0;
+        }
+        // 均值取上限的 1/3，约 95% 的样本落在 bound 以内，超出的截断到 bound
+        double mean = bound / 3.0;
+        double u = 1.0 - ThreadLocalRandom.current().nextDouble(); // (0, 1]
+        long jitter = (long) (-Math.log(u) * mean);
+        return Math.min(jitter, bound);
+    }
+}
@@ -0,0 +1,27 @@
+package com.obee.redis.demo.service.expiry;
+
+/**
+ * @description:
+ * @author: Guanwf
+ * @date: 2026/10/19 09:20
+ *
+ *  * 过期时间抖动策略
+ *  * 实现类注册为 Spring Bean 即可被 @KaimingCache(jitter = "xxx") 引用
+ *
+ */
+public interface JitterStrategy {
+
+    /**
+     * 策略名称，对应 @KaimingCache#jitter()
+     */
+    String name();
+
+    /**
+     * 计算抖动量
+     *
+     * @param ttlMillis 基础过期时间（毫秒）
+     * @param ratio     抖动幅度（相对 ttl 的比例）
+     * @return 需要追加的毫秒数，取值范围 [0, ttlMillis * ratio]
+     */
+    long jitter(long ttlMillis, double ratio);
+}
@@ -0,0 +1,34 @@
+package com.obee.redis.demo.service.expiry;
+
+import org.springframework.stereotype.Component;
+
+import java.util.concurrent.ThreadLocalRandom;
+
+/**
+ * @description:
+ * @author: Guanwf
+ * @date: 2026/10/19 09:24
+ *
+ *  * 均匀分布抖动：在 [0, ttl * ratio] 内随机
+ *
+ */
+@Component
+public class PercentJitterStrategy implements JitterStrategy {
+
+    public static final String NAME = "percent";
+
+    @Override
+    public String name() {
+        return NAME;
+    }
+
+    @Override
+    public long jitter(long ttlMillis, double ratio) {
+        long bound = (long) (ttlMillis * ratio);
+        // 过期时间太短时（例如 ttl=3s, ratio=0.2 以秒计会得到 0），不抖动，避免 nextLong(0) 抛异常
+        if (bound <= 0) {
+            return 0;
+        }
+        return ThreadLocalRandom.current().nextLong(bound + 1);
+    }
+}
@@ -0,0 +1,125 @@
+package com.obee.redis.demo.service.expiry;
+
+import com.obee.redis.demo.service.RedisService;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+
+import java.time.Clock;
+import java.time.Duration;
+import java.util.HashMap;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.function.Supplier;
+
+/**
+ * @description:
+ * @author: Guanwf
+ * @date: 2026/10/19 10:02
+ *
+ *  * 滑动过期续期器
+ *  * 命中时只登记 key，由定时任务合并后用 Pipeline 批量 PEXPIRE
+ *  * 同一个 key 在一个刷新周期内被命中多次，只会续期一次
+ *  * 续期时间优先使用本实例写入时选定的 TTL（CacheTtlAware / 自适应 / 抖动之后的结果，见 remember），
+ *  * 没有记录（其它实例写入、超过 max-tracked、已过期被清理）时由调用方按相同规则重新计算
+ *  * 记录的清理：续期时 PEXPIRE 报告 key 已不存在的立即删除；一直未被命中的，按 TTL 推算已过期后由 flush 定期清理
+ *
+ */
+@Slf4j
+@Component
+public class SlidingExpiryRefresher {
+
+    // 清理过期记录的间隔
+    private static final long SWEEP_INTERVAL_MILLIS = 10_000;
+
+    private final RedisService redisService;
+
+    // 推算过期时间的时间来源，测试中替换为可拨动的时钟
+    private final Clock clock;
+
+    // 待续期的 key -> 过期时间
+    private final Map<String, Duration> pending = new ConcurrentHashMap<>();
+
+    // key -> 写入时选定的 TTL 及按它推算的过期时间
+    private final Map<String, Tracked> writtenTtls = new ConcurrentHashMap<>();
+
+    @Value("${app.cache.sliding.max-tracked:100000}")
+    private int maxTracked = 100_000;
+
+    // 下一次清理时间，只在 flush 中读写
+    private long nextSweepAt;
+
+    @Autowired
+    public SlidingExpiryRefresher(RedisService redisService) {
+        this(redisService, Clock.systemUTC());
+    }
+
+    SlidingExpiryRefresher(RedisService redisService, Clock clock) {
+        this.redisService = redisService;
+        this.clock = clock;
+    }
+
+    /**
+     * 记录写入时选定的 TTL，命中续期时沿用；超过 max-tracked 后不再记录新 key
+     */
+    public void remember(String key, Duration ttl) {
+        if (writtenTtls.size() < maxTracked || writtenTtls.containsKey(key)) {
+            writtenTtls.put(key, new Tracked(ttl, clock.millis() + ttl.toMillis()));
+        }
+    }
+
+    /**
+     * Key 被删除 / 失效时清除记录
+     */
+    public void forget(String key) {
+        writtenTtls.remove(key);
+    }
+
+    /**
+     * 登记一次访问，等待下一次批量续期
+     *
+     * @param fallback 没有写入记录时的续期时间
+     */
+    public void touch(String key, Supplier<Duration> fallback) {
+        Tracked tracked = writtenTtls.get(key);
+        pending.put(key, tracked != null ? tracked.ttl() : fallback.get());
+    }
+
+    @Scheduled(fixedDelayString = "${app.cache.sliding.flush-interval:200}")
+    public void flush() {
+        long now = clock.millis();
+        if (now >= nextSweepAt) {
+            nextSweepAt = now + SWEEP_INTERVAL_MILLIS;
+            // 写入后一直未被续期、按 TTL 已过期的记录
+            writtenTtls.values().removeIf(tracked -> tracked.expiresAt() < now);
+        }
+        if (pending.isEmpty()) {
+            return;
+        }
+        // 逐个摘取（remove(key, value)），摘取之后的 touch 留到下一次刷新，不会丢失；不阻塞业务线程
+        Map<String, Duration> batch = new HashMap<>();
+        pending.forEach((key, ttl) -> {
+            if (pending.remove(key, ttl)) {
+                batch.put(key, ttl);
+            }
+        });
+
+        Set<String> missing = redisService.expire(batch);
+        batch.keySet().forEach(key -> {
+            if (missing.contains(key)) {
+                // 已自然过期或被删除，不再沿用记录
+                writtenTtls.remove(key);
+            } else {
+                writtenTtls.computeIfPresent(key, (k, tracked) ->
+                        new Tracked(tracked.ttl(), now + tracked.ttl().toMillis()));
+            }
+        });
+        log.debug("Sliding expire refreshed {}/{} keys", batch.size() - missing.size(), batch.size());
+    }
+
+    private record Tracked(Duration ttl, long expiresAt) {
+    }
+}
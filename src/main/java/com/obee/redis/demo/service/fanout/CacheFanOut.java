@@ -0,0 +1,264 @@
+package com.obee.redis.demo.service.fanout;
+
+import com.obee.redis.demo.service.CacheEngine;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.DistributionSummary;
+import io.micrometer.core.instrument.MeterRegistry;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.Callable;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.ThreadFactory;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.TimeoutException;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicReference;
+
+/**
+ * @description:
+ * @author: Guanwf
+ * @date: 2026/10/28 15:10
+ *
+ *  * 组合调用的并行扇出：一个请求依赖多个互不相关的 @KaimingCache 方法时，并发执行，缓存读取合并为一次 MGET
+ *  * 用法（语义对齐 StructuredTaskScope.ShutdownOnFailure，StructuredTaskScope 在 Java 21 仍是预览 API，这里用虚拟线程自行实现）：
+ *  *   try (CacheFanOut.Scope scope = cacheFanOut.open(Duration.ofMillis(300))) {
+ *  *       CacheFanOut.Branch<UserDTO> user = scope.fork(() -> demoService.getUserById(id));
+ *  *       CacheFanOut.Branch<List<UserDTO>> list = scope.fork(() -> demoService.searchUsers(request));
+ *  *       scope.join();
+ *  *       return new Overview(user.get(), list.get());
+ *  *   }
+ *  * 1. fork 只登记，join 时每个分支一个虚拟线程同时启动，第一轮缓存读取凑齐后一次 MGET（见 FanOutBatch）
+ *  * 2. 任一分支失败：中断其余分支，join 抛出该异常（RuntimeException 原样抛出）
+ *  * 3. 截止时间：到期中断所有未完成分支，join 抛出 CacheFanOutException（cause 为 TimeoutException）
+ *  * 4. join 返回前等待所有分支线程退出，不遗留后台线程
+ *  * 5. 分支线程继承调用线程的上下文（见 CallerContext）：CacheContext 开关、请求上下文、LocaleContextHolder、MDC；
+ *  *    事务不传递（事务资源绑定在调用线程上，分支中的数据库访问在事务之外执行，看不到调用方未提交的修改），
+ *  *    在事务中 join 时记录一次警告；其它自定义 ThreadLocal 需在分支任务内自行设置
+ *  * 合并只对默认读取路径生效（BLOB 存储、未配置 hedge / readTimeout、非归一化），其它读取照常单独执行
+ *
+ */
+@Slf4j
+@Component
+public class CacheFanOut {
+
+    // 当前线程所属扇出的 GET 合并批次，只在分支线程内有值
+    private static final ThreadLocal<FanOutBatch> CURRENT = new ThreadLocal<>();
+
+    private static final ThreadFactory THREADS = Thread.ofVirtual().name("cache-fanout-", 0).factory();
+
+    // 在事务中 join 只警告一次
+    private static final AtomicBoolean TRANSACTION_WARNED = new AtomicBoolean();
+
+    private final CacheEngine cacheEngine;
+
+    private final Duration defaultDeadline;
+
+    private final long batchWindowNanos;
+
+    private final DistributionSummary batchSize;
+
+    private final Counter deadlineExceeded;
+
+    private final Counter failed;
+
+    public CacheFanOut(CacheEngine cacheEngine, MeterRegistry meterRegistry,
+                       @Value("${app.cache.fanout.deadline:500ms}") Duration defaultDeadline,
+                       @Value("${app.cache.fanout.batch-window:2ms}") Duration batchWindow) {
+        this.cacheEngine = cacheEngine;
+        this.defaultDeadline = defaultDeadline;
+        this.batchWindowNanos = batchWindow.toNanos();
+        this.batchSize = DistributionSummary.builder("kaiming.cache.fanout.batch")
+                .description("Cache reads merged into one MGET").register(meterRegistry);
+        this.deadlineExceeded = Counter.builder("kaiming.cache.fanout.failed").tag("reason", "deadline")
+                .register(meterRegistry);
+        this.failed = Counter.builder("kaiming.cache.fanout.failed").tag("reason", "error").register(meterRegistry);
+    }
+
+    /**
+     * 当前线程所属扇出的合并批次，不在扇出分支内时为 null（见 CacheAspect）
+     */
+    public static FanOutBatch currentBatch() {
+        return CURRENT.get();
+    }
+
+    /**
+     * 使用默认截止时间（app.cache.fanout.deadline）
+     */
+    public Scope open() {
+        return open(defaultDeadline);
+    }
+
+    /**
+     * @param deadline 从 open 开始计算
+     */
+    public Scope open(Duration deadline) {
+        return new Scope(deadline);
+    }
+
+    /**
+     * 一次扇出，只能由创建它的线程使用
+     */
+    public final class Scope implements AutoCloseable {
+
+        private final Duration deadline;
+
+        private final long deadlineNanos;
+
+        private final List<Branch<?>> branches = new ArrayList<>();
+
+        // 第一个失败原因，其余分支因此被中断产生的异常忽略
+        private final AtomicReference<Throwable> failure = new AtomicReference<>();
+
+        private ExecutorService executor;
+
+        private Scope(Duration deadline) {
+            this.deadline = deadline;
+            this.deadlineNanos = System.nanoTime() + deadline.toNanos();
+        }
+
+        /**
+         * 登记一个分支，join 时启动
+         */
+        public <T> Branch<T> fork(Callable<? extends T> task) {
+            if (executor != null) {
+                throw new IllegalStateException("Fan-out already joined");
+            }
+            Branch<T> branch = new Branch<>(task);
+            branches.add(branch);
+            return branch;
+        }
+
+        /**
+         * 启动所有分支并等待全部完成、第一个失败或截止时间
+         */
+        public void join() {
+            if (executor != null) {
+                throw new IllegalStateException("Fan-out already joined");
+            }
+            executor = Executors.newThreadPerTaskExecutor(THREADS);
+            FanOutBatch batch = new FanOutBatch(cacheEngine, batchSize, batchWindowNanos, branches.size());
+            if (TransactionSynchronizationManager.isActualTransactionActive()
+                    && TRANSACTION_WARNED.compareAndSet(false, true)) {
+                log.warn("Fan-out joined inside a transaction, branches run outside of it");
+            }
+            CallerContext context = CallerContext.capture();
+            for (Branch<?> branch : branches) {
+                branch.start(this, batch, context);
+            }
+            executor.shutdown();
+            try {
+                if (!executor.awaitTermination(deadlineNanos - System.nanoTime(), TimeUnit.NANOSECONDS)
+                        && failure.compareAndSet(null, new TimeoutException("Fan-out deadline exceeded: " + deadline))) {
+                    deadlineExceeded.increment();
+                    cancel(null);
+                }
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+                failure.compareAndSet(null, e);
+                cancel(null);
+            }
+            // 等待被中断的分支退出
+            executor.close();
+            throwIfFailed();
+        }
+
+        @Override
+        public void close() {
+            if (executor != null && !executor.isTerminated()) {
+                executor.shutdownNow();
+                executor.close();
+            }
+        }
+
+        private void fail(Branch<?> branch, Throwable cause) {
+            if (failure.compareAndSet(null, cause)) {
+                failed.increment();
+                log.debug("Fan-out branch failed, cancelling siblings", cause);
+                cancel(branch);
+            }
+        }
+
+        private void cancel(Branch<?> except) {
+            for (Branch<?> branch : branches) {
+                if (branch != except && branch.future != null) {
+                    branch.future.cancel(true);
+                }
+            }
+        }
+
+        private void throwIfFailed() {
+            Throwable cause = failure.get();
+            if (cause == null) {
+                return;
+            }
+            if (cause instanceof RuntimeException runtime) {
+                throw runtime;
+            }
+            if (cause instanceof Error error) {
+                throw error;
+            }
+            if (cause instanceof TimeoutException) {
+                throw new CacheFanOutException(cause.getMessage(), cause);
+            }
+            if (cause instanceof InterruptedException) {
+                throw new CacheFanOutException("Fan-out interrupted", cause);
+            }
+            throw new CacheFanOutException("Fan-out branch failed: " + cause.getMessage(), cause);
+        }
+    }
+
+    /**
+     * 一个分支，join 成功返回后通过 get 取结果
+     */
+    public static final class Branch<T> {
+
+        private final Callable<? extends T> task;
+
+        private volatile Future<T> future;
+
+        private Branch(Callable<? extends T> task) {
+            this.task = task;
+        }
+
+        public T get() {
+            Future<T> f = future;
+            if (f == null || !f.isDone()) {
+                throw new IllegalStateException("Fan-out not joined");
+            }
+            if (f.state() != Future.State.SUCCESS) {
+                throw new IllegalStateException("Fan-out branch did not complete: " + f.state());
+            }
+            return f.resultNow();
+        }
+
+        public Future.State state() {
+            Future<T> f = future;
+            return f == null ? Future.State.RUNNING : f.state();
+        }
+
+        private void start(Scope scope, FanOutBatch batch, CallerContext context) {
+            future = scope.executor.submit(() -> {
+                CURRENT.set(batch);
+                context.apply();
+                try {
+                    return task.call();
+                } catch (Exception | Error e) {
+                    scope.fail(this, e);
+                    throw e;
+                } finally {
+                    batch.branchDone();
+                    CURRENT.remove();
+                    CallerContext.reset();
+                }
+            });
+        }
+    }
+}
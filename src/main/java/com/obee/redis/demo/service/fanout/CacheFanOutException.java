@@ -0,0 +1,17 @@
+package com.obee.redis.demo.service.fanout;
+
+/**
+ * @description:
+ * @author: Guanwf
+ * @date: 2026/10/28 15:45
+ *
+ *  * 扇出失败：超过截止时间（cause 为 TimeoutException）、被中断，或分支抛出受检异常
+ *  * 分支抛出的 RuntimeException / Error 原样抛出，不包装
+ *
+ */
+public class CacheFanOutException extends RuntimeException {
+
+    public CacheFanOutException(String message, Throwable cause) {
+        super(message, cause);
+    }
+}
@@ -0,0 +1,49 @@
+package com.obee.redis.demo.service.fanout;
+
+import com.obee.redis.demo.service.CacheContext;
+import org.slf4j.MDC;
+import org.springframework.context.i18n.LocaleContext;
+import org.springframework.context.i18n.LocaleContextHolder;
+import org.springframework.web.context.request.RequestAttributes;
+import org.springframework.web.context.request.RequestContextHolder;
+
+import java.util.Map;
+
+/**
+ * @description:
+ * @author: Guanwf
+ * @date: 2026/10/28 15:40
+ *
+ *  * 调用线程上需要带到工作线程（扇出分支、对冲回源）的 ThreadLocal 快照：
+ *  * CacheContext 开关、请求上下文（RequestContextHolder）、LocaleContextHolder、MDC
+ *  * 事务不在其中：事务资源绑定在调用线程上，无法转移
+ *  * 请求对象只是引用，工作线程在请求结束后不应再访问它
+ *
+ */
+public record CallerContext(boolean cacheEnabled, RequestAttributes request, LocaleContext locale,
+                            Map<String, String> mdc) {
+
+    public static CallerContext capture() {
+        return new CallerContext(CacheContext.isEnabled(), RequestContextHolder.getRequestAttributes(),
+                LocaleContextHolder.getLocaleContext(), MDC.getCopyOfContextMap());
+    }
+
+    /**
+     * 在工作线程上恢复快照，任务结束时必须调用 reset
+     */
+    public void apply() {
+        CacheContext.setEnabled(cacheEnabled);
+        RequestContextHolder.setRequestAttributes(request);
+        LocaleContextHolder.setLocaleContext(locale);
+        if (mdc != null) {
+            MDC.setContextMap(mdc);
+        }
+    }
+
+    public static void reset() {
+        CacheContext.clear();
+        RequestContextHolder.resetRequestAttributes();
+        LocaleContextHolder.resetLocaleContext();
+        MDC.clear();
+    }
+}
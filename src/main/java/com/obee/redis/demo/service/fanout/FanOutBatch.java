@@ -0,0 +1,118 @@
+package com.obee.redis.demo.service.fanout;
+
+import com.obee.redis.demo.service.CacheEngine;
+import io.micrometer.core.instrument.DistributionSummary;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Optional;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.TimeoutException;
+
+/**
+ * @description:
+ * @author: Guanwf
+ * @date: 2026/10/28 15:30
+ *
+ *  * 一次扇出内的 GET 合并：各分支的缓存读取先登记，凑齐后一次 MGET（见 CacheEngine#getAll(List)）
+ *  * 发送时机（先到者负责发送）：
+ *  * 1. 所有仍在运行的分支都在等待读取（登记数 == 运行中的分支数）
+ *  * 2. 最早一次登记已等待超过 window（有分支在查库或做其它事，不再等它）
+ *  * 每个分支同一时刻最多一个读取在等待，登记数即等待中的分支数
+ *
+ */
+public final class FanOutBatch {
+
+    private final CacheEngine cacheEngine;
+
+    private final DistributionSummary batchSize;
+
+    private final long windowNanos;
+
+    // 仍在运行的分支数
+    private int active;
+
+    private List<Pending> pending = new ArrayList<>();
+
+    FanOutBatch(CacheEngine cacheEngine, DistributionSummary batchSize, long windowNanos, int branches) {
+        this.cacheEngine = cacheEngine;
+        this.batchSize = batchSize;
+        this.windowNanos = windowNanos;
+        this.active = branches;
+    }
+
+    /**
+     * 登记一次读取并等待合并发送的结果（BLOB 存储）
+     */
+    public Optional<Object> get(CacheEngine.Read read) throws InterruptedException {
+        Pending self = new Pending(read, new CompletableFuture<>());
+        List<Pending> ready;
+        synchronized (this) {
+            pending.add(self);
+            ready = pending.size() >= active ? take() : null;
+        }
+        if (ready != null) {
+            flush(ready);
+        }
+        try {
+            return self.result.get(windowNanos, TimeUnit.NANOSECONDS);
+        } catch (TimeoutException e) {
+            flushIfPending(self);
+        } catch (ExecutionException e) {
+            return Optional.empty();
+        }
+        try {
+            return self.result.get();
+        } catch (ExecutionException e) {
+            return Optional.empty();
+        }
+    }
+
+    /**
+     * 分支结束：剩余分支可能都已在等待，由结束的分支发送
+     */
+    void branchDone() {
+        List<Pending> ready;
+        synchronized (this) {
+            active--;
+            ready = !pending.isEmpty() && pending.size() >= active ? take() : null;
+        }
+        if (ready != null) {
+            flush(ready);
+        }
+    }
+
+    private void flushIfPending(Pending self) {
+        List<Pending> ready;
+        synchronized (this) {
+            ready = pending.contains(self) ? take() : null;
+        }
+        if (ready != null) {
+            flush(ready);
+        }
+    }
+
+    private List<Pending> take() {
+        List<Pending> taken = pending;
+        pending = new ArrayList<>();
+        return taken;
+    }
+
+    private void flush(List<Pending> ready) {
+        batchSize.record(ready.size());
+        try {
+            List<Optional<Object>> values = cacheEngine.getAll(ready.stream().map(Pending::read).toList());
+            for (int i = 0; i < ready.size(); i++) {
+                ready.get(i).result.complete(values.get(i));
+            }
+        } catch (RuntimeException e) {
+            // 解码失败等：按未命中处理，各分支回源
+            ready.forEach(p -> p.result.completeExceptionally(e));
+        }
+    }
+
+    private record Pending(CacheEngine.Read read, CompletableFuture<Optional<Object>> result) {
+    }
+}
@@ -0,0 +1,74 @@
+package com.obee.redis.demo.service.invalidation;
+
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.data.redis.connection.RedisStreamCommands.XAddOptions;
+import org.springframework.data.redis.connection.stream.ByteRecord;
+import org.springframework.data.redis.connection.stream.RecordId;
+import org.springframework.data.redis.connection.stream.StreamRecords;
+import org.springframework.data.redis.core.RedisCallback;
+import org.springframework.data.redis.core.StringRedisTemplate;
+import org.springframework.stereotype.Component;
+
+import java.nio.charset.StandardCharsets;
+import java.util.Map;
+
+/**
+ * @description:
+ * @author: Guanwf
+ * @date: 2026/10/20 13:20
+ *
+ *  * 实体变更事件发布：写库成功后调用 publish(entity, id)
+ *  * 事件写入 Redis Stream（XADD ... MAXLEN ~ n），由 InvalidationWorker 消费：Redis 中的缓存由一个节点删除，各节点再删除各自的本地层
+ *  * 与直接 delete 不同，事件落在 Redis 里，写方删除前崩溃也不会丢失失效
+ *
+ */
+@Slf4j
+@Component
+public class InvalidationPublisher {
+
+    static final String FIELD_ENTITY = "entity";
+
+    static final String FIELD_ID = "id";
+
+    static final String FIELD_TS = "ts";
+
+    private final StringRedisTemplate stringRedisTemplate;
+
+    private final byte[] stream;
+
+    private final long maxLen;
+
+    public InvalidationPublisher(StringRedisTemplate stringRedisTemplate,
+                                 @Value("${app.cache.invalidation.stream:cache:invalidation}") String stream,
+                                 @Value("${app.cache.invalidation.max-len:100000}") long maxLen) {
+        this.stringRedisTemplate = stringRedisTemplate;
+        this.stream = stream.getBytes(StandardCharsets.UTF_8);
+        this.maxLen = maxLen;
+    }
+
+    /**
+     * 发布实体变更事件
+     *
+     * @return 事件 ID；发布失败返回 null，调用方可选择回退为直接删除
+     */
+    public RecordId publish(String entity, Object id) {
+        ByteRecord record = StreamRecords.rawBytes(Map.of(
+                        bytes(FIELD_ENTITY), bytes(entity),
+                        bytes(FIELD_ID), bytes(String.valueOf(id)),
+                        bytes(FIELD_TS), bytes(String.valueOf(System.currentTimeMillis()))))
+                .withStreamKey(stream);
+        try {
+            // 近似裁剪（~）只在整个宏节点可删时才裁剪，开销远低于精确 MAXLEN
+            return stringRedisTemplate.execute((RedisCallback<RecordId>) connection -> connection.streamCommands()
+                    .xAdd(record, XAddOptions.maxlen(maxLen).approximateTrimming(true)));
+        } catch (Exception e) {
+            log.error("Invalidation publish failed: {} {}", entity, id, e);
+            return null;
+        }
+    }
+
+    private static byte[] bytes(String value) {
+        return value.getBytes(StandardCharsets.UTF_8);
+    }
+}
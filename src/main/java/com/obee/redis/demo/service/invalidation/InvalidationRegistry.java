@@ -0,0 +1,112 @@
+package com.obee.redis.demo.service.invalidation;
+
+import com.obee.redis.demo.annotation.KaimingCache;
+import com.obee.redis.demo.service.CacheEngine;
+import com.obee.redis.demo.service.SpelKeyGenerator;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.aop.support.AopUtils;
+import org.springframework.beans.factory.ObjectProvider;
+import org.springframework.beans.factory.config.BeanPostProcessor;
+import org.springframework.core.annotation.AnnotatedElementUtils;
+import org.springframework.stereotype.Component;
+import org.springframework.util.ReflectionUtils;
+
+import java.lang.reflect.Method;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.CopyOnWriteArrayList;
+
+/**
+ * @description:
+ * @author: Guanwf
+ * @date: 2026/10/20 13:10
+ *
+ *  * 实体类型 -> 缓存 Key 模板 的映射
+ *  * 启动时扫描所有 @KaimingCache(entity = "...") 方法自动登记，也可以手动 register
+ *
+ */
+@Slf4j
+@Component
+public class InvalidationRegistry implements BeanPostProcessor {
+
+    // 延迟获取，避免 BeanPostProcessor 过早初始化 SpelKeyGenerator
+    private final ObjectProvider<SpelKeyGenerator> keyGenerator;
+
+    private final Map<String, List<KeyMapping>> mappings = new ConcurrentHashMap<>();
+
+    public InvalidationRegistry(ObjectProvider<SpelKeyGenerator> keyGenerator) {
+        this.keyGenerator = keyGenerator;
+    }
+
+    @Override
+    public Object postProcessAfterInitialization(Object bean, String beanName) {
+        Class<?> targetClass = AopUtils.getTargetClass(bean);
+        ReflectionUtils.doWithMethods(targetClass, method -> {
+            KaimingCache kaimingCache = AnnotatedElementUtils.findMergedAnnotation(method, KaimingCache.class);
+            if (kaimingCache != null && !kaimingCache.entity().isEmpty()) {
+                register(kaimingCache.entity(), new KeyMapping(CacheEngine.cacheName(method, kaimingCache),
+                        kaimingCache.key(), method, kaimingCache.storage()));
+            }
+        });
+        return bean;
+    }
+
+    /**
+     * 登记一条映射
+     *
+     * @param method key 模板所属方法，实体 ID 绑定为其第一个参数
+     */
+    public void register(String entity, KeyMapping mapping) {
+        mappings.computeIfAbsent(entity, e -> new CopyOnWriteArrayList<>()).add(mapping);
+        log.info("Invalidation mapping registered: {} -> {} ({})", entity, mapping.keyTemplate(), mapping.cacheName());
+    }
+
+    /**
+     * 计算某个实体变更后需要失效的所有缓存 Key
+     */
+    public List<ResolvedKey> keysFor(String entity, Object id) {
+        List<KeyMapping> entityMappings = mappings.get(entity);
+        if (entityMappings == null) {
+            return List.of();
+        }
+        List<ResolvedKey> keys = new ArrayList<>(entityMappings.size());
+        for (KeyMapping mapping : entityMappings) {
+            Object[] args = new Object[mapping.method().getParameterCount()];
+            if (args.length > 0) {
+                args[0] = convertId(id, mapping.method().getParameterTypes()[0]);
+            }
+            try {
+                keys.add(new ResolvedKey(mapping.cacheName(),
+                        keyGenerator.getObject().generate(mapping.keyTemplate(), mapping.method(), args),
+                        mapping.storage()));
+            } catch (Exception e) {
+                log.error("Failed to resolve invalidation key: {} {} -> {}", entity, id, mapping.keyTemplate(), e);
+            }
+        }
+        return keys;
+    }
+
+    /**
+     * 事件中的 ID 是字符串，按方法参数类型还原，保证 SpEL 拼出的 Key 一致
+     */
+    private static Object convertId(Object id, Class<?> type) {
+        if (!(id instanceof String text)) {
+            return id;
+        }
+        if (type == Long.class || type == long.class) {
+            return Long.valueOf(text);
+        }
+        if (type == Integer.class || type == int.class) {
+            return Integer.valueOf(text);
+        }
+        return text;
+    }
+
+    public record KeyMapping(String cacheName, String keyTemplate, Method method, KaimingCache.Storage storage) {
+    }
+
+    public record ResolvedKey(String cacheName, String key, KaimingCache.Storage storage) {
+    }
+}
@@ -0,0 +1,328 @@
+package com.obee.redis.demo.service.invalidation;
+
+import com.obee.redis.demo.annotation.KaimingCache;
+import com.obee.redis.demo.service.CacheEngine;
+import com.obee.redis.demo.service.local.LocalCacheSnapshot;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.context.SmartLifecycle;
+import org.springframework.data.domain.Range;
+import org.springframework.data.redis.connection.RedisStreamCommands.XAddOptions;
+import org.springframework.data.redis.connection.stream.Consumer;
+import org.springframework.data.redis.connection.stream.MapRecord;
+import org.springframework.data.redis.connection.stream.PendingMessage;
+import org.springframework.data.redis.connection.stream.ReadOffset;
+import org.springframework.data.redis.connection.stream.RecordId;
+import org.springframework.data.redis.connection.stream.StreamInfo;
+import org.springframework.data.redis.connection.stream.StreamOffset;
+import org.springframework.data.redis.connection.stream.StreamReadOptions;
+import org.springframework.data.redis.connection.stream.StreamRecords;
+import org.springframework.data.redis.core.RedisCallback;
+import org.springframework.data.redis.core.StreamOperations;
+import org.springframework.data.redis.core.StringRedisTemplate;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+
+import java.nio.charset.StandardCharsets;
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * @description:
+ * @author: Guanwf
+ * @date: 2026/10/20 13:40
+ *
+ *  * 失效事件消费者，分两级：
+ *  * 1. 共享消费组（cache-inv，所有节点共用，消费者名为 nodeId）：每个事件只由一个节点处理，
+ *  *    映射出的 Key 按缓存名合并，Pipeline 写入删除墓碑（HASH 存储 UNLINK），再把事件转发到本地失效流（<stream>:local）后 XACK
+ *  *    其它节点投递后长时间未确认的事件（节点宕机）在空闲时由本节点认领（XCLAIM）重做
+ *  * 2. 节点消费组（cache-inv-<nodeId>，每个节点一个，读取本地失效流）：只删除本节点本地层条目，不访问 Redis
+ *  *    本地删除总在 Redis 删除之后，不会在墓碑写入前从 Redis 回填旧值
+ *  * 两级都是：启动时先重放本消费者未确认的事件（XREADGROUP ... 0），再阻塞读取新事件（>）；
+ *  * 处理完成后 XACK，保证至少一次；处理失败不确认，指数退避后重新从未确认事件开始
+ *  * 指标（tag stage=shared/local）：kaiming.cache.invalidation.lag（毫秒）、kaiming.cache.invalidation.pending、
+ *  * kaiming.cache.invalidation.events
+ *
+ *  * nodeId 应在重启后保持不变（app.node-id，默认主机名），否则每次启动都会新建节点消费组，旧组留在 Redis 中需要手动清理
+ *  * 新建的消费组从 $ 开始；本地快照装载过条目时节点消费组改为从快照创建时间（减去时钟误差）开始，
+ *  * 即使 nodeId 变化，停机期间的失效事件也会作用到快照装回的条目上（前提是这些事件还没有被 MAXLEN 裁剪）
+ *
+ */
+@Slf4j
+@Component
+@ConditionalOnProperty(value = "app.cache.invalidation.enabled", havingValue = "true", matchIfMissing = true)
+public class InvalidationWorker implements SmartLifecycle {
+
+    private static final Duration MAX_BACKOFF = Duration.ofSeconds(30);
+
+    private static final String SHARED_GROUP = "cache-inv";
+
+    private final StringRedisTemplate stringRedisTemplate;
+
+    private final InvalidationRegistry registry;
+
+    private final CacheEngine cacheEngine;
+
+    private final Stage shared;
+
+    private final Stage local;
+
+    private final String consumerName;
+
+    private final LocalCacheSnapshot snapshot;
+
+    private final long clockSkewMillis;
+
+    private final int batchSize;
+
+    private final Duration block;
+
+    private final Duration claimIdle;
+
+    private final long maxLen;
+
+    private volatile boolean running;
+
+    private final List<Thread> workers = new ArrayList<>();
+
+    public InvalidationWorker(StringRedisTemplate stringRedisTemplate, InvalidationRegistry registry,
+                              CacheEngine cacheEngine, LocalCacheSnapshot snapshot, MeterRegistry meterRegistry,
+                              @Value("${app.cache.invalidation.stream:cache:invalidation}") String stream,
+                              @Value("${app.node-id:${HOSTNAME:local}}") String nodeId,
+                              @Value("${app.cache.invalidation.batch-size:100}") int batchSize,
+                              @Value("${app.cache.invalidation.block:2s}") Duration block,
+                              @Value("${app.cache.invalidation.claim-idle:30s}") Duration claimIdle,
+                              @Value("${app.cache.invalidation.max-len:100000}") long maxLen,
+                              @Value("${app.cache.tombstone.clock-skew:50ms}") Duration clockSkew) {
+        this.stringRedisTemplate = stringRedisTemplate;
+        this.registry = registry;
+        this.cacheEngine = cacheEngine;
+        this.shared = new Stage("shared", stream, SHARED_GROUP, this::evictShared, meterRegistry);
+        this.local = new Stage("local", stream + ":local", "cache-inv-" + nodeId, this::evictLocal, meterRegistry);
+        this.consumerName = nodeId;
+        this.snapshot = snapshot;
+        this.clockSkewMillis = clockSkew.toMillis();
+        this.batchSize = batchSize;
+        this.block = block;
+        this.claimIdle = claimIdle;
+        this.maxLen = maxLen;
+    }
+
+    @Override
+    public void start() {
+        running = true;
+        workers.add(Thread.ofVirtual().name("cache-invalidation-shared").start(() -> consume(shared)));
+        workers.add(Thread.ofVirtual().name("cache-invalidation-local").start(() -> consume(local)));
+    }
+
+    @Override
+    public void stop() {
+        running = false;
+        workers.forEach(Thread::interrupt);
+        workers.clear();
+    }
+
+    @Override
+    public boolean isRunning() {
+        return running;
+    }
+
+    private void consume(Stage stage) {
+        StreamOperations<String, Object, Object> ops = stringRedisTemplate.opsForStream();
+        Consumer consumer = Consumer.from(stage.group(), consumerName);
+        boolean replayPending = true;
+        long backoff = 100;
+        long lastClaimAt = 0;
+
+        while (running) {
+            try {
+                if (replayPending) {
+                    ensureGroup(stage);
+                }
+                // 重放阶段从 0 读取本消费者已投递未确认的事件；之后用 > 读取新事件
+                List<MapRecord<String, Object, Object>> records = replayPending
+                        ? ops.read(consumer, StreamReadOptions.empty().count(batchSize),
+                        StreamOffset.create(stage.stream(), ReadOffset.from("0")))
+                        : ops.read(consumer, StreamReadOptions.empty().count(batchSize).block(block),
+                        StreamOffset.create(stage.stream(), ReadOffset.lastConsumed()));
+
+                if (records == null || records.isEmpty()) {
+                    replayPending = false;
+                    // 空闲时认领宕机节点留在共享组中的事件
+                    if (stage == shared && System.currentTimeMillis() - lastClaimAt >= claimIdle.toMillis()) {
+                        lastClaimAt = System.currentTimeMillis();
+                        records = claimStale(ops, stage);
+                    }
+                }
+                if (records != null && !records.isEmpty()) {
+                    stage.handler().handle(records);
+                    ops.acknowledge(stage.stream(), stage.group(),
+                            records.stream().map(MapRecord::getId).toArray(RecordId[]::new));
+                    stage.processed().increment(records.size());
+                }
+                backoff = 100;
+            } catch (Exception e) {
+                if (!running) {
+                    break;
+                }
+                log.warn("Invalidation consume failed ({}), retry in {}ms: {}", stage.name(), backoff, e.getMessage());
+                replayPending = true;
+                try {
+                    Thread.sleep(backoff);
+                } catch (InterruptedException ie) {
+                    break;
+                }
+                backoff = Math.min(backoff * 2, MAX_BACKOFF.toMillis());
+            }
+        }
+    }
+
+    /**
+     * 共享组：删除 Redis 中的值，再转发给各节点的本地组
+     */
+    private void evictShared(List<MapRecord<String, Object, Object>> records) {
+        resolve(records).forEach((group, keys) -> cacheEngine.evictRemote(group.cacheName(), keys, group.storage()));
+        forward(records);
+    }
+
+    /**
+     * 节点组：只删除本节点本地层
+     */
+    private void evictLocal(List<MapRecord<String, Object, Object>> records) {
+        resolve(records).forEach((group, keys) -> cacheEngine.evictLocal(group.cacheName(), keys));
+    }
+
+    /**
+     * (缓存名, 存储方式) -> 待删除 Key，同一批中重复的事件只删一次
+     */
+    private Map<EvictionGroup, Set<String>> resolve(List<MapRecord<String, Object, Object>> records) {
+        Map<EvictionGroup, Set<String>> keysByCache = new HashMap<>();
+        for (MapRecord<String, Object, Object> record : records) {
+            Object entity = record.getValue().get(InvalidationPublisher.FIELD_ENTITY);
+            Object id = record.getValue().get(InvalidationPublisher.FIELD_ID);
+            if (entity == null || id == null) {
+                log.warn("Malformed invalidation event skipped: {}", record.getId());
+                continue;
+            }
+            for (InvalidationRegistry.ResolvedKey key : registry.keysFor(entity.toString(), id)) {
+                keysByCache.computeIfAbsent(new EvictionGroup(key.cacheName(), key.storage()),
+                        g -> new LinkedHashSet<>()).add(key.key());
+            }
+        }
+        return keysByCache;
+    }
+
+    /**
+     * 把已处理的事件原样写入本地失效流（一次 Pipeline，XADD ... MAXLEN ~ n）
+     */
+    private void forward(List<MapRecord<String, Object, Object>> records) {
+        byte[] key = local.stream().getBytes(StandardCharsets.UTF_8);
+        XAddOptions options = XAddOptions.maxlen(maxLen).approximateTrimming(true);
+        stringRedisTemplate.executePipelined((RedisCallback<Object>) connection -> {
+            for (MapRecord<String, Object, Object> record : records) {
+                Map<byte[], byte[]> fields = new HashMap<>();
+                record.getValue().forEach((field, value) -> fields.put(
+                        String.valueOf(field).getBytes(StandardCharsets.UTF_8),
+                        String.valueOf(value).getBytes(StandardCharsets.UTF_8)));
+                connection.streamCommands().xAdd(StreamRecords.rawBytes(fields).withStreamKey(key), options);
+            }
+            return null;
+        });
+    }
+
+    /**
+     * 认领共享组中其它消费者投递后超过 claimIdle 仍未确认的事件
+     */
+    private List<MapRecord<String, Object, Object>> claimStale(StreamOperations<String, Object, Object> ops, Stage stage) {
+        RecordId[] ids = ops.pending(stage.stream(), stage.group(), Range.unbounded(), batchSize).stream()
+                .filter(m -> !consumerName.equals(m.getConsumerName()))
+                .filter(m -> m.getElapsedTimeSinceLastDelivery().compareTo(claimIdle) >= 0)
+                .map(PendingMessage::getId)
+                .toArray(RecordId[]::new);
+        if (ids.length == 0) {
+            return List.of();
+        }
+        log.info("Claiming {} stale invalidation events from {}", ids.length, stage.group());
+        return ops.claim(stage.stream(), stage.group(), consumerName, claimIdle, ids);
+    }
+
+    /**
+     * 创建消费组（MKSTREAM），已存在时忽略 BUSYGROUP
+     * 新组默认从 $ 开始：节点首次上线时没有需要失效的旧数据；节点组装载过本地快照时从快照创建时间开始
+     */
+    private void ensureGroup(Stage stage) {
+        long snapshotAt = stage == local ? snapshot.loadedCreatedAt() : 0;
+        // Stream ID 的时间戳来自 Redis 服务器时钟，减去时钟误差避免漏掉快照写入前后的事件
+        ReadOffset offset = snapshotAt > 0 ? ReadOffset.from(Math.max(0, snapshotAt - clockSkewMillis) + "-0")
+                : ReadOffset.latest();
+        try {
+            stringRedisTemplate.execute((RedisCallback<String>) connection -> connection.streamCommands()
+                    .xGroupCreate(stage.stream().getBytes(StandardCharsets.UTF_8), stage.group(), offset, true));
+        } catch (Exception e) {
+            if (!String.valueOf(e.getMessage()).contains("BUSYGROUP")) {
+                throw e;
+            }
+        }
+    }
+
+    /**
+     * 刷新延迟指标：流最新 ID 与组已投递 ID 的时间差（Stream ID 的前半部分是毫秒时间戳）
+     */
+    @Scheduled(fixedDelayString = "${app.cache.invalidation.lag-interval:5000}")
+    public void refreshLag() {
+        if (!running) {
+            return;
+        }
+        for (Stage stage : List.of(shared, local)) {
+            try {
+                StreamOperations<String, Object, Object> ops = stringRedisTemplate.opsForStream();
+                StreamInfo.XInfoStream info = ops.info(stage.stream());
+                ops.groups(stage.stream()).stream()
+                        .filter(g -> stage.group().equals(g.groupName()))
+                        .findFirst()
+                        .ifPresent(g -> {
+                            long lag = RecordId.of(info.lastGeneratedId()).getTimestamp()
+                                    - RecordId.of(g.lastDeliveredId()).getTimestamp();
+                            stage.lagMillis().set(Math.max(0, lag));
+                            stage.pending().set(g.pendingCount());
+                        });
+            } catch (Exception e) {
+                log.debug("Invalidation lag refresh failed ({}): {}", stage.name(), e.getMessage());
+            }
+        }
+    }
+
+    private record EvictionGroup(String cacheName, KaimingCache.Storage storage) {
+    }
+
+    private interface BatchHandler {
+        void handle(List<MapRecord<String, Object, Object>> records);
+    }
+
+    /**
+     * 一级消费：读取的流、消费组、处理方式与指标
+     */
+    private record Stage(String name, String stream, String group, BatchHandler handler, Counter processed,
+                         AtomicLong lagMillis, AtomicLong pending) {
+
+        Stage(String name, String stream, String group, BatchHandler handler, MeterRegistry meterRegistry) {
+            this(name, stream, group, handler,
+                    meterRegistry.counter("kaiming.cache.invalidation.events", "stage", name),
+                    new AtomicLong(), new AtomicLong());
+            Gauge.builder("kaiming.cache.invalidation.lag", lagMillis, AtomicLong::get)
+                    .tag("stage", name).baseUnit("milliseconds").register(meterRegistry);
+            Gauge.builder("kaiming.cache.invalidation.pending", pending, AtomicLong::get)
+                    .tag("stage", name).register(meterRegistry);
+        }
+    }
+}
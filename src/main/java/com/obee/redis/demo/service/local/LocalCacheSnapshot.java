@@ -0,0 +1,211 @@
+package com.obee.redis.demo.service.local;
+
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.DisposableBean;
+import org.springframework.beans.factory.InitializingBean;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+
+import java.io.BufferedOutputStream;
+import java.io.DataOutputStream;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.nio.ByteBuffer;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.nio.file.StandardOpenOption;
+import java.time.Duration;
+import java.util.zip.CRC32;
+import java.util.zip.CheckedOutputStream;
+
+/**
+ * @description:
+ * @author: Guanwf
+ * @date: 2026/10/20 17:30
+ *
+ *  * 本地缓存快照：关闭时（以及可选的定时任务）把堆外本地层写入文件，启动时通过 mmap 装回
+ *  * 滚动重启后节点无需从空缓存开始，避免所有流量同时打到 Redis 和数据库
+ *
+ *  * 文件格式（大端）：
+ *  *   header: magic "KMSN"(4) | version(4) | createdAt(8) | entryCount(4) | crc32(8)
+ *  *   entry:  expireAt(8) | keyLen(4) | valueLen(4) | key | value
+ *  * crc32 覆盖全部 entry；版本不符、校验失败或快照过旧时整份丢弃
+ *
+ *  * 装载是一次性全量复制，而不是按需从映射文件读取：
+ *  * 1. 启动时在单例初始化阶段同步把未过期条目全部复制进堆外本地层（早于 InvalidationWorker 启动），之后解除映射
+ *  * 2. 代价：启动阻塞时间与快照大小成正比（上限为 local.max-size，默认 64MB，耗时见 "snapshot loaded" 日志），
+ *  *    装载期间占用 快照大小 的页缓存；从未被访问的条目也会占用本地层空间，直到过期或被淘汰
+ *  * 3. 不做按需读取的原因：映射文件中的条目在被复制之前也要能被失效事件删除，需要另外维护一份“已失效 Key”表，
+ *  *    且映射必须保持到全部条目过期；全量复制后本地层是唯一来源，补放的失效事件直接作用于它
+ *  * 停机期间的失效事件随后由消费组补放（见 InvalidationWorker），不会出现先删后被快照写回的情况：
+ *  * 消费组已存在时从上次确认的位置续读；不存在时（首次启动或 app.node-id 变化）从快照创建时间开始读，而不是 $
+ *
+ */
+@Slf4j
+@Component
+public class LocalCacheSnapshot implements InitializingBean, DisposableBean {
+
+    private static final int MAGIC = 0x4B4D534E;
+
+    static final int FORMAT_VERSION = 1;
+
+    private static final int HEADER_SIZE = 28;
+
+    private final LocalCacheTier localTier;
+
+    private final boolean enabled;
+
+    private final Path path;
+
+    private final long maxAgeMillis;
+
+    // 成功装载的快照创建时间，没有装载时为 0
+    private volatile long loadedCreatedAt;
+
+    public LocalCacheSnapshot(LocalCacheTier localTier,
+                              @Value("${app.cache.local.snapshot.enabled:true}") boolean enabled,
+                              @Value("${app.cache.local.snapshot.path:${java.io.tmpdir}/kaiming-local.snap}") Path path,
+                              @Value("${app.cache.local.snapshot.max-age:10m}") Duration maxAge) {
+        this.localTier = localTier;
+        this.enabled = enabled && localTier.isEnabled();
+        this.path = path;
+        this.maxAgeMillis = maxAge.toMillis();
+    }
+
+    @Override
+    public void afterPropertiesSet() {
+        if (enabled && Files.exists(path)) {
+            load();
+        }
+    }
+
+    /**
+     * 本次启动装载的快照创建时间（毫秒），没有装载任何条目时返回 0
+     * 失效事件从这个时间开始补放即可覆盖快照中的所有条目
+     */
+    public long loadedCreatedAt() {
+        return loadedCreatedAt;
+    }
+
+    /**
+     * 关闭时写快照；本 Bean 依赖 LocalCacheTier，会先于它销毁，此时本地层仍完整
+     */
+    @Override
+    public void destroy() {
+        if (enabled) {
+            save();
+        }
+    }
+
+    /**
+     * 定时快照（cron，默认 "-" 关闭），减少进程被强杀时的损失
+     */
+    @Scheduled(cron = "${app.cache.local.snapshot.cron:-}")
+    public void scheduledSave() {
+        if (enabled) {
+            save();
+        }
+    }
+
+    /**
+     * 先写临时文件再原子替换，写一半崩溃不会留下损坏的快照
+     */
+    public synchronized void save() {
+        long start = System.currentTimeMillis();
+        Path tmp = path.resolveSibling(path.getFileName() + ".tmp");
+        int[] count = {0};
+        CRC32 crc = new CRC32();
+        try {
+            Files.createDirectories(path.toAbsolutePath().getParent());
+            try (OutputStream file = Files.newOutputStream(tmp);
+                 DataOutputStream out = new DataOutputStream(
+                         new CheckedOutputStream(new BufferedOutputStream(file, 64 * 1024), crc))) {
+                // header 占位，entry 写完后回填
+                out.write(new byte[HEADER_SIZE]);
+                crc.reset();
+                localTier.store().forEach((key, value, expireAt) -> {
+                    try {
+                        out.writeLong(expireAt);
+                        out.writeInt(key.length);
+                        out.writeInt(value.length);
+                        out.write(key);
+                        out.write(value);
+                        count[0]++;
+                    } catch (IOException e) {
+                        throw new IllegalStateException(e);
+                    }
+                });
+            }
+            try (FileChannel channel = FileChannel.open(tmp, StandardOpenOption.WRITE)) {
+                ByteBuffer header = ByteBuffer.allocate(HEADER_SIZE)
+                        .putInt(MAGIC).putInt(FORMAT_VERSION).putLong(start).putInt(count[0]).putLong(crc.getValue())
+                        .flip();
+                channel.write(header, 0);
+                channel.force(true);
+            }
+            Files.move(tmp, path, StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+            log.info("Local cache snapshot saved: {} entries in {}ms -> {}", count[0], System.currentTimeMillis() - start, path);
+        } catch (Exception e) {
+            log.error("Local cache snapshot save failed: {}", path, e);
+        }
+    }
+
+    /**
+     * mmap 只读映射后整体校验 crc，再把未过期条目逐条复制进本地层（全量复制，见类注释）
+     */
+    public synchronized void load() {
+        long start = System.currentTimeMillis();
+        try (FileChannel channel = FileChannel.open(path, StandardOpenOption.READ)) {
+            MappedByteBuffer buffer = channel.map(FileChannel.MapMode.READ_ONLY, 0, channel.size());
+            if (buffer.remaining() < HEADER_SIZE || buffer.getInt() != MAGIC) {
+                log.warn("Local cache snapshot ignored, not a snapshot file: {}", path);
+                return;
+            }
+            int version = buffer.getInt();
+            long createdAt = buffer.getLong();
+            int entryCount = buffer.getInt();
+            long expectedCrc = buffer.getLong();
+            if (version != FORMAT_VERSION) {
+                log.warn("Local cache snapshot ignored, format version {} != {}", version, FORMAT_VERSION);
+                return;
+            }
+            if (start - createdAt > maxAgeMillis) {
+                log.info("Local cache snapshot ignored, too old: {}ms", start - createdAt);
+                return;
+            }
+            CRC32 crc = new CRC32();
+            crc.update(buffer.slice());
+            if (crc.getValue() != expectedCrc) {
+                log.warn("Local cache snapshot ignored, checksum mismatch: {}", path);
+                return;
+            }
+
+            int loaded = 0;
+            for (int i = 0; i < entryCount; i++) {
+                long expireAt = buffer.getLong();
+                byte[] key = new byte[buffer.getInt()];
+                int valueLength = buffer.getInt();
+                if (expireAt <= start) {
+                    buffer.position(buffer.position() + key.length + valueLength);
+                    continue;
+                }
+                byte[] value = new byte[valueLength];
+                buffer.get(key).get(value);
+                if (localTier.store().putUntil(key, value, expireAt)) {
+                    loaded++;
+                }
+            }
+            if (loaded > 0) {
+                loadedCreatedAt = createdAt;
+            }
+            log.info("Local cache snapshot loaded: {}/{} entries in {}ms", loaded, entryCount,
+                    System.currentTimeMillis() - start);
+        } catch (Exception e) {
+            log.error("Local cache snapshot load failed: {}", path, e);
+        }
+    }
+}
@@ -0,0 +1,104 @@
+package com.obee.redis.demo.service.local;
+
+import io.micrometer.core.instrument.FunctionCounter;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.DisposableBean;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+import org.springframework.util.unit.DataSize;
+
+import java.time.Duration;
+import java.util.Collection;
+
+/**
+ * @description:
+ * @author: Guanwf
+ * @date: 2026/10/20 15:40
+ *
+ *  * 进程内缓存层（Redis 之前），由 CacheEngine 使用
+ *  * 1. 保存 Redis 中的原始字节（含版本头），命中后由 CacheEngine 解码，与 Redis 命中走同一段解码逻辑
+ *  * 2. 本地 TTL 取 min(写入 TTL, app.cache.local.ttl)，跨节点一致性依赖短 TTL + 失效事件（InvalidationWorker）
+ *  * 3. 关闭时（默认）所有方法为空操作
+ *
+ */
+@Slf4j
+@Component
+public class LocalCacheTier implements DisposableBean {
+
+    private final boolean enabled;
+
+    private final long ttlMillis;
+
+    private final OffHeapStore store;
+
+    public LocalCacheTier(MeterRegistry meterRegistry,
+                          @Value("${app.cache.local.enabled:false}") boolean enabled,
+                          @Value("${app.cache.local.ttl:30s}") Duration ttl,
+                          @Value("${app.cache.local.max-size:64MB}") DataSize maxSize,
+                          @Value("${app.cache.local.segments:8}") int segments,
+                          @Value("${app.cache.local.slab-size:256KB}") DataSize slabSize) {
+        this.enabled = enabled;
+        this.ttlMillis = ttl.toMillis();
+        this.store = enabled ? new OffHeapStore(maxSize.toBytes(), segments, (int) slabSize.toBytes()) : null;
+        if (enabled) {
+            Gauge.builder("kaiming.cache.local.entries", store, OffHeapStore::size).register(meterRegistry);
+            Gauge.builder("kaiming.cache.local.allocated", store, OffHeapStore::allocatedBytes)
+                    .baseUnit("bytes").register(meterRegistry);
+            FunctionCounter.builder("kaiming.cache.local.evictions", store, OffHeapStore::evictions)
+                    .register(meterRegistry);
+            FunctionCounter.builder("kaiming.cache.local.slab.reassigns", store, OffHeapStore::reassigns)
+                    .register(meterRegistry);
+            log.info("Local off-heap cache enabled: max={} ttl={}", maxSize, ttl);
+        }
+    }
+
+    public boolean isEnabled() {
+        return enabled;
+    }
+
+    public byte[] get(String key) {
+        return enabled ? store.get(key) : null;
+    }
+
+    public void put(String key, byte[] bytes) {
+        put(key, bytes, ttlMillis);
+    }
+
+    public void put(String key, byte[] bytes, Duration ttl) {
+        put(key, bytes, Math.min(ttl.toMillis(), ttlMillis));
+    }
+
+    private void put(String key, byte[] bytes, long ttl) {
+        if (enabled && bytes != null && ttl > 0) {
+            store.put(key, bytes, ttl);
+        }
+    }
+
+    public void remove(String key) {
+        if (enabled) {
+            store.remove(key);
+        }
+    }
+
+    public void removeAll(Collection<String> keys) {
+        if (enabled) {
+            keys.forEach(store::remove);
+        }
+    }
+
+    /**
+     * 底层存储，未启用时为 null
+     */
+    public OffHeapStore store() {
+        return store;
+    }
+
+    @Override
+    public void destroy() {
+        if (enabled) {
+            store.clear();
+        }
+    }
+}
@@ -0,0 +1,576 @@
+package com.obee.redis.demo.service.local;
+
+import java.nio.ByteBuffer;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+
+/**
+ * @description:
+ * @author: Guanwf
+ * @date: 2026/10/20 15:10
+ *
+ *  * 堆外本地存储：只保存序列化后的字节，命中时再由调用方解码，百万级 Key 也不进入老年代
+ *  * 1. 内存：按大小分级（64B ~ 64KB）的 Slab，Slab 为 DirectByteBuffer，按需分配直到 maxBytes
+ *  * 2. 索引：开放寻址（线性探测）数组，以 64 位 Key 哈希定位，槽位里只有 long/byte，没有对象引用
+ *  * 3. 淘汰：内存用满后分配不到 chunk 时，先找最久未访问的 Slab（每次命中 / 写入记录 Slab 的访问时刻）：
+ *  *    属于其它分级时整块回收并改划为当前分级（Slab 重分配，块内条目全部淘汰）；
+ *  *    属于当前分级时由 CLOCK 时钟指针回收一个同级的未被引用条目（命中置引用位）
+ *  *    值大小分布变化后（例如小值换成大值），冷分级的 Slab 会逐步让给热分级，不会永久绑定在最初的分级上
+ *  * 4. 并发：按哈希高位分段，每段独立加锁、独立 Slab
+ *
+ *  * chunk 布局：expireAt(8) | keyLen(4) | valueLen(4) | key | value，命中时比对完整 key，哈希碰撞不会串值
+ *  * 大于最大分级的值不缓存（put 返回 false）
+ *
+ */
+public final class OffHeapStore {
+
+    private static final int[] SIZE_CLASSES = {64, 128, 256, 512, 1024, 2048, 4096, 8192, 16384, 32768, 65536};
+
+    private static final int HEADER = 16;
+
+    private final Segment[] segments;
+
+    private final int segmentShift;
+
+    /**
+     * @param maxBytes     堆外内存上限（所有分段合计）
+     * @param segmentCount 分段数，取 2 的幂
+     * @param slabSize     单个 Slab 大小，不小于最大分级
+     */
+    public OffHeapStore(long maxBytes, int segmentCount, int slabSize) {
+        if (Integer.bitCount(segmentCount) != 1) {
+            throw new IllegalArgumentException("segmentCount must be a power of two: " + segmentCount);
+        }
+        if (slabSize < SIZE_CLASSES[SIZE_CLASSES.length - 1]) {
+            throw new IllegalArgumentException("slabSize must be >= " + SIZE_CLASSES[SIZE_CLASSES.length - 1]);
+        }
+        this.segments = new Segment[segmentCount];
+        this.segmentShift = 64 - Integer.numberOfTrailingZeros(segmentCount);
+        long segmentBytes = Math.max(slabSize, maxBytes / segmentCount);
+        for (int i = 0; i < segmentCount; i++) {
+            segments[i] = new Segment(segmentBytes, slabSize);
+        }
+    }
+
+    public byte[] get(String key) {
+        return get(key.getBytes(StandardCharsets.UTF_8));
+    }
+
+    /**
+     * @return 值的副本；不存在或已过期返回 null
+     */
+    public byte[] get(byte[] key) {
+        long hash = hash64(key);
+        return segmentFor(hash).get(hash, key, System.currentTimeMillis());
+    }
+
+    public boolean put(String key, byte[] value, long ttlMillis) {
+        return put(key.getBytes(StandardCharsets.UTF_8), value, ttlMillis);
+    }
+
+    /**
+     * @return 是否写入；值过大（超过最大分级）时返回 false
+     */
+    public boolean put(byte[] key, byte[] value, long ttlMillis) {
+        return putUntil(key, value, System.currentTimeMillis() + ttlMillis);
+    }
+
+    /**
+     * 按绝对过期时间写入
+     */
+    public boolean putUntil(byte[] key, byte[] value, long expireAtMillis) {
+        long hash = hash64(key);
+        return segmentFor(hash).put(hash, key, value, expireAtMillis);
+    }
+
+    public boolean remove(String key) {
+        return remove(key.getBytes(StandardCharsets.UTF_8));
+    }
+
+    public boolean remove(byte[] key) {
+        long hash = hash64(key);
+        return segmentFor(hash).remove(hash, key);
+    }
+
+    public void clear() {
+        for (Segment segment : segments) {
+            segment.clear();
+        }
+    }
+
+    /**
+     * 遍历所有未过期条目（逐段加锁，段内为一致视图）
+     */
+    public void forEach(EntryVisitor visitor) {
+        long now = System.currentTimeMillis();
+        for (Segment segment : segments) {
+            segment.forEach(visitor, now);
+        }
+    }
+
+    public long size() {
+        long size = 0;
+        for (Segment segment : segments) {
+            size += segment.count();
+        }
+        return size;
+    }
+
+    /**
+     * 已分配的 Slab 字节数
+     */
+    public long allocatedBytes() {
+        long bytes = 0;
+        for (Segment segment : segments) {
+            bytes += segment.allocatedBytes();
+        }
+        return bytes;
+    }
+
+    public long evictions() {
+        long evictions = 0;
+        for (Segment segment : segments) {
+            evictions += segment.evictions();
+        }
+        return evictions;
+    }
+
+    /**
+     * Slab 从一个分级改划到另一个分级的次数
+     */
+    public long reassigns() {
+        long reassigns = 0;
+        for (Segment segment : segments) {
+            reassigns += segment.reassigns();
+        }
+        return reassigns;
+    }
+
+    private Segment segmentFor(long hash) {
+        return segments.length == 1 ? segments[0] : segments[(int) (hash >>> segmentShift)];
+    }
+
+    /**
+     * FNV-1a 64 + murmur3 fmix64，分布足够均匀，低位用于槽位，高位用于分段
+     * 0 被索引用作空槽标记，映射为 1
+     */
+    public static long hash64(byte[] key) {
+        long h = 0xcbf29ce484222325L;
+        for (byte b : key) {
+            h ^= b;
+            h *= 0x100000001b3L;
+        }
+        h ^= h >>> 33;
+        h *= 0xff51afd7ed558ccdL;
+        h ^= h >>> 33;
+        h *= 0xc4ceb9fe1a85ec53L;
+        h ^= h >>> 33;
+        return h == 0 ? 1 : h;
+    }
+
+    private static int sizeClass(int bytes) {
+        for (int i = 0; i < SIZE_CLASSES.length; i++) {
+            if (bytes <= SIZE_CLASSES[i]) {
+                return i;
+            }
+        }
+        return -1;
+    }
+
+    @FunctionalInterface
+    public interface EntryVisitor {
+        void visit(byte[] key, byte[] value, long expireAtMillis);
+    }
+
+    private static final class Segment {
+
+        private final long maxBytes;
+
+        private final int slabSize;
+
+        private final List<ByteBuffer> slabs = new ArrayList<>();
+
+        // 每个分级的空闲 chunk 地址（slab 下标 << 32 | 偏移）
+        private final LongStack[] freeLists = new LongStack[SIZE_CLASSES.length];
+
+        // 每个 Slab 当前所属分级
+        private final byte[] slabClasses;
+
+        // 每个 Slab 最近一次命中 / 写入时的 tick，用于选出最久未访问的 Slab
+        private final long[] slabTouched;
+
+        private long tick;
+
+        private long[] hashes;
+
+        private long[] addresses;
+
+        private byte[] classes;
+
+        private byte[] referenced;
+
+        private int mask;
+
+        private int count;
+
+        private int clockHand;
+
+        private long evictions;
+
+        private long reassigns;
+
+        Segment(long maxBytes, int slabSize) {
+            this.maxBytes = maxBytes;
+            this.slabSize = slabSize;
+            this.slabClasses = new byte[(int) (maxBytes / slabSize)];
+            this.slabTouched = new long[slabClasses.length];
+            for (int i = 0; i < freeLists.length; i++) {
+                freeLists[i] = new LongStack();
+            }
+            allocateIndex(1024, false);
+        }
+
+        synchronized byte[] get(long hash, byte[] key, long now) {
+            int slot = find(hash, key);
+            if (slot < 0) {
+                return null;
+            }
+            ByteBuffer slab = slab(addresses[slot]);
+            int offset = offset(addresses[slot]);
+            if (slab.getLong(offset) <= now) {
+                removeAt(slot);
+                return null;
+            }
+            referenced[slot] = 1;
+            touch(addresses[slot]);
+            int keyLen = slab.getInt(offset + 8);
+            byte[] value = new byte[slab.getInt(offset + 12)];
+            slab.get(offset + HEADER + keyLen, value);
+            return value;
+        }
+
+        synchronized boolean put(long hash, byte[] key, byte[] value, long expireAt) {
+            int cls = sizeClass(HEADER + key.length + value.length);
+            int slot = find(hash, key);
+            if (cls < 0) {
+                // 新值放不下，旧值也不能留着
+                if (slot >= 0) {
+                    removeAt(slot);
+                }
+                return false;
+            }
+            if (slot >= 0 && classes[slot] == cls) {
+                write(addresses[slot], key, value, expireAt);
+                referenced[slot] = 1;
+                touch(addresses[slot]);
+                return true;
+            }
+            if (slot >= 0) {
+                removeAt(slot);
+            }
+            long address = allocate(cls);
+            if (address < 0) {
+                return false;
+            }
+            write(address, key, value, expireAt);
+            touch(address);
+            if (count + 1 > (mask + 1) * 3 / 4) {
+                allocateIndex((mask + 1) * 2, true);
+            }
+            insert(hash, address, (byte) cls);
+            return true;
+        }
+
+        synchronized boolean remove(long hash, byte[] key) {
+            int slot = find(hash, key);
+            if (slot < 0) {
+                return false;
+            }
+            removeAt(slot);
+            return true;
+        }
+
+        synchronized void clear() {
+            slabs.clear();
+            tick = 0;
+            for (LongStack freeList : freeLists) {
+                freeList.size = 0;
+            }
+            allocateIndex(1024, false);
+        }
+
+        synchronized void forEach(EntryVisitor visitor, long now) {
+            for (int i = 0; i <= mask; i++) {
+                if (hashes[i] == 0) {
+                    continue;
+                }
+                ByteBuffer slab = slab(addresses[i]);
+                int offset = offset(addresses[i]);
+                long expireAt = slab.getLong(offset);
+                if (expireAt <= now) {
+                    continue;
+                }
+                byte[] key = new byte[slab.getInt(offset + 8)];
+                byte[] value = new byte[slab.getInt(offset + 12)];
+                slab.get(offset + HEADER, key);
+                slab.get(offset + HEADER + key.length, value);
+                visitor.visit(key, value, expireAt);
+            }
+        }
+
+        synchronized int count() {
+            return count;
+        }
+
+        synchronized long allocatedBytes() {
+            return (long) slabs.size() * slabSize;
+        }
+
+        synchronized long evictions() {
+            return evictions;
+        }
+
+        synchronized long reassigns() {
+            return reassigns;
+        }
+
+        private int find(long hash, byte[] key) {
+            for (int i = (int) hash & mask; hashes[i] != 0; i = (i + 1) & mask) {
+                if (hashes[i] == hash && keyEquals(addresses[i], key)) {
+                    return i;
+                }
+            }
+            return -1;
+        }
+
+        private boolean keyEquals(long address, byte[] key) {
+            ByteBuffer slab = slab(address);
+            int offset = offset(address);
+            if (slab.getInt(offset + 8) != key.length) {
+                return false;
+            }
+            for (int i = 0; i < key.length; i++) {
+                if (slab.get(offset + HEADER + i) != key[i]) {
+                    return false;
+                }
+            }
+            return true;
+        }
+
+        private void write(long address, byte[] key, byte[] value, long expireAt) {
+            ByteBuffer slab = slab(address);
+            int offset = offset(address);
+            slab.putLong(offset, expireAt);
+            slab.putInt(offset + 8, key.length);
+            slab.putInt(offset + 12, value.length);
+            slab.put(offset + HEADER, key);
+            slab.put(offset + HEADER + key.length, value);
+        }
+
+        /**
+         * 分配顺序：空闲链表 -> 新 Slab（未超上限）-> 最久未访问的 Slab 属于其它分级时重分配，否则 CLOCK 回收同级条目
+         * 同级没有可回收的条目时（该分级还没有 Slab），重分配其它分级中最久未访问的 Slab
+         */
+        private long allocate(int cls) {
+            LongStack freeList = freeLists[cls];
+            if (freeList.size > 0) {
+                return freeList.pop();
+            }
+            if ((long) (slabs.size() + 1) * slabSize <= maxBytes) {
+                int slabIndex = slabs.size();
+                slabs.add(ByteBuffer.allocateDirect(slabSize));
+                return carve(slabIndex, cls);
+            }
+            int victim = leastRecentSlab(-1);
+            if (victim >= 0 && slabClasses[victim] != cls) {
+                return reassign(victim, cls);
+            }
+            long address = evict(cls);
+            if (address >= 0) {
+                return address;
+            }
+            victim = leastRecentSlab(cls);
+            return victim < 0 ? -1 : reassign(victim, cls);
+        }
+
+        /**
+         * 把整块 Slab 切分为 cls 分级的 chunk 放入空闲链表，返回其中一个
+         */
+        private long carve(int slabIndex, int cls) {
+            LongStack freeList = freeLists[cls];
+            int chunk = SIZE_CLASSES[cls];
+            for (int offset = slabSize - chunk; offset >= 0; offset -= chunk) {
+                freeList.push(((long) slabIndex << 32) | offset);
+            }
+            slabClasses[slabIndex] = (byte) cls;
+            slabTouched[slabIndex] = ++tick;
+            return freeList.pop();
+        }
+
+        /**
+         * Slab 重分配：淘汰块内全部条目，从原分级的空闲链表中摘除它的 chunk，再按 cls 重新切分
+         * 需要扫描一遍索引，代价与索引容量成正比，每个 Slab 的容量用完才会发生一次
+         */
+        private long reassign(int slabIndex, int cls) {
+            for (int i = 0; i <= mask; ) {
+                if (hashes[i] != 0 && (int) (addresses[i] >>> 32) == slabIndex) {
+                    // 后移删除可能把后面的条目挪到 i，原地重新检查
+                    removeAt(i);
+                    evictions++;
+                } else {
+                    i++;
+                }
+            }
+            freeLists[slabClasses[slabIndex]].removeSlab(slabIndex);
+            reassigns++;
+            return carve(slabIndex, cls);
+        }
+
+        /**
+         * 最久未访问的 Slab 下标，跳过属于 excludedClass 的 Slab；没有候选时返回 -1
+         */
+        private int leastRecentSlab(int excludedClass) {
+            int victim = -1;
+            for (int i = 0; i < slabs.size(); i++) {
+                if (slabClasses[i] != excludedClass && (victim < 0 || slabTouched[i] < slabTouched[victim])) {
+                    victim = i;
+                }
+            }
+            return victim;
+        }
+
+        private void touch(long address) {
+            slabTouched[(int) (address >>> 32)] = ++tick;
+        }
+
+        /**
+         * 时钟指针最多扫两圈：第一圈清引用位，第二圈必然找到同级的未引用条目（若该级有条目）
+         * 顺路遇到的过期条目直接回收
+         */
+        private long evict(int cls) {
+            long now = System.currentTimeMillis();
+            int capacity = mask + 1;
+            for (int step = 0; step < capacity * 2 && count > 0; step++) {
+                int slot = clockHand;
+                clockHand = (clockHand + 1) & mask;
+                if (hashes[slot] == 0) {
+                    continue;
+                }
+                boolean expired = slab(addresses[slot]).getLong(offset(addresses[slot])) <= now;
+                if (!expired && classes[slot] != cls) {
+                    continue;
+                }
+                if (!expired && referenced[slot] != 0) {
+                    referenced[slot] = 0;
+                    continue;
+                }
+                removeAt(slot);
+                evictions++;
+                // 后移删除可能把下一个条目挪到当前槽位，指针退回重新检查
+                clockHand = slot;
+                if (freeLists[cls].size > 0) {
+                    return freeLists[cls].pop();
+                }
+            }
+            return -1;
+        }
+
+        private int insert(long hash, long address, byte cls) {
+            int i = (int) hash & mask;
+            while (hashes[i] != 0) {
+                i = (i + 1) & mask;
+            }
+            hashes[i] = hash;
+            addresses[i] = address;
+            classes[i] = cls;
+            referenced[i] = 0;
+            count++;
+            return i;
+        }
+
+        /**
+         * 线性探测的后移删除，不留删除标记，探测链始终连续
+         */
+        private void removeAt(int slot) {
+            freeLists[classes[slot]].push(addresses[slot]);
+            count--;
+            int hole = slot;
+            for (int i = (hole + 1) & mask; hashes[i] != 0; i = (i + 1) & mask) {
+                int home = (int) hashes[i] & mask;
+                // home 不在 (hole, i] 区间内时，该条目可以前移到空洞
+                boolean movable = hole <= i ? (home <= hole || home > i) : (home <= hole && home > i);
+                if (movable) {
+                    hashes[hole] = hashes[i];
+                    addresses[hole] = addresses[i];
+                    classes[hole] = classes[i];
+                    referenced[hole] = referenced[i];
+                    hole = i;
+                }
+            }
+            hashes[hole] = 0;
+        }
+
+        private void allocateIndex(int capacity, boolean rehash) {
+            long[] oldHashes = hashes;
+            long[] oldAddresses = addresses;
+            byte[] oldClasses = classes;
+            byte[] oldReferenced = referenced;
+            hashes = new long[capacity];
+            addresses = new long[capacity];
+            classes = new byte[capacity];
+            referenced = new byte[capacity];
+            mask = capacity - 1;
+            count = 0;
+            clockHand = 0;
+            if (!rehash) {
+                return;
+            }
+            for (int i = 0; i < oldHashes.length; i++) {
+                if (oldHashes[i] != 0) {
+                    referenced[insert(oldHashes[i], oldAddresses[i], oldClasses[i])] = oldReferenced[i];
+                }
+            }
+        }
+
+        private ByteBuffer slab(long address) {
+            return slabs.get((int) (address >>> 32));
+        }
+
+        private static int offset(long address) {
+            return (int) address;
+        }
+    }
+
+    private static final class LongStack {
+
+        private long[] values = new long[64];
+
+        private int size;
+
+        void push(long value) {
+            if (size == values.length) {
+                values = Arrays.copyOf(values, size * 2);
+            }
+            values[size++] = value;
+        }
+
+        long pop() {
+            return values[--size];
+        }
+
+        /**
+         * 移除属于某个 Slab 的所有地址（Slab 重分配时使用）
+         */
+        void removeSlab(int slabIndex) {
+            int kept = 0;
+            for (int i = 0; i < size; i++) {
+                if ((int) (values[i] >>> 32) != slabIndex) {
+                    values[kept++] = values[i];
+                }
+            }
+            size = kept;
+        }
+    }
+}
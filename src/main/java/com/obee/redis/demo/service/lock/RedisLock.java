@@ -0,0 +1,46 @@
+package com.obee.redis.demo.service.lock;
+
+/**
+ * @description:
+ * @author: Guanwf
+ * @date: 2026/10/19 13:40
+ *
+ *  * 已获取的分布式锁句柄
+ *  * 推荐 try-with-resources 使用，close 时释放一次重入
+ *
+ */
+public final class RedisLock implements AutoCloseable {
+
+    private final RedisLockService lockService;
+    private final String name;
+    private final String owner;
+    private final long fencingToken;
+
+    RedisLock(RedisLockService lockService, String name, String owner, long fencingToken) {
+        this.lockService = lockService;
+        this.name = name;
+        this.owner = owner;
+        this.fencingToken = fencingToken;
+    }
+
+    public String getName() {
+        return name;
+    }
+
+    /**
+     * fencing token：每次首次加锁单调递增，重入时不变
+     * 下游写库时携带该值并拒绝比已见过的更小的 token，防止锁过期后旧持有者的迟到写入
+     */
+    public long getFencingToken() {
+        return fencingToken;
+    }
+
+    String getOwner() {
+        return owner;
+    }
+
+    @Override
+    public void close() {
+        lockService.unlock(this);
+    }
+}
@@ -0,0 +1,180 @@
+package com.obee.redis.demo.service.lock;
+
+import com.obee.redis.demo.service.LuaScripts;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.DisposableBean;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+
+import java.time.Duration;
+import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+import java.util.UUID;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.ScheduledFuture;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * @description:
+ * @author: Guanwf
+ * @date: 2026/10/19 13:45
+ *
+ *  * 基于 Lua 的可重入租约锁
+ *  * 1. 加锁/解锁/续期均为单个脚本，一次往返
+ *  * 2. 持有者 = 实例ID + 线程ID，同一线程可重入
+ *  * 3. 看门狗每 1/3 租约续期一次，持有期间不会因业务执行慢而过期
+ *  * 4. 首次加锁分配单调递增的 fencing token
+ *
+ *  * Key 形如 lock:{name} 与 lock:{name}:fence，使用 hash tag 保证集群下落在同一个 slot
+ *
+ */
+@Slf4j
+@Component
+public class RedisLockService implements DisposableBean {
+
+    private static final long MIN_RETRY_MILLIS = 10;
+    private static final long MAX_RETRY_MILLIS = 100;
+
+    private final LuaScripts luaScripts;
+
+    private final Duration defaultLease;
+
+    // 当前实例标识，区分不同 JVM 中相同线程ID的持有者
+    private final String instanceId = UUID.randomUUID().toString();
+
+    // 本实例持有中的锁：lockKey + owner -> 看门狗
+    private final Map<String, HeldLock> held = new ConcurrentHashMap<>();
+
+    private final ScheduledExecutorService watchdog = Executors.newSingleThreadScheduledExecutor(r -> {
+        Thread t = new Thread(r, "redis-lock-watchdog");
+        t.setDaemon(true);
+        return t;
+    });
+
+    public RedisLockService(LuaScripts luaScripts,
+                            @Value("${app.lock.lease:30s}") Duration defaultLease) {
+        this.luaScripts = luaScripts;
+        this.defaultLease = defaultLease;
+    }
+
+    /**
+     * 使用默认租约加锁
+     */
+    public Optional<RedisLock> tryLock(String name, Duration waitTime) {
+        return tryLock(name, defaultLease, waitTime);
+    }
+
+    /**
+     * 尝试加锁，在 waitTime 内按锁剩余时间退避重试
+     *
+     * @param lease    租约时长（看门狗按此续期，进程崩溃后最多 lease 时间自动释放）
+     * @param waitTime 最长等待时间，Duration.ZERO 表示只尝试一次
+     */
+    public Optional<RedisLock> tryLock(String name, Duration lease, Duration waitTime) {
+        String owner = instanceId + ":" + Thread.currentThread().threadId();
+        long deadline = System.nanoTime() + waitTime.toNanos();
+
+        while (true) {
+            Long result = luaScripts.run(LuaScripts.LOCK_ACQUIRE,
+                    List.of(lockKey(name), fenceKey(name)), owner, lease.toMillis());
+            if (result != null && result > 0) {
+                startWatchdog(name, owner, lease);
+                return Optional.of(new RedisLock(this, name, owner, result));
+            }
+
+            long remainingNanos = deadline - System.nanoTime();
+            if (remainingNanos <= 0) {
+                return Optional.empty();
+            }
+            // 锁剩余时间越短越快重试，但不超过 [MIN, MAX] 区间，也不超过剩余等待时间
+            long lockTtl = result == null ? MAX_RETRY_MILLIS : -result;
+            long sleep = Math.min(Math.max(lockTtl, MIN_RETRY_MILLIS), MAX_RETRY_MILLIS);
+            sleep = Math.min(sleep, TimeUnit.NANOSECONDS.toMillis(remainingNanos) + 1);
+            try {
+                Thread.sleep(sleep);
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+                return Optional.empty();
+            }
+        }
+    }
+
+    /**
+     * 本地计数与看门狗在 finally 中处理：释放脚本因网络抖动或主从切换失败时，
+     * 看门狗也必须停止，否则会一直为调用方已认为释放的锁续期；Redis 中残留的锁最多 lease 后过期
+     */
+    void unlock(RedisLock lock) {
+        String key = lockKey(lock.getName());
+        try {
+            Long remaining = luaScripts.run(LuaScripts.LOCK_RELEASE, List.of(key), lock.getOwner());
+            if (remaining == null || remaining < 0) {
+                log.warn("Lock {} was not held by {} when releasing (lease expired?)", lock.getName(), lock.getOwner());
+            }
+        } finally {
+            HeldLock heldLock = held.get(key + "|" + lock.getOwner());
+            if (heldLock != null && --heldLock.count <= 0) {
+                heldLock.renewal.cancel(false);
+                held.remove(key + "|" + lock.getOwner());
+            }
+        }
+    }
+
+    private void startWatchdog(String name, String owner, Duration lease) {
+        String key = lockKey(name);
+        // 同一持有者重入时只计数，不重复启动看门狗
+        held.compute(key + "|" + owner, (k, existing) -> {
+            if (existing != null) {
+                existing.count++;
+                return existing;
+            }
+            long period = Math.max(lease.toMillis() / 3, 1);
+            ScheduledFuture<?> renewal = watchdog.scheduleAtFixedRate(
+                    () -> renew(k, key, owner, lease), period, period, TimeUnit.MILLISECONDS);
+            return new HeldLock(renewal);
+        });
+    }
+
+    private void renew(String heldKey, String key, String owner, Duration lease) {
+        try {
+            Long renewed = luaScripts.run(LuaScripts.LOCK_RENEW, List.of(key), owner, lease.toMillis());
+            if (renewed == null || renewed == 0) {
+                log.warn("Lock {} lost by {}, stop renewing", key, owner);
+                HeldLock heldLock = held.remove(heldKey);
+                if (heldLock != null) {
+                    heldLock.renewal.cancel(false);
+                }
+            }
+        } catch (Exception e) {
+            // 网络抖动时不取消，下一个周期继续尝试
+            log.error("Lock {} renew failed", key, e);
+        }
+    }
+
+    private static String lockKey(String name) {
+        return "lock:{" + name + "}";
+    }
+
+    private static String fenceKey(String name) {
+        return "lock:{" + name + "}:fence";
+    }
+
+    @Override
+    public void destroy() {
+        watchdog.shutdownNow();
+    }
+
+    /**
+     * 本实例持有的锁：重入次数只会被持有线程修改
+     */
+    private static final class HeldLock {
+        private final ScheduledFuture<?> renewal;
+        private int count = 1;
+
+        private HeldLock(ScheduledFuture<?> renewal) {
+            this.renewal = renewal;
+        }
+    }
+}
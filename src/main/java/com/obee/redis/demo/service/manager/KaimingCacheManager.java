@@ -0,0 +1,48 @@
+package com.obee.redis.demo.service.manager;
+
+import com.obee.redis.demo.config.KaimingCacheProperties;
+import com.obee.redis.demo.service.CacheEngine;
+import org.springframework.cache.Cache;
+import org.springframework.cache.CacheManager;
+
+import java.time.Duration;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * @description:
+ * @author: Guanwf
+ * @date: 2026/10/19 18:50
+ *
+ *  * 基于 CacheEngine 的 Spring CacheManager
+ *  * 缓存按名称懒创建，过期时间取 app.cache.specs.{name}.ttl，未配置时取 app.cache.default-ttl
+ *
+ */
+public class KaimingCacheManager implements CacheManager {
+
+    private final CacheEngine engine;
+
+    private final KaimingCacheProperties properties;
+
+    private final Map<String, Cache> caches = new ConcurrentHashMap<>();
+
+    public KaimingCacheManager(CacheEngine engine, KaimingCacheProperties properties) {
+        this.engine = engine;
+        this.properties = properties;
+    }
+
+    @Override
+    public Cache getCache(String name) {
+        return caches.computeIfAbsent(name, n -> {
+            Duration ttl = properties.ttlOf(n);
+            return new KaimingSpringCache(n, engine, ttl != null ? ttl : properties.getDefaultTtl());
+        });
+    }
+
+    @Override
+    public Collection<String> getCacheNames() {
+        return Collections.unmodifiableSet(caches.keySet());
+    }
+}
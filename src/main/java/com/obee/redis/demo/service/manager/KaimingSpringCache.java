@@ -0,0 +1,133 @@
+package com.obee.redis.demo.service.manager;
+
+import com.obee.redis.demo.annotation.KaimingCache;
+import com.obee.redis.demo.service.CacheEngine;
+import org.springframework.cache.support.AbstractValueAdaptingCache;
+import org.springframework.cache.support.SimpleValueWrapper;
+
+import java.time.Duration;
+import java.util.Map;
+import java.util.concurrent.Callable;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * @description:
+ * @author: Guanwf
+ * @date: 2026/10/19 18:40
+ *
+ *  * Spring Cache 适配：把 @Cacheable/@CacheEvict 的读写交给 CacheEngine
+ *  * Key 格式与 Spring RedisCache 保持一致：cacheName::key，切换前写入的数据仍可命中
+ *
+ */
+public class KaimingSpringCache extends AbstractValueAdaptingCache {
+
+    private final String name;
+
+    private final CacheEngine engine;
+
+    private final Duration ttl;
+
+    // 同一个 Key 的 get(key, loader) 在本实例内串行，防止击穿
+    private final Map<String, Object> loadLocks = new ConcurrentHashMap<>();
+
+    public KaimingSpringCache(String name, CacheEngine engine, Duration ttl) {
+        // 不缓存 null（与原 RedisCacheManager 的 disableCachingNullValues 一致）
+        super(false);
+        this.name = name;
+        this.engine = engine;
+        this.ttl = ttl;
+    }
+
+    @Override
+    public String getName() {
+        return name;
+    }
+
+    @Override
+    public Object getNativeCache() {
+        return engine;
+    }
+
+    @Override
+    protected Object lookup(Object key) {
+        return engine.get(name, redisKey(key));
+    }
+
+    @Override
+    @SuppressWarnings("unchecked")
+    public <T> T get(Object key, Callable<T> valueLoader) {
+        String redisKey = redisKey(key);
+        ValueWrapper cached = get(key);
+        if (cached != null) {
+            return (T) cached.get();
+        }
+        Object lock = loadLocks.computeIfAbsent(redisKey, k -> new Object());
+        try {
+            synchronized (lock) {
+                // Double Check：等锁期间可能已被其他线程加载
+                cached = get(key);
+                if (cached != null) {
+                    return (T) cached.get();
+                }
+                long loadStartMillis = System.currentTimeMillis();
+                T value;
+                try {
+                    value = valueLoader.call();
+                } catch (Exception e) {
+                    throw new ValueRetrievalException(key, valueLoader, e);
+                }
+                if (value != null) {
+                    // 带上回源开始时间，回源期间发生的删除会拒绝这次回写
+                    engine.put(name, redisKey, value, ttl, KaimingCache.Storage.BLOB,
+                            CacheEngine.UNVERSIONED, loadStartMillis);
+                }
+                return value;
+            }
+        } finally {
+            loadLocks.remove(redisKey, lock);
+        }
+    }
+
+    /**
+     * @CachePut：值来自刚执行完的方法，不是删除前读到的旧数据，不受删除墓碑限制
+     * 不缓存 null：结果为 null 时删除旧值，避免继续返回更新前的数据
+     */
+    @Override
+    public void put(Object key, Object value) {
+        if (value == null) {
+            evict(key);
+            return;
+        }
+        engine.put(name, redisKey(key), value, ttl, KaimingCache.Storage.BLOB);
+    }
+
+    /**
+     * 检查与写入由 cache_set_if_newer 的 nx 模式原子完成
+     * 未写入时返回当前值；当前值在此期间又被删除时返回 null
+     */
+    @Override
+    public ValueWrapper putIfAbsent(Object key, Object value) {
+        if (value == null) {
+            return get(key);
+        }
+        if (engine.putIfAbsent(name, redisKey(key), value, ttl)) {
+            return null;
+        }
+        ValueWrapper existing = get(key);
+        return existing != null ? new SimpleValueWrapper(existing.get()) : null;
+    }
+
+    @Override
+    public void evict(Object key) {
+        engine.evict(name, redisKey(key));
+    }
+
+    @Override
+    public void clear() {
+        engine.clear(name, name + "::");
+    }
+
+    private String redisKey(Object key) {
+        return name + "::" + key;
+    }
+}
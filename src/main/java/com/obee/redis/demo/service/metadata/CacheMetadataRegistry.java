@@ -0,0 +1,274 @@
+package com.obee.redis.demo.service.metadata;
+
+import com.fasterxml.jackson.databind.JavaType;
+import com.obee.redis.demo.annotation.KaimingCache;
+import com.obee.redis.demo.service.CacheEngine;
+import com.obee.redis.demo.service.SpelKeyGenerator;
+import com.obee.redis.demo.service.admission.CacheAdmission;
+import com.obee.redis.demo.service.codec.JsonValueCodec;
+import com.obee.redis.demo.service.expiry.ExpiryPolicy;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.ListableBeanFactory;
+import org.springframework.beans.factory.SmartInitializingSingleton;
+import org.springframework.core.annotation.AnnotatedElementUtils;
+import org.springframework.expression.Expression;
+import org.springframework.expression.spel.SpelNode;
+import org.springframework.expression.spel.ast.FunctionReference;
+import org.springframework.expression.spel.ast.OpPlus;
+import org.springframework.expression.spel.ast.StringLiteral;
+import org.springframework.expression.spel.ast.VariableReference;
+import org.springframework.expression.spel.standard.SpelExpression;
+import org.springframework.stereotype.Component;
+import org.springframework.util.ClassUtils;
+import org.springframework.util.ReflectionUtils;
+
+import java.lang.reflect.Method;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collection;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.function.Consumer;
+
+/**
+ * @description:
+ * @author: Guanwf
+ * @date: 2026/10/20 19:30
+ *
+ *  * 启动时扫描所有 Bean 上的 @KaimingCache 方法，构建不可变的元数据表供 CacheAspect 使用
+ *  * 同时做启动校验，任何一处出错都会让启动失败（列出全部问题），而不是等到第一次调用才报错：
+ *  * 1. Key 的 ${...} 占位符能解析、SpEL 语法正确，引用的变量都是方法参数，函数只有 #hash / #tag
+ *  * 2. version、unless 表达式同上，另外可以引用 #result；condition 只能引用方法参数
+ *  * 3. timeoutString 解析为正整数，抖动策略、准入策略存在，admitAfter 在准入策略的有效范围内（tinylfu 为 2..16）
+ *  * 4. 归一化模式（itemKey）：返回值是 List / Set / Collection，只支持 BLOB、不支持 version / 对冲 / 读超时，
+ *  *    实体 Key 与某个方法的 Key 前缀相同时，元素类型与该方法的返回类型相同
+ *
+ */
+@Slf4j
+@Component
+public class CacheMetadataRegistry implements SmartInitializingSingleton {
+
+    // SpEL 内置变量
+    private static final Set<String> BUILTIN_VARIABLES = Set.of("root", "this");
+
+    private final ListableBeanFactory beanFactory;
+
+    private final SpelKeyGenerator keyGenerator;
+
+    private final ExpiryPolicy expiryPolicy;
+
+    private final JsonValueCodec valueCodec;
+
+    private final CacheAdmission cacheAdmission;
+
+    private volatile Map<Method, CacheOperationMetadata> operations = Map.of();
+
+    // 启动后才出现的方法（如 prototype Bean），首次调用时构建并校验，之后复用
+    private final Map<Method, CacheOperationMetadata> lateOperations = new ConcurrentHashMap<>();
+
+    public CacheMetadataRegistry(ListableBeanFactory beanFactory, SpelKeyGenerator keyGenerator,
+                                 ExpiryPolicy expiryPolicy, JsonValueCodec valueCodec, CacheAdmission cacheAdmission) {
+        this.beanFactory = beanFactory;
+        this.keyGenerator = keyGenerator;
+        this.expiryPolicy = expiryPolicy;
+        this.valueCodec = valueCodec;
+        this.cacheAdmission = cacheAdmission;
+    }
+
+    @Override
+    public void afterSingletonsInstantiated() {
+        long start = System.currentTimeMillis();
+        Map<Method, CacheOperationMetadata> found = new HashMap<>();
+        List<String> problems = new ArrayList<>();
+
+        Set<Class<?>> scanned = new HashSet<>();
+        for (String beanName : beanFactory.getBeanDefinitionNames()) {
+            Class<?> beanType = beanFactory.getType(beanName, false);
+            if (beanType == null || !scanned.add(ClassUtils.getUserClass(beanType))) {
+                continue;
+            }
+            ReflectionUtils.doWithMethods(ClassUtils.getUserClass(beanType), method -> {
+                KaimingCache kaimingCache = AnnotatedElementUtils.findMergedAnnotation(method, KaimingCache.class);
+                if (kaimingCache != null && !found.containsKey(method)) {
+                    try {
+                        found.put(method, build(method, kaimingCache, problems));
+                    } catch (Exception e) {
+                        problems.add(describe(method) + ": " + e.getMessage());
+                    }
+                }
+            });
+        }
+
+        validateSharedItems(found.values(), problems);
+
+        if (!problems.isEmpty()) {
+            throw new IllegalStateException("Invalid @KaimingCache declarations:\n - " + String.join("\n - ", problems));
+        }
+        operations = Map.copyOf(found);
+        log.info("Cache metadata registry built: {} operations in {}ms", operations.size(),
+                System.currentTimeMillis() - start);
+    }
+
+    /**
+     * 取方法的元数据；启动后才创建的 Bean（如 prototype）不在表中，此时现场构建一次并缓存
+     * 校验失败时抛出 IllegalStateException，不缓存，每次调用都会失败
+     */
+    public CacheOperationMetadata get(Method method, KaimingCache kaimingCache) {
+        CacheOperationMetadata metadata = operations.get(method);
+        if (metadata != null) {
+            return metadata;
+        }
+        return lateOperations.computeIfAbsent(method, m -> {
+            List<String> problems = new ArrayList<>();
+            CacheOperationMetadata built = build(m, kaimingCache, problems);
+            if (!problems.isEmpty()) {
+                throw new IllegalStateException(describe(m) + ": " + problems);
+            }
+            return built;
+        });
+    }
+
+    public Map<Method, CacheOperationMetadata> operations() {
+        return operations;
+    }
+
+    private CacheOperationMetadata build(Method method, KaimingCache kaimingCache, List<String> problems) {
+        String[] paramNames = keyGenerator.paramNames(method);
+        Set<String> variables = new HashSet<>(BUILTIN_VARIABLES);
+        if (paramNames != null) {
+            variables.addAll(Arrays.asList(paramNames));
+        }
+
+        Expression keyExpression = keyGenerator.parseKey(kaimingCache.key());
+        checkReferences(method, "key", keyExpression, variables, problems);
+
+        Expression versionExpression = null;
+        if (!kaimingCache.version().isEmpty()) {
+            versionExpression = keyGenerator.parse(kaimingCache.version());
+            Set<String> withResult = new HashSet<>(variables);
+            withResult.add("result");
+            checkReferences(method, "version", versionExpression, withResult, problems);
+        }
+
+        Expression condition = null;
+        if (!kaimingCache.condition().isEmpty()) {
+            condition = keyGenerator.compile(kaimingCache.condition());
+            checkReferences(method, "condition", condition, variables, problems);
+        }
+        Expression unless = null;
+        if (!kaimingCache.unless().isEmpty()) {
+            unless = keyGenerator.compile(kaimingCache.unless());
+            Set<String> withResult = new HashSet<>(variables);
+            withResult.add("result");
+            checkReferences(method, "unless", unless, withResult, problems);
+        }
+        if (kaimingCache.maxValueBytes() < 0) {
+            problems.add(describe(method) + ": maxValueBytes must not be negative");
+        }
+
+        JavaType returnType = valueCodec.type(method.getGenericReturnType());
+        Expression itemKey = null;
+        Expression itemId = null;
+        if (!kaimingCache.itemKey().isEmpty()) {
+            itemKey = keyGenerator.parseKey(kaimingCache.itemKey());
+            checkReferences(method, "itemKey", itemKey, Set.of("id"), problems);
+            itemId = keyGenerator.parse(kaimingCache.itemId());
+            checkReferences(method, "itemId", itemId, Set.of("item"), problems);
+            validateNormalized(method, kaimingCache, returnType, problems);
+        }
+
+        expiryPolicy.validate(method, kaimingCache).forEach(p -> problems.add(describe(method) + ": " + p));
+        if (!cacheAdmission.policyNames().contains(kaimingCache.admission())) {
+            problems.add(describe(method) + ": unknown admission policy: " + kaimingCache.admission()
+                    + " (known: " + cacheAdmission.policyNames() + ")");
+        }
+        cacheAdmission.validate(kaimingCache).forEach(p -> problems.add(describe(method) + ": " + p));
+
+        return new CacheOperationMetadata(method, kaimingCache, CacheEngine.cacheName(method, kaimingCache),
+                keyExpression, literalPrefix(keyExpression), paramNames, returnType,
+                expiryPolicy.baseTtl(method, kaimingCache), versionExpression, condition, unless,
+                itemKey, itemKey == null ? "" : literalPrefix(itemKey), itemId,
+                itemKey == null ? null : returnType.getContentType());
+    }
+
+    /**
+     * 归一化结果与实体方法共用实体 Key 时，双方按各自的类型解码同一份值，类型必须相同
+     */
+    private static void validateSharedItems(Collection<CacheOperationMetadata> operations, List<String> problems) {
+        for (CacheOperationMetadata normalized : operations) {
+            if (!normalized.normalized() || normalized.itemKeyPrefix().isEmpty()) {
+                continue;
+            }
+            for (CacheOperationMetadata owner : operations) {
+                if (!owner.normalized() && owner.keyPrefix().equals(normalized.itemKeyPrefix())
+                        && !owner.returnType().equals(normalized.itemType())) {
+                    problems.add(describe(normalized.method()) + ": item type " + normalized.itemType()
+                            + " differs from " + describe(owner.method()) + " return type " + owner.returnType()
+                            + ", which owns the same item keys '" + normalized.itemKeyPrefix() + "*'");
+                }
+            }
+        }
+    }
+
+    private static void validateNormalized(Method method, KaimingCache kaimingCache, JavaType returnType,
+                                           List<String> problems) {
+        Class<?> raw = returnType.getRawClass();
+        if (!returnType.isCollectionLikeType()
+                || !(raw.isAssignableFrom(ArrayList.class) || raw.isAssignableFrom(LinkedHashSet.class))) {
+            problems.add(describe(method) + ": itemKey requires a List / Set / Collection return type, got "
+                    + returnType);
+        }
+        if (kaimingCache.storage() != KaimingCache.Storage.BLOB || !kaimingCache.version().isEmpty()
+                || kaimingCache.hedge() || kaimingCache.readTimeout() > 0) {
+            problems.add(describe(method) + ": itemKey does not support HASH storage, version, hedge or readTimeout");
+        }
+    }
+
+    private static void checkReferences(Method method, String attribute, Expression expression,
+                                        Set<String> variables, List<String> problems) {
+        if (expression instanceof SpelExpression spel) {
+            walk(spel.getAST(), node -> {
+                String text = node.toStringAST();
+                if (node instanceof FunctionReference) {
+                    String name = text.substring(1, text.indexOf('('));
+                    if (!SpelKeyGenerator.FUNCTIONS.containsKey(name)) {
+                        problems.add(describe(method) + ": unknown function in " + attribute + ": #" + name);
+                    }
+                } else if (node instanceof VariableReference && !variables.contains(text.substring(1))) {
+                    problems.add(describe(method) + ": unknown variable in " + attribute + ": " + text
+                            + " (parameters: " + variables + ")");
+                }
+            });
+        }
+    }
+
+    /**
+     * 取表达式最左侧的字符串常量：'user:info:' + #id -> user:info:
+     */
+    private static String literalPrefix(Expression expression) {
+        if (!(expression instanceof SpelExpression spel)) {
+            return "";
+        }
+        SpelNode node = spel.getAST();
+        while (node instanceof OpPlus && node.getChildCount() > 0) {
+            node = node.getChild(0);
+        }
+        return node instanceof StringLiteral literal ? String.valueOf(literal.getLiteralValue().getValue()) : "";
+    }
+
+    private static void walk(SpelNode node, Consumer<SpelNode> visitor) {
+        visitor.accept(node);
+        for (int i = 0; i < node.getChildCount(); i++) {
+            walk(node.getChild(i), visitor);
+        }
+    }
+
+    private static String describe(Method method) {
+        return method.getDeclaringClass().getSimpleName() + "." + method.getName();
+    }
+}
@@ -0,0 +1,60 @@
+package com.obee.redis.demo.service.metadata;
+
+import com.fasterxml.jackson.databind.JavaType;
+import com.obee.redis.demo.annotation.KaimingCache;
+import org.springframework.expression.Expression;
+
+import java.lang.reflect.Method;
+import java.time.Duration;
+
+/**
+ * @description:
+ * @author: Guanwf
+ * @date: 2026/10/20 19:10
+ *
+ *  * 单个 @KaimingCache 方法在启动时预先计算好的元数据，调用时不再反射、解析
+ *
+ * @param keyExpression     已替换 ${...} 并解析好的 Key 表达式
+ * @param keyPrefix         Key 表达式开头的字符串常量（例如 "user:info:"），没有时为空串，用于按前缀统计内存
+ * @param paramNames        方法参数名（SpEL 变量名）
+ * @param returnType        返回值的 Jackson 类型（含泛型）
+ * @param baseTtl           基础过期时间（不含抖动与 CacheTtlAware）
+ * @param versionExpression 版本号表达式，未配置时为 null
+ * @param condition         缓存条件（已编译），未配置时为 null
+ * @param unless            否决写入条件（已编译），未配置时为 null
+ * @param itemKey           归一化模式的实体 Key 表达式，未开启时为 null
+ * @param itemKeyPrefix     实体 Key 表达式开头的字符串常量，用于找到实体所属的缓存
+ * @param itemId            从结果元素取实体 ID 的表达式
+ * @param itemType          结果元素的类型
+ */
+public record CacheOperationMetadata(Method method,
+                                     KaimingCache annotation,
+                                     String cacheName,
+                                     Expression keyExpression,
+                                     String keyPrefix,
+                                     String[] paramNames,
+                                     JavaType returnType,
+                                     Duration baseTtl,
+                                     Expression versionExpression,
+                                     Expression condition,
+                                     Expression unless,
+                                     Expression itemKey,
+                                     String itemKeyPrefix,
+                                     Expression itemId,
+                                     JavaType itemType) {
+
+    /**
+     * 是否为归一化模式（查询 Key 只存 ID 列表）
+     */
+    public boolean normalized() {
+        return itemKey != null;
+    }
+
+    /**
+     * 是否需要走异步读取（单次超时 / 对冲），仅支持 BLOB 存储
+     */
+    public boolean budgetedRead() {
+        return annotation.storage() == KaimingCache.Storage.BLOB
+                && (annotation.readTimeout() > 0 || annotation.hedge());
+    }
+}
@@ -0,0 +1,190 @@
+package com.obee.redis.demo.service.normalize;
+
+import com.obee.redis.demo.service.CacheEngine;
+import com.obee.redis.demo.service.LuaScripts;
+import com.obee.redis.demo.service.SpelKeyGenerator;
+import com.obee.redis.demo.service.metadata.CacheMetadataRegistry;
+import com.obee.redis.demo.service.metadata.CacheOperationMetadata;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.MeterRegistry;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.data.redis.core.StringRedisTemplate;
+import org.springframework.stereotype.Component;
+
+import java.lang.reflect.Method;
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.LinkedHashMap;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * @description:
+ * @author: Guanwf
+ * @date: 2026/10/23 10:20
+ *
+ *  * 归一化缓存（@KaimingCache#itemKey）：搜索 / 列表结果只存实体 ID 列表，实体走各自的实体缓存
+ *  * 1. 读取：LRANGE 查询 Key -> 按 itemKey 计算实体 Key -> CacheEngine#getAll 一次批量读取，按 ID 顺序组装
+ *  * 2. 写入：实体只填充缺失的 Key（CacheEngine#putAll onlyIfAbsent，遵守删除墓碑），已有的实体缓存由其所属方法维护，
+ *  *    不会被搜索结果中的（可能是更早读到的）实体覆盖；再用 Lua 原子替换 ID 列表并设置过期时间，同样遵守查询 Key 上的墓碑
+ *  * 3. 实体所属的缓存：itemKey 前缀与某个 @KaimingCache 方法的 Key 前缀相同时，使用该方法的缓存名与基础过期时间
+ *  *    （至少不短于列表本身），否则沿用搜索方法自己的缓存名与过期时间；共用实体 Key 时元素类型必须与该方法的返回类型相同
+ *  *    （启动校验，见 CacheMetadataRegistry）
+ *
+ *  * 实体缺失时整体回源，而不是逐个回源：实体加载逻辑在业务方法里，这里拿不到
+ *  * 指标：kaiming.cache.normalized.incomplete{cache} 因实体缺失而回源的次数
+ *
+ */
+@Slf4j
+@Component
+@RequiredArgsConstructor
+public class NormalizedResultCache {
+
+    // 空结果的占位 ID（Redis List 不能为空）
+    private static final String EMPTY = "";
+
+    private static final String[] ID_PARAM = {"id"};
+
+    private static final String[] ITEM_PARAM = {"item"};
+
+    private final StringRedisTemplate stringRedisTemplate;
+
+    private final CacheEngine cacheEngine;
+
+    private final SpelKeyGenerator keyGenerator;
+
+    private final LuaScripts luaScripts;
+
+    private final CacheMetadataRegistry metadataRegistry;
+
+    private final MeterRegistry meterRegistry;
+
+    // 搜索方法 -> 实体所属的缓存
+    private final Map<Method, ItemCache> itemCaches = new ConcurrentHashMap<>();
+
+    /**
+     * 读取归一化结果；ID 列表不存在或任一实体缺失时返回 empty（按未命中回源）
+     */
+    public Optional<Collection<Object>> get(CacheOperationMetadata metadata, String queryKey) {
+        List<String> ids;
+        try {
+            ids = stringRedisTemplate.opsForList().range(queryKey, 0, -1);
+        } catch (Exception e) {
+            if (isWrongType(e)) {
+                // 删除后留下的墓碑（字符串），墓碑有效期内是正常情况，按未命中处理，回源后由 Lua 整体替换
+                log.debug("Normalized id list tombstoned, reloading: {}", queryKey);
+            } else {
+                log.error("Normalized id list read failed: {}", queryKey, e);
+            }
+            return Optional.empty();
+        }
+        if (ids == null || ids.isEmpty()) {
+            return Optional.empty();
+        }
+        if (ids.size() == 1 && EMPTY.equals(ids.get(0))) {
+            return Optional.of(newCollection(metadata, 0));
+        }
+
+        List<String> itemKeys = new ArrayList<>(ids.size());
+        for (String id : ids) {
+            itemKeys.add(keyGenerator.generate(metadata.itemKey(), ID_PARAM, new Object[]{id}));
+        }
+        List<Object> items = cacheEngine.getAll(itemCache(metadata).cacheName(), itemKeys, metadata.itemType());
+        Collection<Object> result = newCollection(metadata, items.size());
+        for (Object item : items) {
+            if (item == null) {
+                log.debug("Normalized result incomplete, reloading: {}", queryKey);
+                Counter.builder("kaiming.cache.normalized.incomplete").tag("cache", metadata.cacheName())
+                        .register(meterRegistry).increment();
+                return Optional.empty();
+            }
+            result.add(item);
+        }
+        return Optional.of(result);
+    }
+
+    /**
+     * 回写：先写实体，再写 ID 列表（列表先可见时，实体尚未写入会导致一次多余的回源）
+     *
+     * @return ID 列表是否写入
+     */
+    public boolean put(CacheOperationMetadata metadata, String queryKey, Collection<?> result, Duration ttl,
+                       long loadStartMillis) {
+        Map<String, Object> items = new LinkedHashMap<>(result.size() * 4 / 3 + 1);
+        List<String> ids = new ArrayList<>(result.size() + 1);
+        for (Object item : result) {
+            Object id = item == null ? null
+                    : keyGenerator.evaluate(metadata.itemId(), ITEM_PARAM, new Object[]{item}, null);
+            if (id == null) {
+                log.warn("Normalized result not cached, item without id: {} in {}", item, queryKey);
+                return false;
+            }
+            ids.add(String.valueOf(id));
+            items.put(keyGenerator.generate(metadata.itemKey(), ID_PARAM, new Object[]{ids.get(ids.size() - 1)}), item);
+        }
+
+        ItemCache itemCache = itemCache(metadata);
+        if (!items.isEmpty()) {
+            Duration itemTtl = itemCache.ttl() != null && itemCache.ttl().compareTo(ttl) > 0 ? itemCache.ttl() : ttl;
+            cacheEngine.putAll(itemCache.cacheName(), items, itemTtl, loadStartMillis, true);
+        }
+        if (ids.isEmpty()) {
+            ids.add(EMPTY);
+        }
+        try {
+            Object[] args = new Object[ids.size() + 2];
+            args[0] = ttl.toMillis();
+            args[1] = cacheEngine.loadFence(loadStartMillis);
+            for (int i = 0; i < ids.size(); i++) {
+                args[i + 2] = ids.get(i);
+            }
+            Long written = luaScripts.run(LuaScripts.ID_LIST_SET, List.of(queryKey), args);
+            if (written != null && written < 0) {
+                log.debug("Stale normalized id list rejected: {}", queryKey);
+                return false;
+            }
+            return true;
+        } catch (Exception e) {
+            log.error("Normalized id list write failed: {}", queryKey, e);
+            return false;
+        }
+    }
+
+    private ItemCache itemCache(CacheOperationMetadata metadata) {
+        return itemCaches.computeIfAbsent(metadata.method(), m -> {
+            if (!metadata.itemKeyPrefix().isEmpty()) {
+                for (CacheOperationMetadata operation : metadataRegistry.operations().values()) {
+                    if (!operation.normalized() && operation.keyPrefix().equals(metadata.itemKeyPrefix())) {
+                        return new ItemCache(operation.cacheName(), operation.baseTtl());
+                    }
+                }
+            }
+            return new ItemCache(metadata.cacheName(), null);
+        });
+    }
+
+    private static boolean isWrongType(Throwable error) {
+        for (Throwable t = error; t != null; t = t.getCause()) {
+            if (String.valueOf(t.getMessage()).startsWith("WRONGTYPE")) {
+                return true;
+            }
+        }
+        return false;
+    }
+
+    private static Collection<Object> newCollection(CacheOperationMetadata metadata, int size) {
+        return metadata.returnType().getRawClass().isAssignableFrom(ArrayList.class)
+                ? new ArrayList<>(size) : new LinkedHashSet<>(size * 4 / 3 + 1);
+    }
+
+    /**
+     * @param ttl 实体缓存的基础过期时间，未找到对应的实体缓存时为 null
+     */
+    private record ItemCache(String cacheName, Duration ttl) {
+    }
+}
@@ -0,0 +1,104 @@
+package com.obee.redis.demo.service.pool;
+
+import io.lettuce.core.api.StatefulConnection;
+import org.apache.commons.pool2.PooledObject;
+import org.apache.commons.pool2.impl.EvictionConfig;
+import org.apache.commons.pool2.impl.EvictionPolicy;
+import org.apache.commons.pool2.impl.GenericObjectPoolConfig;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.autoconfigure.data.redis.RedisProperties;
+import org.springframework.stereotype.Component;
+
+import java.time.Duration;
+
+/**
+ * @description:
+ * @author: Guanwf
+ * @date: 2026/10/22 16:10
+ *
+ *  * 连接池空闲容量的淘汰策略：空闲连接数超过目标值（targetIdle，由 AdaptivePoolManager 按负载调整）
+ *  * 且空闲超过 min-idle-time 时才回收，低于目标值的空闲连接一直保留
+ *
+ *  * 静态配置 max-idle: 5 / max-active: 500 的问题：高峰时新建的连接归还时超过 max-idle 立即被关闭，
+ *  * 下一波请求又要重新建连（churn）。这里把池的 maxIdle 放宽到 max-idle 上限，由本策略按目标值慢慢收缩
+ *
+ */
+@Component
+public class AdaptiveIdlePolicy implements EvictionPolicy<StatefulConnection<?, ?>> {
+
+    /**
+     * JMX 名称前缀，用于读取池的统计（见 AdaptivePoolManager）
+     */
+    public static final String JMX_PREFIX = "kaiming-redis";
+
+    private final int maxIdleBound;
+
+    private final Duration minIdleTime;
+
+    private final Duration evictionInterval;
+
+    private volatile int minIdleBound;
+
+    private volatile int targetIdle;
+
+    public AdaptiveIdlePolicy(@Value("${app.redis.pool.adaptive.max-idle:64}") int maxIdleBound,
+                              @Value("${app.redis.pool.adaptive.min-idle-time:30s}") Duration minIdleTime,
+                              @Value("${app.redis.pool.adaptive.eviction-interval:5s}") Duration evictionInterval) {
+        this.maxIdleBound = maxIdleBound;
+        this.minIdleTime = minIdleTime;
+        this.evictionInterval = evictionInterval;
+    }
+
+    /**
+     * 以 spring.data.redis.lettuce.pool 为基础生成池配置：
+     * min-idle 作为下限，max-idle 作为初始目标，app.redis.pool.adaptive.max-idle 作为上限
+     */
+    public GenericObjectPoolConfig<StatefulConnection<?, ?>> poolConfig(RedisProperties.Pool pool) {
+        this.minIdleBound = pool.getMinIdle();
+        this.targetIdle = clamp(pool.getMaxIdle());
+
+        GenericObjectPoolConfig<StatefulConnection<?, ?>> config = new GenericObjectPoolConfig<>();
+        config.setMaxTotal(pool.getMaxActive());
+        config.setMinIdle(pool.getMinIdle());
+        config.setMaxIdle(Math.min(maxIdleBound, pool.getMaxActive()));
+        if (pool.getMaxWait() != null) {
+            config.setMaxWait(pool.getMaxWait());
+        }
+        config.setTimeBetweenEvictionRuns(pool.getTimeBetweenEvictionRuns() != null
+                ? pool.getTimeBetweenEvictionRuns() : evictionInterval);
+        // 每轮检查全部空闲连接
+        config.setNumTestsPerEvictionRun(-1);
+        config.setEvictionPolicy(this);
+        config.setJmxNamePrefix(JMX_PREFIX);
+        return config;
+    }
+
+    @Override
+    public boolean evict(EvictionConfig config, PooledObject<StatefulConnection<?, ?>> underTest, int idleCount) {
+        Duration idle = underTest.getIdleDuration();
+        if (idle.compareTo(config.getIdleEvictDuration()) > 0) {
+            return true;
+        }
+        return idleCount > targetIdle && idle.compareTo(minIdleTime) >= 0;
+    }
+
+    public int targetIdle() {
+        return targetIdle;
+    }
+
+    public void setTargetIdle(int targetIdle) {
+        this.targetIdle = clamp(targetIdle);
+    }
+
+    public int minIdleBound() {
+        return minIdleBound;
+    }
+
+    public int maxIdleBound() {
+        return maxIdleBound;
+    }
+
+    private int clamp(int value) {
+        return Math.max(minIdleBound, Math.min(maxIdleBound, value));
+    }
+}
@@ -0,0 +1,255 @@
+package com.obee.redis.demo.service.pool;
+
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.FunctionCounter;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.data.redis.connection.RedisConnection;
+import org.springframework.data.redis.connection.RedisConnectionFactory;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+
+import javax.management.JMException;
+import javax.management.MBeanServer;
+import javax.management.MalformedObjectNameException;
+import javax.management.ObjectName;
+import java.lang.management.ManagementFactory;
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
+
+/**
+ * @description:
+ * @author: Guanwf
+ * @date: 2026/10/22 17:00
+ *
+ *  * 自适应连接池：按负载调整空闲连接目标（AdaptiveIdlePolicy），让取连接的耗时不随流量起伏
+ *  * 1. 每个周期从 JMX 读取池统计（活跃 / 空闲 / 等待线程 / 最近 100 次借出等待），测一次 PING 往返
+ *  * 2. 需求 = max(活跃 + 等待, 借出速率 × 平均占用时长)（Little 定律），上升立即跟随、下降按 EWMA 缓慢衰减
+ *  * 3. 空闲目标 = 需求 × headroom - 活跃，限制在 [min-idle, app.redis.pool.adaptive.max-idle]
+ *  * 4. 出现等待线程或借出等待超过 wait-threshold 时，立即在后台预建连接补足到目标值
+ *  * 5. 启动完成时预热 prewarm 个连接，第一波流量不用建连
+ *
+ *  * 注意：共享连接（shareNativeConnection，默认开启）上的普通命令不经过连接池；
+ *  * 连接池只服务于流水线（executePipelined）、事务、阻塞命令等独占连接
+ *
+ *  * 指标：kaiming.redis.pool.{active,idle,waiters,borrow.wait,target.idle,demand}、kaiming.redis.pool.prewarmed、
+ *  * kaiming.redis.commands.inflight、kaiming.redis.commands.failed、kaiming.redis.rtt
+ *
+ */
+@Slf4j
+@Component
+public class AdaptivePoolManager {
+
+    // 需求下降时每个周期的衰减系数
+    private static final double DECAY = 0.1;
+
+    private final RedisConnectionFactory connectionFactory;
+
+    private final AdaptiveIdlePolicy idlePolicy;
+
+    private final MeterRegistry meterRegistry;
+
+    private final boolean enabled;
+
+    private final double headroom;
+
+    private final long waitThresholdMillis;
+
+    private final int prewarm;
+
+    private final Timer rtt;
+
+    private final Counter prewarmed;
+
+    private final AtomicBoolean warming = new AtomicBoolean();
+
+    private final MBeanServer mBeanServer = ManagementFactory.getPlatformMBeanServer();
+
+    private final ObjectName poolNames;
+
+    private volatile PoolStats lastStats = PoolStats.EMPTY;
+
+    private volatile double demand;
+
+    private long lastBorrowed;
+
+    private long lastAdaptNanos = System.nanoTime();
+
+    public AdaptivePoolManager(RedisConnectionFactory connectionFactory, AdaptiveIdlePolicy idlePolicy,
+                               RedisCommandTracker commandTracker, MeterRegistry meterRegistry,
+                               @Value("${app.redis.pool.adaptive.enabled:true}") boolean enabled,
+                               @Value("${app.redis.pool.adaptive.headroom:1.5}") double headroom,
+                               @Value("${app.redis.pool.adaptive.wait-threshold:5ms}") Duration waitThreshold,
+                               @Value("${app.redis.pool.adaptive.prewarm:4}") int prewarm) throws MalformedObjectNameException {
+        this.connectionFactory = connectionFactory;
+        this.idlePolicy = idlePolicy;
+        this.meterRegistry = meterRegistry;
+        this.enabled = enabled;
+        this.headroom = headroom;
+        this.waitThresholdMillis = waitThreshold.toMillis();
+        this.prewarm = prewarm;
+        this.poolNames = new ObjectName("org.apache.commons.pool2:type=GenericObjectPool,name="
+                + AdaptiveIdlePolicy.JMX_PREFIX + "*");
+
+        this.rtt = Timer.builder("kaiming.redis.rtt").publishPercentiles(0.5, 0.99).register(meterRegistry);
+        this.prewarmed = Counter.builder("kaiming.redis.pool.prewarmed").register(meterRegistry);
+        Gauge.builder("kaiming.redis.pool.active", this, m -> m.lastStats.active()).register(meterRegistry);
+        Gauge.builder("kaiming.redis.pool.idle", this, m -> m.lastStats.idle()).register(meterRegistry);
+        Gauge.builder("kaiming.redis.pool.waiters", this, m -> m.lastStats.waiters()).register(meterRegistry);
+        Gauge.builder("kaiming.redis.pool.borrow.wait", this, m -> m.lastStats.meanBorrowWaitMillis())
+                .baseUnit("milliseconds").register(meterRegistry);
+        Gauge.builder("kaiming.redis.pool.target.idle", idlePolicy, AdaptiveIdlePolicy::targetIdle).register(meterRegistry);
+        Gauge.builder("kaiming.redis.pool.demand", this, m -> m.demand).register(meterRegistry);
+        Gauge.builder("kaiming.redis.commands.inflight", commandTracker, RedisCommandTracker::inFlight)
+                .register(meterRegistry);
+        FunctionCounter.builder("kaiming.redis.commands.failed", commandTracker, RedisCommandTracker::failed)
+                .register(meterRegistry);
+    }
+
+    @EventListener(ApplicationReadyEvent.class)
+    public void prewarmOnStartup() {
+        if (enabled && prewarm > 0) {
+            int opened = prewarm(Math.min(prewarm, idlePolicy.maxIdleBound()));
+            log.info("Redis connection pool prewarmed: {} connections", opened);
+        }
+    }
+
+    @Scheduled(fixedDelayString = "${app.redis.pool.adaptive.interval:5000}")
+    public void adapt() {
+        if (!enabled) {
+            return;
+        }
+        measureRtt();
+        PoolStats stats = poolStats();
+        lastStats = stats;
+        if (stats.pools() == 0) {
+            // 还没有借过独占连接，池尚未创建
+            return;
+        }
+
+        long now = System.nanoTime();
+        double seconds = Math.max((now - lastAdaptNanos) / 1e9, 0.001);
+        long borrowed = stats.borrowed() - lastBorrowed;
+        lastAdaptNanos = now;
+        lastBorrowed = stats.borrowed();
+
+        double current = Math.max(stats.active() + stats.waiters(),
+                borrowed / seconds * stats.meanActiveMillis() / 1000.0);
+        demand = current >= demand ? current : demand * (1 - DECAY) + current * DECAY;
+
+        int target = (int) Math.ceil(demand * headroom) - stats.active();
+        boolean pressure = stats.waiters() > 0 || stats.meanBorrowWaitMillis() > waitThresholdMillis;
+        if (pressure) {
+            target = Math.max(target, stats.idle() + stats.waiters() + 1);
+        }
+        idlePolicy.setTargetIdle(target);
+
+        int missing = idlePolicy.targetIdle() - stats.idle();
+        if (pressure && missing > 0 && warming.compareAndSet(false, true)) {
+            log.info("Redis pool under pressure (waiters={}, borrowWait={}ms), prewarming {} connections",
+                    stats.waiters(), stats.meanBorrowWaitMillis(), missing);
+            Thread.ofVirtual().name("redis-pool-prewarm").start(() -> {
+                try {
+                    prewarm(missing);
+                } finally {
+                    warming.set(false);
+                }
+            });
+        }
+    }
+
+    /**
+     * 同时借出 count 个独占连接再全部归还，使其留在池中成为空闲连接
+     *
+     * @return 实际借到的连接数
+     */
+    public int prewarm(int count) {
+        List<RedisConnection> connections = new ArrayList<>(count);
+        int opened = 0;
+        try {
+            for (int i = 0; i < count; i++) {
+                RedisConnection connection = connectionFactory.getConnection();
+                connections.add(connection);
+                // 流水线需要独占连接，从池中借出
+                connection.openPipeline();
+                opened++;
+            }
+        } catch (Exception e) {
+            log.warn("Redis pool prewarm stopped after {} connections: {}", opened, e.getMessage());
+        } finally {
+            for (RedisConnection connection : connections) {
+                try {
+                    if (connection.isPipelined()) {
+                        connection.closePipeline();
+                    }
+                    connection.close();
+                } catch (Exception e) {
+                    log.debug("Redis pool prewarm release failed: {}", e.getMessage());
+                }
+            }
+        }
+        prewarmed.increment(opened);
+        return opened;
+    }
+
+    private void measureRtt() {
+        try (RedisConnection connection = connectionFactory.getConnection()) {
+            long start = System.nanoTime();
+            connection.ping();
+            rtt.record(System.nanoTime() - start, TimeUnit.NANOSECONDS);
+        } catch (Exception e) {
+            log.debug("Redis RTT probe failed: {}", e.getMessage());
+        }
+    }
+
+    /**
+     * 汇总所有池（standalone 每种连接类型一个池）的 JMX 统计
+     * 按属性名读取：GenericObjectPoolMXBean 含不可转换的 listAllObjects()，无法生成 MXBean 代理
+     */
+    private PoolStats poolStats() {
+        int pools = 0;
+        int active = 0;
+        int idle = 0;
+        int waiters = 0;
+        long meanBorrowWait = 0;
+        long borrowed = 0;
+        long meanActive = 0;
+        for (ObjectName name : mBeanServer.queryNames(poolNames, null)) {
+            try {
+                active += (int) attribute(name, "NumActive");
+                idle += (int) attribute(name, "NumIdle");
+                waiters += (int) attribute(name, "NumWaiters");
+                meanBorrowWait = Math.max(meanBorrowWait, attribute(name, "MeanBorrowWaitTimeMillis"));
+                borrowed += attribute(name, "BorrowedCount");
+                meanActive = Math.max(meanActive, attribute(name, "MeanActiveTimeMillis"));
+                pools++;
+            } catch (JMException e) {
+                // 池已关闭注销
+                log.debug("Redis pool stats unavailable: {} {}", name, e.getMessage());
+            }
+        }
+        return new PoolStats(pools, active, idle, waiters, meanBorrowWait, borrowed, meanActive);
+    }
+
+    private long attribute(ObjectName name, String attribute) throws JMException {
+        return ((Number) mBeanServer.getAttribute(name, attribute)).longValue();
+    }
+
+    /**
+     * @param meanBorrowWaitMillis 最近 100 次借出的平均等待（多个池取最大）
+     * @param meanActiveMillis     最近 100 次借出的平均占用时长（多个池取最大）
+     */
+    record PoolStats(int pools, int active, int idle, int waiters, long meanBorrowWaitMillis,
+                     long borrowed, long meanActiveMillis) {
+
+        static final PoolStats EMPTY = new PoolStats(0, 0, 0, 0, 0, 0, 0);
+    }
+}
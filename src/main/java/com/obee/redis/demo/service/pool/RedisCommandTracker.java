@@ -0,0 +1,67 @@
+package com.obee.redis.demo.service.pool;
+
+import io.lettuce.core.event.command.CommandFailedEvent;
+import io.lettuce.core.event.command.CommandListener;
+import io.lettuce.core.event.command.CommandStartedEvent;
+import io.lettuce.core.event.command.CommandSucceededEvent;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.config.BeanPostProcessor;
+import org.springframework.data.redis.connection.lettuce.LettuceConnectionFactory;
+import org.springframework.stereotype.Component;
+
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * @description:
+ * @author: Guanwf
+ * @date: 2026/10/22 16:30
+ *
+ *  * 统计 Lettuce 正在执行（已发出、未返回）的命令数，即各连接命令队列的总深度
+ *  * Lettuce 只在建连时读取 CommandListener，因此在连接工厂初始化完成（客户端已创建、尚未建连）时注册
+ *
+ */
+@Slf4j
+@Component
+public class RedisCommandTracker implements CommandListener, BeanPostProcessor {
+
+    private final AtomicLong inFlight = new AtomicLong();
+
+    private final LongAdder failed = new LongAdder();
+
+    @Override
+    public Object postProcessAfterInitialization(Object bean, String beanName) {
+        if (bean instanceof LettuceConnectionFactory factory) {
+            try {
+                factory.getRequiredNativeClient().addListener(this);
+            } catch (IllegalStateException e) {
+                log.warn("Redis command tracking disabled, client not started: {}", e.getMessage());
+            }
+        }
+        return bean;
+    }
+
+    @Override
+    public void commandStarted(CommandStartedEvent event) {
+        inFlight.incrementAndGet();
+    }
+
+    @Override
+    public void commandSucceeded(CommandSucceededEvent event) {
+        inFlight.decrementAndGet();
+    }
+
+    @Override
+    public void commandFailed(CommandFailedEvent event) {
+        inFlight.decrementAndGet();
+        failed.increment();
+    }
+
+    public long inFlight() {
+        return inFlight.get();
+    }
+
+    public long failed() {
+        return failed.sum();
+    }
+}
@@ -0,0 +1,364 @@
+package com.obee.redis.demo.service.queue;
+
+import com.fasterxml.jackson.databind.JavaType;
+import io.lettuce.core.XAutoClaimArgs;
+import io.lettuce.core.models.stream.ClaimedMessages;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.MeterRegistry;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.data.redis.connection.RedisConnection;
+import org.springframework.data.redis.connection.RedisStreamCommands.XAddOptions;
+import org.springframework.data.redis.connection.lettuce.LettuceConnection;
+import org.springframework.data.redis.connection.stream.ByteRecord;
+import org.springframework.data.redis.connection.stream.Consumer;
+import org.springframework.data.redis.connection.stream.ReadOffset;
+import org.springframework.data.redis.connection.stream.RecordId;
+import org.springframework.data.redis.connection.stream.StreamOffset;
+import org.springframework.data.redis.connection.stream.StreamReadOptions;
+import org.springframework.data.redis.connection.stream.StreamRecords;
+import org.springframework.data.redis.core.RedisCallback;
+
+import java.nio.charset.StandardCharsets;
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collection;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * @description:
+ * @author: Guanwf
+ * @date: 2026/10/21 14:30
+ *
+ *  * 基于 Redis Stream 的工作队列，替代 RedisService.lPush / lGet（RPUSH + 全量读取，无确认）
+ *  * 1. 生产：XADD MAXLEN ~ n 近似裁剪，批量发送在一个 Pipeline 中完成
+ *  * 2. 消费：消费组 + 虚拟线程，XREADGROUP COUNT n BLOCK t，整批处理成功后一次 XACK
+ *  * 3. 失败：不确认，空闲超过 minIdle 后由任意消费者通过 XAUTOCLAIM 接管重试（至少一次）；
+ *  *    handler 失败后消费者指数退避（100ms 起，最长 30s），成功一次即恢复
+ *  * 4. 扩展：同一消费组的消费者可以分布在多个节点，消费者名为 nodeId-序号
+ *
+ *  * 注意：裁剪按长度进行，积压超过 maxLen 时最旧的未消费消息会被丢弃，maxLen 需大于预期积压
+ *  * 阻塞读取占用专用连接，每个消费者一条，连接池需容纳 consumers 个连接
+ *
+ */
+@Slf4j
+public class StreamQueue<T> {
+
+    private static final byte[] FIELD_PAYLOAD = "p".getBytes(StandardCharsets.UTF_8);
+
+    private final String stream;
+
+    private final byte[] rawStream;
+
+    private final JavaType type;
+
+    private final Options options;
+
+    private final StreamQueueFactory factory;
+
+    private final Counter published;
+
+    private final Counter acked;
+
+    private final Counter reclaimed;
+
+    private final Counter failed;
+
+    StreamQueue(String stream, JavaType type, Options options, StreamQueueFactory factory) {
+        this.stream = stream;
+        this.rawStream = stream.getBytes(StandardCharsets.UTF_8);
+        this.type = type;
+        this.options = options;
+        this.factory = factory;
+        MeterRegistry registry = factory.meterRegistry();
+        this.published = registry.counter("kaiming.queue.published", "stream", stream);
+        this.acked = registry.counter("kaiming.queue.acked", "stream", stream);
+        this.reclaimed = registry.counter("kaiming.queue.reclaimed", "stream", stream);
+        this.failed = registry.counter("kaiming.queue.failed", "stream", stream);
+    }
+
+    /**
+     * 发送单条消息
+     *
+     * @return 消息 ID；发送失败返回 null
+     */
+    public RecordId add(T message) {
+        List<RecordId> ids = addAll(List.of(message));
+        return ids.isEmpty() ? null : ids.get(0);
+    }
+
+    /**
+     * 批量发送：一个 Pipeline，每条消息一个 XADD（Stream 只在一个 slot，集群下同样适用）
+     *
+     * @return 按发送顺序的消息 ID；发送失败返回空列表
+     */
+    public List<RecordId> addAll(Collection<? extends T> messages) {
+        if (messages.isEmpty()) {
+            return List.of();
+        }
+        List<ByteRecord> records = new ArrayList<>(messages.size());
+        for (T message : messages) {
+            records.add(StreamRecords.rawBytes(Map.of(FIELD_PAYLOAD, factory.valueCodec().encode(message)))
+                    .withStreamKey(rawStream));
+        }
+        XAddOptions addOptions = XAddOptions.maxlen(options.maxLen()).approximateTrimming(true);
+        try {
+            List<Object> results = factory.redisTemplate().executePipelined((RedisCallback<Object>) connection -> {
+                records.forEach(record -> connection.streamCommands().xAdd(record, addOptions));
+                return null;
+            });
+            published.increment(results.size());
+            return results.stream().map(RecordId.class::cast).toList();
+        } catch (Exception e) {
+            log.error("Stream queue add failed: {} ({} messages)", stream, messages.size(), e);
+            return List.of();
+        }
+    }
+
+    /**
+     * 队列长度（XLEN，含已消费未裁剪的消息）
+     */
+    public long size() {
+        Long size = factory.redisTemplate().execute((RedisCallback<Long>) connection ->
+                connection.streamCommands().xLen(rawStream));
+        return size == null ? 0 : size;
+    }
+
+    /**
+     * 以默认消费者数启动消费
+     */
+    public Subscription consume(String group, Handler<T> handler) {
+        return consume(group, options.consumers(), handler);
+    }
+
+    /**
+     * 启动 consumers 个消费者（每个一个虚拟线程），返回的 Subscription 用于停止；应用关闭时自动停止
+     */
+    public Subscription consume(String group, int consumers, Handler<T> handler) {
+        ensureGroup(group);
+        List<Thread> threads = new ArrayList<>(consumers);
+        Subscription subscription = new Subscription(threads);
+        for (int i = 0; i < consumers; i++) {
+            String consumerName = factory.nodeId() + "-" + i;
+            threads.add(Thread.ofVirtual().name("stream-queue-" + stream + "-" + i)
+                    .start(() -> consumeLoop(group, consumerName, handler, subscription)));
+        }
+        factory.register(subscription);
+        log.info("Stream queue consuming: {} group={} consumers={}", stream, group, consumers);
+        return subscription;
+    }
+
+    private void consumeLoop(String group, String consumerName, Handler<T> handler, Subscription subscription) {
+        Consumer consumer = Consumer.from(group, consumerName);
+        // 先处理本消费者重启前已投递未确认的消息：从 0 开始，每批之后推进到该批最后一条之后，
+        // 处理失败的消息留在 PEL 中，空闲超过 minIdle 后由 XAUTOCLAIM 接管，不会在这里反复重读
+        boolean replayPending = true;
+        String replayOffset = "0";
+        String reclaimCursor = "0-0";
+        long nextReclaim = 0;
+        long backoff = 100;
+
+        while (subscription.running) {
+            try {
+                boolean handled = true;
+                if (System.currentTimeMillis() >= nextReclaim) {
+                    Reclaimed page = reclaim(group, consumerName, reclaimCursor, handler);
+                    reclaimCursor = page.cursor();
+                    handled = page.handled();
+                    // 游标回到 0-0 表示一轮扫描结束
+                    if ("0-0".equals(reclaimCursor)) {
+                        nextReclaim = System.currentTimeMillis() + options.reclaimInterval().toMillis();
+                    }
+                }
+
+                StreamReadOptions readOptions = replayPending
+                        ? StreamReadOptions.empty().count(options.batchSize())
+                        : StreamReadOptions.empty().count(options.batchSize()).block(options.block());
+                ReadOffset offset = replayPending ? ReadOffset.from(replayOffset) : ReadOffset.lastConsumed();
+                List<ByteRecord> records = factory.redisTemplate().execute((RedisCallback<List<ByteRecord>>) connection ->
+                        connection.streamCommands().xReadGroup(consumer, readOptions, StreamOffset.create(rawStream, offset)));
+
+                if (records == null || records.isEmpty()) {
+                    replayPending = false;
+                } else {
+                    if (replayPending) {
+                        replayOffset = records.get(records.size() - 1).getId().getValue();
+                    }
+                    handled &= process(group, records.stream()
+                            .map(r -> new RawMessage(r.getId(), payload(r.getValue()))).toList(), handler);
+                }
+
+                if (handled) {
+                    backoff = 100;
+                    continue;
+                }
+                // handler 失败（下游故障）：退避后再读取新消息，避免以最快速度把消息逐批读入 PEL
+                log.warn("Stream queue handler failing: {} {}, next batch in {}ms", stream, consumerName, backoff);
+            } catch (Exception e) {
+                if (!subscription.running) {
+                    break;
+                }
+                log.warn("Stream queue consume failed: {} {}, retry in {}ms: {}", stream, consumerName, backoff, e.getMessage());
+            }
+            try {
+                Thread.sleep(backoff);
+            } catch (InterruptedException ie) {
+                break;
+            }
+            backoff = Math.min(backoff * 2, 30_000);
+        }
+    }
+
+    /**
+     * XAUTOCLAIM 一页：接管空闲超过 minIdle 的消息（其它消费者崩溃或处理失败），并立即处理
+     * 接管会重置消息的空闲时间，再次失败的消息至少 minIdle 之后才会被重新接管
+     * Spring Data Redis 未提供 XAUTOCLAIM，使用 Lettuce 原生异步命令
+     */
+    private Reclaimed reclaim(String group, String consumerName, String cursor, Handler<T> handler) throws Exception {
+        ClaimedMessages<byte[], byte[]> claimed;
+        try (RedisConnection connection = factory.connectionFactory().getConnection()) {
+            if (!(connection instanceof LettuceConnection lettuce)) {
+                return new Reclaimed("0-0", true);
+            }
+            XAutoClaimArgs<byte[]> args = XAutoClaimArgs.Builder.xautoclaim(
+                            io.lettuce.core.Consumer.from(bytes(group), bytes(consumerName)), options.minIdle(), cursor)
+                    .count(options.batchSize());
+            claimed = lettuce.getNativeConnection().xautoclaim(rawStream, args).get(10, TimeUnit.SECONDS);
+        }
+        boolean handled = true;
+        if (!claimed.getMessages().isEmpty()) {
+            reclaimed.increment(claimed.getMessages().size());
+            log.info("Stream queue reclaimed {} idle messages: {} -> {}", claimed.getMessages().size(), stream, consumerName);
+            handled = process(group, claimed.getMessages().stream()
+                    .map(m -> new RawMessage(RecordId.of(m.getId()), payload(m.getBody()))).toList(), handler);
+        }
+        return new Reclaimed(claimed.getId(), handled);
+    }
+
+    /**
+     * 整批交给 handler，成功后一次 XACK
+     * 无法解码的消息直接确认并记录，避免反复投递
+     *
+     * @return handler 是否成功（没有可处理的消息时为 true）
+     */
+    private boolean process(String group, List<RawMessage> rawMessages, Handler<T> handler) {
+        List<Message<T>> messages = new ArrayList<>(rawMessages.size());
+        List<RecordId> poison = new ArrayList<>();
+        for (RawMessage raw : rawMessages) {
+            try {
+                messages.add(new Message<>(raw.id(), factory.valueCodec().decode(raw.payload(), type)));
+            } catch (Exception e) {
+                log.error("Stream queue message dropped, cannot decode: {} {}", stream, raw.id(), e);
+                poison.add(raw.id());
+            }
+        }
+        if (!poison.isEmpty()) {
+            ack(group, poison);
+            failed.increment(poison.size());
+        }
+        if (messages.isEmpty()) {
+            return true;
+        }
+        try {
+            handler.handle(messages);
+        } catch (Exception e) {
+            // 不确认：空闲超过 minIdle 后被重新接管
+            failed.increment(messages.size());
+            log.error("Stream queue handler failed: {} ({} messages)", stream, messages.size(), e);
+            return false;
+        }
+        ack(group, messages.stream().map(Message::id).toList());
+        return true;
+    }
+
+    private void ack(String group, List<RecordId> ids) {
+        Long count = factory.redisTemplate().execute((RedisCallback<Long>) connection ->
+                connection.streamCommands().xAck(rawStream, group, ids.toArray(RecordId[]::new)));
+        acked.increment(count == null ? 0 : count);
+    }
+
+    /**
+     * 创建消费组（MKSTREAM），从队列开头消费；已存在时忽略 BUSYGROUP
+     */
+    private void ensureGroup(String group) {
+        try {
+            factory.redisTemplate().execute((RedisCallback<String>) connection ->
+                    connection.streamCommands().xGroupCreate(rawStream, group, ReadOffset.from("0"), true));
+        } catch (Exception e) {
+            if (!String.valueOf(e.getMessage()).contains("BUSYGROUP")) {
+                throw e;
+            }
+        }
+    }
+
+    private static byte[] payload(Map<byte[], byte[]> body) {
+        for (Map.Entry<byte[], byte[]> field : body.entrySet()) {
+            if (Arrays.equals(field.getKey(), FIELD_PAYLOAD)) {
+                return field.getValue();
+            }
+        }
+        return new byte[0];
+    }
+
+    private static byte[] bytes(String value) {
+        return value.getBytes(StandardCharsets.UTF_8);
+    }
+
+    private record RawMessage(RecordId id, byte[] payload) {
+    }
+
+    private record Reclaimed(String cursor, boolean handled) {
+    }
+
+    /**
+     * 队列消息
+     */
+    public record Message<T>(RecordId id, T payload) {
+    }
+
+    /**
+     * 批处理回调；抛出异常时整批不确认
+     */
+    @FunctionalInterface
+    public interface Handler<T> {
+        void handle(List<Message<T>> messages) throws Exception;
+    }
+
+    /**
+     * @param maxLen          XADD MAXLEN ~ 上限
+     * @param consumers       每个节点的消费者数
+     * @param batchSize       XREADGROUP / XAUTOCLAIM 的 COUNT
+     * @param block           XREADGROUP 的 BLOCK
+     * @param minIdle         消息空闲超过该时长才会被其它消费者接管
+     * @param reclaimInterval 两轮 XAUTOCLAIM 扫描之间的间隔
+     */
+    public record Options(long maxLen, int consumers, int batchSize, Duration block, Duration minIdle,
+                          Duration reclaimInterval) {
+    }
+
+    /**
+     * 一次 consume 启动的全部消费者
+     */
+    public static class Subscription implements AutoCloseable {
+
+        private final List<Thread> threads;
+
+        private volatile boolean running = true;
+
+        Subscription(List<Thread> threads) {
+            this.threads = threads;
+        }
+
+        public boolean isRunning() {
+            return running;
+        }
+
+        @Override
+        public void close() {
+            running = false;
+            threads.forEach(Thread::interrupt);
+        }
+    }
+}
@@ -0,0 +1,103 @@
+package com.obee.redis.demo.service.queue;
+
+import com.obee.redis.demo.service.codec.JsonValueCodec;
+import io.micrometer.core.instrument.MeterRegistry;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.DisposableBean;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.data.redis.connection.RedisConnectionFactory;
+import org.springframework.data.redis.core.RedisTemplate;
+import org.springframework.stereotype.Component;
+
+import java.time.Duration;
+import java.util.List;
+import java.util.concurrent.CopyOnWriteArrayList;
+
+/**
+ * @description:
+ * @author: Guanwf
+ * @date: 2026/10/21 14:10
+ *
+ *  * StreamQueue 的创建入口，统一持有连接、编解码与默认参数，关闭时停止所有消费者
+ *  * 用法：
+ *  *   StreamQueue<OrderDTO> queue = factory.create("queue:orders", OrderDTO.class);
+ *  *   queue.addAll(orders);
+ *  *   queue.consume("order-workers", messages -> ...);
+ *
+ */
+@Slf4j
+@Component
+public class StreamQueueFactory implements DisposableBean {
+
+    private final RedisTemplate<String, Object> redisTemplate;
+
+    private final RedisConnectionFactory connectionFactory;
+
+    private final JsonValueCodec valueCodec;
+
+    private final MeterRegistry meterRegistry;
+
+    private final StreamQueue.Options defaults;
+
+    private final String nodeId;
+
+    private final List<StreamQueue.Subscription> subscriptions = new CopyOnWriteArrayList<>();
+
+    public StreamQueueFactory(RedisTemplate<String, Object> redisTemplate, RedisConnectionFactory connectionFactory,
+                              JsonValueCodec valueCodec, MeterRegistry meterRegistry,
+                              @Value("${app.node-id:${HOSTNAME:local}}") String nodeId,
+                              @Value("${app.queue.max-len:1000000}") long maxLen,
+                              @Value("${app.queue.consumers:2}") int consumers,
+                              @Value("${app.queue.batch-size:100}") int batchSize,
+                              @Value("${app.queue.block:2s}") Duration block,
+                              @Value("${app.queue.min-idle:60s}") Duration minIdle,
+                              @Value("${app.queue.reclaim-interval:30s}") Duration reclaimInterval) {
+        this.redisTemplate = redisTemplate;
+        this.connectionFactory = connectionFactory;
+        this.valueCodec = valueCodec;
+        this.meterRegistry = meterRegistry;
+        this.nodeId = nodeId;
+        this.defaults = new StreamQueue.Options(maxLen, consumers, batchSize, block, minIdle, reclaimInterval);
+    }
+
+    public <T> StreamQueue<T> create(String stream, Class<T> type) {
+        return create(stream, type, defaults);
+    }
+
+    public <T> StreamQueue<T> create(String stream, Class<T> type, StreamQueue.Options options) {
+        return new StreamQueue<>(stream, valueCodec.type(type), options, this);
+    }
+
+    public StreamQueue.Options defaults() {
+        return defaults;
+    }
+
+    RedisTemplate<String, Object> redisTemplate() {
+        return redisTemplate;
+    }
+
+    RedisConnectionFactory connectionFactory() {
+        return connectionFactory;
+    }
+
+    JsonValueCodec valueCodec() {
+        return valueCodec;
+    }
+
+    MeterRegistry meterRegistry() {
+        return meterRegistry;
+    }
+
+    String nodeId() {
+        return nodeId;
+    }
+
+    void register(StreamQueue.Subscription subscription) {
+        subscriptions.add(subscription);
+    }
+
+    @Override
+    public void destroy() {
+        subscriptions.forEach(StreamQueue.Subscription::close);
+    }
+}
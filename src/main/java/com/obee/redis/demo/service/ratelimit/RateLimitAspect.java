@@ -0,0 +1,44 @@
+package com.obee.redis.demo.service.ratelimit;
+
+import com.obee.redis.demo.annotation.RateLimited;
+import com.obee.redis.demo.service.SpelKeyGenerator;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.aspectj.lang.ProceedingJoinPoint;
+import org.aspectj.lang.annotation.Around;
+import org.aspectj.lang.annotation.Aspect;
+import org.aspectj.lang.reflect.MethodSignature;
+import org.springframework.stereotype.Component;
+
+import java.time.Duration;
+
+/**
+ * @description:
+ * @author: Guanwf
+ * @date: 2026/10/19 14:55
+ */
+@Slf4j
+@Aspect
+@Component
+@RequiredArgsConstructor
+public class RateLimitAspect {
+
+    private final RateLimiterService rateLimiterService;
+
+    private final SpelKeyGenerator keyGenerator;
+
+    @Around("@annotation(rateLimited)")
+    public Object around(ProceedingJoinPoint joinPoint, RateLimited rateLimited) throws Throwable {
+        MethodSignature signature = (MethodSignature) joinPoint.getSignature();
+        String key = keyGenerator.generate(rateLimited.key(), signature.getMethod(), joinPoint.getArgs());
+
+        Duration window = Duration.of(rateLimited.window(), rateLimited.timeUnit().toChronoUnit());
+        boolean allowed = rateLimiterService.tryAcquire(key, rateLimited.limit(), window,
+                rateLimited.algorithm(), rateLimited.localPreFilter());
+        if (!allowed) {
+            log.info("Rate limited: {}", key);
+            throw new RateLimitExceededException(key);
+        }
+        return joinPoint.proceed();
+    }
+}
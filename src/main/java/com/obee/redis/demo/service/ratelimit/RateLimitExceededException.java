@@ -0,0 +1,17 @@
+package com.obee.redis.demo.service.ratelimit;
+
+import org.springframework.http.HttpStatus;
+import org.springframework.web.bind.annotation.ResponseStatus;
+
+/**
+ * @description:
+ * @author: Guanwf
+ * @date: 2026/10/19 14:15
+ */
+@ResponseStatus(HttpStatus.TOO_MANY_REQUESTS)
+public class RateLimitExceededException extends RuntimeException {
+
+    public RateLimitExceededException(String key) {
+        super("Rate limit exceeded: " + key);
+    }
+}
@@ -0,0 +1,137 @@
+package com.obee.redis.demo.service.ratelimit;
+
+import com.obee.redis.demo.annotation.RateLimited.Algorithm;
+import com.obee.redis.demo.service.LuaScripts;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+
+import java.time.Clock;
+import java.time.Duration;
+import java.util.List;
+import java.util.Map;
+import java.util.UUID;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * @description:
+ * @author: Guanwf
+ * @date: 2026/10/19 14:20
+ *
+ *  * 分布式限流（滑动窗口 / 令牌桶），每次检查一个 Lua 脚本、一次往返
+ *
+ *  * 本地预过滤：
+ *  * Redis 每次返回剩余额度，本地记为一个短期有效的“提示值”。
+ *  * 在提示值有效期内，若 剩余额度 - 本地已预放行数 仍高于 limit * local-ratio，则直接放行不访问 Redis；
+ *  * 预放行的数量随下一次 Redis 检查一并上报（只记账不判定）。
+ *  * 多实例同时预放行时，最坏情况每个实例多放行 (1 - local-ratio) * limit，以提示值有效期为界。
+ *
+ */
+@Slf4j
+@Component
+public class RateLimiterService {
+
+    private final LuaScripts luaScripts;
+
+    // 本地预放行阈值：剩余额度高于 limit 的该比例时才允许本地放行
+    private final double localRatio;
+
+    // 本地提示值的最长有效期
+    private final long maxHintMillis;
+
+    private final String instanceId = UUID.randomUUID().toString();
+
+    private final AtomicLong sequence = new AtomicLong();
+
+    private final Map<String, LocalQuota> hints = new ConcurrentHashMap<>();
+
+    // 提示值有效期的时间来源，测试中替换为可拨动的时钟
+    private final Clock clock;
+
+    @Autowired
+    public RateLimiterService(LuaScripts luaScripts,
+                              @Value("${app.rate-limit.local-ratio:0.5}") double localRatio,
+                              @Value("${app.rate-limit.local-max-age:1s}") Duration maxHintAge) {
+        this(luaScripts, localRatio, maxHintAge, Clock.systemUTC());
+    }
+
+    RateLimiterService(LuaScripts luaScripts, double localRatio, Duration maxHintAge, Clock clock) {
+        this.luaScripts = luaScripts;
+        this.localRatio = localRatio;
+        this.maxHintMillis = maxHintAge.toMillis();
+        this.clock = clock;
+    }
+
+    /**
+     * 申请 1 个许可
+     *
+     * @return true 放行；false 超限
+     */
+    public boolean tryAcquire(String key, long limit, Duration window, Algorithm algorithm, boolean localPreFilter) {
+        String redisKey = "rate:{" + key + "}";
+        long now = clock.millis();
+
+        // 每个 Key 一个长期存在的 LocalQuota，只替换其中的提示值：预放行计数不会落在被替换掉的旧对象上
+        LocalQuota quota = hints.computeIfAbsent(redisKey, k -> new LocalQuota());
+        Hint hint = quota.hint;
+        if (localPreFilter && hint != null && now < hint.expiresAt) {
+            long used = quota.pending.incrementAndGet();
+            if (hint.remaining - used > limit * localRatio) {
+                return true;
+            }
+            // 额度不够宽裕，撤销本地计数，交给 Redis 判定
+            quota.pending.decrementAndGet();
+        }
+
+        long pending = quota.pending.getAndSet(0);
+        try {
+            List<?> result = execute(redisKey, limit, window, algorithm, pending);
+            boolean allowed = ((Number) result.get(0)).longValue() == 1;
+            long remaining = ((Number) result.get(1)).longValue();
+
+            long hintMillis = Math.min(window.toMillis() / 10, maxHintMillis);
+            quota.hint = new Hint(remaining, now + hintMillis);
+            return allowed;
+        } catch (Exception e) {
+            // 未上报的预放行数放回，随下一次检查上报
+            quota.pending.addAndGet(pending);
+            // 限流属于保护措施，Redis 不可用时放行（fail-open），避免限流器本身成为故障点
+            log.error("Rate limit check failed, allow by default: {}", redisKey, e);
+            return true;
+        }
+    }
+
+    private List<?> execute(String redisKey, long limit, Duration window, Algorithm algorithm, long pending) {
+        long windowMillis = window.toMillis();
+        return switch (algorithm) {
+            case SLIDING_WINDOW -> luaScripts.run(LuaScripts.RATE_SLIDING_WINDOW, List.of(redisKey),
+                    windowMillis, limit, 1, pending, instanceId + ":" + sequence.incrementAndGet());
+            case TOKEN_BUCKET -> luaScripts.run(LuaScripts.RATE_TOKEN_BUCKET, List.of(redisKey),
+                    limit, (double) limit / windowMillis, 1, pending);
+        };
+    }
+
+    /**
+     * 定期清理过期的本地提示值，防止 Key 维度很多时 Map 无限增长
+     * 还有未上报的预放行数时保留；过期后再等一个有效期，避开刚读到旧提示值、尚未计数的线程
+     */
+    @Scheduled(fixedDelay = 10_000)
+    public void evictExpiredHints() {
+        long now = clock.millis();
+        hints.values().removeIf(quota -> quota.pending.get() == 0
+                && (quota.hint == null || now >= quota.hint.expiresAt + maxHintMillis));
+    }
+
+    private static final class LocalQuota {
+        // Redis 最近一次返回的剩余额度，整体替换
+        private volatile Hint hint;
+        // 本地预放行、尚未上报的数量
+        private final AtomicLong pending = new AtomicLong();
+    }
+
+    private record Hint(long remaining, long expiresAt) {
+    }
+}
@@ -0,0 +1,145 @@
+package com.obee.redis.demo.service.response;
+
+import com.obee.redis.demo.annotation.CacheControl;
+import com.obee.redis.demo.annotation.KaimingCache;
+import com.obee.redis.demo.service.SpelKeyGenerator;
+import com.obee.redis.demo.service.invalidation.InvalidationRegistry;
+import com.obee.redis.demo.service.invalidation.InvalidationRegistry.KeyMapping;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.SmartInitializingSingleton;
+import org.springframework.beans.factory.annotation.Qualifier;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.core.annotation.AnnotatedElementUtils;
+import org.springframework.stereotype.Component;
+import org.springframework.web.bind.annotation.PathVariable;
+import org.springframework.web.method.HandlerMethod;
+import org.springframework.web.servlet.mvc.method.RequestMappingInfo;
+import org.springframework.web.servlet.mvc.method.annotation.RequestMappingHandlerMapping;
+
+import java.lang.reflect.Method;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.regex.Matcher;
+import java.util.regex.Pattern;
+
+/**
+ * @description:
+ * @author: Guanwf
+ * @date: 2026/10/21 11:20
+ *
+ *  * 响应缓存随实体失效：把 @CacheControl(responseCache = true, entity = "...") 接口的响应 Key 登记到 InvalidationRegistry
+ *  * 路径模式 /demo/users/{id} 转成 Key 模板 'resp:/demo/users/' + #id，实体变更事件到达时与 @KaimingCache 的 Key 一起删除
+ *  * 响应缓存是 Hash（每个变体一组字段），按 HASH 存储直接 UNLINK，所有变体一次清掉
+ *  * 没有墓碑：失效之前开始、之后才完成的慢请求仍可能写回旧响应，最多存活一个响应缓存 ttl
+ *  * 启动校验：路径中只能有一个变量、名称等于 entityId、绑定到方法的第一个参数，不满足时启动失败
+ *
+ */
+@Slf4j
+@Component
+public class ResponseCacheInvalidation implements SmartInitializingSingleton {
+
+    /**
+     * 响应缓存失效时使用的缓存名（kaiming.cache.evictions{cache=response}）
+     */
+    public static final String CACHE_NAME = "response";
+
+    // {name} / {name:regex} / {*name}
+    private static final Pattern PATH_VARIABLE = Pattern.compile("\\{\\*?([^}:]+)(?::[^}]*)?}");
+
+    private final RequestMappingHandlerMapping handlerMapping;
+
+    private final InvalidationRegistry invalidationRegistry;
+
+    private final SpelKeyGenerator keyGenerator;
+
+    private final String contextPath;
+
+    public ResponseCacheInvalidation(@Qualifier("requestMappingHandlerMapping") RequestMappingHandlerMapping handlerMapping,
+                                     InvalidationRegistry invalidationRegistry,
+                                     SpelKeyGenerator keyGenerator,
+                                     @Value("${server.servlet.context-path:}") String contextPath) {
+        this.handlerMapping = handlerMapping;
+        this.invalidationRegistry = invalidationRegistry;
+        this.keyGenerator = keyGenerator;
+        this.contextPath = contextPath;
+    }
+
+    @Override
+    public void afterSingletonsInstantiated() {
+        List<String> problems = new ArrayList<>();
+        for (Map.Entry<RequestMappingInfo, HandlerMethod> entry : handlerMapping.getHandlerMethods().entrySet()) {
+            HandlerMethod handlerMethod = entry.getValue();
+            CacheControl cacheControl = AnnotatedElementUtils.findMergedAnnotation(handlerMethod.getMethod(), CacheControl.class);
+            if (cacheControl == null) {
+                cacheControl = AnnotatedElementUtils.findMergedAnnotation(handlerMethod.getBeanType(), CacheControl.class);
+            }
+            if (cacheControl == null || !cacheControl.responseCache() || cacheControl.entity().isEmpty()) {
+                continue;
+            }
+            Method method = handlerMethod.getMethod();
+            String location = method.getDeclaringClass().getSimpleName() + "#" + method.getName();
+            String idParam = idParameter(method, cacheControl.entityId());
+            if (idParam == null) {
+                problems.add(location + ": first parameter must be @PathVariable(\"" + cacheControl.entityId() + "\")");
+                continue;
+            }
+            for (String pattern : entry.getKey().getPatternValues()) {
+                try {
+                    String template = template(contextPath, pattern, cacheControl.entityId(), idParam);
+                    invalidationRegistry.register(cacheControl.entity(),
+                            new KeyMapping(CACHE_NAME, template, method, KaimingCache.Storage.HASH));
+                } catch (IllegalArgumentException e) {
+                    problems.add(location + ": " + e.getMessage());
+                }
+            }
+        }
+        if (!problems.isEmpty()) {
+            throw new IllegalStateException("Invalid response cache invalidation mapping:\n  - "
+                    + String.join("\n  - ", problems));
+        }
+    }
+
+    /**
+     * 方法第一个参数的名称（SpEL 中的变量名），它不是名为 entityId 的 @PathVariable 时返回 null
+     */
+    private String idParameter(Method method, String entityId) {
+        if (method.getParameterCount() == 0) {
+            return null;
+        }
+        PathVariable pathVariable = method.getParameters()[0].getAnnotation(PathVariable.class);
+        String[] paramNames = keyGenerator.paramNames(method);
+        if (pathVariable == null || paramNames == null) {
+            return null;
+        }
+        String name = pathVariable.name().isEmpty() ? paramNames[0] : pathVariable.name();
+        return name.equals(entityId) ? paramNames[0] : null;
+    }
+
+    /**
+     * 路径模式 -> 响应缓存 Key 的 SpEL 模板（与 ResponseCacheService.key 拼出的 Key 相同）
+     *
+     * @param idParam 实体 ID 在 SpEL 中的变量名
+     * @throws IllegalArgumentException 路径中的变量不是恰好一个 entityId，或含有通配符
+     */
+    static String template(String contextPath, String pattern, String entityId, String idParam) {
+        Matcher matcher = PATH_VARIABLE.matcher(pattern);
+        if (!matcher.find() || !matcher.group(1).equals(entityId)) {
+            throw new IllegalArgumentException("path " + pattern + " must contain {" + entityId + "}");
+        }
+        String prefix = pattern.substring(0, matcher.start());
+        String suffix = pattern.substring(matcher.end());
+        if (matcher.find()) {
+            throw new IllegalArgumentException("path " + pattern + " must contain exactly one variable");
+        }
+        if (prefix.contains("*") || prefix.contains("?") || suffix.contains("*") || suffix.contains("?")) {
+            throw new IllegalArgumentException("path " + pattern + " must not contain wildcards");
+        }
+        String template = literal(ResponseCacheService.KEY_PREFIX + contextPath + prefix) + " + #" + idParam;
+        return suffix.isEmpty() ? template : template + " + " + literal(suffix);
+    }
+
+    private static String literal(String text) {
+        return "'" + text.replace("'", "''") + "'";
+    }
+}
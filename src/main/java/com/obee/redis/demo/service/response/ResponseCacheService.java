@@ -0,0 +1,150 @@
+package com.obee.redis.demo.service.response;
+
+import jakarta.servlet.http.HttpServletRequest;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.data.redis.core.RedisCallback;
+import org.springframework.data.redis.core.RedisTemplate;
+import org.springframework.http.HttpHeaders;
+import org.springframework.stereotype.Service;
+import org.springframework.util.DigestUtils;
+
+import java.nio.charset.StandardCharsets;
+import java.time.Duration;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.TreeMap;
+
+/**
+ * @description:
+ * @author: Guanwf
+ * @date: 2026/10/21 10:10
+ *
+ *  * HTTP 响应缓存（@CacheControl(responseCache = true)）的 Redis 存取
+ *  * 每个路径一个 Hash（resp:<uri>），同一路径的不同变体（查询参数、Accept、Accept-Encoding）是其中的不同字段：
+ *  * <variant>:etag / <variant>:type / <variant>:body，全部是原始字节，读写都不经过 ObjectMapper
+ *  * 1. 实体失效时删除整个 Hash 即清掉该路径的所有变体（见 ResponseCacheInvalidation）
+ *  * 2. 响应按 Accept / Accept-Encoding 区分，输出 Vary 告知下游缓存
+ *  * 只校验 ETag 时只取 etag 字段，304 不传输响应体
+ *
+ */
+@Slf4j
+@Service
+@RequiredArgsConstructor
+public class ResponseCacheService {
+
+    public static final String KEY_PREFIX = "resp:";
+
+    /**
+     * 响应内容随这些请求头变化
+     */
+    public static final String VARY = HttpHeaders.ACCEPT + ", " + HttpHeaders.ACCEPT_ENCODING;
+
+    private static final String FIELD_ETAG = ":etag";
+
+    private static final String FIELD_TYPE = ":type";
+
+    private static final String FIELD_BODY = ":body";
+
+    private final RedisTemplate<String, Object> redisTemplate;
+
+    /**
+     * 缓存 Key：请求路径（不含查询参数），同一路径的所有变体在一个 Hash 中
+     */
+    public static String key(HttpServletRequest request) {
+        return KEY_PREFIX + request.getRequestURI();
+    }
+
+    /**
+     * 变体：按参数名排序后的查询参数 + Accept + Accept-Encoding，参数顺序不同的同一请求共用一份缓存
+     * 取 MD5 的前 16 位作为字段前缀，字段名长度与请求头长度无关
+     */
+    public static String variant(HttpServletRequest request) {
+        StringBuilder variant = new StringBuilder();
+        char separator = '?';
+        for (Map.Entry<String, String[]> param : new TreeMap<>(request.getParameterMap()).entrySet()) {
+            for (String value : param.getValue()) {
+                variant.append(separator).append(param.getKey()).append('=').append(value);
+                separator = '&';
+            }
+        }
+        variant.append('\n').append(header(request, HttpHeaders.ACCEPT))
+                .append('\n').append(header(request, HttpHeaders.ACCEPT_ENCODING));
+        return DigestUtils.md5DigestAsHex(variant.toString().getBytes(StandardCharsets.UTF_8)).substring(0, 16);
+    }
+
+    /**
+     * 内容哈希 ETag（强校验，带引号）
+     */
+    public static String etag(byte[] body) {
+        return "\"" + DigestUtils.md5DigestAsHex(body) + "\"";
+    }
+
+    public String etagOf(String key, String variant) {
+        try {
+            byte[] etag = redisTemplate.execute((RedisCallback<byte[]>) connection ->
+                    connection.hashCommands().hGet(raw(key), field(variant, FIELD_ETAG)));
+            return etag == null ? null : new String(etag, StandardCharsets.UTF_8);
+        } catch (Exception e) {
+            log.error("Response cache etag read failed: {}", key, e);
+            return null;
+        }
+    }
+
+    public CachedResponse get(String key, String variant) {
+        try {
+            List<byte[]> values = redisTemplate.execute((RedisCallback<List<byte[]>>) connection ->
+                    connection.hashCommands().hMGet(raw(key), field(variant, FIELD_ETAG), field(variant, FIELD_TYPE),
+                            field(variant, FIELD_BODY)));
+            if (values == null || values.get(0) == null || values.get(2) == null) {
+                return null;
+            }
+            return new CachedResponse(new String(values.get(0), StandardCharsets.UTF_8),
+                    values.get(1) == null || values.get(1).length == 0 ? null
+                            : new String(values.get(1), StandardCharsets.UTF_8),
+                    values.get(2));
+        } catch (Exception e) {
+            log.error("Response cache read failed: {}", key, e);
+            return null;
+        }
+    }
+
+    /**
+     * 写入一个变体并刷新整个 Hash 的过期时间（各变体共用一个过期时间，最多比单独过期多存活一个 ttl）
+     */
+    public void put(String key, String variant, CachedResponse response, Duration ttl) {
+        Map<byte[], byte[]> fields = new LinkedHashMap<>();
+        fields.put(field(variant, FIELD_ETAG), response.etag().getBytes(StandardCharsets.UTF_8));
+        fields.put(field(variant, FIELD_TYPE), response.contentType() == null ? new byte[0]
+                : response.contentType().getBytes(StandardCharsets.UTF_8));
+        fields.put(field(variant, FIELD_BODY), response.body());
+        byte[] rawKey = raw(key);
+        try {
+            // 三个字段在同一条 HMSET 中写入，并发写入时不会出现 etag 与 body 不一致
+            redisTemplate.executePipelined((RedisCallback<Object>) connection -> {
+                connection.hashCommands().hMSet(rawKey, fields);
+                connection.keyCommands().pExpire(rawKey, ttl.toMillis());
+                return null;
+            });
+        } catch (Exception e) {
+            log.error("Response cache write failed: {}", key, e);
+        }
+    }
+
+    private static String header(HttpServletRequest request, String name) {
+        String value = request.getHeader(name);
+        return value == null ? "" : value.trim();
+    }
+
+    private static byte[] field(String variant, String suffix) {
+        return (variant + suffix).getBytes(StandardCharsets.UTF_8);
+    }
+
+    private static byte[] raw(String key) {
+        return key.getBytes(StandardCharsets.UTF_8);
+    }
+
+    public record CachedResponse(String etag, String contentType, byte[] body) {
+    }
+}
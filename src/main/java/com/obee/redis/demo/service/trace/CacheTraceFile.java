@@ -0,0 +1,148 @@
+package com.obee.redis.demo.service.trace;
+
+import java.io.BufferedInputStream;
+import java.io.BufferedOutputStream;
+import java.io.Closeable;
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.EOFException;
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * @description:
+ * @author: Guanwf
+ * @date: 2026/10/22 10:30
+ *
+ *  * 访问轨迹文件格式（大端，追加写入，进程崩溃时最后一条可能不完整，读取时忽略）
+ *  *   header: magic "KMTR"(4) | version(2) | createdAt(8) | sampleRate(8, double)
+ *  *   record: type(1) + body
+ *  *     NAME   (1): cacheId(2) | name(UTF)                 缓存名第一次出现前写入
+ *  *     ACCESS (2): time(8) | keyHash(8) | cacheId(2) | hit(1) | valueSize(4) | loadMicros(4)
+ *  * 只保存 Key 的 64 位哈希，不落地业务 Key
+ *
+ */
+public final class CacheTraceFile {
+
+    public static final int MAGIC = 0x4B4D5452; // "KMTR"
+
+    public static final short FORMAT_VERSION = 1;
+
+    public static final String SUFFIX = ".kmt";
+
+    private static final byte TYPE_NAME = 1;
+
+    private static final byte TYPE_ACCESS = 2;
+
+    private CacheTraceFile() {
+    }
+
+    public static Writer create(Path path, double sampleRate) throws IOException {
+        return new Writer(path, sampleRate);
+    }
+
+    /**
+     * 顺序读取一个轨迹文件
+     */
+    public static Header read(Path path, Visitor visitor) throws IOException {
+        try (DataInputStream in = new DataInputStream(new BufferedInputStream(Files.newInputStream(path), 1 << 16))) {
+            if (in.readInt() != MAGIC || in.readShort() != FORMAT_VERSION) {
+                throw new IOException("Not a cache trace file: " + path);
+            }
+            Header header = new Header(in.readLong(), in.readDouble(), new ArrayList<>());
+            try {
+                while (true) {
+                    byte type = in.readByte();
+                    if (type == TYPE_NAME) {
+                        int id = in.readUnsignedShort();
+                        String name = in.readUTF();
+                        while (header.cacheNames().size() <= id) {
+                            header.cacheNames().add(null);
+                        }
+                        header.cacheNames().set(id, name);
+                    } else if (type == TYPE_ACCESS) {
+                        visitor.access(in.readLong(), in.readLong(), in.readUnsignedShort(), in.readBoolean(),
+                                in.readInt(), in.readInt());
+                    } else {
+                        throw new IOException("Corrupted cache trace file: " + path);
+                    }
+                }
+            } catch (EOFException e) {
+                // 文件末尾（或最后一条未写完整）
+            }
+            return header;
+        }
+    }
+
+    public record Header(long createdAt, double sampleRate, List<String> cacheNames) {
+    }
+
+    public interface Visitor {
+
+        void access(long time, long keyHash, int cacheId, boolean hit, int valueSize, int loadMicros);
+    }
+
+    public static final class Writer implements Closeable {
+
+        private final DataOutputStream out;
+
+        private int nameCount;
+
+        private long records;
+
+        private Writer(Path path, double sampleRate) throws IOException {
+            this.out = new DataOutputStream(new BufferedOutputStream(Files.newOutputStream(path), 1 << 16));
+            out.writeInt(MAGIC);
+            out.writeShort(FORMAT_VERSION);
+            out.writeLong(System.currentTimeMillis());
+            out.writeDouble(sampleRate);
+        }
+
+        /**
+         * 写入新出现的缓存名（names 下标即 cacheId，只追加）
+         */
+        public void names(List<String> names) throws IOException {
+            for (; nameCount < names.size(); nameCount++) {
+                out.writeByte(TYPE_NAME);
+                out.writeShort(nameCount);
+                out.writeUTF(names.get(nameCount));
+            }
+        }
+
+        public void access(long time, long keyHash, int cacheId, boolean hit, int valueSize, int loadMicros)
+                throws IOException {
+            out.writeByte(TYPE_ACCESS);
+            out.writeLong(time);
+            out.writeLong(keyHash);
+            out.writeShort(cacheId);
+            out.writeBoolean(hit);
+            out.writeInt(valueSize);
+            out.writeInt(loadMicros);
+            records++;
+        }
+
+        public int nameCount() {
+            return nameCount;
+        }
+
+        public long records() {
+            return records;
+        }
+
+        public int size() {
+            return out.size();
+        }
+
+        public void flush() throws IOException {
+            out.flush();
+        }
+
+        @Override
+        public void close() throws IOException {
+            out.close();
+        }
+    }
+}
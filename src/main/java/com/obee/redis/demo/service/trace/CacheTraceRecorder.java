@@ -0,0 +1,164 @@
+package com.obee.redis.demo.service.trace;
+
+import com.obee.redis.demo.service.local.OffHeapStore;
+import io.micrometer.core.instrument.FunctionCounter;
+import io.micrometer.core.instrument.MeterRegistry;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.DisposableBean;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+import org.springframework.util.unit.DataSize;
+
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.CopyOnWriteArrayList;
+
+/**
+ * @description:
+ * @author: Guanwf
+ * @date: 2026/10/22 11:00
+ *
+ *  * 缓存访问轨迹记录（app.cache.trace.enabled，默认关闭），用于离线回放（见 run.CacheTraceSimulator）
+ *  * 1. CacheAspect 每次命中/回源调用 record，事件写入无锁环形缓冲（TraceRingBuffer），请求线程只做一次 CAS
+ *  * 2. 按 Key 哈希抽样（sample-rate）：被抽中的 Key 的每次访问都会记录，回放时按抽样率缩放容量即可估计命中率
+ *  * 3. 定时 flush 到 {directory}/trace-{nodeId}-{时间}.kmt，超过 max-file-size 换新文件
+ *  * 缓冲写满时丢弃事件（kaiming.cache.trace.dropped），不会拖慢请求
+ *
+ */
+@Slf4j
+@Component
+public class CacheTraceRecorder implements DisposableBean {
+
+    private final boolean enabled;
+
+    // 哈希高 53 位映射到 [0, 1) 后小于该值的 Key 被抽中
+    private final double sampleRate;
+
+    private final Path directory;
+
+    private final long maxFileBytes;
+
+    private final String nodeId;
+
+    private final TraceRingBuffer buffer;
+
+    // 缓存名 -> 编号（下标即编号，只追加）
+    private final Map<String, Integer> cacheIds = new ConcurrentHashMap<>();
+
+    private final List<String> cacheNames = new CopyOnWriteArrayList<>();
+
+    private CacheTraceFile.Writer writer;
+
+    public CacheTraceRecorder(MeterRegistry meterRegistry,
+                              @Value("${app.cache.trace.enabled:false}") boolean enabled,
+                              @Value("${app.cache.trace.sample-rate:0.1}") double sampleRate,
+                              @Value("${app.cache.trace.buffer-size:65536}") int bufferSize,
+                              @Value("${app.cache.trace.directory:${java.io.tmpdir}/kaiming-trace}") Path directory,
+                              @Value("${app.cache.trace.max-file-size:256MB}") DataSize maxFileSize,
+                              @Value("${app.node-id:local}") String nodeId) {
+        this.enabled = enabled;
+        this.sampleRate = sampleRate;
+        this.directory = directory;
+        this.maxFileBytes = maxFileSize.toBytes();
+        this.nodeId = nodeId;
+        this.buffer = new TraceRingBuffer(enabled ? bufferSize : 2);
+        FunctionCounter.builder("kaiming.cache.trace.dropped", buffer, TraceRingBuffer::dropped)
+                .register(meterRegistry);
+    }
+
+    public boolean isEnabled() {
+        return enabled;
+    }
+
+    /**
+     * 记录一次访问
+     *
+     * @param hit        是否命中
+     * @param valueSize  值大小（字节），未知为 0
+     * @param loadMicros 回源耗时（微秒），命中为 0
+     */
+    public void record(String cacheName, String key, boolean hit, int valueSize, long loadMicros) {
+        if (!enabled) {
+            return;
+        }
+        long keyHash = OffHeapStore.hash64(key.getBytes(StandardCharsets.UTF_8));
+        if ((keyHash >>> 11) * 0x1.0p-53 >= sampleRate) {
+            return;
+        }
+        buffer.offer(System.currentTimeMillis(), keyHash, cacheId(cacheName), hit, valueSize,
+                (int) Math.min(loadMicros, Integer.MAX_VALUE));
+    }
+
+    private int cacheId(String cacheName) {
+        Integer id = cacheIds.get(cacheName);
+        if (id != null) {
+            return id;
+        }
+        synchronized (cacheNames) {
+            return cacheIds.computeIfAbsent(cacheName, name -> {
+                cacheNames.add(name);
+                return cacheNames.size() - 1;
+            });
+        }
+    }
+
+    @Scheduled(fixedDelayString = "${app.cache.trace.flush-interval:1000}")
+    public synchronized void flush() {
+        if (!enabled) {
+            return;
+        }
+        try {
+            if (writer == null) {
+                Files.createDirectories(directory);
+                Path file = directory.resolve("trace-" + nodeId + "-" + System.currentTimeMillis() + CacheTraceFile.SUFFIX);
+                writer = CacheTraceFile.create(file, sampleRate);
+                log.info("Cache trace recording to {}", file);
+            }
+            CacheTraceFile.Writer out = writer;
+            buffer.drain((time, keyHash, cacheId, hit, valueSize, loadMicros) -> {
+                try {
+                    // 缓存名在其第一条事件之前写出
+                    if (cacheId >= out.nameCount()) {
+                        out.names(cacheNames);
+                    }
+                    out.access(time, keyHash, cacheId, hit, valueSize, loadMicros);
+                } catch (IOException e) {
+                    throw new UncheckedIOException(e);
+                }
+            });
+            writer.flush();
+            if (writer.size() >= maxFileBytes) {
+                closeWriter();
+            }
+        } catch (IOException | UncheckedIOException e) {
+            log.error("Cache trace flush failed", e);
+            closeWriter();
+        }
+    }
+
+    @Override
+    public synchronized void destroy() {
+        flush();
+        closeWriter();
+    }
+
+    private void closeWriter() {
+        if (writer == null) {
+            return;
+        }
+        try {
+            writer.close();
+            log.info("Cache trace file closed, {} records", writer.records());
+        } catch (IOException e) {
+            log.warn("Cache trace close failed: {}", e.getMessage());
+        }
+        writer = null;
+    }
+}
@@ -0,0 +1,112 @@
+package com.obee.redis.demo.service.trace;
+
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.AtomicLongArray;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * @description:
+ * @author: Guanwf
+ * @date: 2026/10/22 10:10
+ *
+ *  * 无锁多生产者 / 单消费者环形缓冲，存放访问事件（列式数组，无对象分配）
+ *  * 1. 生产者 CAS 抢占序号后写入槽位，最后以 release 语义发布序号
+ *  * 2. 消费者（定时 flush 线程）按序读取已发布的槽位，遇到未发布的槽位即停止，下次继续
+ *  * 3. 缓冲已满时直接丢弃事件并计数，请求线程永不阻塞
+ *
+ */
+public final class TraceRingBuffer {
+
+    private final int mask;
+
+    private final long[] times;
+
+    private final long[] keyHashes;
+
+    private final int[] valueSizes;
+
+    private final int[] loadMicros;
+
+    // 低 16 位缓存名编号，第 17 位命中标记
+    private final int[] flags;
+
+    // 槽位 -> 已发布的序号 + 1
+    private final AtomicLongArray published;
+
+    private final AtomicLong head = new AtomicLong();
+
+    private final LongAdder dropped = new LongAdder();
+
+    // 只有消费者写
+    private volatile long tail;
+
+    public TraceRingBuffer(int capacity) {
+        int size = Integer.highestOneBit(Math.max(capacity - 1, 1)) << 1;
+        this.mask = size - 1;
+        this.times = new long[size];
+        this.keyHashes = new long[size];
+        this.valueSizes = new int[size];
+        this.loadMicros = new int[size];
+        this.flags = new int[size];
+        this.published = new AtomicLongArray(size);
+    }
+
+    /**
+     * 写入一条事件，缓冲已满返回 false
+     */
+    public boolean offer(long time, long keyHash, int cacheId, boolean hit, int valueSize, int loadMicros) {
+        long sequence;
+        do {
+            sequence = head.get();
+            if (sequence - tail > mask) {
+                dropped.increment();
+                return false;
+            }
+        } while (!head.compareAndSet(sequence, sequence + 1));
+
+        int slot = (int) (sequence & mask);
+        times[slot] = time;
+        keyHashes[slot] = keyHash;
+        valueSizes[slot] = valueSize;
+        this.loadMicros[slot] = loadMicros;
+        flags[slot] = (cacheId & 0xFFFF) | (hit ? 0x10000 : 0);
+        published.setRelease(slot, sequence + 1);
+        return true;
+    }
+
+    /**
+     * 读取所有已发布的事件，只能由单个线程调用
+     *
+     * @return 读取的条数
+     */
+    public int drain(EventVisitor visitor) {
+        long sequence = tail;
+        int count = 0;
+        while (true) {
+            int slot = (int) (sequence & mask);
+            if (published.getAcquire(slot) != sequence + 1) {
+                break;
+            }
+            int flag = flags[slot];
+            visitor.visit(times[slot], keyHashes[slot], flag & 0xFFFF, (flag & 0x10000) != 0,
+                    valueSizes[slot], loadMicros[slot]);
+            // 读完再推进，生产者才能复用该槽位
+            tail = ++sequence;
+            count++;
+        }
+        return count;
+    }
+
+    public long dropped() {
+        return dropped.sum();
+    }
+
+    public int capacity() {
+        return mask + 1;
+    }
+
+    public interface EventVisitor {
+
+        void visit(long time, long keyHash, int cacheId, boolean hit, int valueSize, int loadMicros);
+    }
+}
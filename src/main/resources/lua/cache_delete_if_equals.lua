@@ -0,0 +1,9 @@
+-- 删除无法解码的缓存值：只有当前值仍是读到的那一份时才删除
+-- 读取与删除之间其它实例写入的新值（可能是新格式）不受影响
+-- KEYS[1] 缓存 Key  ARGV[1] 读到的完整值
+-- 返回：1 已删除；0 值已变化，未删除
+if redis.call('GET', KEYS[1]) == ARGV[1] then
+    redis.call('DEL', KEYS[1])
+    return 1
+end
+return 0
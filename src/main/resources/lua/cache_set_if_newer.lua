@@ -0,0 +1,32 @@
+-- 版本化回写：只在“更新”时写入，防止慢读者把旧数据写回缓存
+-- 值格式：v:<version>:<payload> 版本化值；t:<millis>:     删除墓碑；其他为未版本化的原始值
+-- KEYS[1] 缓存 Key
+-- ARGV[1] 待写入的完整值  ARGV[2] 版本号（-1 表示未版本化）  ARGV[3] 本次回源开始时间（毫秒）
+-- ARGV[4] 过期毫秒数  ARGV[5] 可选，'nx' 表示只在没有值（不存在或只有墓碑）时写入，已有值一律保留
+-- 返回：1 已写入；2 已写入且覆盖了更旧的版本（版本变化，用于统计更新频率）；0 被拒绝（已有相同或更新的版本 / 回源开始于删除之前）
+-- Key 是其它类型（例如同一个 Key 之前按 HASH 存储）时 GETRANGE 报 WRONGTYPE，按不存在处理，SET 直接覆盖
+local ok, head = pcall(redis.call, 'GETRANGE', KEYS[1], 0, 40)
+if not ok then
+    head = ''
+end
+if head ~= '' then
+    local kind, num = string.match(head, '^([vt]):(%d+):')
+    if kind == 't' then
+        if tonumber(ARGV[3]) <= tonumber(num) then
+            return 0
+        end
+    elseif ARGV[5] == 'nx' then
+        return 0
+    elseif kind == 'v' then
+        local version = tonumber(ARGV[2])
+        if version >= 0 and version <= tonumber(num) then
+            return 0
+        end
+        if version >= 0 then
+            redis.call('SET', KEYS[1], ARGV[1], 'PX', ARGV[4])
+            return 2
+        end
+    end
+end
+redis.call('SET', KEYS[1], ARGV[1], 'PX', ARGV[4])
+return 1
@@ -0,0 +1,12 @@
+-- Hash 存储模式：整体写入
+-- 先删除旧 Key，再写入全部字段并设置过期时间，原子执行：
+-- 不残留旧值中已不存在的字段；Key 原先是 String（BLOB 存储）时也不会 WRONGTYPE
+-- KEYS[1] Hash  ARGV[1] 过期毫秒数  ARGV[2..] 依次为 field1, value1, field2, value2 ...
+-- 返回：写入的字段数
+redis.call('DEL', KEYS[1])
+local fields = #ARGV - 1
+if fields > 0 then
+    redis.call('HSET', KEYS[1], unpack(ARGV, 2))
+    redis.call('PEXPIRE', KEYS[1], ARGV[1])
+end
+return fields / 2
@@ -0,0 +1,9 @@
+-- Hash 存储模式：部分字段更新
+-- 只在 Hash 已存在时更新，避免缓存已过期后写出一个“残缺且永不过期”的对象
+-- KEYS[1] Hash  ARGV 依次为 field1, value1, field2, value2 ...
+-- 返回：1 已更新；0 Key 不存在，未更新
+if redis.call('EXISTS', KEYS[1]) == 0 then
+    return 0
+end
+redis.call('HSET', KEYS[1], unpack(ARGV))
+return 1
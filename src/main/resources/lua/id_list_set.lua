@@ -0,0 +1,21 @@
+-- 归一化查询结果：用有序的实体 ID 列表整体替换查询 Key
+-- 与 cache_set_if_newer 一样遵守删除墓碑：查询 Key 被删除（t:<millis>:）且本次回源开始于删除之前时不写入
+-- KEYS[1] 查询 Key
+-- ARGV[1] 过期毫秒数  ARGV[2] 本次回源开始时间（毫秒）  ARGV[3..] 按结果顺序的实体 ID（空结果为单个空串）
+-- 返回：写入的 ID 个数；-1 被墓碑拒绝
+-- Key 是 List（上一次的结果）时 GETRANGE 报 WRONGTYPE，按没有墓碑处理
+local ok, head = pcall(redis.call, 'GETRANGE', KEYS[1], 0, 40)
+if ok and head ~= '' then
+    local deleted = string.match(head, '^t:(%d+):')
+    if deleted and tonumber(ARGV[2]) <= tonumber(deleted) then
+        return -1
+    end
+end
+redis.call('DEL', KEYS[1])
+local n = #ARGV
+-- unpack 的参数个数受 Lua 栈限制，分批 RPUSH
+for i = 3, n, 1000 do
+    redis.call('RPUSH', KEYS[1], unpack(ARGV, i, math.min(i + 999, n)))
+end
+redis.call('PEXPIRE', KEYS[1], ARGV[1])
+return n - 2
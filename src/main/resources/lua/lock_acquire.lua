@@ -0,0 +1,21 @@
+-- 可重入租约锁：加锁
+-- KEYS[1] 锁（Hash: owner / count / token）  KEYS[2] fencing token 计数器
+-- ARGV[1] 持有者标识  ARGV[2] 租约毫秒数
+-- 返回：> 0 加锁成功，值为 fencing token；< 0 加锁失败，绝对值为锁剩余毫秒数
+local owner = redis.call('HGET', KEYS[1], 'owner')
+if owner == false then
+    local token = redis.call('INCR', KEYS[2])
+    redis.call('HSET', KEYS[1], 'owner', ARGV[1], 'count', 1, 'token', token)
+    redis.call('PEXPIRE', KEYS[1], ARGV[2])
+    return token
+end
+if owner == ARGV[1] then
+    redis.call('HINCRBY', KEYS[1], 'count', 1)
+    redis.call('PEXPIRE', KEYS[1], ARGV[2])
+    return tonumber(redis.call('HGET', KEYS[1], 'token'))
+end
+local pttl = redis.call('PTTL', KEYS[1])
+if pttl <= 0 then
+    return -1
+end
+return -pttl
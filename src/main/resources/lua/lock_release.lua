@@ -0,0 +1,12 @@
+-- 可重入租约锁：解锁
+-- KEYS[1] 锁  ARGV[1] 持有者标识
+-- 返回：-1 不是持有者（锁已过期或被他人持有）；0 已完全释放；> 0 剩余重入次数
+if redis.call('HGET', KEYS[1], 'owner') ~= ARGV[1] then
+    return -1
+end
+local count = redis.call('HINCRBY', KEYS[1], 'count', -1)
+if count <= 0 then
+    redis.call('DEL', KEYS[1])
+    return 0
+end
+return count
@@ -0,0 +1,8 @@
+-- 可重入租约锁：看门狗续期
+-- KEYS[1] 锁  ARGV[1] 持有者标识  ARGV[2] 租约毫秒数
+-- 返回：1 续期成功；0 锁已不属于当前持有者
+if redis.call('HGET', KEYS[1], 'owner') ~= ARGV[1] then
+    return 0
+end
+redis.call('PEXPIRE', KEYS[1], ARGV[2])
+return 1
@@ -0,0 +1,34 @@
+-- 滑动窗口限流（ZSET，成员为每次请求，score 为请求时间）
+-- KEYS[1] 窗口
+-- ARGV[1] 窗口毫秒数  ARGV[2] 上限  ARGV[3] 本次申请数
+-- ARGV[4] 本地预放行、尚未上报的请求数（已发生，只记账不判定）  ARGV[5] 成员唯一前缀
+-- 返回：{是否放行(1/0), 剩余额度}
+local t = redis.call('TIME')
+local now = tonumber(t[1]) * 1000 + math.floor(tonumber(t[2]) / 1000)
+local window = tonumber(ARGV[1])
+local limit = tonumber(ARGV[2])
+local permits = tonumber(ARGV[3])
+local pending = tonumber(ARGV[4])
+
+redis.call('ZREMRANGEBYSCORE', KEYS[1], 0, now - window)
+local count = redis.call('ZCARD', KEYS[1])
+
+local seq = 0
+pending = math.min(pending, limit - count)
+for i = 1, pending do
+    seq = seq + 1
+    redis.call('ZADD', KEYS[1], now, ARGV[5] .. ':' .. seq)
+end
+count = count + math.max(pending, 0)
+
+local allowed = 0
+if count + permits <= limit then
+    for i = 1, permits do
+        seq = seq + 1
+        redis.call('ZADD', KEYS[1], now, ARGV[5] .. ':' .. seq)
+    end
+    count = count + permits
+    allowed = 1
+end
+redis.call('PEXPIRE', KEYS[1], window)
+return {allowed, limit - count}
@@ -0,0 +1,26 @@
+-- 令牌桶限流（Hash: tokens / ts）
+-- KEYS[1] 令牌桶
+-- ARGV[1] 容量  ARGV[2] 每毫秒补充的令牌数  ARGV[3] 本次申请数
+-- ARGV[4] 本地预放行、尚未上报的请求数（已发生，只扣减不判定）
+-- 返回：{是否放行(1/0), 剩余令牌数(向下取整)}
+local t = redis.call('TIME')
+local now = tonumber(t[1]) * 1000 + math.floor(tonumber(t[2]) / 1000)
+local capacity = tonumber(ARGV[1])
+local rate = tonumber(ARGV[2])
+local permits = tonumber(ARGV[3])
+local pending = tonumber(ARGV[4])
+
+local data = redis.call('HMGET', KEYS[1], 'tokens', 'ts')
+local tokens = tonumber(data[1]) or capacity
+local ts = tonumber(data[2]) or now
+tokens = math.min(capacity, tokens + math.max(0, now - ts) * rate)
+tokens = math.max(0, tokens - pending)
+
+local allowed = 0
+if tokens >= permits then
+    tokens = tokens - permits
+    allowed = 1
+end
+redis.call('HSET', KEYS[1], 'tokens', tostring(tokens), 'ts', now)
+redis.call('PEXPIRE', KEYS[1], math.ceil(capacity / rate) + 1000)
+return {allowed, math.floor(tokens)}
@@ -0,0 +1,31 @@
+package com.obee.redis.demo.interceptor;
+
+import org.junit.jupiter.api.Test;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+/**
+ * If-None-Match 按弱比较匹配 ETag
+ */
+class ResponseCacheFilterTests {
+
+    private static final String ETAG = "\"abc123\"";
+
+    @Test
+    void matchesExactWeakAndWildcard() {
+        assertThat(ResponseCacheFilter.etagMatches(ETAG, ETAG)).isTrue();
+        assertThat(ResponseCacheFilter.etagMatches("W/" + ETAG, ETAG)).isTrue();
+        assertThat(ResponseCacheFilter.etagMatches("*", ETAG)).isTrue();
+    }
+
+    @Test
+    void matchesAnyOfList() {
+        assertThat(ResponseCacheFilter.etagMatches("\"old\", " + ETAG, ETAG)).isTrue();
+        assertThat(ResponseCacheFilter.etagMatches("\"old\", W/\"older\"", ETAG)).isFalse();
+    }
+
+    @Test
+    void unquotedTagDoesNotMatch() {
+        assertThat(ResponseCacheFilter.etagMatches("abc123", ETAG)).isFalse();
+    }
+}
@@ -0,0 +1,148 @@
+package com.obee.redis.demo.service;
+
+import com.fasterxml.jackson.core.type.TypeReference;
+import com.fasterxml.jackson.databind.JavaType;
+import com.obee.redis.demo.annotation.KaimingCache;
+import com.obee.redis.demo.config.KaimingCacheProperties;
+import com.obee.redis.demo.model.UserDTO;
+import com.obee.redis.demo.service.analysis.CacheQuotaGuard;
+import com.obee.redis.demo.service.codec.JsonValueCodec;
+import com.obee.redis.demo.service.expiry.AdaptiveTtlTracker;
+import com.obee.redis.demo.service.expiry.SlidingExpiryRefresher;
+import com.obee.redis.demo.service.local.LocalCacheTier;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import lombok.Data;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.data.redis.core.script.RedisScript;
+import org.springframework.util.unit.DataSize;
+
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+import java.util.concurrent.ConcurrentHashMap;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.awaitility.Awaitility.await;
+
+/**
+ * CacheEngine 写入与读取必须使用同一套编解码；读不回来的值按未命中处理并删除
+ * Redis 由 FakeLuaScripts 代替，读取命中本地层，写入 / 读取的字节与线上一致
+ */
+class CacheEngineCodecTests {
+
+    private static final Duration TTL = Duration.ofMinutes(1);
+
+    private final JsonValueCodec codec = new JsonValueCodec();
+
+    private final MeterRegistry meterRegistry = new SimpleMeterRegistry();
+
+    private final FakeLuaScripts lua = new FakeLuaScripts();
+
+    private final LocalCacheTier localTier = new LocalCacheTier(meterRegistry, true, TTL,
+            DataSize.ofMegabytes(4), 2, DataSize.ofKilobytes(64));
+
+    private final CacheEngine engine = new CacheEngine(null, null, codec, meterRegistry, null, lua, null, localTier,
+            new CacheQuotaGuard(new KaimingCacheProperties(), null, meterRegistry),
+            new AdaptiveTtlTracker(meterRegistry, Duration.ofMinutes(10), 1000, 4),
+            new SlidingExpiryRefresher(null), Duration.ofSeconds(2), Duration.ofMillis(50));
+
+    @AfterEach
+    void close() {
+        localTier.destroy();
+    }
+
+    @Test
+    void roundTripsPojo() {
+        UserDTO user = user(1, "alice");
+        put("u:1", user);
+
+        Optional<UserDTO> read = engine.get("users", "u:1", codec.type(UserDTO.class), KaimingCache.Storage.BLOB);
+
+        assertThat(read).contains(user);
+        assertThat(engine.get("users", "u:1")).isEqualTo(user);
+    }
+
+    @Test
+    void roundTripsListOfDto() {
+        List<UserDTO> users = new ArrayList<>(List.of(user(1, "alice"), user(2, "bob")));
+        put("u:list", users);
+        JavaType type = codec.type(new TypeReference<List<UserDTO>>() {
+        }.getType());
+
+        Optional<List<UserDTO>> read = engine.get("users", "u:list", type, KaimingCache.Storage.BLOB);
+        List<List<UserDTO>> batch = engine.getAll("users", List.of("u:list"), type);
+
+        assertThat(read).contains(users);
+        assertThat(batch).containsExactly(users);
+        assertThat(engine.getAll(List.of(new CacheEngine.Read("users", "u:list", type))))
+                .containsExactly(Optional.of(users));
+    }
+
+    @Test
+    void roundTripsDtoWithListField() {
+        Group group = new Group();
+        group.setName("core");
+        group.setMembers(new ArrayList<>(List.of(user(1, "alice"))));
+        put("g:1", group);
+
+        Optional<Group> read = engine.get("groups", "g:1", codec.type(Group.class), KaimingCache.Storage.BLOB);
+
+        assertThat(read).contains(group);
+    }
+
+    @Test
+    void undecodableValueIsMissAndDropped() {
+        put("u:2", new ArrayList<>(List.of(user(2, "bob"))));
+
+        Optional<UserDTO> read = engine.get("users", "u:2", codec.type(UserDTO.class), KaimingCache.Storage.BLOB);
+
+        assertThat(read).isEmpty();
+        assertThat(localTier.get("u:2")).isNull();
+        assertThat(meterRegistry.get("kaiming.cache.gets").tag("cache", "users").tag("result", "miss").counter().count()).isEqualTo(1);
+        assertThat(meterRegistry.get("kaiming.cache.decode.failures").tag("cache", "users").counter().count()).isEqualTo(1);
+        await().untilAsserted(() -> assertThat(lua.deleted).containsKey("u:2"));
+    }
+
+    private void put(String key, Object value) {
+        assertThat(engine.put("c", key, value, TTL, KaimingCache.Storage.BLOB, CacheEngine.UNVERSIONED,
+                System.currentTimeMillis())).isTrue();
+    }
+
+    private static UserDTO user(long id, String name) {
+        UserDTO user = new UserDTO();
+        user.setId(id);
+        user.setName(name);
+        return user;
+    }
+
+    @Data
+    static class Group {
+        private String name;
+        private List<UserDTO> members;
+    }
+
+    /**
+     * cache_set_if_newer 总是写入；cache_delete_if_equals 记录被删除的 Key
+     */
+    private static final class FakeLuaScripts extends LuaScripts {
+
+        private final Map<String, byte[]> deleted = new ConcurrentHashMap<>();
+
+        FakeLuaScripts() {
+            super(null);
+        }
+
+        @Override
+        @SuppressWarnings("unchecked")
+        public <T> T runRaw(RedisScript<T> script, List<String> keys, byte[]... args) {
+            if (script == CACHE_DELETE_IF_EQUALS) {
+                deleted.put(keys.get(0), args[0]);
+            }
+            return (T) Long.valueOf(1);
+        }
+    }
+}
@@ -0,0 +1,37 @@
+package com.obee.redis.demo.service;
+
+import org.junit.jupiter.api.Test;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+/**
+ * 样本不足时不给出分位数（对冲请求不触发）
+ */
+class LatencyTrackerTests {
+
+    @Test
+    void noPercentileUntilEnoughSamples() {
+        LatencyTracker tracker = new LatencyTracker(1024, 0.95);
+        for (int i = 0; i < 100; i++) {
+            tracker.record(i);
+        }
+
+        assertThat(tracker.percentileMicros()).isEqualTo(-1);
+    }
+
+    @Test
+    void computesPercentileOverRecentWindow() {
+        LatencyTracker tracker = new LatencyTracker(1000, 0.95);
+        for (int i = 1; i <= 1001; i++) {
+            tracker.record(i);
+        }
+
+        assertThat(tracker.percentileMicros()).isBetween(940L, 960L);
+
+        // 环形窗口：旧样本被覆盖后分位数跟随新的分布
+        for (int i = 0; i < 2001; i++) {
+            tracker.record(10);
+        }
+        assertThat(tracker.percentileMicros()).isEqualTo(10);
+    }
+}
@@ -0,0 +1,64 @@
+package com.obee.redis.demo.service.admission;
+
+import org.junit.jupiter.api.Test;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+/**
+ * 门卫 + 4 位 Count-Min 计数：上限 16，记录数达到 sampleSize 时减半
+ */
+class FrequencySketchTests {
+
+    @Test
+    void firstOccurrenceOnlyEntersDoorkeeper() {
+        FrequencySketch sketch = new FrequencySketch(1024);
+
+        assertThat(sketch.frequency(42)).isZero();
+        assertThat(sketch.increment(42)).isEqualTo(1);
+        assertThat(sketch.increment(42)).isEqualTo(2);
+        assertThat(sketch.increment(42)).isEqualTo(3);
+    }
+
+    @Test
+    void frequencyCapsAtSixteen() {
+        FrequencySketch sketch = new FrequencySketch(1024);
+        for (int i = 0; i < 100; i++) {
+            sketch.increment(7);
+        }
+
+        // 4 位计数器上限 15，加门卫 1
+        assertThat(sketch.frequency(7)).isEqualTo(16);
+    }
+
+    @Test
+    void agingHalvesCountersAndClearsDoorkeeper() {
+        FrequencySketch sketch = new FrequencySketch(64);
+        for (int i = 0; i < 9; i++) {
+            sketch.increment(1);
+        }
+        assertThat(sketch.frequency(1)).isEqualTo(9);
+
+        // 凑满 sampleSize 次记录触发老化
+        for (long hash = 1000; hash < 1000 + 64 - 9; hash++) {
+            sketch.increment(hash);
+        }
+
+        assertThat(sketch.frequency(1)).isEqualTo(4);
+    }
+
+    @Test
+    void unrelatedKeysStayLow() {
+        FrequencySketch sketch = new FrequencySketch(4096);
+        for (int i = 0; i < 10; i++) {
+            sketch.increment(99);
+        }
+        int high = 0;
+        for (long hash = 10_000; hash < 11_000; hash++) {
+            if (sketch.frequency(hash) > 1) {
+                high++;
+            }
+        }
+
+        assertThat(high).isLessThan(10);
+    }
+}
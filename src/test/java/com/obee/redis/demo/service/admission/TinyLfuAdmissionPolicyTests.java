@@ -0,0 +1,37 @@
+package com.obee.redis.demo.service.admission;
+
+import org.junit.jupiter.api.Test;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+/**
+ * admitAfter 只有在 2..16 之间才有意义：<= 1 总是写入，> 16 永远达不到
+ */
+class TinyLfuAdmissionPolicyTests {
+
+    private final TinyLfuAdmissionPolicy policy = new TinyLfuAdmissionPolicy(1024);
+
+    @Test
+    void admitsOnceThresholdReached() {
+        assertThat(policy.admit("users", "k", 3)).isFalse();
+        assertThat(policy.admit("users", "k", 3)).isFalse();
+        assertThat(policy.admit("users", "k", 3)).isTrue();
+        assertThat(policy.admit("orders", "k", 3)).isFalse();
+    }
+
+    @Test
+    void validatesThresholdRange() {
+        assertThat(policy.validate(2)).isEmpty();
+        assertThat(policy.validate(FrequencySketch.MAX_FREQUENCY)).isEmpty();
+        assertThat(policy.validate(1)).singleElement().asString().contains("between 2 and 16");
+        assertThat(policy.validate(17)).hasSize(1);
+    }
+
+    @Test
+    void maxFrequencyIsReachable() {
+        for (int i = 1; i < FrequencySketch.MAX_FREQUENCY; i++) {
+            assertThat(policy.admit("users", "hot", FrequencySketch.MAX_FREQUENCY)).isFalse();
+        }
+        assertThat(policy.admit("users", "hot", FrequencySketch.MAX_FREQUENCY)).isTrue();
+    }
+}
@@ -0,0 +1,34 @@
+package com.obee.redis.demo.service.cluster;
+
+import org.junit.jupiter.api.Test;
+import org.springframework.data.redis.connection.ClusterSlotHashUtil;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+/**
+ * hash tag 约定：同一个 tag 的 Key 落在同一个 slot
+ */
+class CacheKeysTests {
+
+    @Test
+    void tagWrapsValueInBraces() {
+        assertThat(CacheKeys.tag(1001)).isEqualTo("{1001}");
+    }
+
+    @Test
+    void keysWithSameTagShareSlot() {
+        int slot = ClusterSlotHashUtil.calculateSlot("user:" + CacheKeys.tag(1001) + ":info");
+
+        assertThat(ClusterSlotHashUtil.calculateSlot("user:" + CacheKeys.tag(1001) + ":roles")).isEqualTo(slot);
+        assertThat(ClusterSlotHashUtil.calculateSlot("order:" + CacheKeys.tag(1001))).isEqualTo(slot);
+    }
+
+    @Test
+    void untaggedKeysSpreadOverSlots() {
+        long slots = java.util.stream.IntStream.range(0, 100)
+                .map(i -> ClusterSlotHashUtil.calculateSlot("user:" + i + ":info"))
+                .distinct().count();
+
+        assertThat(slots).isGreaterThan(90);
+    }
+}
@@ -0,0 +1,115 @@
+package com.obee.redis.demo.service.cluster;
+
+import com.obee.redis.demo.service.LuaScripts;
+import com.obee.redis.demo.service.codec.CacheEnvelope;
+import com.obee.redis.demo.service.codec.JsonValueCodec;
+import org.junit.jupiter.api.AfterAll;
+import org.junit.jupiter.api.BeforeAll;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.condition.EnabledIfEnvironmentVariable;
+import org.springframework.data.redis.connection.RedisClusterConfiguration;
+import org.springframework.data.redis.connection.ReturnType;
+import org.springframework.data.redis.connection.lettuce.LettuceConnectionFactory;
+import org.springframework.data.redis.core.RedisCallback;
+import org.springframework.data.redis.core.RedisTemplate;
+import org.springframework.data.redis.serializer.StringRedisSerializer;
+
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+/**
+ * 对本地多进程集群运行（docs/redis-cluster.sh start），未设置 REDIS_CLUSTER_NODES 时跳过：
+ *   REDIS_CLUSTER_NODES=127.0.0.1:7000,127.0.0.1:7001,127.0.0.1:7002 mvn test -Dtest=ClusterBatchExecutorClusterTests
+ */
+@EnabledIfEnvironmentVariable(named = "REDIS_CLUSTER_NODES", matches = ".+")
+class ClusterBatchExecutorClusterTests {
+
+    private static LettuceConnectionFactory factory;
+
+    private static RedisTemplate<String, Object> template;
+
+    private static ClusterBatchExecutor executor;
+
+    @BeforeAll
+    static void connect() {
+        factory = new LettuceConnectionFactory(
+                new RedisClusterConfiguration(List.of(System.getenv("REDIS_CLUSTER_NODES").split(","))));
+        factory.afterPropertiesSet();
+        factory.start();
+        template = new RedisTemplate<>();
+        template.setConnectionFactory(factory);
+        template.setKeySerializer(new StringRedisSerializer());
+        template.setValueSerializer(new JsonValueCodec().serializer());
+        template.afterPropertiesSet();
+        executor = new ClusterBatchExecutor(template, factory);
+    }
+
+    @AfterAll
+    static void disconnect() {
+        executor.destroy();
+        factory.destroy();
+    }
+
+    @Test
+    void multiGetAndUnlinkAcrossNodes() {
+        assertThat(executor.isCluster()).isTrue();
+        List<String> keys = keys("cbt:mget:", 200);
+        keys.forEach(key -> template.opsForValue().set(key, key));
+
+        Map<String, byte[]> values = executor.multiGet(keys);
+
+        assertThat(values).hasSize(keys.size());
+        assertThat(new String(values.get(keys.get(7)), StandardCharsets.UTF_8)).isEqualTo("\"" + keys.get(7) + "\"");
+        assertThat(executor.unlink(keys)).isEqualTo(keys.size());
+        assertThat(executor.multiGet(keys)).isEmpty();
+    }
+
+    @Test
+    void setEachWritesTombstonesOnEveryNode() {
+        List<String> keys = keys("cbt:tomb:", 100);
+        byte[] tombstone = CacheEnvelope.tombstone(System.currentTimeMillis());
+
+        assertThat(executor.setEach(keys, tombstone, 60_000)).isEqualTo(keys.size());
+
+        assertThat(executor.multiGet(keys)).hasSize(keys.size())
+                .allSatisfy((key, value) -> assertThat(CacheEnvelope.isTombstone(value)).isTrue());
+        assertThat(template.getExpire(keys.get(0))).isBetween(1L, 60L);
+        executor.unlink(keys);
+    }
+
+    @Test
+    void evalEachRunsScriptPerKeyOnOwningNode() {
+        // 模拟 Redis 重启 / 主从切换后脚本缓存为空：第一次 EVALSHA 全部 NOSCRIPT，必须加载后重试成功
+        template.execute((RedisCallback<Object>) connection -> {
+            connection.scriptingCommands().scriptFlush();
+            return null;
+        });
+        List<String> keys = keys("cbt:eval:", 50);
+        Map<String, byte[][]> args = new HashMap<>();
+        for (String key : keys) {
+            args.put(key, new byte[][]{ascii("\"v\""), ascii("-1"), ascii(System.currentTimeMillis()), ascii(60_000)});
+        }
+
+        Map<String, Object> results = executor.evalEach(LuaScripts.CACHE_SET_IF_NEWER, ReturnType.INTEGER, args);
+
+        assertThat(results).hasSize(keys.size()).allSatisfy((key, result) -> assertThat(result).isEqualTo(1L));
+        executor.unlink(keys);
+    }
+
+    private static List<String> keys(String prefix, int count) {
+        List<String> keys = new ArrayList<>(count);
+        for (int i = 0; i < count; i++) {
+            keys.add(prefix + i);
+        }
+        return keys;
+    }
+
+    private static byte[] ascii(Object value) {
+        return String.valueOf(value).getBytes(StandardCharsets.US_ASCII);
+    }
+}
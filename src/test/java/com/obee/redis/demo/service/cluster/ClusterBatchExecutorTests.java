@@ -0,0 +1,108 @@
+package com.obee.redis.demo.service.cluster;
+
+import com.obee.redis.demo.service.LuaScripts;
+import io.lettuce.core.RedisNoScriptException;
+import org.junit.jupiter.api.Test;
+import org.springframework.dao.InvalidDataAccessApiUsageException;
+import org.springframework.data.redis.connection.RedisPipelineException;
+import org.springframework.data.redis.connection.ReturnType;
+import org.springframework.data.redis.core.RedisCallback;
+import org.springframework.data.redis.core.RedisTemplate;
+import org.springframework.data.redis.serializer.RedisSerializer;
+
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+
+/**
+ * Pipeline 中的 NOSCRIPT 被包装在 RedisPipelineException 里，evalEach 仍要识别出来，加载脚本后重试
+ */
+class ClusterBatchExecutorTests {
+
+    @Test
+    void detectsNoScriptInsidePipelineResults() {
+        assertThat(ClusterBatchExecutor.isNoScript(pipelineFailure(noScript()))).isTrue();
+        assertThat(ClusterBatchExecutor.isNoScript(noScript())).isTrue();
+        assertThat(ClusterBatchExecutor.isNoScript(
+                pipelineFailure(new InvalidDataAccessApiUsageException("WRONGTYPE Operation against a key")))).isFalse();
+    }
+
+    @Test
+    void loadsScriptAndRetriesAfterNoScript() {
+        FakeRedisTemplate template = new FakeRedisTemplate(pipelineFailure(noScript()));
+        ClusterBatchExecutor executor = new ClusterBatchExecutor(template, null);
+
+        Map<String, Object> results = executor.evalEach(LuaScripts.CACHE_SET_IF_NEWER, ReturnType.INTEGER, args("a", "b"));
+
+        assertThat(results).containsOnlyKeys("a", "b").allSatisfy((key, result) -> assertThat(result).isEqualTo(1L));
+        assertThat(template.scriptLoads).isEqualTo(1);
+        assertThat(template.pipelines).isEqualTo(2);
+        executor.destroy();
+    }
+
+    @Test
+    void otherPipelineFailuresAreNotRetried() {
+        FakeRedisTemplate template = new FakeRedisTemplate(
+                pipelineFailure(new InvalidDataAccessApiUsageException("WRONGTYPE Operation against a key")));
+        ClusterBatchExecutor executor = new ClusterBatchExecutor(template, null);
+
+        assertThatThrownBy(() -> executor.evalEach(LuaScripts.CACHE_SET_IF_NEWER, ReturnType.INTEGER, args("a")))
+                .hasRootCauseInstanceOf(RedisPipelineException.class);
+        assertThat(template.scriptLoads).isZero();
+        executor.destroy();
+    }
+
+    private static Map<String, byte[][]> args(String... keys) {
+        Map<String, byte[][]> args = new LinkedHashMap<>();
+        for (String key : keys) {
+            args.put(key, new byte[][]{new byte[0]});
+        }
+        return args;
+    }
+
+    private static RuntimeException noScript() {
+        return new InvalidDataAccessApiUsageException("NOSCRIPT No matching script. Please use EVAL.",
+                new RedisNoScriptException("NOSCRIPT No matching script. Please use EVAL."));
+    }
+
+    /**
+     * 与 LettuceConnection.closePipeline 抛出的异常相同：消息是固定文案，具体错误在每条命令的结果里
+     */
+    private static RedisPipelineException pipelineFailure(Exception commandError) {
+        return new RedisPipelineException("Pipeline contained one or more invalid commands", List.of(commandError));
+    }
+
+    /**
+     * 第一次 Pipeline 抛出给定异常，之后返回两条命令的结果 1；execute 只会用于 SCRIPT LOAD
+     */
+    private static final class FakeRedisTemplate extends RedisTemplate<String, Object> {
+
+        private final RuntimeException firstFailure;
+
+        private int pipelines;
+
+        private int scriptLoads;
+
+        FakeRedisTemplate(RuntimeException firstFailure) {
+            this.firstFailure = firstFailure;
+        }
+
+        @Override
+        public List<Object> executePipelined(RedisCallback<?> action, RedisSerializer<?> resultSerializer) {
+            if (pipelines++ == 0) {
+                throw firstFailure;
+            }
+            return new ArrayList<>(List.of(1L, 1L));
+        }
+
+        @Override
+        public <T> T execute(RedisCallback<T> action) {
+            scriptLoads++;
+            return null;
+        }
+    }
+}
@@ -0,0 +1,42 @@
+package com.obee.redis.demo.service.codec;
+
+import org.junit.jupiter.api.Test;
+
+import java.nio.charset.StandardCharsets;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+/**
+ * 版本前缀与墓碑：旧格式（无前缀）的值原样透传
+ */
+class CacheEnvelopeTests {
+
+    private static final byte[] JSON = "{\"id\":1}".getBytes(StandardCharsets.UTF_8);
+
+    @Test
+    void versionedValueUnwrapsToPayload() {
+        byte[] wrapped = CacheEnvelope.wrap(JSON, 1700000000123L);
+
+        assertThat(new String(wrapped, StandardCharsets.US_ASCII)).startsWith("v:1700000000123:");
+        assertThat(CacheEnvelope.unwrap(wrapped)).isEqualTo(JSON);
+        assertThat(CacheEnvelope.isTombstone(wrapped)).isFalse();
+    }
+
+    @Test
+    void tombstoneUnwrapsToNull() {
+        byte[] tombstone = CacheEnvelope.tombstone(123);
+
+        assertThat(CacheEnvelope.isTombstone(tombstone)).isTrue();
+        assertThat(CacheEnvelope.unwrap(tombstone)).isNull();
+    }
+
+    @Test
+    void plainValuesPassThrough() {
+        byte[] string = "\"v:not-a-version\"".getBytes(StandardCharsets.UTF_8);
+
+        assertThat(CacheEnvelope.unwrap(JSON)).isSameAs(JSON);
+        assertThat(CacheEnvelope.unwrap(string)).isSameAs(string);
+        assertThat(CacheEnvelope.unwrap(null)).isNull();
+        assertThat(CacheEnvelope.unwrap(new byte[]{'1'})).containsExactly('1');
+    }
+}
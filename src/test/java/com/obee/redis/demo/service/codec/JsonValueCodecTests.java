@@ -0,0 +1,117 @@
+package com.obee.redis.demo.service.codec;
+
+import com.fasterxml.jackson.core.type.TypeReference;
+import com.fasterxml.jackson.databind.JavaType;
+import com.obee.redis.demo.model.UserDTO;
+import lombok.Data;
+import org.junit.jupiter.api.Test;
+
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+
+/**
+ * JsonValueCodec 必须能读回 RedisTemplate（GenericJackson2JsonRedisSerializer，带默认类型）写入的字节
+ */
+class JsonValueCodecTests {
+
+    private final JsonValueCodec codec = new JsonValueCodec();
+
+    @Test
+    void readsPojoWrittenByTemplateSerializer() {
+        UserDTO user = user(1, "alice");
+
+        UserDTO decoded = codec.decode(codec.serializer().serialize(user), UserDTO.class);
+
+        assertThat(decoded).isEqualTo(user);
+    }
+
+    @Test
+    void readsListWrappedWithTypeArray() {
+        List<UserDTO> users = new ArrayList<>(List.of(user(1, "alice"), user(2, "bob")));
+        byte[] bytes = codec.serializer().serialize(users);
+
+        List<UserDTO> decoded = codec.decode(bytes, type(new TypeReference<List<UserDTO>>() {
+        }));
+
+        assertThat(new String(bytes)).startsWith("[\"java.util.ArrayList\"");
+        assertThat(decoded).containsExactlyElementsOf(users);
+    }
+
+    @Test
+    void readsPojoWithCollectionFields() {
+        Team team = new Team();
+        team.setName("core");
+        team.setMembers(new ArrayList<>(List.of(user(1, "alice"))));
+        team.setTags(new LinkedHashSet<>(Set.of("redis")));
+        team.setRoles(new LinkedHashMap<>(Map.of("lead", new ArrayList<>(List.of(user(2, "bob"))))));
+
+        Team decoded = codec.decode(codec.serializer().serialize(team), Team.class);
+
+        assertThat(decoded).isEqualTo(team);
+    }
+
+    @Test
+    void readsNestedCollections() {
+        Map<String, List<UserDTO>> byCity = new LinkedHashMap<>();
+        byCity.put("sz", new ArrayList<>(List.of(user(1, "alice"))));
+        byCity.put("bj", new ArrayList<>());
+
+        Map<String, List<UserDTO>> decoded = codec.decode(codec.serializer().serialize(byCity),
+                type(new TypeReference<Map<String, List<UserDTO>>>() {
+                }));
+
+        assertThat(decoded).isEqualTo(byCity);
+    }
+
+    @Test
+    void readsSetMembersAndScalars() {
+        // sGet / lGet / hGetAll 按成员逐个解码
+        assertThat(codec.decode(codec.serializer().serialize("plain"), String.class)).isEqualTo("plain");
+        assertThat(codec.decode(codec.serializer().serialize(42L), Long.class)).isEqualTo(42L);
+        List<String> letters = codec.decode(codec.serializer().serialize(new ArrayList<>(List.of("a", "b"))),
+                type(new TypeReference<List<String>>() {
+                }));
+        assertThat(letters).containsExactly("a", "b");
+    }
+
+    @Test
+    void encodeMatchesTemplateFormat() {
+        UserDTO user = user(3, "carol");
+
+        assertThat(codec.encode(user)).isEqualTo(codec.serializer().serialize(user));
+        assertThat(codec.serializer().deserialize(codec.encode(user))).isEqualTo(user);
+    }
+
+    @Test
+    void rejectsBytesOfAnotherType() {
+        byte[] bytes = codec.encode(new ArrayList<>(List.of(user(1, "alice"))));
+
+        assertThatThrownBy(() -> codec.decode(bytes, UserDTO.class)).isInstanceOf(IllegalStateException.class);
+    }
+
+    private JavaType type(TypeReference<?> reference) {
+        return codec.type(reference.getType());
+    }
+
+    private static UserDTO user(long id, String name) {
+        UserDTO user = new UserDTO();
+        user.setId(id);
+        user.setName(name);
+        return user;
+    }
+
+    @Data
+    static class Team {
+        private String name;
+        private List<UserDTO> members;
+        private Set<String> tags;
+        private Map<String, List<UserDTO>> roles;
+    }
+}
@@ -0,0 +1,42 @@
+package com.obee.redis.demo.service.expiry;
+
+import org.junit.jupiter.api.Test;
+
+import java.util.stream.LongStream;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+/**
+ * 抖动始终落在 [0, ttl * ratio] 内，TTL 过小时不抖动
+ */
+class JitterStrategyTests {
+
+    private final PercentJitterStrategy percent = new PercentJitterStrategy();
+
+    private final ExponentialJitterStrategy exponential = new ExponentialJitterStrategy();
+
+    @Test
+    void jitterStaysWithinRatio() {
+        for (int i = 0; i < 10_000; i++) {
+            assertThat(percent.jitter(60_000, 0.2)).isBetween(0L, 12_000L);
+            assertThat(exponential.jitter(60_000, 0.2)).isBetween(0L, 12_000L);
+        }
+    }
+
+    @Test
+    void tinyBoundMeansNoJitter() {
+        assertThat(percent.jitter(3, 0.2)).isZero();
+        assertThat(exponential.jitter(3, 0.2)).isZero();
+        assertThat(percent.jitter(60_000, 0)).isZero();
+    }
+
+    @Test
+    void exponentialConcentratesNearZero() {
+        double percentMean = LongStream.range(0, 20_000).map(i -> percent.jitter(60_000, 0.2)).average().orElse(0);
+        double exponentialMean = LongStream.range(0, 20_000).map(i -> exponential.jitter(60_000, 0.2)).average().orElse(0);
+
+        // 均匀分布均值约 bound / 2，指数分布约 bound / 3（截断后略小）
+        assertThat(percentMean).isBetween(5_500.0, 6_500.0);
+        assertThat(exponentialMean).isBetween(3_300.0, 4_300.0);
+    }
+}
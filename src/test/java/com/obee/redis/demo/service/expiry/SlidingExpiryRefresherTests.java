@@ -0,0 +1,125 @@
+package com.obee.redis.demo.service.expiry;
+
+import com.obee.redis.demo.service.RedisService;
+import org.junit.jupiter.api.Test;
+
+import java.time.Clock;
+import java.time.Duration;
+import java.time.Instant;
+import java.time.ZoneId;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.Map;
+import java.util.Set;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+/**
+ * 续期沿用写入时的 TTL；Key 已不存在或按 TTL 推算已过期时不再保留记录
+ */
+class SlidingExpiryRefresherTests {
+
+    private static final Duration WRITTEN = Duration.ofSeconds(20);
+
+    private static final Duration FALLBACK = Duration.ofSeconds(5);
+
+    private final MutableClock clock = new MutableClock();
+
+    private final FakeRedisService redis = new FakeRedisService();
+
+    private final SlidingExpiryRefresher refresher = new SlidingExpiryRefresher(redis, clock);
+
+    @Test
+    void touchUsesWrittenTtl() {
+        refresher.remember("k", WRITTEN);
+
+        assertThat(touchAndFlush("k")).isEqualTo(WRITTEN);
+    }
+
+    @Test
+    void missingKeyIsForgottenOnFlush() {
+        refresher.remember("k", WRITTEN);
+        redis.missing.add("k");
+        touchAndFlush("k");
+        redis.missing.clear();
+
+        assertThat(touchAndFlush("k")).isEqualTo(FALLBACK);
+    }
+
+    @Test
+    void untouchedExpiredKeyIsSwept() {
+        refresher.remember("k", WRITTEN);
+        clock.advance(WRITTEN.plusSeconds(1));
+        refresher.flush();
+
+        assertThat(touchAndFlush("k")).isEqualTo(FALLBACK);
+    }
+
+    @Test
+    void refreshedKeyOutlivesItsFirstTtl() {
+        refresher.remember("k", WRITTEN);
+        clock.advance(Duration.ofSeconds(15));
+        touchAndFlush("k");
+        clock.advance(Duration.ofSeconds(15));
+        refresher.flush();
+
+        assertThat(touchAndFlush("k")).isEqualTo(WRITTEN);
+    }
+
+    private Duration touchAndFlush(String key) {
+        refresher.touch(key, () -> FALLBACK);
+        refresher.flush();
+        return redis.expired.get(key);
+    }
+
+    /**
+     * 记录最后一次 PEXPIRE 的时间；missing 中的 Key 视为不存在
+     */
+    private static final class FakeRedisService extends RedisService {
+
+        private final Map<String, Duration> expired = new HashMap<>();
+
+        private final Set<String> missing = new HashSet<>();
+
+        FakeRedisService() {
+            super(null, null, null, null, null, null, null);
+        }
+
+        @Override
+        public Set<String> expire(Map<String, Duration> timeouts) {
+            expired.putAll(timeouts);
+            Set<String> result = new HashSet<>(timeouts.keySet());
+            result.retainAll(missing);
+            return result;
+        }
+    }
+
+    private static final class MutableClock extends Clock {
+
+        private long millis = 1_000_000L;
+
+        void advance(Duration duration) {
+            millis += duration.toMillis();
+        }
+
+        @Override
+        public long millis() {
+            return millis;
+        }
+
+        @Override
+        public Instant instant() {
+            return Instant.ofEpochMilli(millis);
+        }
+
+        @Override
+        public ZoneId getZone() {
+            return ZoneId.of("UTC");
+        }
+
+        @Override
+        public Clock withZone(ZoneId zone) {
+            return this;
+        }
+    }
+}
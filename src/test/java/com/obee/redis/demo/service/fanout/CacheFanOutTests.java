@@ -0,0 +1,84 @@
+package com.obee.redis.demo.service.fanout;
+
+import com.obee.redis.demo.service.CacheContext;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.Test;
+import org.slf4j.MDC;
+import org.springframework.mock.web.MockHttpServletRequest;
+import org.springframework.web.context.request.RequestAttributes;
+import org.springframework.web.context.request.RequestContextHolder;
+import org.springframework.web.context.request.ServletRequestAttributes;
+
+import java.time.Duration;
+import java.util.concurrent.Future;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+
+/**
+ * 分支线程继承调用线程的上下文；失败与截止时间取消其余分支
+ */
+class CacheFanOutTests {
+
+    private final CacheFanOut fanOut = new CacheFanOut(null, new SimpleMeterRegistry(), Duration.ofMillis(300),
+            Duration.ofMillis(2));
+
+    @AfterEach
+    void clear() {
+        RequestContextHolder.resetRequestAttributes();
+        CacheContext.clear();
+        MDC.clear();
+    }
+
+    @Test
+    void branchesSeeCallerContext() {
+        RequestAttributes request = new ServletRequestAttributes(new MockHttpServletRequest("GET", "/demo"));
+        RequestContextHolder.setRequestAttributes(request);
+        CacheContext.setEnabled(false);
+        MDC.put("traceId", "t-1");
+
+        try (CacheFanOut.Scope scope = fanOut.open()) {
+            CacheFanOut.Branch<RequestAttributes> seenRequest = scope.fork(RequestContextHolder::getRequestAttributes);
+            CacheFanOut.Branch<Boolean> seenCache = scope.fork(CacheContext::isEnabled);
+            CacheFanOut.Branch<String> seenMdc = scope.fork(() -> MDC.get("traceId"));
+            scope.join();
+
+            assertThat(seenRequest.get()).isSameAs(request);
+            assertThat(seenCache.get()).isFalse();
+            assertThat(seenMdc.get()).isEqualTo("t-1");
+        }
+        // 调用线程自己的上下文不受影响
+        assertThat(RequestContextHolder.getRequestAttributes()).isSameAs(request);
+    }
+
+    @Test
+    void firstFailureCancelsSiblings() {
+        long start = System.nanoTime();
+        try (CacheFanOut.Scope scope = fanOut.open()) {
+            scope.fork(() -> {
+                Thread.sleep(5_000);
+                return 1;
+            });
+            scope.fork(() -> {
+                throw new IllegalArgumentException("boom");
+            });
+
+            assertThatThrownBy(scope::join).isInstanceOf(IllegalArgumentException.class).hasMessage("boom");
+        }
+        assertThat(Duration.ofNanos(System.nanoTime() - start)).isLessThan(Duration.ofSeconds(1));
+    }
+
+    @Test
+    void deadlineCancelsSlowBranches() {
+        try (CacheFanOut.Scope scope = fanOut.open(Duration.ofMillis(50))) {
+            CacheFanOut.Branch<Integer> slow = scope.fork(() -> {
+                Thread.sleep(5_000);
+                return 1;
+            });
+
+            assertThatThrownBy(scope::join).isInstanceOf(CacheFanOutException.class);
+            assertThat(slow.state()).isNotEqualTo(Future.State.SUCCESS);
+        }
+    }
+}
@@ -0,0 +1,105 @@
+package com.obee.redis.demo.service.fanout;
+
+import com.obee.redis.demo.service.CacheEngine;
+import io.micrometer.core.instrument.DistributionSummary;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.Test;
+
+import java.time.Duration;
+import java.util.List;
+import java.util.Optional;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.TimeUnit;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+/**
+ * 发送时机：所有运行中的分支都在等待、最早的登记超过 window、或有分支结束后剩余分支都在等待
+ */
+class FanOutBatchTests {
+
+    private final RecordingEngine engine = new RecordingEngine();
+
+    private final DistributionSummary batchSize = DistributionSummary.builder("batch").register(new SimpleMeterRegistry());
+
+    @Test
+    void flushesOnceWhenEveryBranchIsWaiting() {
+        FanOutBatch batch = batch(3, Duration.ofSeconds(5));
+
+        List<Optional<Object>> values = List.of("a", "b", "c").stream()
+                .map(key -> CompletableFuture.supplyAsync(() -> get(batch, key)))
+                .toList().stream().map(CompletableFuture::join).toList();
+
+        assertThat(engine.batches).containsExactly(3);
+        assertThat(values).extracting(Optional::get).containsExactlyInAnyOrder("a", "b", "c");
+    }
+
+    @Test
+    void flushesAfterWindowWhenSiblingIsBusy() {
+        FanOutBatch batch = batch(2, Duration.ofMillis(20));
+        long start = System.nanoTime();
+
+        Optional<Object> value = get(batch, "a");
+
+        assertThat(value).contains("a");
+        assertThat(engine.batches).containsExactly(1);
+        assertThat(TimeUnit.NANOSECONDS.toMillis(System.nanoTime() - start)).isGreaterThanOrEqualTo(20);
+    }
+
+    @Test
+    void finishedBranchReleasesWaitingSiblings() throws Exception {
+        FanOutBatch batch = batch(2, Duration.ofSeconds(5));
+        CompletableFuture<Optional<Object>> waiting = CompletableFuture.supplyAsync(() -> get(batch, "a"));
+        Thread.sleep(50);
+        assertThat(waiting).isNotDone();
+
+        batch.branchDone();
+
+        assertThat(waiting.get(1, TimeUnit.SECONDS)).contains("a");
+        assertThat(engine.batches).containsExactly(1);
+    }
+
+    @Test
+    void failedReadIsMiss() {
+        engine.failing = true;
+        FanOutBatch batch = batch(1, Duration.ofSeconds(5));
+
+        assertThat(get(batch, "a")).isEmpty();
+    }
+
+    private FanOutBatch batch(int branches, Duration window) {
+        return new FanOutBatch(engine, batchSize, window.toNanos(), branches);
+    }
+
+    private static Optional<Object> get(FanOutBatch batch, String key) {
+        try {
+            return batch.get(new CacheEngine.Read("c", key, null));
+        } catch (InterruptedException e) {
+            throw new IllegalStateException(e);
+        }
+    }
+
+    /**
+     * 每个 Key 读到与 Key 相同的值，记录每次批量读取的大小
+     */
+    private static final class RecordingEngine extends CacheEngine {
+
+        private final List<Integer> batches = new CopyOnWriteArrayList<>();
+
+        private volatile boolean failing;
+
+        RecordingEngine() {
+            super(null, null, null, null, null, null, null, null, null, null, null, Duration.ZERO, Duration.ZERO);
+        }
+
+        @Override
+        public List<Optional<Object>> getAll(List<Read> reads) {
+            batches.add(reads.size());
+            if (failing) {
+                throw new IllegalStateException("redis down");
+            }
+            return reads.stream().map(read -> Optional.<Object>of(read.key())).toList();
+        }
+    }
+}
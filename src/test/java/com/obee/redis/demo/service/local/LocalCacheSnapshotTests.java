@@ -0,0 +1,127 @@
+package com.obee.redis.demo.service.local;
+
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+import org.springframework.util.unit.DataSize;
+
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.time.Duration;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+/**
+ * 快照往返：未过期条目全部装回；版本不符、校验失败、快照过旧时整份丢弃
+ */
+class LocalCacheSnapshotTests {
+
+    @TempDir
+    Path dir;
+
+    @Test
+    void roundTripsLiveEntries() {
+        LocalCacheTier source = tier();
+        source.put("user:1", bytes("alice"));
+        source.put("user:2", bytes("bob"));
+        source.store().putUntil(bytes("user:3"), bytes("expired"), System.currentTimeMillis() + 50);
+        snapshot(source).save();
+        sleep(100);
+
+        LocalCacheTier target = tier();
+        LocalCacheSnapshot loaded = snapshot(target);
+        loaded.afterPropertiesSet();
+
+        assertThat(target.get("user:1")).isEqualTo(bytes("alice"));
+        assertThat(target.get("user:2")).isEqualTo(bytes("bob"));
+        assertThat(target.get("user:3")).isNull();
+        assertThat(loaded.loadedCreatedAt()).isPositive().isLessThanOrEqualTo(System.currentTimeMillis());
+    }
+
+    @Test
+    void rejectsCorruptedEntries() throws IOException {
+        saveOne();
+        byte[] file = Files.readAllBytes(path());
+        file[file.length - 1] ^= 0x01;
+        Files.write(path(), file);
+
+        assertNothingLoaded();
+    }
+
+    @Test
+    void rejectsOtherFormatVersion() throws IOException {
+        saveOne();
+        // header: magic(4) | version(4) | ...
+        overwrite(4, ByteBuffer.allocate(4).putInt(LocalCacheSnapshot.FORMAT_VERSION + 1).flip());
+
+        assertNothingLoaded();
+    }
+
+    @Test
+    void rejectsStaleSnapshot() throws IOException {
+        saveOne();
+        // header: magic(4) | version(4) | createdAt(8) | ...
+        overwrite(8, ByteBuffer.allocate(8).putLong(System.currentTimeMillis() - Duration.ofHours(1).toMillis()).flip());
+
+        assertNothingLoaded();
+    }
+
+    @Test
+    void ignoresForeignFile() throws IOException {
+        Files.write(path(), bytes("not a snapshot file at all"));
+
+        assertNothingLoaded();
+    }
+
+    private void saveOne() {
+        LocalCacheTier source = tier();
+        source.put("user:1", bytes("alice"));
+        snapshot(source).save();
+    }
+
+    private void assertNothingLoaded() {
+        LocalCacheTier target = tier();
+        LocalCacheSnapshot loaded = snapshot(target);
+        loaded.afterPropertiesSet();
+
+        assertThat(target.get("user:1")).isNull();
+        assertThat(target.store().size()).isZero();
+        assertThat(loaded.loadedCreatedAt()).isZero();
+    }
+
+    private void overwrite(long position, ByteBuffer bytes) throws IOException {
+        try (FileChannel channel = FileChannel.open(path(), StandardOpenOption.WRITE)) {
+            channel.write(bytes, position);
+        }
+    }
+
+    private Path path() {
+        return dir.resolve("local.snap");
+    }
+
+    private LocalCacheSnapshot snapshot(LocalCacheTier tier) {
+        return new LocalCacheSnapshot(tier, true, path(), Duration.ofMinutes(10));
+    }
+
+    private static LocalCacheTier tier() {
+        return new LocalCacheTier(new SimpleMeterRegistry(), true, Duration.ofSeconds(30),
+                DataSize.ofMegabytes(1), 2, DataSize.ofKilobytes(64));
+    }
+
+    private static byte[] bytes(String text) {
+        return text.getBytes(StandardCharsets.UTF_8);
+    }
+
+    private static void sleep(long millis) {
+        try {
+            Thread.sleep(millis);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+    }
+}
@@ -0,0 +1,126 @@
+package com.obee.redis.demo.service.local;
+
+import org.junit.jupiter.api.Test;
+
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.List;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+/**
+ * 读写、覆盖、过期与淘汰；内存用满后 Slab 能在分级之间重分配
+ */
+class OffHeapStoreTests {
+
+    private static final int SLAB = 64 * 1024;
+
+    @Test
+    void putGetOverwriteAndRemove() {
+        OffHeapStore store = new OffHeapStore(SLAB * 4L, 1, SLAB);
+
+        assertThat(store.put("k", bytes("v1"), 60_000)).isTrue();
+        assertThat(store.get("k")).isEqualTo(bytes("v1"));
+
+        // 换到更大的分级
+        byte[] large = new byte[3000];
+        assertThat(store.put("k", large, 60_000)).isTrue();
+        assertThat(store.get("k")).isEqualTo(large);
+        assertThat(store.size()).isEqualTo(1);
+
+        assertThat(store.remove("k")).isTrue();
+        assertThat(store.get("k")).isNull();
+        assertThat(store.size()).isZero();
+    }
+
+    @Test
+    void expiredEntriesAreNotReturned() {
+        OffHeapStore store = new OffHeapStore(SLAB, 1, SLAB);
+        store.putUntil(bytes("old"), bytes("v"), System.currentTimeMillis() - 1);
+
+        assertThat(store.get("old")).isNull();
+        assertThat(store.size()).isZero();
+    }
+
+    @Test
+    void rejectsValuesLargerThanTheLargestClass() {
+        OffHeapStore store = new OffHeapStore(SLAB * 2L, 1, SLAB);
+        store.put("k", bytes("small"), 60_000);
+
+        assertThat(store.put("k", new byte[SLAB], 60_000)).isFalse();
+        // 旧值不能留着
+        assertThat(store.get("k")).isNull();
+    }
+
+    @Test
+    void evictsWithinClassWhenItOwnsTheColdestSlab() {
+        OffHeapStore store = new OffHeapStore(SLAB, 1, SLAB);
+        // 64B 分级：一个 Slab 放 1024 个
+        List<String> keys = fill(store, "s", 1024, 16);
+
+        assertThat(store.put("extra", new byte[16], 60_000)).isTrue();
+
+        assertThat(store.evictions()).isEqualTo(1);
+        assertThat(store.reassigns()).isZero();
+        assertThat(store.size()).isEqualTo(keys.size());
+        assertThat(store.get("extra")).isNotNull();
+    }
+
+    @Test
+    void reassignsSlabOfAnotherClassWhenMemoryIsFull() {
+        OffHeapStore store = new OffHeapStore(SLAB, 1, SLAB);
+        fill(store, "s", 1024, 16);
+
+        // 1KB 分级还没有 Slab，修复前这里会一直返回 false
+        byte[] value = new byte[900];
+        assertThat(store.put("big", value, 60_000)).isTrue();
+
+        assertThat(store.get("big")).isEqualTo(value);
+        assertThat(store.reassigns()).isEqualTo(1);
+        assertThat(store.size()).isEqualTo(1);
+        assertThat(store.allocatedBytes()).isEqualTo(SLAB);
+    }
+
+    @Test
+    void reassignsTheLeastRecentlyUsedSlab() {
+        OffHeapStore store = new OffHeapStore(SLAB * 2L, 1, SLAB);
+        List<String> hot = fill(store, "hot", 1024, 16);
+        List<String> cold = fill(store, "cold", 512, 80);
+        // 访问 64B 分级的 Slab，128B 分级的 Slab 成为最久未访问
+        hot.forEach(store::get);
+
+        assertThat(store.put("big", new byte[900], 60_000)).isTrue();
+
+        assertThat(store.reassigns()).isEqualTo(1);
+        assertThat(hot).allSatisfy(key -> assertThat(store.get(key)).isNotNull());
+        assertThat(cold).allSatisfy(key -> assertThat(store.get(key)).isNull());
+    }
+
+    @Test
+    void forEachVisitsLiveEntries() {
+        OffHeapStore store = new OffHeapStore(SLAB * 2L, 2, SLAB);
+        store.put("a", bytes("1"), 60_000);
+        store.put("b", bytes("2"), 60_000);
+        store.putUntil(bytes("c"), bytes("3"), System.currentTimeMillis() - 1);
+
+        List<String> visited = new ArrayList<>();
+        store.forEach((key, value, expireAt) -> visited.add(new String(key, StandardCharsets.UTF_8)));
+
+        assertThat(visited).containsExactlyInAnyOrder("a", "b");
+    }
+
+    private static List<String> fill(OffHeapStore store, String prefix, int count, int valueSize) {
+        List<String> keys = new ArrayList<>();
+        for (int i = 0; i < count; i++) {
+            String key = prefix + i;
+            assertThat(store.put(key, new byte[valueSize], 60_000)).isTrue();
+            keys.add(key);
+        }
+        assertThat(store.evictions()).isZero();
+        return keys;
+    }
+
+    private static byte[] bytes(String text) {
+        return text.getBytes(StandardCharsets.UTF_8);
+    }
+}
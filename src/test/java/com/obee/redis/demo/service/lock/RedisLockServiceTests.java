@@ -0,0 +1,89 @@
+package com.obee.redis.demo.service.lock;
+
+import com.obee.redis.demo.service.LuaScripts;
+import org.junit.jupiter.api.Test;
+import org.springframework.data.redis.core.script.RedisScript;
+
+import java.time.Duration;
+import java.util.List;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+
+/**
+ * 释放脚本失败时看门狗也必须停止，不能继续为已释放的锁续期
+ */
+class RedisLockServiceTests {
+
+    private static final Duration LEASE = Duration.ofMillis(30);
+
+    private final FakeLuaScripts lua = new FakeLuaScripts();
+
+    private final RedisLockService lockService = new RedisLockService(lua, LEASE);
+
+    @Test
+    void stopsRenewingWhenReleaseFails() throws InterruptedException {
+        RedisLock lock = lockService.tryLock("order", LEASE, Duration.ZERO).orElseThrow();
+        Thread.sleep(50);
+        assertThat(lua.renewals.get()).isPositive();
+
+        lua.releaseFails = true;
+        assertThatThrownBy(lock::close).isInstanceOf(IllegalStateException.class);
+
+        // 取消前已开始的一次续期可能仍在执行
+        Thread.sleep(30);
+        int renewals = lua.renewals.get();
+        Thread.sleep(100);
+        assertThat(lua.renewals.get()).isEqualTo(renewals);
+        lockService.destroy();
+    }
+
+    @Test
+    void keepsRenewingUntilLastReentrantRelease() throws InterruptedException {
+        RedisLock outer = lockService.tryLock("order", LEASE, Duration.ZERO).orElseThrow();
+        RedisLock inner = lockService.tryLock("order", LEASE, Duration.ZERO).orElseThrow();
+
+        inner.close();
+        int renewals = lua.renewals.get();
+        Thread.sleep(50);
+        assertThat(lua.renewals.get()).isGreaterThan(renewals);
+
+        outer.close();
+        Thread.sleep(30);
+        renewals = lua.renewals.get();
+        Thread.sleep(100);
+        assertThat(lua.renewals.get()).isEqualTo(renewals);
+        lockService.destroy();
+    }
+
+    /**
+     * 加锁总是成功（fencing token 1），续期总是成功，释放可以设置为抛出 Redis 异常
+     */
+    private static final class FakeLuaScripts extends LuaScripts {
+
+        private final AtomicInteger renewals = new AtomicInteger();
+
+        private volatile boolean releaseFails;
+
+        FakeLuaScripts() {
+            super(null);
+        }
+
+        @Override
+        @SuppressWarnings("unchecked")
+        public <T> T run(RedisScript<T> script, List<String> keys, Object... args) {
+            if (script == LuaScripts.LOCK_RENEW) {
+                renewals.incrementAndGet();
+                return (T) Long.valueOf(1);
+            }
+            if (script == LuaScripts.LOCK_RELEASE) {
+                if (releaseFails) {
+                    throw new IllegalStateException("redis failover");
+                }
+                return (T) Long.valueOf(0);
+            }
+            return (T) Long.valueOf(1);
+        }
+    }
+}
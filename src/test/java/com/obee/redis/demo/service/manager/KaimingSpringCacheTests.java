@@ -0,0 +1,95 @@
+package com.obee.redis.demo.service.manager;
+
+import com.obee.redis.demo.annotation.KaimingCache;
+import com.obee.redis.demo.service.CacheEngine;
+import org.junit.jupiter.api.Test;
+
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+/**
+ * @CachePut 写入不受删除墓碑限制；写入 null 删除旧值；putIfAbsent 由引擎原子完成
+ * CacheEngine 由 FakeCacheEngine 代替，按 Key 记录当前值
+ */
+class KaimingSpringCacheTests {
+
+    private static final Duration TTL = Duration.ofMinutes(1);
+
+    private final FakeCacheEngine engine = new FakeCacheEngine();
+
+    private final KaimingSpringCache cache = new KaimingSpringCache("users", engine, TTL);
+
+    @Test
+    void putIsExplicitWrite() {
+        cache.evict(1);
+        cache.put(1, "alice");
+
+        assertThat(engine.values).containsEntry("users::1", "alice");
+        assertThat(engine.explicitPuts).containsExactly("users::1");
+    }
+
+    @Test
+    void putNullEvictsOldValue() {
+        cache.put(1, "alice");
+        cache.put(1, null);
+
+        assertThat(engine.values).doesNotContainKey("users::1");
+        assertThat(cache.get(1)).isNull();
+    }
+
+    @Test
+    void putIfAbsentWritesOnlyWhenMissing() {
+        assertThat(cache.putIfAbsent(1, "alice")).isNull();
+
+        assertThat(cache.putIfAbsent(1, "bob").get()).isEqualTo("alice");
+        assertThat(engine.values).containsEntry("users::1", "alice");
+        // 不走读取后再写入的两步
+        assertThat(engine.explicitPuts).isEmpty();
+    }
+
+    @Test
+    void putIfAbsentRejectedButValueGoneReturnsNull() {
+        engine.rejectNx = true;
+
+        assertThat(cache.putIfAbsent(1, "alice")).isNull();
+    }
+
+    private static final class FakeCacheEngine extends CacheEngine {
+
+        private final Map<String, Object> values = new HashMap<>();
+
+        private final List<String> explicitPuts = new ArrayList<>();
+
+        private boolean rejectNx;
+
+        FakeCacheEngine() {
+            super(null, null, null, null, null, null, null, null, null, null, null, Duration.ZERO, Duration.ZERO);
+        }
+
+        @Override
+        public Object get(String cacheName, String key) {
+            return values.get(key);
+        }
+
+        @Override
+        public void put(String cacheName, String key, Object value, Duration ttl, KaimingCache.Storage storage) {
+            explicitPuts.add(key);
+            values.put(key, value);
+        }
+
+        @Override
+        public boolean putIfAbsent(String cacheName, String key, Object value, Duration ttl) {
+            return !rejectNx && values.putIfAbsent(key, value) == null;
+        }
+
+        @Override
+        public void evict(String cacheName, String key) {
+            values.remove(key);
+        }
+    }
+}
@@ -0,0 +1,208 @@
+package com.obee.redis.demo.service.normalize;
+
+import com.fasterxml.jackson.core.type.TypeReference;
+import com.fasterxml.jackson.databind.JavaType;
+import com.obee.redis.demo.model.UserDTO;
+import com.obee.redis.demo.service.CacheEngine;
+import com.obee.redis.demo.service.LuaScripts;
+import com.obee.redis.demo.service.SpelKeyGenerator;
+import com.obee.redis.demo.service.codec.JsonValueCodec;
+import com.obee.redis.demo.service.metadata.CacheMetadataRegistry;
+import com.obee.redis.demo.service.metadata.CacheOperationMetadata;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.Test;
+import org.springframework.dao.InvalidDataAccessApiUsageException;
+import org.springframework.data.redis.core.ListOperations;
+import org.springframework.data.redis.core.StringRedisTemplate;
+import org.springframework.data.redis.core.script.RedisScript;
+import org.springframework.util.ReflectionUtils;
+
+import java.lang.reflect.Proxy;
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+/**
+ * 归一化缓存：ID 列表 + 实体批量读取按顺序组装，实体缺失或查询 Key 上是墓碑时按未命中处理；
+ * 回写时实体只填充缺失的 Key，ID 列表带上回源开始时间的栅栏
+ */
+class NormalizedResultCacheTests {
+
+    private static final String QUERY_KEY = "search:sz";
+
+    private final JsonValueCodec codec = new JsonValueCodec();
+
+    private final MeterRegistry meterRegistry = new SimpleMeterRegistry();
+
+    private final FakeStringRedisTemplate redis = new FakeStringRedisTemplate();
+
+    private final FakeCacheEngine engine = new FakeCacheEngine();
+
+    private final FakeLuaScripts lua = new FakeLuaScripts();
+
+    private final SpelKeyGenerator keyGenerator = new SpelKeyGenerator();
+
+    private final NormalizedResultCache cache;
+
+    private final CacheOperationMetadata metadata;
+
+    NormalizedResultCacheTests() {
+        keyGenerator.setEmbeddedValueResolver(value -> value);
+        cache = new NormalizedResultCache(redis, engine, keyGenerator, lua,
+                new CacheMetadataRegistry(null, keyGenerator, null, codec, null), meterRegistry);
+        JavaType listType = codec.type(new TypeReference<List<UserDTO>>() {
+        }.getType());
+        metadata = new CacheOperationMetadata(ReflectionUtils.findMethod(getClass(), "search", String.class), null,
+                "search", null, "search:", new String[]{"city"}, listType, Duration.ofMinutes(10), null, null, null,
+                keyGenerator.parse("'user:info:' + #id"), "user:info:", keyGenerator.parse("#item.id"),
+                codec.type(UserDTO.class));
+    }
+
+    @Test
+    void assemblesItemsInIdOrder() {
+        redis.ids = List.of("2", "1");
+        engine.items.put("user:info:1", user(1, "alice"));
+        engine.items.put("user:info:2", user(2, "bob"));
+
+        Optional<Collection<Object>> result = cache.get(metadata, QUERY_KEY);
+
+        assertThat(result).hasValueSatisfying(users ->
+                assertThat(users).containsExactly(user(2, "bob"), user(1, "alice")));
+    }
+
+    @Test
+    void missingItemIsAMiss() {
+        redis.ids = List.of("1", "2");
+        engine.items.put("user:info:1", user(1, "alice"));
+
+        assertThat(cache.get(metadata, QUERY_KEY)).isEmpty();
+        assertThat(meterRegistry.get("kaiming.cache.normalized.incomplete").counter().count()).isEqualTo(1);
+    }
+
+    @Test
+    void tombstonedQueryKeyIsAMiss() {
+        redis.failure = new InvalidDataAccessApiUsageException(
+                "WRONGTYPE Operation against a key holding the wrong kind of value");
+
+        assertThat(cache.get(metadata, QUERY_KEY)).isEmpty();
+    }
+
+    @Test
+    void emptyResultRoundTrips() {
+        assertThat(cache.put(metadata, QUERY_KEY, List.of(), Duration.ofMinutes(1), 1_000)).isTrue();
+        assertThat(lua.idListArgs).containsExactly(60_000L, 1_000L, "");
+
+        redis.ids = List.of("");
+        assertThat(cache.get(metadata, QUERY_KEY)).hasValueSatisfying(users -> assertThat(users).isEmpty());
+    }
+
+    @Test
+    void putFillsMissingItemsThenWritesFencedIdList() {
+        List<UserDTO> users = List.of(user(1, "alice"), user(2, "bob"));
+
+        assertThat(cache.put(metadata, QUERY_KEY, users, Duration.ofMinutes(1), 1_000)).isTrue();
+
+        assertThat(engine.onlyIfAbsent).isTrue();
+        assertThat(engine.items).containsOnlyKeys("user:info:1", "user:info:2");
+        assertThat(lua.idListArgs).containsExactly(60_000L, 1_000L, "1", "2");
+    }
+
+    @Test
+    void staleIdListIsRejected() {
+        lua.idListResult = -1L;
+
+        assertThat(cache.put(metadata, QUERY_KEY, List.of(user(1, "alice")), Duration.ofMinutes(1), 1_000)).isFalse();
+    }
+
+    List<UserDTO> search(String city) {
+        return List.of();
+    }
+
+    private static UserDTO user(long id, String name) {
+        UserDTO user = new UserDTO();
+        user.setId(id);
+        user.setName(name);
+        return user;
+    }
+
+    /**
+     * 只实现 LRANGE
+     */
+    private static final class FakeStringRedisTemplate extends StringRedisTemplate {
+
+        private List<String> ids;
+
+        private RuntimeException failure;
+
+        @Override
+        @SuppressWarnings("unchecked")
+        public ListOperations<String, String> opsForList() {
+            return (ListOperations<String, String>) Proxy.newProxyInstance(getClass().getClassLoader(),
+                    new Class<?>[]{ListOperations.class}, (proxy, method, args) -> {
+                        if (!method.getName().equals("range")) {
+                            throw new UnsupportedOperationException(method.getName());
+                        }
+                        if (failure != null) {
+                            throw failure;
+                        }
+                        return ids;
+                    });
+        }
+    }
+
+    /**
+     * 实体缓存：内存 Map，不经过 Redis；时钟误差为 0，栅栏即回源开始时间
+     */
+    private static final class FakeCacheEngine extends CacheEngine {
+
+        private final Map<String, Object> items = new HashMap<>();
+
+        private boolean onlyIfAbsent;
+
+        FakeCacheEngine() {
+            super(null, null, null, null, null, null, null, null, null, null, null, Duration.ZERO, Duration.ZERO);
+        }
+
+        @Override
+        @SuppressWarnings("unchecked")
+        public <T> List<T> getAll(String cacheName, List<String> keys, JavaType type) {
+            List<T> values = new ArrayList<>(keys.size());
+            keys.forEach(key -> values.add((T) items.get(key)));
+            return values;
+        }
+
+        @Override
+        public int putAll(String cacheName, Map<String, ?> values, Duration ttl, long loadStartMillis,
+                          boolean onlyIfAbsent) {
+            this.onlyIfAbsent = onlyIfAbsent;
+            values.forEach(items::putIfAbsent);
+            return values.size();
+        }
+    }
+
+    private static final class FakeLuaScripts extends LuaScripts {
+
+        private List<Object> idListArgs;
+
+        private Long idListResult = 1L;
+
+        FakeLuaScripts() {
+            super(null);
+        }
+
+        @Override
+        @SuppressWarnings("unchecked")
+        public <T> T run(RedisScript<T> script, List<String> keys, Object... args) {
+            assertThat(script).isSameAs(LuaScripts.ID_LIST_SET);
+            idListArgs = List.of(args);
+            return (T) idListResult;
+        }
+    }
+}
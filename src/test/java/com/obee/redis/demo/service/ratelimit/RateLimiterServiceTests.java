@@ -0,0 +1,128 @@
+package com.obee.redis.demo.service.ratelimit;
+
+import com.obee.redis.demo.annotation.RateLimited.Algorithm;
+import com.obee.redis.demo.service.LuaScripts;
+import org.junit.jupiter.api.Test;
+import org.springframework.data.redis.core.script.RedisScript;
+
+import java.time.Clock;
+import java.time.Duration;
+import java.time.Instant;
+import java.time.ZoneId;
+import java.util.ArrayList;
+import java.util.List;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+/**
+ * 本地预放行的数量必须随后续 Redis 检查上报，不能丢失
+ */
+class RateLimiterServiceTests {
+
+    private static final Duration WINDOW = Duration.ofSeconds(2);
+
+    private final FakeLuaScripts lua = new FakeLuaScripts();
+
+    private final MutableClock clock = new MutableClock();
+
+    // 提示值有效期 = min(window / 10, 1s) = 200ms，只随 clock 前进
+    private final RateLimiterService limiter = new RateLimiterService(lua, 0.5, Duration.ofSeconds(1), clock);
+
+    @Test
+    void reportsLocalAdmitsWithNextRedisCheck() {
+        assertThat(acquire()).isTrue();
+        for (int i = 0; i < 3; i++) {
+            assertThat(acquire()).isTrue();
+        }
+        assertThat(lua.reported).containsExactly(0L);
+
+        clock.advance(Duration.ofMillis(200));
+        assertThat(acquire()).isTrue();
+
+        assertThat(lua.reported).containsExactly(0L, 3L);
+    }
+
+    @Test
+    void keepsLocalAdmitsWhenRedisCheckFails() {
+        acquire();
+        acquire();
+        acquire();
+        clock.advance(Duration.ofMillis(200));
+
+        lua.failing = true;
+        assertThat(acquire()).isTrue();
+        lua.failing = false;
+        acquire();
+
+        // 第二次（失败）带上 2，失败后放回，第三次重新上报
+        assertThat(lua.reported).containsExactly(0L, 2L, 2L);
+    }
+
+    @Test
+    void withoutPreFilterEveryCallGoesToRedis() {
+        limiter.tryAcquire("k", 10, WINDOW, Algorithm.TOKEN_BUCKET, false);
+        limiter.tryAcquire("k", 10, WINDOW, Algorithm.TOKEN_BUCKET, false);
+
+        assertThat(lua.reported).containsExactly(0L, 0L);
+    }
+
+    private boolean acquire() {
+        return limiter.tryAcquire("k", 10, WINDOW, Algorithm.TOKEN_BUCKET, true);
+    }
+
+    /**
+     * 只在 advance 时前进的时钟
+     */
+    private static final class MutableClock extends Clock {
+
+        private long millis = 1_000_000L;
+
+        void advance(Duration duration) {
+            millis += duration.toMillis();
+        }
+
+        @Override
+        public long millis() {
+            return millis;
+        }
+
+        @Override
+        public Instant instant() {
+            return Instant.ofEpochMilli(millis);
+        }
+
+        @Override
+        public ZoneId getZone() {
+            return ZoneId.of("UTC");
+        }
+
+        @Override
+        public Clock withZone(ZoneId zone) {
+            return this;
+        }
+    }
+
+    /**
+     * 令牌桶脚本参数：limit, rate, permits, pending；总是返回“放行，剩余 100”
+     */
+    private static final class FakeLuaScripts extends LuaScripts {
+
+        private final List<Long> reported = new ArrayList<>();
+
+        private volatile boolean failing;
+
+        FakeLuaScripts() {
+            super(null);
+        }
+
+        @Override
+        @SuppressWarnings("unchecked")
+        public <T> T run(RedisScript<T> script, List<String> keys, Object... args) {
+            reported.add(((Number) args[3]).longValue());
+            if (failing) {
+                throw new IllegalStateException("redis down");
+            }
+            return (T) List.of(1L, 100L);
+        }
+    }
+}
@@ -0,0 +1,50 @@
+package com.obee.redis.demo.service.response;
+
+import org.junit.jupiter.api.Test;
+import org.springframework.expression.spel.standard.SpelExpressionParser;
+import org.springframework.expression.spel.support.StandardEvaluationContext;
+import org.springframework.mock.web.MockHttpServletRequest;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+
+/**
+ * 路径模式转出的 Key 模板必须与请求时 ResponseCacheService.key 拼出的 Key 相同
+ */
+class ResponseCacheInvalidationTests {
+
+    @Test
+    void templateResolvesToRequestKey() {
+        String template = ResponseCacheInvalidation.template("/api", "/demo/users/{id}", "id", "id");
+
+        MockHttpServletRequest request = new MockHttpServletRequest("GET", "/api/demo/users/1001");
+        request.setContextPath("/api");
+        assertThat(evaluate(template, 1001L)).isEqualTo(ResponseCacheService.key(request));
+    }
+
+    @Test
+    void keepsSuffixAndRegexVariable() {
+        String template = ResponseCacheInvalidation.template("", "/users/{id:\\d+}/profile", "id", "userId");
+
+        assertThat(template).isEqualTo("'resp:/users/' + #userId + '/profile'");
+        assertThat(evaluate(template.replace("#userId", "#id"), 7L)).isEqualTo("resp:/users/7/profile");
+    }
+
+    @Test
+    void rejectsOtherVariablesAndWildcards() {
+        assertThatThrownBy(() -> ResponseCacheInvalidation.template("", "/users/{uid}", "id", "id"))
+                .isInstanceOf(IllegalArgumentException.class);
+        assertThatThrownBy(() -> ResponseCacheInvalidation.template("", "/users/{id}/orders/{orderId}", "id", "id"))
+                .isInstanceOf(IllegalArgumentException.class);
+        assertThatThrownBy(() -> ResponseCacheInvalidation.template("", "/users/{id}/**", "id", "id"))
+                .isInstanceOf(IllegalArgumentException.class);
+        assertThatThrownBy(() -> ResponseCacheInvalidation.template("", "/users", "id", "id"))
+                .isInstanceOf(IllegalArgumentException.class);
+    }
+
+    private static String evaluate(String template, Object id) {
+        StandardEvaluationContext context = new StandardEvaluationContext();
+        context.setVariable("id", id);
+        return new SpelExpressionParser().parseExpression(template).getValue(context, String.class);
+    }
+}
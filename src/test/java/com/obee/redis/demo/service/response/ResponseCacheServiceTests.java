@@ -0,0 +1,49 @@
+package com.obee.redis.demo.service.response;
+
+import org.junit.jupiter.api.Test;
+import org.springframework.http.HttpHeaders;
+import org.springframework.mock.web.MockHttpServletRequest;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+/**
+ * 同一路径的变体：查询参数顺序无关，Accept / Accept-Encoding 不同则是不同变体，Key 不含查询参数
+ */
+class ResponseCacheServiceTests {
+
+    @Test
+    void keyIgnoresQueryString() {
+        assertThat(ResponseCacheService.key(request("a=1", "application/json", "gzip")))
+                .isEqualTo(ResponseCacheService.key(request("b=2", "application/xml", null)))
+                .isEqualTo("resp:/demo/users/1");
+    }
+
+    @Test
+    void variantIgnoresParameterOrder() {
+        assertThat(ResponseCacheService.variant(request("a=1&b=2", "application/json", "gzip")))
+                .isEqualTo(ResponseCacheService.variant(request("b=2&a=1", "application/json", "gzip")));
+    }
+
+    @Test
+    void variantDependsOnParametersAndNegotiationHeaders() {
+        String base = ResponseCacheService.variant(request("a=1", "application/json", "gzip"));
+
+        assertThat(ResponseCacheService.variant(request("a=2", "application/json", "gzip"))).isNotEqualTo(base);
+        assertThat(ResponseCacheService.variant(request("a=1", "application/xml", "gzip"))).isNotEqualTo(base);
+        assertThat(ResponseCacheService.variant(request("a=1", "application/json", null))).isNotEqualTo(base);
+    }
+
+    private static MockHttpServletRequest request(String query, String accept, String acceptEncoding) {
+        MockHttpServletRequest request = new MockHttpServletRequest("GET", "/demo/users/1");
+        request.setQueryString(query);
+        for (String pair : query.split("&")) {
+            String[] kv = pair.split("=");
+            request.addParameter(kv[0], kv[1]);
+        }
+        request.addHeader(HttpHeaders.ACCEPT, accept);
+        if (acceptEncoding != null) {
+            request.addHeader(HttpHeaders.ACCEPT_ENCODING, acceptEncoding);
+        }
+        return request;
+    }
+}
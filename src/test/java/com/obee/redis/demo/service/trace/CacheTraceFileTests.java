@@ -0,0 +1,38 @@
+package com.obee.redis.demo.service.trace;
+
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.List;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+/**
+ * 追踪文件写入后能按原顺序读回，缓存名表以最后一次写入为准
+ */
+class CacheTraceFileTests {
+
+    @TempDir
+    Path dir;
+
+    @Test
+    void roundTripsNamesAndAccesses() throws Exception {
+        Path file = dir.resolve("trace" + CacheTraceFile.SUFFIX);
+        try (CacheTraceFile.Writer writer = CacheTraceFile.create(file, 0.25)) {
+            writer.names(List.of("users"));
+            writer.access(1000, 42, 0, true, 128, 0);
+            writer.names(List.of("users", "configs"));
+            writer.access(2000, 43, 1, false, 64, 900);
+        }
+        List<String> events = new ArrayList<>();
+
+        CacheTraceFile.Header header = CacheTraceFile.read(file, (time, keyHash, cacheId, hit, valueSize, loadMicros) ->
+                events.add(time + "/" + keyHash + "/" + cacheId + "/" + hit + "/" + valueSize + "/" + loadMicros));
+
+        assertThat(header.sampleRate()).isEqualTo(0.25);
+        assertThat(header.cacheNames()).containsExactly("users", "configs");
+        assertThat(events).containsExactly("1000/42/0/true/128/0", "2000/43/1/false/64/900");
+    }
+}
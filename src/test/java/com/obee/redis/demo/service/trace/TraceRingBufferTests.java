@@ -0,0 +1,82 @@
+package com.obee.redis.demo.service.trace;
+
+import org.junit.jupiter.api.Test;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+/**
+ * 多生产者单消费者环形缓冲：满时丢弃并计数，不阻塞调用线程
+ */
+class TraceRingBufferTests {
+
+    @Test
+    void capacityRoundsUpToPowerOfTwo() {
+        assertThat(new TraceRingBuffer(1000).capacity()).isEqualTo(1024);
+        assertThat(new TraceRingBuffer(1024).capacity()).isEqualTo(1024);
+    }
+
+    @Test
+    void drainsEventsInOrderWithAllColumns() {
+        TraceRingBuffer buffer = new TraceRingBuffer(8);
+        buffer.offer(1, 11, 3, true, 100, 0);
+        buffer.offer(2, 22, 65535, false, 200, 1500);
+        List<String> events = new ArrayList<>();
+
+        int drained = buffer.drain((time, keyHash, cacheId, hit, valueSize, loadMicros) ->
+                events.add(time + "/" + keyHash + "/" + cacheId + "/" + hit + "/" + valueSize + "/" + loadMicros));
+
+        assertThat(drained).isEqualTo(2);
+        assertThat(events).containsExactly("1/11/3/true/100/0", "2/22/65535/false/200/1500");
+        assertThat(buffer.drain((t, k, c, h, v, l) -> {
+        })).isZero();
+    }
+
+    @Test
+    void dropsWhenFullAndReusesSlotsAfterDrain() {
+        TraceRingBuffer buffer = new TraceRingBuffer(4);
+        for (int i = 0; i < 4; i++) {
+            assertThat(buffer.offer(i, i, 0, true, 0, 0)).isTrue();
+        }
+
+        assertThat(buffer.offer(9, 9, 0, true, 0, 0)).isFalse();
+        assertThat(buffer.dropped()).isEqualTo(1);
+
+        buffer.drain((t, k, c, h, v, l) -> {
+        });
+        assertThat(buffer.offer(10, 10, 0, true, 0, 0)).isTrue();
+    }
+
+    @Test
+    void concurrentProducersNeverLoseAcceptedEvents() throws InterruptedException {
+        TraceRingBuffer buffer = new TraceRingBuffer(1 << 16);
+        int producers = 8;
+        int perProducer = 5_000;
+        CountDownLatch start = new CountDownLatch(1);
+        try (ExecutorService executor = Executors.newFixedThreadPool(producers)) {
+            for (int p = 0; p < producers; p++) {
+                int id = p;
+                executor.submit(() -> {
+                    start.await();
+                    for (int i = 0; i < perProducer; i++) {
+                        buffer.offer(i, id, id, true, 0, 0);
+                    }
+                    return null;
+                });
+            }
+            start.countDown();
+        }
+        long[] perId = new long[producers];
+        buffer.drain((time, keyHash, cacheId, hit, valueSize, loadMicros) -> perId[cacheId]++);
+
+        for (long count : perId) {
+            assertThat(count).isEqualTo(perProducer);
+        }
+        assertThat(buffer.dropped()).isZero();
+    }
+}